@@ -1,10 +1,14 @@
 package com.bybud.common.config;
 
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
 
+/**
+ * Every service talks to MongoDB through ReactiveMongoTemplate, which only runs the reactive
+ * auditing callback; without it created_date and updated_date are never stamped.
+ */
 @Configuration
-@EnableMongoAuditing
+@EnableReactiveMongoAuditing
 public class MongoConfig {
 
-}
\ No newline at end of file
+}
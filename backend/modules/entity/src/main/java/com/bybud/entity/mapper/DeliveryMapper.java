@@ -2,6 +2,7 @@ package com.bybud.entity.mapper;
 
 import com.bybud.entity.model.Delivery;
 import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.model.GeoLocation;
 import com.bybud.entity.request.CreateDeliveryRequest;
 import com.bybud.entity.response.DeliveryResponse;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -25,6 +26,10 @@ public class DeliveryMapper {
         delivery.setDeliveryDetails(request.getDeliveryDetails());
         delivery.setPickupAddress(request.getPickupAddress());
         delivery.setDeliveryAddress(request.getDeliveryAddress());
+        if (request.getPickupLocation() != null) {
+            delivery.setPickupLocation(request.getPickupLocation().toPoint());
+        }
+        delivery.setDeliveryDate(request.getDeliveryDate());
         delivery.setStatus(DeliveryStatus.CREATED);
         return delivery;
     }
@@ -38,6 +43,7 @@ public class DeliveryMapper {
         response.setCourierUsername(null); // To be set elsewhere if needed.
         response.setDeliveryDetails(delivery.getDeliveryDetails());
         response.setPickupAddress(delivery.getPickupAddress());
+        response.setPickupLocation(GeoLocation.of(delivery.getPickupLocation()));
         response.setDeliveryAddress(delivery.getDeliveryAddress());
         response.setStatus(delivery.getStatus());
         response.setCreatedDate(delivery.getCreatedDate());
@@ -1,16 +1,57 @@
 package com.bybud.entity.model;
 
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDate;
 
-@Document(collection = "deliveries")
+/**
+ * Index plan: every repository finder is served by an index prefix, and the listing sort
+ * (created_date desc, _id desc) is part of each listing index so pages never sort in memory.
+ * Addresses and details share the collection's text index for search; it tokenizes without
+ * stemming since addresses are not English prose. Pickup locations carry a 2dsphere index for
+ * nearest-delivery queries.
+ */
+@Document(collection = "deliveries", language = "none")
+@CompoundIndexes({
+        // findByCustomerId, customer pages
+        @CompoundIndex(name = "customer_created", def = "{'customerId': 1, 'created_date': -1, '_id': -1}"),
+        // findByCourierId, courier pages
+        @CompoundIndex(name = "courier_created", def = "{'courierId': 1, 'created_date': -1, '_id': -1}"),
+        // findByStatus
+        @CompoundIndex(name = "status_created", def = "{'status': 1, 'created_date': -1, '_id': -1}"),
+        // findByCustomerIdAndStatus
+        @CompoundIndex(name = "customer_status_created", def = "{'customerId': 1, 'status': 1, 'created_date': -1}"),
+        // findByCourierIdAndStatus
+        @CompoundIndex(name = "courier_status_created", def = "{'courierId': 1, 'status': 1, 'created_date': -1}"),
+        // unfiltered pages
+        @CompoundIndex(name = "created", def = "{'created_date': -1, '_id': -1}"),
+        // findArchivable
+        @CompoundIndex(name = "status_updated", def = "{'status': 1, 'updated_date': 1}"),
+        // findVersion(customerId), findVersion(courierId)
+        @CompoundIndex(name = "customer_updated", def = "{'customerId': 1, 'updated_date': -1}"),
+        @CompoundIndex(name = "courier_updated", def = "{'courierId': 1, 'updated_date': -1}")
+})
 public class Delivery extends BaseEntity {
 
     private String customerId;
     private String courierId;
+    @TextIndexed
     private String deliveryDetails;
+    @Indexed(name = "delivery_address")
+    @TextIndexed(weight = 3)
     private String deliveryAddress;
+    @Indexed(name = "pickup_address")
+    @TextIndexed(weight = 3)
     private String pickupAddress;
+    // findOpenNear
+    @GeoSpatialIndexed(name = "pickup_location", type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint pickupLocation;
     private DeliveryStatus status = DeliveryStatus.CREATED;
     private LocalDate deliveryDate;
 
@@ -68,6 +109,13 @@ public class Delivery extends BaseEntity {
         this.status = status;
     }
 
+    public GeoJsonPoint getPickupLocation() {
+        return pickupLocation;
+    }
+    public void setPickupLocation(GeoJsonPoint pickupLocation) {
+        this.pickupLocation = pickupLocation;
+    }
+
     public LocalDate getDeliveryDate() {
         return deliveryDate;
     }
@@ -84,6 +132,7 @@ public class Delivery extends BaseEntity {
                 ", deliveryDetails='" + deliveryDetails + '\'' +
                 ", deliveryAddress='" + deliveryAddress + '\'' +
                 ", pickupAddress='" + pickupAddress + '\'' +
+                ", pickupLocation=" + pickupLocation +
                 ", status=" + status +
                 ", deliveryDate=" + deliveryDate +
                 '}';
@@ -1,5 +1,8 @@
 package com.bybud.entity.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Represents the current status of a delivery.
  */
@@ -10,5 +13,24 @@ public enum DeliveryStatus {
     ASSIGNED,      // Courier assigned to the customer
     IN_PROGRESS,   // Courier is picking up or delivering the item
     COMPLETED,     // Delivery completed
-    CANCELLED      // Delivery canceled
+    CANCELLED;     // Delivery canceled
+
+    /**
+     * States a delivery may be in to be moved to this state. Terminal states cannot be left.
+     */
+    public Set<DeliveryStatus> allowedSourceStates() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(DeliveryStatus.class);
+            case CREATED -> EnumSet.of(PENDING);
+            case ACCEPTED -> EnumSet.of(CREATED);
+            case ASSIGNED -> EnumSet.of(CREATED, ACCEPTED);
+            case IN_PROGRESS -> EnumSet.of(ACCEPTED, ASSIGNED);
+            case COMPLETED -> EnumSet.of(ACCEPTED, ASSIGNED, IN_PROGRESS);
+            case CANCELLED -> EnumSet.of(PENDING, CREATED, ACCEPTED, ASSIGNED, IN_PROGRESS);
+        };
+    }
+
+    public boolean canTransitionFrom(DeliveryStatus current) {
+        return allowedSourceStates().contains(current);
+    }
 }
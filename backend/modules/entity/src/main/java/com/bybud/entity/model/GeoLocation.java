@@ -0,0 +1,57 @@
+package com.bybud.entity.model;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+/**
+ * A WGS84 position as exchanged with clients. Stored as a {@link GeoJsonPoint}, which orders
+ * coordinates longitude first.
+ */
+public class GeoLocation {
+
+    @NotNull(message = "Latitude is required.")
+    @DecimalMin(value = "-90.0", message = "Latitude must be between -90 and 90.")
+    @DecimalMax(value = "90.0", message = "Latitude must be between -90 and 90.")
+    private Double latitude;
+
+    @NotNull(message = "Longitude is required.")
+    @DecimalMin(value = "-180.0", message = "Longitude must be between -180 and 180.")
+    @DecimalMax(value = "180.0", message = "Longitude must be between -180 and 180.")
+    private Double longitude;
+
+    public GeoLocation() {}
+
+    public GeoLocation(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public static GeoLocation of(GeoJsonPoint point) {
+        return point != null ? new GeoLocation(point.getY(), point.getX()) : null;
+    }
+
+    public GeoJsonPoint toPoint() {
+        return new GeoJsonPoint(longitude, latitude);
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    @Override
+    public String toString() {
+        return "GeoLocation{latitude=" + latitude + ", longitude=" + longitude + '}';
+    }
+}
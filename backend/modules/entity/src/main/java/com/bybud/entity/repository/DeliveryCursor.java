@@ -0,0 +1,42 @@
+package com.bybud.entity.repository;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a delivery listing ordered by created_date and _id, both descending.
+ * Deliveries without a created_date sort after all dated ones, so a cursor may carry a null date.
+ * Clients only see the opaque token produced by {@link #encode()}.
+ */
+public record DeliveryCursor(@Nullable LocalDateTime createdDate, String id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = (createdDate != null ? createdDate.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static DeliveryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Malformed delivery cursor");
+            }
+            return new DeliveryCursor(
+                    separator == 0 ? null : LocalDateTime.parse(raw.substring(0, separator)),
+                    raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed delivery cursor", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.bybud.entity.repository;
+
+import com.bybud.entity.response.DeliveryResponse;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldset for delivery listings, parsed from a {@code fields=} query parameter such as
+ * {@code fields=id,status,pickupAddress}. Each response field knows which document properties it is
+ * built from, so list queries can project just those and skip e.g. the free-text delivery details.
+ */
+public final class DeliveryFieldSet {
+
+    /**
+     * Selectable {@link DeliveryResponse} fields and the document properties each one reads.
+     */
+    public enum Field {
+        ID("id", "id"),
+        CUSTOMER_ID("customerId", "customerId"),
+        CUSTOMER_NAME("customerName", "customerId"),
+        COURIER_ID("courierId", "courierId"),
+        COURIER_USERNAME("courierUsername", "courierId"),
+        DELIVERY_DETAILS("deliveryDetails", "deliveryDetails"),
+        PICKUP_ADDRESS("pickupAddress", "pickupAddress"),
+        PICKUP_LOCATION("pickupLocation", "pickupLocation"),
+        DELIVERY_ADDRESS("deliveryAddress", "deliveryAddress"),
+        STATUS("status", "status"),
+        CREATED_DATE("createdDate", "createdDate"),
+        UPDATED_DATE("updatedDate", "updatedDate");
+
+        private final String name;
+        private final String property;
+
+        Field(String name, String property) {
+            this.name = name;
+            this.property = property;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        static Field fromName(String name) {
+            return Arrays.stream(values())
+                    .filter(field -> field.name.equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown delivery field: " + name));
+        }
+    }
+
+    public static final DeliveryFieldSet ALL = new DeliveryFieldSet(EnumSet.allOf(Field.class));
+
+    private final Set<Field> fields;
+
+    private DeliveryFieldSet(Set<Field> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Parses a comma-separated list of response field names. Null or blank means all fields.
+     *
+     * @throws IllegalArgumentException for an unknown field name
+     */
+    public static DeliveryFieldSet parse(@Nullable String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<Field> selected = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(Field::fromName)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(Field.class)));
+        return selected.isEmpty() ? ALL : new DeliveryFieldSet(selected);
+    }
+
+    public boolean isAll() {
+        return fields.size() == Field.values().length;
+    }
+
+    public boolean includes(Field field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * True when the response needs user display data, i.e. a customer name or courier username.
+     */
+    public boolean needsUserLookup() {
+        return includes(Field.CUSTOMER_NAME) || includes(Field.COURIER_USERNAME);
+    }
+
+    /**
+     * Document properties to load. {@code id} and {@code createdDate} are always kept because
+     * listings order and paginate on them.
+     */
+    public Set<String> documentProperties() {
+        Set<String> properties = new LinkedHashSet<>();
+        properties.add(Field.ID.property);
+        properties.add(Field.CREATED_DATE.property);
+        fields.forEach(field -> properties.add(field.property));
+        return properties;
+    }
+
+    /**
+     * Restricts the query to the document properties this fieldset needs; a no-op for all fields.
+     */
+    public Query applyTo(Query query) {
+        if (!isAll()) {
+            documentProperties().forEach(property -> query.fields().include(property));
+        }
+        return query;
+    }
+
+    /**
+     * Clears the response fields that were not requested, including ones that were only loaded
+     * as inputs for other fields or for paging.
+     */
+    public DeliveryResponse mask(DeliveryResponse response) {
+        if (isAll()) {
+            return response;
+        }
+        if (!includes(Field.ID)) response.setId(null);
+        if (!includes(Field.CUSTOMER_ID)) response.setCustomerId(null);
+        if (!includes(Field.CUSTOMER_NAME)) response.setCustomerName(null);
+        if (!includes(Field.COURIER_ID)) response.setCourierId(null);
+        if (!includes(Field.COURIER_USERNAME)) response.setCourierUsername(null);
+        if (!includes(Field.DELIVERY_DETAILS)) response.setDeliveryDetails(null);
+        if (!includes(Field.PICKUP_ADDRESS)) response.setPickupAddress(null);
+        if (!includes(Field.PICKUP_LOCATION)) response.setPickupLocation(null);
+        if (!includes(Field.DELIVERY_ADDRESS)) response.setDeliveryAddress(null);
+        if (!includes(Field.STATUS)) response.setStatus(null);
+        if (!includes(Field.CREATED_DATE)) response.setCreatedDate(null);
+        if (!includes(Field.UPDATED_DATE)) response.setUpdatedDate(null);
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return fields.stream().map(Field::getName).collect(Collectors.joining(","));
+    }
+}
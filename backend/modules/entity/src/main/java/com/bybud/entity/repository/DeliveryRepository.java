@@ -8,7 +8,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface DeliveryRepository extends ReactiveMongoRepository<Delivery, String> {
+public interface DeliveryRepository extends ReactiveMongoRepository<Delivery, String>, DeliveryRepositoryCustom {
 
     // Find deliveries by customerId (as String)
     Flux<Delivery> findByCustomerId(String customerId);
@@ -0,0 +1,135 @@
+package com.bybud.entity.repository;
+
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Delivery queries that need the template rather than derived finders.
+ */
+public interface DeliveryRepositoryCustom {
+
+    /**
+     * Collection holding deliveries moved out of the live collection by {@link #archive(List)}.
+     * Documents keep their ids and field layout, so the same queries and cursors work against it.
+     */
+    String ARCHIVE_COLLECTION = "deliveries_archive";
+
+    /**
+     * Returns at most {@code limit} deliveries matching {@code filter}, newest first, starting strictly
+     * after {@code after}. Each page is one range scan on (created_date, _id) whatever the collection size.
+     *
+     * @param filter optional filter such as customerId or courierId; null for all deliveries
+     * @param after position of the last delivery of the previous page; null for the first page
+     * @param limit maximum number of deliveries to return
+     */
+    default Flux<Delivery> findPage(@Nullable Criteria filter, @Nullable DeliveryCursor after, int limit) {
+        return findPage(filter, after, limit, DeliveryFieldSet.ALL);
+    }
+
+    /**
+     * Variant of {@link #findPage(Criteria, DeliveryCursor, int)} that loads only the document
+     * properties needed for {@code fields}.
+     */
+    Flux<Delivery> findPage(@Nullable Criteria filter, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields);
+
+    /**
+     * Returns all deliveries matching {@code filter}, loading only the document properties needed for {@code fields}.
+     *
+     * @param filter optional filter such as customerId or courierId; null for all deliveries
+     */
+    Flux<Delivery> findProjected(@Nullable Criteria filter, DeliveryFieldSet fields);
+
+    /**
+     * Variant of {@link #findProjected(Criteria, DeliveryFieldSet)} returning at most {@code limit} deliveries.
+     */
+    Flux<Delivery> findProjected(@Nullable Criteria filter, DeliveryFieldSet fields, int limit);
+
+    /**
+     * Assigns {@code courierId} to the delivery and moves it to {@link DeliveryStatus#ASSIGNED} in a single
+     * conditional findAndModify, only if it is still {@link DeliveryStatus#CREATED}. Concurrent callers
+     * cannot both succeed.
+     *
+     * @return the updated delivery, or empty if the delivery does not exist or is no longer CREATED
+     */
+    Mono<Delivery> assignCourierIfCreated(String id, String courierId);
+
+    /**
+     * Returns the ids of at most {@code limit} deliveries matching {@code filter}, reading only {@code _id}.
+     */
+    Flux<String> findIds(Criteria filter, int limit);
+
+    /**
+     * Moves every listed delivery whose status is one of {@code from} to {@code to} with one updateMany,
+     * stamping {@code updatedDate} with {@code stamp} so the caller can read back exactly what it changed.
+     *
+     * @return the number of deliveries modified
+     */
+    Mono<Long> transitionStatus(Collection<String> ids, Set<DeliveryStatus> from, DeliveryStatus to, LocalDateTime stamp);
+
+    /**
+     * Returns at most {@code limit} deliveries in one of {@code statuses} last modified before {@code before}.
+     * Deliveries without a modification date are judged by their creation date.
+     */
+    Flux<Delivery> findArchivable(Set<DeliveryStatus> statuses, LocalDateTime before, int limit);
+
+    /**
+     * Copies the deliveries into {@link #ARCHIVE_COLLECTION} with one unordered bulk upsert, then deletes
+     * those still matching {@link #findArchivable} with the same {@code statuses} and {@code before} from
+     * the live collection. A delivery changed in between stays live and its archive copy is removed.
+     * Re-running a batch interrupted between the two steps is harmless.
+     *
+     * @return the number of deliveries removed from the live collection
+     */
+    Mono<Long> archive(List<Delivery> deliveries, Set<DeliveryStatus> statuses, LocalDateTime before);
+
+    /**
+     * Variant of {@link #findPage(Criteria, DeliveryCursor, int, DeliveryFieldSet)} reading the archive.
+     */
+    Flux<Delivery> findArchivedPage(@Nullable Criteria filter, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields);
+
+    /**
+     * Variant of {@link #findProjected(Criteria, DeliveryFieldSet)} reading the archive.
+     */
+    Flux<Delivery> findArchivedProjected(@Nullable Criteria filter, DeliveryFieldSet fields);
+
+    /**
+     * Version stamp of the deliveries matching {@code filter}: one count and one top-1 read of
+     * {@code updated_date}, both answered from the owner/updated_date indexes without loading documents.
+     */
+    Mono<DeliveryVersion> findVersion(Criteria filter);
+
+    /**
+     * Variant of {@link #findVersion(Criteria)} reading the archive.
+     */
+    Mono<DeliveryVersion> findArchivedVersion(Criteria filter);
+
+    /**
+     * Page of deliveries whose addresses or details contain any word of {@code terms} (quoted phrases must
+     * match as a whole), via the text index, in the same newest-first keyset order as {@link #findPage}.
+     * The query is aborted by the server after {@code maxTime}.
+     */
+    Flux<Delivery> searchText(String terms, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields, Duration maxTime);
+
+    /**
+     * Page of deliveries whose delivery or pickup address starts with {@code prefix} (case-sensitive,
+     * so each branch is a bounded scan of its address index), newest first. Aborted after {@code maxTime}.
+     */
+    Flux<Delivery> searchAddressPrefix(String prefix, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields, Duration maxTime);
+
+    /**
+     * Returns at most {@code limit} CREATED deliveries whose pickup location lies within
+     * {@code maxDistanceMeters} of {@code point}, nearest first, via the pickup_location 2dsphere index.
+     */
+    Flux<Delivery> findOpenNear(GeoJsonPoint point, double maxDistanceMeters, int limit, DeliveryFieldSet fields);
+}
@@ -0,0 +1,234 @@
+package com.bybud.entity.repository;
+
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Template-backed implementation of {@link DeliveryRepositoryCustom}, picked up by Spring Data
+ * through the Impl suffix.
+ */
+public class DeliveryRepositoryCustomImpl implements DeliveryRepositoryCustom {
+
+    static final Sort PAGE_SORT = Sort.by(Sort.Direction.DESC, "createdDate", "id");
+
+    private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}/]");
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public DeliveryRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Delivery> findPage(@Nullable Criteria filter, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields) {
+        return mongoTemplate.find(pageQuery(filter, after, limit, fields), Delivery.class);
+    }
+
+    @Override
+    public Flux<Delivery> findArchivedPage(@Nullable Criteria filter, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields) {
+        return mongoTemplate.find(pageQuery(filter, after, limit, fields), Delivery.class, ARCHIVE_COLLECTION);
+    }
+
+    private static Query pageQuery(@Nullable CriteriaDefinition filter, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields) {
+        Query query = new Query();
+        Criteria keyset = after == null ? null : keyset(after);
+        if (filter instanceof Criteria criteria && keyset != null) {
+            // a Query holds one criteria per key, and a filter built from operators has none either
+            query.addCriteria(new Criteria().andOperator(criteria, keyset));
+        } else {
+            if (filter != null) {
+                query.addCriteria(filter);
+            }
+            if (keyset != null) {
+                query.addCriteria(keyset);
+            }
+        }
+        query.with(PAGE_SORT).limit(limit);
+        return fields.applyTo(query);
+    }
+
+    /**
+     * (created_date, _id) < (after.createdDate, after.id) in descending keyset order. A descending
+     * sort puts deliveries without a created_date last, and $lt never matches them, so they are
+     * reached through their own branch.
+     */
+    private static Criteria keyset(DeliveryCursor after) {
+        if (after.createdDate() == null) {
+            return Criteria.where("createdDate").is(null).and("id").lt(after.id());
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdDate").lt(after.createdDate()),
+                Criteria.where("createdDate").is(after.createdDate()).and("id").lt(after.id()),
+                Criteria.where("createdDate").is(null));
+    }
+
+    @Override
+    public Flux<Delivery> findProjected(@Nullable Criteria filter, DeliveryFieldSet fields) {
+        Query query = filter != null ? Query.query(filter) : new Query();
+        return mongoTemplate.find(fields.applyTo(query), Delivery.class);
+    }
+
+    @Override
+    public Flux<Delivery> findArchivedProjected(@Nullable Criteria filter, DeliveryFieldSet fields) {
+        Query query = filter != null ? Query.query(filter) : new Query();
+        return mongoTemplate.find(fields.applyTo(query), Delivery.class, ARCHIVE_COLLECTION);
+    }
+
+    @Override
+    public Flux<Delivery> findProjected(@Nullable Criteria filter, DeliveryFieldSet fields, int limit) {
+        Query query = filter != null ? Query.query(filter) : new Query();
+        return mongoTemplate.find(fields.applyTo(query.limit(limit)), Delivery.class);
+    }
+
+    @Override
+    public Mono<Delivery> assignCourierIfCreated(String id, String courierId) {
+        Query query = Query.query(Criteria.where("id").is(id).and("status").is(DeliveryStatus.CREATED));
+        // findAndModify bypasses auditing, so the modification date is stamped here
+        Update update = new Update()
+                .set("courierId", courierId)
+                .set("status", DeliveryStatus.ASSIGNED)
+                .set("updatedDate", LocalDateTime.now());
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Delivery.class);
+    }
+
+    @Override
+    public Flux<String> findIds(Criteria filter, int limit) {
+        Query query = Query.query(filter).limit(limit);
+        query.fields().include("id");
+        return mongoTemplate.find(query, Delivery.class).map(Delivery::getId);
+    }
+
+    @Override
+    public Mono<Long> transitionStatus(Collection<String> ids, Set<DeliveryStatus> from, DeliveryStatus to, LocalDateTime stamp) {
+        Query query = Query.query(Criteria.where("id").in(ids).and("status").in(from));
+        // updateMany bypasses auditing, so the modification date is stamped here
+        Update update = new Update()
+                .set("status", to)
+                .set("updatedDate", stamp);
+        return mongoTemplate.updateMulti(query, update, Delivery.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    @Override
+    public Flux<Delivery> findArchivable(Set<DeliveryStatus> statuses, LocalDateTime before, int limit) {
+        return mongoTemplate.find(Query.query(archivable(statuses, before)).limit(limit), Delivery.class);
+    }
+
+    private static Criteria archivable(Set<DeliveryStatus> statuses, LocalDateTime before) {
+        return Criteria.where("status").in(statuses).orOperator(
+                Criteria.where("updatedDate").lt(before),
+                // never stamped with a modification date: its creation date is the last known change
+                Criteria.where("updatedDate").is(null).and("createdDate").lt(before));
+    }
+
+    @Override
+    public Mono<Long> archive(List<Delivery> deliveries, Set<DeliveryStatus> statuses, LocalDateTime before) {
+        if (deliveries.isEmpty()) {
+            return Mono.just(0L);
+        }
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Delivery.class, ARCHIVE_COLLECTION);
+        deliveries.forEach(delivery -> bulk.replaceOne(
+                Query.query(Criteria.where("id").is(delivery.getId())), delivery, FindAndReplaceOptions.options().upsert()));
+        List<String> ids = deliveries.stream().map(Delivery::getId).toList();
+        // a delivery changed since it was read no longer matches, and keeps its live copy
+        Query stillArchivable = Query.query(new Criteria().andOperator(
+                Criteria.where("id").in(ids), archivable(statuses, before)));
+
+        // only delete once every copy is durable in the archive
+        return bulk.execute()
+                .then(mongoTemplate.remove(stillArchivable, Delivery.class))
+                .map(DeleteResult::getDeletedCount)
+                .flatMap(deleted -> deleted == ids.size()
+                        ? Mono.just(deleted)
+                        : dropStaleArchiveCopies(ids).thenReturn(deleted));
+    }
+
+    /**
+     * Removes the archive copies of the listed deliveries that are still live, as their copies
+     * predate a change made after they were read.
+     */
+    private Mono<Void> dropStaleArchiveCopies(List<String> ids) {
+        Query live = Query.query(Criteria.where("id").in(ids));
+        live.fields().include("id");
+        return mongoTemplate.find(live, Delivery.class)
+                .map(Delivery::getId)
+                .collectList()
+                .filter(stale -> !stale.isEmpty())
+                .flatMap(stale -> mongoTemplate.remove(Query.query(Criteria.where("id").in(stale)), Delivery.class, ARCHIVE_COLLECTION))
+                .then();
+    }
+
+    @Override
+    public Mono<DeliveryVersion> findVersion(Criteria filter) {
+        return version(filter, mongoTemplate.getCollectionName(Delivery.class));
+    }
+
+    @Override
+    public Mono<DeliveryVersion> findArchivedVersion(Criteria filter) {
+        return version(filter, ARCHIVE_COLLECTION);
+    }
+
+    private Mono<DeliveryVersion> version(Criteria filter, String collection) {
+        Query latest = Query.query(filter).with(Sort.by(Sort.Direction.DESC, "updatedDate")).limit(1);
+        // projecting only the indexed key lets the top-1 read be covered by the index
+        latest.fields().include("updatedDate").exclude("id");
+
+        return Mono.zip(
+                mongoTemplate.count(Query.query(filter), Delivery.class, collection),
+                mongoTemplate.findOne(latest, Delivery.class, collection)
+                        .map(delivery -> Optional.ofNullable(delivery.getUpdatedDate()))
+                        .defaultIfEmpty(Optional.empty()))
+                .map(tuple -> new DeliveryVersion(tuple.getT1(), tuple.getT2().orElse(null)));
+    }
+
+    @Override
+    public Flux<Delivery> searchText(String terms, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields, Duration maxTime) {
+        Query query = pageQuery(TextCriteria.forDefaultLanguage().matching(terms), after, limit, fields);
+        return mongoTemplate.find(query.maxTime(maxTime), Delivery.class);
+    }
+
+    @Override
+    public Flux<Delivery> searchAddressPrefix(String prefix, @Nullable DeliveryCursor after, int limit, DeliveryFieldSet fields, Duration maxTime) {
+        // escaped literal rather than \Q..\E, which the planner cannot turn into index bounds
+        String anchored = "^" + REGEX_METACHARACTERS.matcher(prefix).replaceAll("\\\\$0");
+        Criteria matches = new Criteria().orOperator(
+                Criteria.where("deliveryAddress").regex(anchored),
+                Criteria.where("pickupAddress").regex(anchored));
+        Query query = pageQuery(matches, after, limit, fields);
+        return mongoTemplate.find(query.maxTime(maxTime), Delivery.class);
+    }
+
+    @Override
+    public Flux<Delivery> findOpenNear(GeoJsonPoint point, double maxDistanceMeters, int limit, DeliveryFieldSet fields) {
+        // with a GeoJSON point the distance is in meters
+        Query query = new Query(Criteria.where("status").is(DeliveryStatus.CREATED)
+                .and("pickupLocation").nearSphere(point).maxDistance(maxDistanceMeters))
+                .limit(limit);
+        return mongoTemplate.find(fields.applyTo(query), Delivery.class);
+    }
+}
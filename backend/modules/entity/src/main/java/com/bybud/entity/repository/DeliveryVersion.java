@@ -0,0 +1,33 @@
+package com.bybud.entity.repository;
+
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Cheap version stamp of a delivery listing: how many deliveries match and when the most recent
+ * one changed. Any insert, update or delete of a matching delivery changes one of the two.
+ */
+public record DeliveryVersion(long count, @Nullable LocalDateTime lastUpdated) {
+
+    public static final DeliveryVersion EMPTY = new DeliveryVersion(0, null);
+
+    /**
+     * Combines the stamps of two disjoint listings, e.g. the live and archived deliveries of one owner.
+     */
+    public DeliveryVersion plus(DeliveryVersion other) {
+        LocalDateTime latest = lastUpdated == null || (other.lastUpdated != null && other.lastUpdated.isAfter(lastUpdated))
+                ? other.lastUpdated
+                : lastUpdated;
+        return new DeliveryVersion(count + other.count, latest);
+    }
+
+    /**
+     * Compact token for use in an entity tag.
+     */
+    public String token() {
+        long millis = lastUpdated != null ? lastUpdated.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+        return count + "-" + Long.toString(millis, 36);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bybud.entity.request;
+
+import com.bybud.entity.model.DeliveryStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Request DTO for moving many deliveries to one status.
+ * Targets either the listed delivery IDs or every delivery matching the filter fields.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkStatusUpdateRequest {
+
+    @NotNull(message = "Target status is required.")
+    private DeliveryStatus status;
+
+    private List<String> deliveryIds;
+
+    // Filter fields, combined with AND; used when no delivery IDs are given
+    private String customerId;
+    private String courierId;
+    private DeliveryStatus currentStatus;
+
+    // Getters and Setters
+    public DeliveryStatus getStatus() {
+        return status;
+    }
+    public void setStatus(DeliveryStatus status) {
+        this.status = status;
+    }
+
+    public List<String> getDeliveryIds() {
+        return deliveryIds;
+    }
+    public void setDeliveryIds(List<String> deliveryIds) {
+        this.deliveryIds = deliveryIds;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public String getCourierId() {
+        return courierId;
+    }
+    public void setCourierId(String courierId) {
+        this.courierId = courierId;
+    }
+
+    public DeliveryStatus getCurrentStatus() {
+        return currentStatus;
+    }
+    public void setCurrentStatus(DeliveryStatus currentStatus) {
+        this.currentStatus = currentStatus;
+    }
+}
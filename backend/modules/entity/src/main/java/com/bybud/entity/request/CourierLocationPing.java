@@ -0,0 +1,35 @@
+package com.bybud.entity.request;
+
+import com.bybud.entity.model.GeoLocation;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One GPS fix reported by a courier's device. Devices may send several fixes per request; the
+ * time the fix was taken is optional and defaults to the time the request was received.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourierLocationPing extends GeoLocation {
+
+    // Epoch milliseconds at which the device took the fix
+    private Long recordedAt;
+
+    public CourierLocationPing() {}
+
+    public CourierLocationPing(double latitude, double longitude, Long recordedAt) {
+        super(latitude, longitude);
+        this.recordedAt = recordedAt;
+    }
+
+    public Long getRecordedAt() {
+        return recordedAt;
+    }
+    public void setRecordedAt(Long recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "CourierLocationPing{latitude=" + getLatitude() + ", longitude=" + getLongitude()
+                + ", recordedAt=" + recordedAt + '}';
+    }
+}
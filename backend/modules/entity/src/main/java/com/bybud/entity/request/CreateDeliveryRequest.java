@@ -1,6 +1,8 @@
 package com.bybud.entity.request;
 
+import com.bybud.entity.model.GeoLocation;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -28,6 +30,10 @@ public class  CreateDeliveryRequest {
     @Size(max = 255, message = "Pickup address cannot exceed 255 characters.")
     private String pickupAddress;
 
+    // Optional pickup coordinates; deliveries without them are not matched to nearby couriers.
+    @Valid
+    private GeoLocation pickupLocation;
+
     // Optional delivery date; no validation so it can be null.
     private LocalDate deliveryDate;
 
@@ -60,6 +66,13 @@ public class  CreateDeliveryRequest {
         this.pickupAddress = pickupAddress;
     }
 
+    public GeoLocation getPickupLocation() {
+        return pickupLocation;
+    }
+    public void setPickupLocation(GeoLocation pickupLocation) {
+        this.pickupLocation = pickupLocation;
+    }
+
     public LocalDate getDeliveryDate() {
         return deliveryDate;
     }
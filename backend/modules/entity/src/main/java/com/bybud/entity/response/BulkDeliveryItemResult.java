@@ -0,0 +1,66 @@
+package com.bybud.entity.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of one item of a bulk delivery request, reported at the item's position in the request.
+ * Either {@code delivery} or {@code errors} is set.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkDeliveryItemResult {
+
+    private int index;
+    private boolean success;
+    private DeliveryResponse delivery;
+    private List<String> errors;
+
+    public BulkDeliveryItemResult() {}
+
+    public static BulkDeliveryItemResult created(int index, DeliveryResponse delivery) {
+        BulkDeliveryItemResult result = new BulkDeliveryItemResult();
+        result.index = index;
+        result.success = true;
+        result.delivery = delivery;
+        return result;
+    }
+
+    public static BulkDeliveryItemResult rejected(int index, List<String> errors) {
+        BulkDeliveryItemResult result = new BulkDeliveryItemResult();
+        result.index = index;
+        result.success = false;
+        result.errors = errors;
+        return result;
+    }
+
+    // Getters and Setters
+
+    public int getIndex() {
+        return index;
+    }
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public DeliveryResponse getDelivery() {
+        return delivery;
+    }
+    public void setDelivery(DeliveryResponse delivery) {
+        this.delivery = delivery;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
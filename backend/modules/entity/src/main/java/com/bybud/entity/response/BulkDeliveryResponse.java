@@ -0,0 +1,44 @@
+package com.bybud.entity.response;
+
+import java.util.List;
+
+/**
+ * Per-item results of a bulk delivery request, in request order, with totals.
+ */
+public class BulkDeliveryResponse {
+
+    private List<BulkDeliveryItemResult> results;
+    private int succeeded;
+    private int failed;
+
+    public BulkDeliveryResponse() {}
+
+    public BulkDeliveryResponse(List<BulkDeliveryItemResult> results) {
+        this.results = results;
+        this.succeeded = (int) results.stream().filter(BulkDeliveryItemResult::isSuccess).count();
+        this.failed = results.size() - succeeded;
+    }
+
+    // Getters and Setters
+
+    public List<BulkDeliveryItemResult> getResults() {
+        return results;
+    }
+    public void setResults(List<BulkDeliveryItemResult> results) {
+        this.results = results;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+}
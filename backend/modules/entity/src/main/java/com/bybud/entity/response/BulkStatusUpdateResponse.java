@@ -0,0 +1,47 @@
+package com.bybud.entity.response;
+
+import com.bybud.entity.model.DeliveryStatus;
+
+import java.util.List;
+
+/**
+ * Result of a bulk status transition: the deliveries that were moved and the targeted ones that
+ * were left unchanged because they were missing or not in an allowed source state.
+ */
+public class BulkStatusUpdateResponse {
+
+    private DeliveryStatus status;
+    private List<String> updatedIds;
+    private List<String> skippedIds;
+
+    public BulkStatusUpdateResponse() {}
+
+    public BulkStatusUpdateResponse(DeliveryStatus status, List<String> updatedIds, List<String> skippedIds) {
+        this.status = status;
+        this.updatedIds = updatedIds;
+        this.skippedIds = skippedIds;
+    }
+
+    // Getters and Setters
+
+    public DeliveryStatus getStatus() {
+        return status;
+    }
+    public void setStatus(DeliveryStatus status) {
+        this.status = status;
+    }
+
+    public List<String> getUpdatedIds() {
+        return updatedIds;
+    }
+    public void setUpdatedIds(List<String> updatedIds) {
+        this.updatedIds = updatedIds;
+    }
+
+    public List<String> getSkippedIds() {
+        return skippedIds;
+    }
+    public void setSkippedIds(List<String> skippedIds) {
+        this.skippedIds = skippedIds;
+    }
+}
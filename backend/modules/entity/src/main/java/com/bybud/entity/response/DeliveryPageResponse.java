@@ -0,0 +1,36 @@
+package com.bybud.entity.response;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated delivery listing.
+ * {@code nextCursor} is null when there are no further pages.
+ */
+public class DeliveryPageResponse {
+
+    private List<DeliveryResponse> items;
+    private String nextCursor;
+
+    public DeliveryPageResponse() {}
+
+    public DeliveryPageResponse(List<DeliveryResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+
+    public List<DeliveryResponse> getItems() {
+        return items;
+    }
+    public void setItems(List<DeliveryResponse> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,12 +1,16 @@
 package com.bybud.entity.response;
 
 import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.model.GeoLocation;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
 
 /**
  * Response DTO for delivery details.
  * Used in the reactive controllers as part of a Mono stream.
+ * Null fields are omitted so sparse fieldsets only carry the requested fields.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class DeliveryResponse {
 
     private String id;
@@ -16,6 +20,7 @@ public class DeliveryResponse {
     private String courierUsername;
     private String deliveryDetails;
     private String pickupAddress;
+    private GeoLocation pickupLocation;
     private String deliveryAddress;
     private DeliveryStatus status;
     private LocalDateTime createdDate;
@@ -72,6 +77,13 @@ public class DeliveryResponse {
         this.pickupAddress = pickupAddress;
     }
 
+    public GeoLocation getPickupLocation() {
+        return pickupLocation;
+    }
+    public void setPickupLocation(GeoLocation pickupLocation) {
+        this.pickupLocation = pickupLocation;
+    }
+
     public String getDeliveryAddress() {
         return deliveryAddress;
     }
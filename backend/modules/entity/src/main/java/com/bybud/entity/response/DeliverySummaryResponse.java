@@ -0,0 +1,46 @@
+package com.bybud.entity.response;
+
+import com.bybud.entity.model.DeliveryStatus;
+
+import java.util.Map;
+
+/**
+ * Delivery counts per status for one customer or courier, as shown on dashboards.
+ */
+public class DeliverySummaryResponse {
+
+    private String ownerId;
+    private Map<DeliveryStatus, Long> counts;
+    private long total;
+
+    public DeliverySummaryResponse() {}
+
+    public DeliverySummaryResponse(String ownerId, Map<DeliveryStatus, Long> counts) {
+        this.ownerId = ownerId;
+        this.counts = counts;
+        this.total = counts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    // Getters and Setters
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Map<DeliveryStatus, Long> getCounts() {
+        return counts;
+    }
+    public void setCounts(Map<DeliveryStatus, Long> counts) {
+        this.counts = counts;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,101 @@
+package com.bybud.entity.repository;
+
+import com.bybud.entity.model.Delivery;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeliveryRepositoryCustomImplTest {
+
+    private static final DeliveryCursor AFTER = new DeliveryCursor(LocalDateTime.of(2025, 1, 1, 12, 0), "delivery5");
+
+    private ReactiveMongoTemplate mongoTemplate;
+    private DeliveryRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Delivery.class))).thenReturn(Flux.empty());
+        repository = new DeliveryRepositoryCustomImpl(mongoTemplate);
+    }
+
+    private Document executedQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Delivery.class));
+        return query.getValue().getQueryObject();
+    }
+
+    @Test
+    void prefixSearchAfterACursorCombinesBothOrsInOneAnd() {
+        List<Delivery> page = repository.searchAddressPrefix("storg", AFTER, 10, DeliveryFieldSet.ALL,
+                Duration.ofMillis(500)).collectList().block();
+
+        assertTrue(page.isEmpty());
+        Document query = executedQuery();
+        assertEquals(List.of("$and"), List.copyOf(query.keySet()));
+        List<?> and = query.getList("$and", Object.class);
+        assertEquals(2, and.size());
+        // the address prefix first, then the keyset condition
+        assertTrue(((Document) and.get(0)).containsKey("$or"));
+        assertTrue(((Document) and.get(1)).containsKey("$or"));
+    }
+
+    @Test
+    void prefixSearchFirstPageIsTheAddressMatchAlone() {
+        repository.searchAddressPrefix("storg", null, 10, DeliveryFieldSet.ALL, Duration.ofMillis(500))
+                .collectList().block();
+
+        Document query = executedQuery();
+        assertEquals(List.of("$or"), List.copyOf(query.keySet()));
+    }
+
+    @Test
+    void textSearchAfterACursorKeepsTextNextToTheKeyset() {
+        repository.searchText("storgata", AFTER, 10, DeliveryFieldSet.ALL, Duration.ofMillis(500))
+                .collectList().block();
+
+        Document query = executedQuery();
+        assertTrue(query.containsKey("$text"));
+        assertTrue(query.containsKey("$or"));
+    }
+
+    @Test
+    void anUndatedCursorRoundTrips() {
+        DeliveryCursor undated = new DeliveryCursor(null, "delivery5");
+
+        assertEquals(undated, DeliveryCursor.decode(undated.encode()));
+        assertEquals(AFTER, DeliveryCursor.decode(AFTER.encode()));
+    }
+
+    @Test
+    void pageAfterADatedCursorAlsoReachesUndatedDeliveries() {
+        repository.findPage(null, AFTER, 10, DeliveryFieldSet.ALL).collectList().block();
+
+        List<?> or = executedQuery().getList("$or", Object.class);
+        assertEquals(3, or.size());
+        assertEquals(new Document("createdDate", null), or.get(2));
+    }
+
+    @Test
+    void pageAfterAnUndatedCursorStaysAmongUndatedDeliveries() {
+        repository.findPage(null, new DeliveryCursor(null, "delivery5"), 10, DeliveryFieldSet.ALL).collectList().block();
+
+        assertEquals(new Document("createdDate", null).append("id", new Document("$lt", "delivery5")), executedQuery());
+    }
+}
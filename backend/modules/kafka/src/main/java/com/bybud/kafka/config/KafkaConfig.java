@@ -147,6 +147,33 @@ public class KafkaConfig {
         return config;
     }
 
+    /**
+     * Courier location pings are consumed by one group shared across instances, so each courier's
+     * pings are handled by the single instance owning its partition. Only recent positions matter,
+     * so a new group starts at the end of the topic.
+     */
+    @Bean("locationConsumerConfigs")
+    public Map<String, Object> locationConsumerConfigs(@Qualifier("baseConsumerConfig") Map<String, Object> baseConfig) {
+        Map<String, Object> config = new HashMap<>(baseConfig);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, env.getProperty("bybud.kafka.location-consumer.group-id", "courier-location-group"));
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2000);
+        return config;
+    }
+
+    /**
+     * Every instance also reads all courier location pings in a group of its own, to keep a
+     * complete view of courier positions for matching. Like the shared group it starts at the end.
+     */
+    @Bean("locationBroadcastConsumerConfigs")
+    public Map<String, Object> locationBroadcastConsumerConfigs(@Qualifier("baseConsumerConfig") Map<String, Object> baseConfig) {
+        Map<String, Object> config = new HashMap<>(baseConfig);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, "courier-location-broadcast-group-" + System.currentTimeMillis());
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2000);
+        return config;
+    }
+
     @Bean
     public KafkaAdmin kafkaAdmin(@Qualifier("adminConfigs") Map<String, Object> adminConfigs) {
         logger.info("Creating KafkaAdmin bean with bootstrap.servers: {}",
@@ -61,6 +61,10 @@ public class KafkaTopicsConfig {
         return topics.getOrDefault("auth-account-lockout", "auth-account-lockout-topic");
     }
 
+    public String getCourierLocationTopic() {
+        return topics.getOrDefault("courier-location", "courier-location-topic");
+    }
+
     @PostConstruct
     public void logTopics() {
         logger.info("Kafka Topics Config Loaded: {}", topics);
@@ -1,14 +1,19 @@
 package com.bybud.kafka.consumer;
 
+import com.bybud.security.config.SecurityProperties;
 import com.bybud.security.service.ReactiveTokenService;
+import com.bybud.security.service.RevocationFilter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.kafka.receiver.KafkaReceiver;
@@ -17,26 +22,45 @@ import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Consumes token invalidations and logouts in a group of its own per instance, so every instance
+ * blacklists the token in Redis and adds it to its local {@link RevocationFilter}.
+ *
+ * <p>The filter is only enabled while both topics are assigned to this instance and read up to
+ * where they ended one lag check earlier. A revoked assignment, a receiver error or a receiver that
+ * gave up retrying disables it, so tokens are checked in Redis rather than against a stale filter.</p>
+ */
 @Component
 public class AuthenticationEventConsumer extends BaseKafkaConsumer {
 
     private final ReactiveTokenService tokenService;
+    private final RevocationFilter revocationFilter;
+    private final SecurityProperties securityProperties;
     private final ObjectMapper objectMapper;
     private final Map<String, ReceiverOptions<String, String>> topicOptions = new HashMap<>();
     private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
+    // Guarded by this: per topic, whether its receiver is assigned and caught up
+    private final Map<String, Boolean> feedHealthy = new HashMap<>();
 
     private static final String TOKEN_INVALIDATED_TOPIC = "auth-token-invalidated-topic";
     private static final String USER_LOGOUT_TOPIC = "auth-user-logout-topic";
+    private static final List<String> REVOCATION_TOPICS = List.of(TOKEN_INVALIDATED_TOPIC, USER_LOGOUT_TOPIC);
 
     public AuthenticationEventConsumer(
             @Qualifier("authConsumerConfigs") Map<String, Object> consumerConfigs,
             ReactiveTokenService tokenService,
+            RevocationFilter revocationFilter,
+            SecurityProperties securityProperties,
             ObjectMapper objectMapper) {
 
         this.tokenService = tokenService;
+        this.revocationFilter = revocationFilter;
+        this.securityProperties = securityProperties;
         this.objectMapper = objectMapper;
 
         // Create receiver options for auth topics
@@ -77,7 +101,9 @@ public class AuthenticationEventConsumer extends BaseKafkaConsumer {
         }
 
         try {
-            Disposable subscription = KafkaReceiver.create(options)
+            KafkaReceiver<String, String> receiver = KafkaReceiver.create(
+                    options.addRevokeListener(partitions -> feedChanged(topic, false)));
+            Disposable subscription = receiver
                     .receive()
                     .publishOn(Schedulers.boundedElastic())
                     .doOnNext(record -> {
@@ -89,18 +115,58 @@ public class AuthenticationEventConsumer extends BaseKafkaConsumer {
                                         error -> logger.error("Error processing auth record: {}", error.getMessage())
                                 );
                     })
-                    .doOnError(error -> logger.error("Error in Kafka auth receiver: {}", error.getMessage()))
+                    .doOnError(error -> {
+                        logger.error("Error in Kafka auth receiver: {}", error.getMessage());
+                        feedChanged(topic, false);
+                    })
                     .retryWhen(Retry.backoff(3, Duration.ofSeconds(1))
                             .maxBackoff(Duration.ofSeconds(10)))
+                    // Out of retries or disposed: revocations no longer arrive
+                    .doFinally(signalType -> feedChanged(topic, false))
                     .subscribe();
 
             subscriptions.put(topic, subscription);
+            subscriptions.put(topic + ":lag", checkLag(topic, receiver));
             logger.info("Started auth listener for topic: {}", topic);
         } catch (Exception e) {
             logger.error("Failed to start listener for topic {}: {}", topic, e.getMessage(), e);
         }
     }
 
+    private Disposable checkLag(String topic, KafkaReceiver<String, String> receiver) {
+        Duration interval = securityProperties.getRevocationFilterLagCheckInterval();
+        // Only touched on the consumer thread, one check at a time
+        Map<TopicPartition, Long> previousEnds = new HashMap<>();
+        return Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> receiver.doOnConsumer(consumer -> caughtUp(consumer, previousEnds))
+                        // No consumer while the receiver is (re)connecting
+                        .onErrorReturn(false))
+                .subscribe(caughtUp -> feedChanged(topic, caughtUp));
+    }
+
+    /**
+     * Whether the consumer has read everything its partitions held at the previous check.
+     */
+    private static boolean caughtUp(Consumer<String, String> consumer, Map<TopicPartition, Long> previousEnds) {
+        Set<TopicPartition> assigned = consumer.assignment();
+        boolean caughtUp = !assigned.isEmpty()
+                && previousEnds.keySet().containsAll(assigned)
+                && assigned.stream().allMatch(partition -> consumer.position(partition) >= previousEnds.get(partition));
+        previousEnds.clear();
+        previousEnds.putAll(consumer.endOffsets(assigned));
+        return caughtUp;
+    }
+
+    private synchronized void feedChanged(String topic, boolean healthy) {
+        feedHealthy.put(topic, healthy);
+        if (REVOCATION_TOPICS.stream().allMatch(t -> Boolean.TRUE.equals(feedHealthy.get(t)))) {
+            revocationFilter.enable();
+        } else {
+            revocationFilter.disable();
+        }
+    }
+
     private Mono<Void> processRecord(String topic, String value) {
         if (topic.equals(TOKEN_INVALIDATED_TOPIC)) {
             return handleTokenInvalidation(value).then();
@@ -128,6 +194,7 @@ public class AuthenticationEventConsumer extends BaseKafkaConsumer {
                     // Blacklist the token
                     return tokenService.blacklistToken(tokenSignature, Duration.ofDays(7))
                             .doOnSuccess(v -> logger.info("Successfully blacklisted token for user: {}", username))
+                            .doFinally(signalType -> revocationFilter.add(tokenSignature))
                             .doOnError(e -> logger.error("Failed to blacklist token: {}", e.getMessage()));
                 })
                 .then()
@@ -150,6 +217,7 @@ public class AuthenticationEventConsumer extends BaseKafkaConsumer {
                     // Blacklist the token on logout
                     return tokenService.blacklistToken(tokenSignature, Duration.ofDays(7))
                             .doOnSuccess(v -> logger.info("Successfully blacklisted token on logout for user: {}", username))
+                            .doFinally(signalType -> revocationFilter.add(tokenSignature))
                             .doOnError(e -> logger.error("Failed to blacklist token on logout: {}", e.getMessage()));
                 })
                 .then()
@@ -0,0 +1,161 @@
+package com.bybud.kafka.consumer;
+
+import com.bybud.kafka.config.KafkaTopicsConfig;
+import com.bybud.kafka.handler.CourierLocationEventHandler.LocationPing;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Consumer for courier location pings. Records are handed on in batches as one local event per
+ * batch rather than one event per record, and are decoded on the receiver thread since listeners
+ * only update in-memory state.
+ *
+ * <p>The topic is read twice. In the shared group each courier's pings reach the one instance owning
+ * its partition as {@link CourierLocationsReceivedEvent}s, for state that must be kept once. In a
+ * group per instance every instance receives every ping as {@link CourierPositionsReceivedEvent}s,
+ * for state each instance needs complete, such as the matching grid.</p>
+ *
+ * <p>Only services that track couriers enable it with {@code bybud.kafka.location-consumer.enabled};
+ * any other service joining the shared group would take partitions away from them.</p>
+ */
+@Component
+@ConditionalOnProperty(prefix = "bybud.kafka.location-consumer", name = "enabled", havingValue = "true")
+public class CourierLocationConsumer extends BaseKafkaConsumer {
+
+    private static final int MAX_BATCH_SIZE = 2000;
+    private static final Duration MAX_BATCH_WAIT = Duration.ofMillis(100);
+
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ReceiverOptions<String, String> options;
+    private final ReceiverOptions<String, String> broadcastOptions;
+    private final List<Disposable> subscriptions = new ArrayList<>();
+
+    /**
+     * Local application event carrying the pings of one batch received by the partition owner, in
+     * partition order, and the couriers that went offline after their last ping in it.
+     */
+    public record CourierLocationsReceivedEvent(List<LocationPing> pings, Set<String> offline) {
+
+        public CourierLocationsReceivedEvent(List<LocationPing> pings) {
+            this(pings, Set.of());
+        }
+    }
+
+    /**
+     * Local application event carrying the pings of one batch received by every instance, in
+     * partition order, and the couriers that went offline after their last ping in it.
+     */
+    public record CourierPositionsReceivedEvent(List<LocationPing> pings, Set<String> offline) {
+    }
+
+    public CourierLocationConsumer(
+            @Qualifier("locationConsumerConfigs") Map<String, Object> consumerConfigs,
+            @Qualifier("locationBroadcastConsumerConfigs") Map<String, Object> broadcastConsumerConfigs,
+            ObjectMapper objectMapper,
+            KafkaTopicsConfig topicsConfig,
+            ApplicationEventPublisher applicationEventPublisher) {
+        this.objectMapper = objectMapper;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.options = createConsumerOptions(consumerConfigs, topicsConfig.getCourierLocationTopic());
+        this.broadcastOptions = createConsumerOptions(broadcastConsumerConfigs, topicsConfig.getCourierLocationTopic());
+    }
+
+    @Override
+    protected String getDefaultConsumerGroup() {
+        return "courier-location-group";
+    }
+
+    @PostConstruct
+    public void startListener() {
+        subscriptions.add(listen(options, CourierLocationsReceivedEvent::new));
+        subscriptions.add(listen(broadcastOptions, CourierPositionsReceivedEvent::new));
+        logger.info("Started courier location listeners");
+    }
+
+    private Disposable listen(ReceiverOptions<String, String> receiverOptions,
+                              BiFunction<List<LocationPing>, Set<String>, Object> toEvent) {
+        return KafkaReceiver.create(receiverOptions)
+                .receive()
+                .bufferTimeout(MAX_BATCH_SIZE, MAX_BATCH_WAIT)
+                .doOnNext(records -> processBatch(records, toEvent))
+                .doOnError(error -> logger.error("Error in Kafka courier location receiver: {}", error.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    private void processBatch(List<ReceiverRecord<String, String>> records,
+                              BiFunction<List<LocationPing>, Set<String>, Object> toEvent) {
+        List<LocationPing> pings = new ArrayList<>(records.size());
+        Set<String> offline = new HashSet<>();
+        for (ReceiverRecord<String, String> record : records) {
+            decode(record.value(), pings, offline);
+        }
+        try {
+            if (!pings.isEmpty() || !offline.isEmpty()) {
+                applicationEventPublisher.publishEvent(toEvent.apply(pings, offline));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error handling {} courier location pings: {}", pings.size(), e.getMessage());
+        } finally {
+            // Positions are superseded within seconds, so a failed batch is not redelivered
+            records.forEach(record -> record.receiverOffset().acknowledge());
+        }
+    }
+
+    /**
+     * Appends the pings of one message, or marks its courier offline and drops its earlier pings;
+     * malformed messages and pings are skipped.
+     */
+    void decode(String value, List<LocationPing> into, Set<String> offline) {
+        try {
+            JsonNode root = objectMapper.readTree(value);
+            String courierId = root.path("courierId").asText(null);
+            if (courierId != null && root.path("offline").asBoolean(false)) {
+                into.removeIf(ping -> ping.courierId().equals(courierId));
+                offline.add(courierId);
+                return;
+            }
+            JsonNode pings = root.path("pings");
+            if (courierId == null || !pings.isArray()) {
+                logger.warn("Skipping courier location message without courier or pings");
+                return;
+            }
+            for (JsonNode ping : pings) {
+                if (ping.size() == 3 && ping.get(0).isNumber() && ping.get(1).isNumber() && ping.get(2).isNumber()) {
+                    into.add(new LocationPing(courierId, ping.get(0).asDouble(), ping.get(1).asDouble(), ping.get(2).asLong()));
+                    // back online
+                    offline.remove(courierId);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Skipping unreadable courier location message: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void cleanup() {
+        subscriptions.forEach(Disposable::dispose);
+        logger.info("Cleaned up courier location Kafka subscriptions");
+    }
+}
@@ -1,5 +1,6 @@
 package com.bybud.kafka.consumer;
 
+import com.bybud.entity.model.Delivery;
 import com.bybud.entity.model.DeliveryStatus;
 import com.bybud.entity.repository.DeliveryRepository;
 import com.bybud.kafka.config.KafkaTopicsConfig;
@@ -9,6 +10,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
@@ -33,15 +35,25 @@ public class DeliveryEventConsumer extends BaseKafkaConsumer {
     private final Map<String, Object> consumerConfigs;
     private final Map<String, ReceiverOptions<String, String>> topicOptions;
     private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Local application event raised with the current state of a delivery after a created or
+     * status-updated event was received, so in-memory views can follow changes made on any instance.
+     */
+    public record DeliveryChangedEvent(Delivery delivery) {
+    }
 
     public DeliveryEventConsumer(
             @Qualifier("userConsumerConfigs") Map<String, Object> consumerConfigs,
             DeliveryRepository deliveryRepository,
             ObjectMapper objectMapper,
-            KafkaTopicsConfig topicsConfig) {
+            KafkaTopicsConfig topicsConfig,
+            ApplicationEventPublisher applicationEventPublisher) {
         this.deliveryRepository = deliveryRepository;
         this.objectMapper = objectMapper;
         this.topicsConfig = topicsConfig;
+        this.applicationEventPublisher = applicationEventPublisher;
         this.consumerConfigs = consumerConfigs;
         this.topicOptions = createTopicOptions();
     }
@@ -136,7 +148,10 @@ public class DeliveryEventConsumer extends BaseKafkaConsumer {
                             deliveryId, customerId);
 
                     return deliveryRepository.findById(deliveryId)
-                            .doOnNext(delivery -> logger.info("Delivery exists in database: {}", delivery.getId()))
+                            .doOnNext(delivery -> {
+                                logger.info("Delivery exists in database: {}", delivery.getId());
+                                applicationEventPublisher.publishEvent(new DeliveryChangedEvent(delivery));
+                            })
                             .switchIfEmpty(
                                     Mono.defer(() -> {
                                         logger.info("Delivery {} not found in repository, no action needed", deliveryId);
@@ -177,6 +192,7 @@ public class DeliveryEventConsumer extends BaseKafkaConsumer {
                                     logger.info("Updating delivery {} status to {}", delivery.getId(), finalStatus);
                                     return deliveryRepository.save(delivery);
                                 })
+                                .doOnNext(saved -> applicationEventPublisher.publishEvent(new DeliveryChangedEvent(saved)))
                                 .switchIfEmpty(
                                         Mono.defer(() -> {
                                             logger.warn("Delivery {} not found for status update, no action taken", deliveryId);
@@ -9,6 +9,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
@@ -33,17 +34,27 @@ public class UserEventConsumer extends BaseKafkaConsumer {
     private final Map<String, ReceiverOptions<String, String>> topicOptions;
     private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
     private final Map<String, Object> consumerConfigs;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Local application event raised when a user record may have changed on another service.
+     * Lets in-process caches of user data invalidate without their own Kafka receiver.
+     */
+    public record UserProfileChangedEvent(String userId, String username) {
+    }
 
     public UserEventConsumer(
             @Qualifier("userConsumerConfigs") Map<String, Object> consumerConfigs,
             UserRepository userRepository,
             ObjectMapper objectMapper,
             KafkaTopicsConfig topicsConfig,
-            UserMapper userMapper) {
+            UserMapper userMapper,
+            ApplicationEventPublisher applicationEventPublisher) {
         this.userRepository = userRepository;
         this.objectMapper = objectMapper;
         this.topicsConfig = topicsConfig;
         this.consumerConfigs = consumerConfigs;
+        this.applicationEventPublisher = applicationEventPublisher;
         this.topicOptions = createTopicOptions();
     }
 
@@ -134,6 +145,7 @@ public class UserEventConsumer extends BaseKafkaConsumer {
                     String username = (String) data.get("username");
 
                     logger.info("Processing user registration event for userId: {}, username: {}", userId, username);
+                    applicationEventPublisher.publishEvent(new UserProfileChangedEvent(userId, username));
 
                     // In a real implementation, you might fetch additional user data or
                     // create a minimal user record if it doesn't exist already
@@ -158,6 +170,7 @@ public class UserEventConsumer extends BaseKafkaConsumer {
                     String username = (String) data.get("username");
 
                     logger.info("Processing user update event for userId: {}, username: {}", userId, username);
+                    applicationEventPublisher.publishEvent(new UserProfileChangedEvent(userId, username));
 
                     // In a real implementation, you might update user status or sync data
                     return userRepository.findById(userId)
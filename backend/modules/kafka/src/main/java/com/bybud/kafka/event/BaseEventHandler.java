@@ -7,6 +7,7 @@ import org.springframework.context.annotation.Lazy;
 import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public abstract class BaseEventHandler {
@@ -32,6 +33,31 @@ public abstract class BaseEventHandler {
                         eventType, identifier, error.getMessage()));
     }
 
+    protected Mono<Void> publishEventsWithLogging(String topic, List<Map<String, Object>> events, String eventType) {
+        events.forEach(eventData -> {
+            eventData.putIfAbsent("timestamp", System.currentTimeMillis());
+            eventData.putIfAbsent("eventType", eventType);
+        });
+
+        return eventPublisher.publishEvents(topic, events)
+                .doOnSuccess(v -> logger.info("Published batch of {} {} events", events.size(), eventType))
+                .doOnError(error -> logger.error("Failed to publish batch of {} {} events: {}",
+                        events.size(), eventType, error.getMessage()));
+    }
+
+    protected Mono<Void> publishKeyedEventsWithLogging(
+            String topic, Map<String, Map<String, Object>> eventsByKey, String eventType) {
+        eventsByKey.values().forEach(eventData -> {
+            eventData.putIfAbsent("timestamp", System.currentTimeMillis());
+            eventData.putIfAbsent("eventType", eventType);
+        });
+
+        return eventPublisher.publishKeyedEvents(topic, eventsByKey)
+                .doOnSuccess(v -> logger.info("Published keyed batch of {} {} events", eventsByKey.size(), eventType))
+                .doOnError(error -> logger.error("Failed to publish keyed batch of {} {} events: {}",
+                        eventsByKey.size(), eventType, error.getMessage()));
+    }
+
     protected Map<String, Object> createBaseEventData(String eventType) {
         Map<String, Object> eventData = new HashMap<>();
         eventData.put("eventType", eventType);
@@ -1,7 +1,29 @@
 package com.bybud.kafka.event;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 public interface EventPublisher {
     Mono<Void> publishEvent(String topic, Object event);
-}
\ No newline at end of file
+
+    /**
+     * Publishes several events to one topic. Implementations should hand them to the broker as a
+     * single batch; the default falls back to one publish per event.
+     */
+    default Mono<Void> publishEvents(String topic, List<?> events) {
+        return Flux.fromIterable(events)
+                .concatMap(event -> publishEvent(topic, event))
+                .then();
+    }
+
+    /**
+     * Publishes events keyed by the map keys, so each key keeps its partition and ordering.
+     * The default falls back to one publish per event.
+     */
+    default Mono<Void> publishKeyedEvents(String topic, Map<String, ?> eventsByKey) {
+        return publishEvents(topic, List.copyOf(eventsByKey.values()));
+    }
+}
@@ -1,11 +1,15 @@
 package com.bybud.kafka.event;
 
 import com.bybud.kafka.producer.KafkaProducerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -22,15 +26,41 @@ public class KafkaEventPublisher implements EventPublisher {
 
     @Override
     public Mono<Void> publishEvent(String topic, Object event) {
+        return Mono.fromCallable(() -> toMessage(event))
+                .flatMap(message -> kafkaProducerService.sendMessage(topic, message));
+    }
+
+    @Override
+    public Mono<Void> publishEvents(String topic, List<?> events) {
         return Mono.fromCallable(() -> {
-                    if (event instanceof String) {
-                        return (String) event;
-                    } else if (event instanceof Map) {
-                        return objectMapper.writeValueAsString(event);
-                    } else {
-                        throw new IllegalArgumentException("Unsupported event type: " + event.getClass());
+                    List<String> messages = new ArrayList<>(events.size());
+                    for (Object event : events) {
+                        messages.add(toMessage(event));
                     }
+                    return messages;
                 })
-                .flatMap(message -> kafkaProducerService.sendMessage(topic, message));
+                .flatMap(messages -> kafkaProducerService.sendMessages(topic, messages));
+    }
+
+    @Override
+    public Mono<Void> publishKeyedEvents(String topic, Map<String, ?> eventsByKey) {
+        return Mono.fromCallable(() -> {
+                    Map<String, String> messages = new LinkedHashMap<>();
+                    for (Map.Entry<String, ?> entry : eventsByKey.entrySet()) {
+                        messages.put(entry.getKey(), toMessage(entry.getValue()));
+                    }
+                    return messages;
+                })
+                .flatMap(messages -> kafkaProducerService.sendKeyedMessages(topic, messages));
+    }
+
+    private String toMessage(Object event) throws JsonProcessingException {
+        if (event instanceof String) {
+            return (String) event;
+        } else if (event instanceof Map) {
+            return objectMapper.writeValueAsString(event);
+        } else {
+            throw new IllegalArgumentException("Unsupported event type: " + event.getClass());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.bybud.kafka.handler;
+
+import com.bybud.kafka.config.KafkaTopicsConfig;
+import com.bybud.kafka.event.BaseEventHandler;
+import com.bybud.kafka.event.EventPublisher;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes courier location pings. Pings arrive every few seconds per courier, so unlike the
+ * other handlers nothing is logged per message, and one message carries every ping of a report
+ * keyed by courier ID, keeping each courier's pings in order on one partition. A courier going
+ * offline is published on the same topic and key, so it is ordered after the pings before it.
+ */
+@Component
+public class CourierLocationEventHandler extends BaseEventHandler {
+
+    /**
+     * One position of a courier, with the epoch milliseconds at which it was taken.
+     */
+    public record LocationPing(String courierId, double latitude, double longitude, long recordedAt) {
+    }
+
+    public CourierLocationEventHandler(EventPublisher eventPublisher, KafkaTopicsConfig topicsConfig) {
+        super(eventPublisher, topicsConfig);
+        logger.info("Courier location event handler initialized with topic: courier-location={}",
+                topicsConfig.getCourierLocationTopic());
+    }
+
+    /**
+     * Sends the courier's pings as one message. Each ping is encoded as a
+     * {@code [latitude, longitude, recordedAt]} array to keep messages small.
+     */
+    public Mono<Void> publishLocationPings(String courierId, List<LocationPing> pings) {
+        if (pings.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Object[]> encoded = new ArrayList<>(pings.size());
+        for (LocationPing ping : pings) {
+            encoded.add(new Object[]{ping.latitude(), ping.longitude(), ping.recordedAt()});
+        }
+        Map<String, Object> eventData = createBaseEventData("COURIER_LOCATION");
+        eventData.put("courierId", courierId);
+        eventData.put("pings", encoded);
+
+        return eventPublisher.publishKeyedEvents(topicsConfig.getCourierLocationTopic(), Map.of(courierId, eventData))
+                .doOnError(error -> logger.warn("Failed to publish location pings for courier {}: {}",
+                        courierId, error.getMessage()));
+    }
+
+    /**
+     * Sends that the courier went offline, superseding its earlier pings.
+     */
+    public Mono<Void> publishCourierOffline(String courierId) {
+        Map<String, Object> eventData = createBaseEventData("COURIER_OFFLINE");
+        eventData.put("courierId", courierId);
+        eventData.put("offline", true);
+
+        return eventPublisher.publishKeyedEvents(topicsConfig.getCourierLocationTopic(), Map.of(courierId, eventData))
+                .doOnError(error -> logger.warn("Failed to publish that courier {} went offline: {}",
+                        courierId, error.getMessage()));
+    }
+}
@@ -8,6 +8,9 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -15,10 +18,38 @@ public class DeliveryEventHandler extends BaseEventHandler {
     private final ApplicationEventPublisher applicationEventPublisher;
 
     // Event Classes
-        public record DeliveryCreatedEvent(String deliveryId, String customerId) {
+    /**
+     * Creation of one delivery. The initial status is optional and means CREATED when absent; a
+     * delivery scheduled for a later date starts out PENDING.
+     */
+    public record DeliveryCreatedEvent(String deliveryId, String customerId, String status) {
+
+        public DeliveryCreatedEvent(String deliveryId, String customerId) {
+            this(deliveryId, customerId, null);
+        }
+    }
+
+    /**
+     * Status change of one delivery. Previous status and owners are optional; when present they let
+     * listeners maintain per-owner read models incrementally and are included in the Kafka message.
+     */
+    public record DeliveryStatusUpdatedEvent(
+            String deliveryId,
+            String newStatus,
+            String previousStatus,
+            String customerId,
+            String courierId,
+            String previousCourierId) {
+
+        public DeliveryStatusUpdatedEvent(String deliveryId, String newStatus) {
+            this(deliveryId, newStatus, null, null, null, null);
+        }
+    }
+
+    public record DeliveriesCreatedEvent(List<DeliveryCreatedEvent> deliveries) {
     }
 
-    public record DeliveryStatusUpdatedEvent(String deliveryId, String newStatus) {
+    public record DeliveryStatusesUpdatedEvent(List<DeliveryStatusUpdatedEvent> updates) {
     }
 
     public DeliveryEventHandler(
@@ -40,16 +71,27 @@ public class DeliveryEventHandler extends BaseEventHandler {
         applicationEventPublisher.publishEvent(event);
     }
 
+    public void publishDeliveriesCreated(DeliveriesCreatedEvent event) {
+        applicationEventPublisher.publishEvent(event);
+    }
+
     public void publishDeliveryStatusUpdated(DeliveryStatusUpdatedEvent event) {
         applicationEventPublisher.publishEvent(event);
     }
 
+    public void publishDeliveryStatusesUpdated(DeliveryStatusesUpdatedEvent event) {
+        applicationEventPublisher.publishEvent(event);
+    }
+
     // Event Listeners
     @EventListener
     public void handleDeliveryCreatedEvent(DeliveryCreatedEvent event) {
         Map<String, Object> eventData = createBaseEventData("DELIVERY_CREATED");
         eventData.put("deliveryId", event.deliveryId());
         eventData.put("customerId", event.customerId());
+        if (event.status() != null) {
+            eventData.put("status", event.status());
+        }
 
         String topic = topicsConfig.getDeliveryCreatedTopic();
         if (topic == null || topic.isEmpty()) {
@@ -68,11 +110,45 @@ public class DeliveryEventHandler extends BaseEventHandler {
         }).subscribe();
     }
 
+    /**
+     * Publishes one delivery-created message per delivery, sent to Kafka as a single batch.
+     */
+    @EventListener
+    public void handleDeliveriesCreatedEvent(DeliveriesCreatedEvent event) {
+        if (event.deliveries().isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> events = new ArrayList<>(event.deliveries().size());
+        for (DeliveryCreatedEvent created : event.deliveries()) {
+            Map<String, Object> eventData = createBaseEventData("DELIVERY_CREATED");
+            eventData.put("deliveryId", created.deliveryId());
+            eventData.put("customerId", created.customerId());
+            if (created.status() != null) {
+                eventData.put("status", created.status());
+            }
+            events.add(eventData);
+        }
+
+        String topic = topicsConfig.getDeliveryCreatedTopic();
+        if (topic == null || topic.isEmpty()) {
+            logger.warn("No topic configured for delivery created events, using default");
+            topic = "delivery-created-topic"; // Fallback
+        }
+
+        publishEventsWithLogging(
+                topic,
+                events,
+                "delivery creation"
+        ).onErrorResume(e -> {
+            logger.error("Failed to publish delivery created events: {}", e.getMessage(), e);
+            return Mono.empty();
+        }).subscribe();
+    }
+
     @EventListener
     public void handleDeliveryStatusUpdatedEvent(DeliveryStatusUpdatedEvent event) {
-        Map<String, Object> eventData = createBaseEventData("DELIVERY_STATUS_UPDATED");
-        eventData.put("deliveryId", event.deliveryId());
-        eventData.put("newStatus", event.newStatus());
+        Map<String, Object> eventData = createStatusUpdatedEventData(event);
 
         String topic = topicsConfig.getDeliveryStatusUpdatedTopic();
         if (topic == null || topic.isEmpty()) {
@@ -90,4 +166,54 @@ public class DeliveryEventHandler extends BaseEventHandler {
             return Mono.empty();
         }).subscribe();
     }
-}
\ No newline at end of file
+
+    /**
+     * Publishes one status-updated message per delivery as a single batch keyed by delivery ID,
+     * so messages for the same delivery keep their partition order.
+     */
+    @EventListener
+    public void handleDeliveryStatusesUpdatedEvent(DeliveryStatusesUpdatedEvent event) {
+        if (event.updates().isEmpty()) {
+            return;
+        }
+
+        Map<String, Map<String, Object>> eventsByKey = new LinkedHashMap<>();
+        for (DeliveryStatusUpdatedEvent update : event.updates()) {
+            eventsByKey.put(update.deliveryId(), createStatusUpdatedEventData(update));
+        }
+
+        String topic = topicsConfig.getDeliveryStatusUpdatedTopic();
+        if (topic == null || topic.isEmpty()) {
+            logger.warn("No topic configured for delivery status updated events, using default");
+            topic = "delivery-status-updated-topic"; // Fallback
+        }
+
+        publishKeyedEventsWithLogging(
+                topic,
+                eventsByKey,
+                "delivery status update"
+        ).onErrorResume(e -> {
+            logger.error("Failed to publish delivery status updated events: {}", e.getMessage(), e);
+            return Mono.empty();
+        }).subscribe();
+    }
+
+    private Map<String, Object> createStatusUpdatedEventData(DeliveryStatusUpdatedEvent event) {
+        Map<String, Object> eventData = createBaseEventData("DELIVERY_STATUS_UPDATED");
+        eventData.put("deliveryId", event.deliveryId());
+        eventData.put("newStatus", event.newStatus());
+        if (event.previousStatus() != null) {
+            eventData.put("previousStatus", event.previousStatus());
+        }
+        if (event.customerId() != null) {
+            eventData.put("customerId", event.customerId());
+        }
+        if (event.courierId() != null) {
+            eventData.put("courierId", event.courierId());
+        }
+        if (event.previousCourierId() != null) {
+            eventData.put("previousCourierId", event.previousCourierId());
+        }
+        return eventData;
+    }
+}
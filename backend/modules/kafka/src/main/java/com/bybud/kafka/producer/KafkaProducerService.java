@@ -5,6 +5,7 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderRecord;
@@ -13,6 +14,10 @@ import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class KafkaProducerService {
@@ -79,6 +84,56 @@ public class KafkaProducerService {
                 .then();  // Convert to Mono<Void>
     }
 
+    /**
+     * Sends all messages to one topic through a single send call, so the producer can group them
+     * into as few broker requests as its batch settings allow. Completes once every message is acknowledged.
+     */
+    public Mono<Void> sendMessages(String topic, List<?> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return Mono.empty();
+        }
+        List<Map.Entry<String, ?>> unkeyed = new ArrayList<>(messages.size());
+        messages.forEach(message -> unkeyed.add(new AbstractMap.SimpleImmutableEntry<>(null, message)));
+        return sendBatch(topic, unkeyed);
+    }
+
+    /**
+     * Batched variant of {@link #sendMessage(String, String, Object)}: each message is sent with its key,
+     * in map iteration order, through a single send call.
+     */
+    public Mono<Void> sendKeyedMessages(String topic, Map<String, ?> messagesByKey) {
+        if (messagesByKey == null || messagesByKey.isEmpty()) {
+            return Mono.empty();
+        }
+        return sendBatch(topic, new ArrayList<>(messagesByKey.entrySet()));
+    }
+
+    private Mono<Void> sendBatch(String topic, List<Map.Entry<String, ?>> keyedMessages) {
+        if (topic == null || topic.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Topic name cannot be null or empty"));
+        }
+
+        if (kafkaSender == null) {
+            logger.error("KafkaSender is null - cannot send messages to topic: {}", topic);
+            return Mono.error(new IllegalStateException("KafkaSender not initialized"));
+        }
+
+        logger.debug("Sending batch of {} messages to topic {}", keyedMessages.size(), topic);
+
+        return Flux.fromIterable(keyedMessages)
+                .map(entry -> new ProducerRecord<>(topic, entry.getKey(), serializeMessage(entry.getValue())))
+                .collectList()
+                .flatMap(producerRecords -> kafkaSender.send(Flux.fromIterable(producerRecords)
+                                .map(producerRecord -> SenderRecord.<String, String, Void>create(producerRecord, null)))
+                        .count()
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnSuccess(count -> logger.debug("Batch of {} messages sent to topic {}", count, topic))
+                .doOnError(error -> logger.error("Failed to send batch to topic {}: {}", topic, error.getMessage(), error))
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(100))
+                        .maxBackoff(Duration.ofSeconds(2)))
+                .then();
+    }
+
     private String serializeMessage(Object message) {
         try {
             if (message instanceof String) {
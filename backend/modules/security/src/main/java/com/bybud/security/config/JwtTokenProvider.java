@@ -3,6 +3,7 @@ package com.bybud.security.config;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -14,6 +15,7 @@ import reactor.core.scheduler.Schedulers;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -25,9 +27,18 @@ public class JwtTokenProvider {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
     private final SecurityProperties securityProperties;
+    // Keys and parsers are immutable and thread safe, so they are built once per secret
+    private final SecretKey accessKey;
+    private final SecretKey refreshKey;
+    private final JwtParser accessParser;
+    private final JwtParser refreshParser;
 
     public JwtTokenProvider(@NonNull SecurityProperties securityProperties) {
         this.securityProperties = securityProperties;
+        this.accessKey = getSigningKey(securityProperties.getJwtSecret());
+        this.refreshKey = getSigningKey(securityProperties.getJwtRefreshSecret());
+        this.accessParser = Jwts.parser().verifyWith(accessKey).build();
+        this.refreshParser = Jwts.parser().verifyWith(refreshKey).build();
         logger.info("JwtTokenProvider initialized with jwtSecret: {}, jwtExpirationMs: {}",
                 securityProperties.getJwtSecret(),
                 securityProperties.getJwtExpirationMs());
@@ -46,7 +57,7 @@ public class JwtTokenProvider {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationMs()))
-                .signWith(getSigningKey(securityProperties.getJwtSecret()))
+                .signWith(accessKey)
                 .compact();
     }
 
@@ -60,16 +71,13 @@ public class JwtTokenProvider {
                 .claim("roles", roles)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationMs()))
-                .signWith(getSigningKey(securityProperties.getJwtSecret()))
+                .signWith(accessKey)
                 .compact();
     }
 
     public String getSubjectFromJwt(@NonNull String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey(securityProperties.getJwtSecret()))
-                    .build()
-                    .parseSignedClaims(token)
+            return accessParser.parseSignedClaims(token)
                     .getPayload()
                     .getSubject();
         } catch (JwtException e) {
@@ -81,10 +89,7 @@ public class JwtTokenProvider {
     public boolean validateJwtToken(@NonNull String token) {
         try {
             logger.debug("Validating JWT token");
-            Jwts.parser()
-                    .verifyWith(getSigningKey(securityProperties.getJwtSecret()))
-                    .build()
-                    .parseSignedClaims(token);
+            accessParser.parseSignedClaims(token);
             return true;
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token has expired");
@@ -102,17 +107,14 @@ public class JwtTokenProvider {
                 .claim("isService", true)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationMs()))
-                .signWith(getSigningKey(securityProperties.getJwtSecret()))
+                .signWith(accessKey)
                 .compact();
     }
 
     public boolean validateServiceToken(@NonNull String token) {
         try {
             logger.debug("Validating service JWT token");
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey(securityProperties.getJwtSecret()))
-                    .build()
-                    .parseSignedClaims(token)
+            Claims claims = accessParser.parseSignedClaims(token)
                     .getPayload();
 
             return Boolean.TRUE.equals(claims.get("isService", Boolean.class));
@@ -124,33 +126,9 @@ public class JwtTokenProvider {
 
     public List<String> getRolesFromJwt(@NonNull String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey(securityProperties.getJwtSecret()))
-                    .build()
-                    .parseSignedClaims(token)
+            Claims claims = accessParser.parseSignedClaims(token)
                     .getPayload();
-
-            // Check if roles claim exists
-            if (!claims.containsKey("roles")) {
-                logger.warn("JWT token does not contain roles claim");
-                return Collections.singletonList("CUSTOMER"); // Default role
-            }
-
-            Object rolesObject = claims.get("roles");
-
-            if (rolesObject instanceof List<?>) {
-                return ((List<?>) rolesObject).stream()
-                        .map(Object::toString)
-                        .toList();
-            } else if (rolesObject instanceof String) {
-                // Handle CSV format
-                String rolesStr = (String) rolesObject;
-                return Arrays.asList(rolesStr.split(","));
-            } else {
-                // Default to CUSTOMER role if format is unexpected
-                logger.warn("Unexpected roles format in JWT: {}", rolesObject);
-                return Collections.singletonList("CUSTOMER");
-            }
+            return getRoles(claims);
         } catch (Exception e) {
             logger.error("Error extracting roles from JWT: {}", e.getMessage());
             // Return default role instead of throwing exception
@@ -158,6 +136,25 @@ public class JwtTokenProvider {
         }
     }
 
+    /**
+     * Verify signature and expiry once and extract subject, roles and service flag in the same pass.
+     * @throws JwtException if the token is invalid or expired
+     */
+    public VerifiedClaims verifyJwtToken(@NonNull String token) {
+        try {
+            Claims claims = accessParser.parseSignedClaims(token)
+                    .getPayload();
+
+            // A token without expiry is accepted as before but valid for this request only
+            Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : Instant.now();
+            boolean service = Boolean.TRUE.equals(claims.get("isService", Boolean.class));
+            return new VerifiedClaims(claims.getSubject(), getRoles(claims), service, expiresAt);
+        } catch (JwtException e) {
+            logger.warn("Invalid JWT token: {}", e.getMessage());
+            throw e;
+        }
+    }
+
     public String generateJwtTokenWithRoles(@NonNull String username, @NonNull List<String> roles) {
         logger.debug("Generating JWT with roles for user: {}", username);
         return Jwts.builder()
@@ -165,7 +162,7 @@ public class JwtTokenProvider {
                 .claim("roles", roles)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationMs()))
-                .signWith(getSigningKey(securityProperties.getJwtSecret()))
+                .signWith(accessKey)
                 .compact();
     }
 
@@ -175,17 +172,14 @@ public class JwtTokenProvider {
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + securityProperties.getJwtRefreshExpirationMs()))
-                .signWith(getSigningKey(securityProperties.getJwtRefreshSecret()))
+                .signWith(refreshKey)
                 .compact();
     }
 
     public boolean validateRefreshToken(@NonNull String token) {
         try {
             logger.debug("Validating refresh token");
-            Jwts.parser()
-                    .verifyWith(getSigningKey(securityProperties.getJwtRefreshSecret()))
-                    .build()
-                    .parseSignedClaims(token);
+            refreshParser.parseSignedClaims(token);
             return true;
         } catch (JwtException e) {
             logger.error("Invalid refresh token: {}", e.getMessage());
@@ -205,7 +199,7 @@ public class JwtTokenProvider {
                     .claim("roles", roles)
                     .issuedAt(new Date())
                     .expiration(new Date(System.currentTimeMillis() + securityProperties.getJwtExpirationMs()))
-                    .signWith(getSigningKey(securityProperties.getJwtSecret()))
+                    .signWith(accessKey)
                     .compact();
         });
     }
@@ -218,6 +212,14 @@ public class JwtTokenProvider {
                 .subscribeOn(Schedulers.boundedElastic());
     }
 
+    /**
+     * Reactive wrapper for verifyJwtToken; an invalid token ends it with a JwtException.
+     * Verification is a few microseconds of CPU work, so it runs on the subscribing thread.
+     */
+    public Mono<VerifiedClaims> verifyJwtTokenReactive(@NonNull String token) {
+        return Mono.fromCallable(() -> verifyJwtToken(token));
+    }
+
     /**
      * Reactive wrapper for validateServiceToken.
      */
@@ -242,6 +244,36 @@ public class JwtTokenProvider {
                 .subscribeOn(Schedulers.boundedElastic());
     }
 
+    /**
+     * --------------------------------------------------------------------------------
+     * Claims
+     * --------------------------------------------------------------------------------
+     */
+
+    private List<String> getRoles(Claims claims) {
+        // Check if roles claim exists
+        if (!claims.containsKey("roles")) {
+            logger.warn("JWT token does not contain roles claim");
+            return Collections.singletonList("CUSTOMER"); // Default role
+        }
+
+        Object rolesObject = claims.get("roles");
+
+        if (rolesObject instanceof List<?>) {
+            return ((List<?>) rolesObject).stream()
+                    .map(Object::toString)
+                    .toList();
+        } else if (rolesObject instanceof String) {
+            // Handle CSV format
+            String rolesStr = (String) rolesObject;
+            return Arrays.asList(rolesStr.split(","));
+        } else {
+            // Default to CUSTOMER role if format is unexpected
+            logger.warn("Unexpected roles format in JWT: {}", rolesObject);
+            return Collections.singletonList("CUSTOMER");
+        }
+    }
+
     /**
      * --------------------------------------------------------------------------------
      * Signing Key
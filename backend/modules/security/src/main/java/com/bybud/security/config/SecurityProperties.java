@@ -3,6 +3,7 @@ package com.bybud.security.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
@@ -14,6 +15,20 @@ public class SecurityProperties {
     private int jwtExpirationMs;
     private int jwtRefreshExpirationMs;
     private List<String> excludedPaths;
+    // Verified tokens kept per instance so repeat requests skip the signature check
+    private int claimsCacheSize = 10_000;
+    // Local filter of revoked token signatures, sized for this many revocations at this false positive rate
+    private int revocationFilterCapacity = 100_000;
+    private double revocationFilterFalsePositiveRate = 0.001;
+    // How often the filter is rebuilt from Redis, dropping expired revocations
+    private Duration revocationFilterRebuildInterval = Duration.ofHours(1);
+    // The filter is only trusted while the revocation feed reads up to where its topics ended one interval ago
+    private Duration revocationFilterLagCheckInterval = Duration.ofSeconds(5);
+    // Near cache of token status keys, kept coherent by Redis invalidation pushes
+    private boolean tokenCacheEnabled;
+    private int tokenCacheSize = 100_000;
+    // Upper bound on how long an entry is kept, even if its key lives longer or does not exist
+    private Duration tokenCacheMaxTtl = Duration.ofMinutes(5);
 
     // Getters and setters
     public boolean isEnabled() { return enabled; }
@@ -33,4 +48,28 @@ public class SecurityProperties {
 
     public List<String> getExcludedPaths() { return excludedPaths; }
     public void setExcludedPaths(List<String> excludedPaths) { this.excludedPaths = excludedPaths; }
+
+    public int getClaimsCacheSize() { return claimsCacheSize; }
+    public void setClaimsCacheSize(int claimsCacheSize) { this.claimsCacheSize = claimsCacheSize; }
+
+    public int getRevocationFilterCapacity() { return revocationFilterCapacity; }
+    public void setRevocationFilterCapacity(int revocationFilterCapacity) { this.revocationFilterCapacity = revocationFilterCapacity; }
+
+    public double getRevocationFilterFalsePositiveRate() { return revocationFilterFalsePositiveRate; }
+    public void setRevocationFilterFalsePositiveRate(double revocationFilterFalsePositiveRate) { this.revocationFilterFalsePositiveRate = revocationFilterFalsePositiveRate; }
+
+    public Duration getRevocationFilterRebuildInterval() { return revocationFilterRebuildInterval; }
+    public void setRevocationFilterRebuildInterval(Duration revocationFilterRebuildInterval) { this.revocationFilterRebuildInterval = revocationFilterRebuildInterval; }
+
+    public Duration getRevocationFilterLagCheckInterval() { return revocationFilterLagCheckInterval; }
+    public void setRevocationFilterLagCheckInterval(Duration revocationFilterLagCheckInterval) { this.revocationFilterLagCheckInterval = revocationFilterLagCheckInterval; }
+
+    public boolean isTokenCacheEnabled() { return tokenCacheEnabled; }
+    public void setTokenCacheEnabled(boolean tokenCacheEnabled) { this.tokenCacheEnabled = tokenCacheEnabled; }
+
+    public int getTokenCacheSize() { return tokenCacheSize; }
+    public void setTokenCacheSize(int tokenCacheSize) { this.tokenCacheSize = tokenCacheSize; }
+
+    public Duration getTokenCacheMaxTtl() { return tokenCacheMaxTtl; }
+    public void setTokenCacheMaxTtl(Duration tokenCacheMaxTtl) { this.tokenCacheMaxTtl = tokenCacheMaxTtl; }
 }
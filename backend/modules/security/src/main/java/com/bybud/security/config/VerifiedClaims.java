@@ -0,0 +1,23 @@
+package com.bybud.security.config;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The claims of a JWT whose signature and expiry have been checked.
+ *
+ * @param subject   the username the token was issued to
+ * @param roles     the roles granted by the token
+ * @param service   whether the token was issued to a service rather than a user
+ * @param expiresAt when the token stops being valid
+ */
+public record VerifiedClaims(String subject, List<String> roles, boolean service, Instant expiresAt) {
+
+    public VerifiedClaims {
+        roles = List.copyOf(roles);
+    }
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
@@ -5,6 +5,11 @@ import com.bybud.entity.repository.UserRepository;
 import com.bybud.security.service.ReactiveTokenService;
 import com.bybud.security.config.JwtTokenProvider;
 import com.bybud.security.config.SecurityProperties;
+import com.bybud.security.config.VerifiedClaims;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -20,6 +25,8 @@ import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,6 +39,7 @@ public class AuthTokenFilter implements WebFilter {
     private final ReactiveTokenService tokenService;
     private final SecurityProperties securityProperties;
     private final UserRepository userRepository;
+    private final Cache<String, CachedClaims> claimsCache;
 
     public AuthTokenFilter(
             JwtTokenProvider jwtTokenProvider,
@@ -43,6 +51,27 @@ public class AuthTokenFilter implements WebFilter {
         this.tokenService = tokenService;
         this.securityProperties = securityProperties;
         this.userRepository = userRepository;
+        this.claimsCache = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getClaimsCacheSize())
+                .expireAfter(new Expiry<String, CachedClaims>() {
+                    @Override
+                    public long expireAfterCreate(String signature, CachedClaims cached, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), cached.claims().expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String signature, CachedClaims cached, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(signature, cached, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String signature, CachedClaims cached, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
         logger.info("AuthTokenFilter initialized with excluded paths: {}", securityProperties.getExcludedPaths());
     }
 
@@ -62,34 +91,24 @@ public class AuthTokenFilter implements WebFilter {
             return chain.filter(exchange);
         }
 
-        // First validate JWT signature and expiration using reactive method
-        return jwtTokenProvider.validateJwtTokenReactive(jwt)
-                .flatMap(isValid -> {
-                    if (!isValid) {
-                        logger.warn("JWT validation failed for token");
-                        return unauthorizedResponse(exchange, "Invalid token");
-                    }
-
-                    // Check if token is active in Redis
-                    return tokenService.isTokenActive(jwt)
-                            .flatMap(isActive -> {
-                                if (!isActive) {
-                                    logger.warn("Token is not active in Redis");
-                                    return unauthorizedResponse(exchange, "Token is not active");
-                                }
-
-                                // Check if token is blacklisted
-                                return tokenService.isTokenBlacklisted(jwt)
-                                        .flatMap(isBlacklisted -> {
-                                            if (isBlacklisted) {
-                                                logger.warn("Token is blacklisted");
-                                                return unauthorizedResponse(exchange, "Token has been revoked");
-                                            }
-
-                                            // Process valid token
-                                            return processValidToken(jwt, exchange, chain);
-                                        });
-                            });
+        // Verify the JWT once per token; repeat requests reuse the verified claims
+        return verifiedClaims(jwt)
+                .flatMap(claims -> tokenService.getTokenStatus(jwt)
+                        .flatMap(status -> switch (status) {
+                            case INACTIVE -> {
+                                logger.warn("Token is not active in Redis");
+                                yield unauthorizedResponse(exchange, "Token is not active");
+                            }
+                            case REVOKED -> {
+                                logger.warn("Token is blacklisted");
+                                yield unauthorizedResponse(exchange, "Token has been revoked");
+                            }
+                            // Process valid token
+                            case ACTIVE -> processValidToken(claims, exchange, chain);
+                        }))
+                .onErrorResume(JwtException.class, e -> {
+                    logger.warn("JWT validation failed for token");
+                    return unauthorizedResponse(exchange, "Invalid token");
                 })
                 .onErrorResume(e -> {
                     logger.error("Authentication error: {}", e.getMessage(), e);
@@ -97,46 +116,54 @@ public class AuthTokenFilter implements WebFilter {
                 });
     }
 
-    private Mono<Void> processValidToken(String jwt, ServerWebExchange exchange, WebFilterChain chain) {
-        // Retrieve subject (username) and roles reactively
-        Mono<String> usernameMono = jwtTokenProvider.getSubjectFromJwtReactive(jwt);
-        Mono<List<String>> rolesMono = jwtTokenProvider.getRolesFromJwtReactive(jwt);
-
-        return Mono.zip(usernameMono, rolesMono)
-                .flatMap(tuple -> {
-                    String username = tuple.getT1();
-                    List<String> roles = tuple.getT2();
-                    logger.info("Valid JWT token for user: {} with roles: {}", username, roles);
-
-                    // Convert roles to authorities
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                            .collect(Collectors.toList());
-
-                    // Look up the user to get their full name
-                    return userRepository.findByUsername(username)
-                            .defaultIfEmpty(new User()) // Fallback if user not found
-                            .flatMap(user -> {
-                                // Get full name from user or default to username
-                                String fullName = user.getFullName() != null ? user.getFullName() : username;
-
-                                // Add user information to request headers for downstream services
-                                ServerWebExchange modifiedExchange = exchange.mutate()
-                                        .request(exchange.getRequest().mutate()
-                                                .header("X-User-Name", username)
-                                                .header("X-User-Full-Name", fullName)
-                                                .header("X-User-Id", user.getId() != null ? user.getId() : username)
-                                                .header("X-User-Roles", String.join(",", roles))
-                                                .build())
-                                        .build();
-
-                                // Set authentication context
-                                UsernamePasswordAuthenticationToken authentication =
-                                        new UsernamePasswordAuthenticationToken(username, null, authorities);
-
-                                return chain.filter(modifiedExchange)
-                                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
-                            });
+    /**
+     * Claims of a token verified before are served from the cache until the token expires, so the
+     * signature is checked once per token rather than once per request. Entries are keyed by
+     * signature and only match the exact token they were verified for.
+     */
+    private Mono<VerifiedClaims> verifiedClaims(String jwt) {
+        String signature = jwt.substring(jwt.lastIndexOf('.') + 1);
+        CachedClaims cached = claimsCache.getIfPresent(signature);
+        if (cached != null && cached.token().equals(jwt) && !cached.claims().isExpired(Instant.now())) {
+            return Mono.just(cached.claims());
+        }
+        return jwtTokenProvider.verifyJwtTokenReactive(jwt)
+                .doOnNext(claims -> claimsCache.put(signature, new CachedClaims(jwt, claims)));
+    }
+
+    private Mono<Void> processValidToken(VerifiedClaims claims, ServerWebExchange exchange, WebFilterChain chain) {
+        String username = claims.subject();
+        List<String> roles = claims.roles();
+        logger.info("Valid JWT token for user: {} with roles: {}", username, roles);
+
+        // Convert roles to authorities
+        List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .collect(Collectors.toList());
+
+        // Look up the user to get their full name
+        return userRepository.findByUsername(username)
+                .defaultIfEmpty(new User()) // Fallback if user not found
+                .flatMap(user -> {
+                    // Get full name from user or default to username
+                    String fullName = user.getFullName() != null ? user.getFullName() : username;
+
+                    // Add user information to request headers for downstream services
+                    ServerWebExchange modifiedExchange = exchange.mutate()
+                            .request(exchange.getRequest().mutate()
+                                    .header("X-User-Name", username)
+                                    .header("X-User-Full-Name", fullName)
+                                    .header("X-User-Id", user.getId() != null ? user.getId() : username)
+                                    .header("X-User-Roles", String.join(",", roles))
+                                    .build())
+                            .build();
+
+                    // Set authentication context
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(username, null, authorities);
+
+                    return chain.filter(modifiedExchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
                 });
     }
 
@@ -195,6 +222,9 @@ public class AuthTokenFilter implements WebFilter {
         return null;
     }
 
+    private record CachedClaims(String token, VerifiedClaims claims) {
+    }
+
     private Mono<Void> unauthorizedResponse(@NonNull ServerWebExchange exchange, @NonNull String message) {
         logger.warn("Unauthorized: {}", message);
         exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
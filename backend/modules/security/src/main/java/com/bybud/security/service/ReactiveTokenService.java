@@ -3,10 +3,12 @@ package com.bybud.security.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.List;
 
 /**
  * Service to handle token storage, validation, and blacklisting in Redis.
@@ -17,11 +19,41 @@ public class ReactiveTokenService {
     private static final Logger logger = LoggerFactory.getLogger(ReactiveTokenService.class);
 
     private final ReactiveRedisTemplate<String, String> redisTemplate;
-    private static final String TOKEN_PREFIX = "token:";
-    private static final String BLACKLIST_PREFIX = "blacklist:";
+    private final RevocationFilter revocationFilter;
+    private final TokenNearCache nearCache;
+    static final String TOKEN_PREFIX = "token:";
+    static final String BLACKLIST_PREFIX = "blacklist:";
 
-    public ReactiveTokenService(ReactiveRedisTemplate<String, String> redisTemplate) {
+    /**
+     * KEYS: token key, blacklist key. Returns the ordinal of the {@link TokenStatus}.
+     */
+    static final RedisScript<Long> TOKEN_STATUS = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) ~= 'ACTIVE' then
+              return 1
+            end
+            if redis.call('GET', KEYS[2]) == 'REVOKED' then
+              return 2
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * Whether a token may be used, in the order of {@link #TOKEN_STATUS}'s replies.
+     */
+    public enum TokenStatus {
+        ACTIVE,
+        // Not stored, removed or expired
+        INACTIVE,
+        REVOKED
+    }
+
+    public ReactiveTokenService(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            RevocationFilter revocationFilter,
+            TokenNearCache nearCache) {
         this.redisTemplate = redisTemplate;
+        this.revocationFilter = revocationFilter;
+        this.nearCache = nearCache;
         logger.info("ReactiveTokenService initialized");
     }
 
@@ -37,24 +69,16 @@ public class ReactiveTokenService {
 
         logger.debug("STORAGE: About to store token with key: {}, value: 'ACTIVE', TTL: {}", key, ttl);
 
-        return redisTemplate.hasKey(key)
-                .flatMap(exists -> {
-                    if (exists) {
-                        logger.debug("STORAGE: Token key already exists: {}", key);
-                        // If key exists, extend TTL
-                        return redisTemplate.expire(key, ttl);
+        // SET replaces the TTL of an existing key, so storing a token again extends it
+        return nearCache.write(key, redisTemplate.opsForValue().set(key, "ACTIVE", ttl))
+                .doOnSuccess(success -> {
+                    if (Boolean.TRUE.equals(success)) {
+                        logger.debug("STORAGE: Token stored successfully, key: {}", key);
+                    } else {
+                        logger.warn("STORAGE: Failed to store token, key: {}", key);
                     }
-
-                    return redisTemplate.opsForValue().set(key, "ACTIVE", ttl)
-                            .doOnSuccess(success -> {
-                                if (Boolean.TRUE.equals(success)) {
-                                    logger.debug("STORAGE: Token stored successfully, key: {}", key);
-                                } else {
-                                    logger.warn("STORAGE: Failed to store token, key: {}", key);
-                                }
-                            })
-                            .doOnError(e -> logger.error("STORAGE: Error storing token: {}", e.getMessage(), e));
-                });
+                })
+                .doOnError(e -> logger.error("STORAGE: Error storing token: {}", e.getMessage(), e));
     }
 
     /**
@@ -68,19 +92,10 @@ public class ReactiveTokenService {
 
         logger.debug("RETRIEVAL: Checking if token is active with key: {}", key);
 
-        return redisTemplate.hasKey(key)
-                .flatMap(exists -> {
-                    if (!exists) {
-                        logger.debug("RETRIEVAL: Token key does not exist: {}", key);
-                        return Mono.just(false);
-                    }
-
-                    logger.debug("RETRIEVAL: Token key exists: {}", key);
-                    return redisTemplate.opsForValue().get(key)
-                            .doOnNext(value -> logger.debug("RETRIEVAL: Redis value for key {}: '{}'", key, value))
-                            .map("ACTIVE"::equals)
-                            .defaultIfEmpty(false);
-                })
+        return nearCache.get(key)
+                .doOnNext(value -> logger.debug("RETRIEVAL: Redis value for key {}: '{}'", key, value))
+                .map("ACTIVE"::equals)
+                .defaultIfEmpty(false)
                 .doOnNext(active -> logger.debug("RETRIEVAL: Token active status: {}", active));
     }
 
@@ -95,22 +110,14 @@ public class ReactiveTokenService {
 
         logger.debug("Removing token with key: {}", key);
 
-        return redisTemplate.hasKey(key)
-                .flatMap(exists -> {
-                    if (!exists) {
+        return nearCache.write(key, redisTemplate.delete(key))
+                .map(deleted -> deleted > 0)
+                .doOnNext(removed -> {
+                    if (removed) {
+                        logger.debug("Token removed successfully: {}", key);
+                    } else {
                         logger.debug("Token key does not exist during removal: {}", key);
-                        return Mono.just(false);
                     }
-
-                    return redisTemplate.delete(key)
-                            .map(deleted -> deleted > 0)
-                            .doOnNext(success -> {
-                                if (Boolean.TRUE.equals(success)) {
-                                    logger.debug("Token removed successfully: {}", key);
-                                } else {
-                                    logger.warn("Failed to remove token: {}", key);
-                                }
-                            });
                 });
     }
 
@@ -127,7 +134,7 @@ public class ReactiveTokenService {
 
         logger.debug("Blacklisting token with key: {}", key);
 
-        return redisTemplate.opsForValue().set(key, "REVOKED", expiry)
+        return nearCache.write(key, redisTemplate.opsForValue().set(key, "REVOKED", expiry))
                 .doOnSuccess(success -> logger.debug("Token blacklisted: {}", success));
     }
 
@@ -142,26 +149,41 @@ public class ReactiveTokenService {
 
         logger.debug("Checking if token is blacklisted with key: {}", key);
 
-        return redisTemplate.hasKey(key)
-                .flatMap(exists -> {
-                    if (!exists) {
-                        logger.debug("Token not in blacklist: {}", key);
-                        return Mono.just(false);
-                    }
-
-                    return redisTemplate.opsForValue().get(key)
-                            .map("REVOKED"::equals)
-                            .defaultIfEmpty(false);
-                })
+        return nearCache.get(key)
+                .map("REVOKED"::equals)
+                .defaultIfEmpty(false)
                 .doOnNext(blacklisted -> logger.debug("Token blacklist status: {}", blacklisted));
     }
 
+    /**
+     * Check in one round trip whether a token is active and not blacklisted.
+     * Activity is checked first, as isTokenActive followed by isTokenBlacklisted would.
+     * The blacklist is only read when the local revocation filter says the token might be on it.
+     * @param token the JWT token string.
+     * @return Mono<TokenStatus> the status of the token.
+     */
+    public Mono<TokenStatus> getTokenStatus(String token) {
+        String signature = extractTokenSignature(token);
+        if (!revocationFilter.mightBeRevoked(signature)) {
+            return isTokenActive(token)
+                    .map(active -> active ? TokenStatus.ACTIVE : TokenStatus.INACTIVE);
+        }
+
+        List<String> keys = List.of(TOKEN_PREFIX + signature, BLACKLIST_PREFIX + signature);
+
+        return redisTemplate.execute(TOKEN_STATUS, keys)
+                .next()
+                .map(status -> TokenStatus.values()[status.intValue()])
+                .defaultIfEmpty(TokenStatus.INACTIVE)
+                .doOnNext(status -> logger.debug("Token status for key {}: {}", keys.get(0), status));
+    }
+
     /**
      * Extract the signature part from a JWT token for use as a Redis key.
      * @param token the JWT token
      * @return the signature part or the original token if it's not a valid JWT
      */
-    private String extractTokenSignature(String token) {
+    static String extractTokenSignature(String token) {
         try {
             logger.debug("Extracting signature from token: {}", token);
 
@@ -0,0 +1,207 @@
+package com.bybud.security.service;
+
+import com.bybud.security.config.SecurityProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Local Bloom filter of revoked token signatures, so only tokens that might be revoked cost a
+ * blacklist lookup in Redis.
+ *
+ * <p>The filter fails open: it answers "might be revoked" unless it is enabled by whoever feeds it
+ * revocations, the auth event consumer, and has loaded the blacklist from Redis since. The consumer
+ * disables it whenever its feed stops or falls behind, and every token is then checked in Redis as
+ * before. Revocations are added once they are written to Redis, so a rebuild scanning Redis never
+ * misses one added before it started and receives the ones added while it runs.</p>
+ *
+ * <p>A Bloom filter cannot forget, so it is rebuilt from Redis periodically, which drops
+ * revocations whose blacklist entry expired and resizes it if it outgrew its capacity.</p>
+ */
+@Component
+public class RevocationFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevocationFilter.class);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final SecurityProperties securityProperties;
+
+    // Null while disabled and until the first load after enabling completes: everything might be revoked
+    private volatile Bits current;
+    // Guarded by this: the filter being loaded, receiving additions alongside the current one
+    private Bits building;
+    // Guarded by this: non-null while enabled
+    private Disposable rebuilding;
+
+    public RevocationFilter(ReactiveRedisTemplate<String, String> redisTemplate, SecurityProperties securityProperties) {
+        this.redisTemplate = redisTemplate;
+        this.securityProperties = securityProperties;
+    }
+
+    /**
+     * Loads the blacklist and keeps rebuilding the filter. Called once revocations are being fed
+     * and the feed has caught up; does nothing if already enabled.
+     */
+    public synchronized void enable() {
+        if (rebuilding != null) {
+            return;
+        }
+        logger.info("Revocation filter enabled, loading blacklist");
+        Duration interval = securityProperties.getRevocationFilterRebuildInterval();
+        rebuilding = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(e -> {
+                            logger.error("Failed to rebuild revocation filter: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    /**
+     * Stops trusting the filter, so every token is checked in Redis until it is enabled again.
+     * Called when revocations may no longer reach it; a rebuild still running is discarded.
+     */
+    @PreDestroy
+    public synchronized void disable() {
+        if (rebuilding == null) {
+            return;
+        }
+        rebuilding.dispose();
+        rebuilding = null;
+        current = null;
+        building = null;
+        logger.warn("Revocation filter disabled, checking every token in Redis");
+    }
+
+    /**
+     * Whether a token might be revoked; false means it certainly is not.
+     * @param token the JWT token string or its signature.
+     */
+    public boolean mightBeRevoked(String token) {
+        Bits bits = current;
+        return bits == null || bits.mightContain(ReactiveTokenService.extractTokenSignature(token));
+    }
+
+    /**
+     * Add a revoked token, after its blacklist entry was written to Redis.
+     * @param token the JWT token string or its signature.
+     */
+    public synchronized void add(String token) {
+        String signature = ReactiveTokenService.extractTokenSignature(token);
+        if (current != null) {
+            current.add(signature);
+        }
+        if (building != null) {
+            building.add(signature);
+        }
+    }
+
+    Mono<Void> rebuild() {
+        Bits next;
+        synchronized (this) {
+            long revoked = current != null ? current.count() : 0;
+            next = new Bits(Math.max(securityProperties.getRevocationFilterCapacity(), revoked * 2),
+                    securityProperties.getRevocationFilterFalsePositiveRate());
+            building = next;
+        }
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(ReactiveTokenService.BLACKLIST_PREFIX + "*")
+                .count(1000)
+                .build();
+        return redisTemplate.scan(options)
+                .doOnNext(key -> next.add(key.substring(ReactiveTokenService.BLACKLIST_PREFIX.length())))
+                .then(Mono.fromRunnable(() -> {
+                    synchronized (this) {
+                        // Disabled meanwhile, possibly enabled again with a newer rebuild running
+                        if (building != next) {
+                            return;
+                        }
+                        current = next;
+                        building = null;
+                    }
+                    logger.info("Revocation filter rebuilt with {} revoked tokens", next.count());
+                }))
+                .doOnError(e -> {
+                    synchronized (this) {
+                        if (building == next) {
+                            building = null;
+                        }
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Fixed-size Bloom filter over a lock-free bit array.
+     */
+    static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final AtomicLong count = new AtomicLong();
+
+        Bits(long capacity, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) >>> 6));
+            this.size = words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / capacity * Math.log(2)));
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(hash, i);
+                long mask = 1L << bit;
+                words.getAndUpdate((int) (bit >>> 6), word -> word | mask);
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(hash, i);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        // Double hashing: the i-th probe combines both halves of one 64-bit hash
+        private long index(long hash, int i) {
+            long combined = (hash & 0xFFFFFFFFL) + i * (hash >>> 32);
+            return Math.floorMod(combined, size);
+        }
+
+        // FNV-1a followed by the MurmurHash3 finalizer
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.bybud.security.service;
+
+import com.bybud.security.config.SecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near cache of the token status keys read by {@link ReactiveTokenService}, which are read on every
+ * request and written only on login, refresh, logout and revocation.
+ *
+ * <p>Redis pushes an invalidation whenever one of these keys is written, deleted or expires, so a
+ * cached value is dropped as soon as it changes anywhere. The preferred way is RESP3 client tracking
+ * in broadcast mode for the token prefixes on a dedicated connection; where that is not available,
+ * e.g. on Redis before 6 or a cluster, keyspace notifications are subscribed instead, provided the
+ * server publishes them. Without either the cache stays off and every read goes to Redis.</p>
+ *
+ * <p>Entries live as long as their key in Redis, so a token's status is never cached past the
+ * token's TTL, and never longer than the configured maximum, which also bounds how stale an entry
+ * could get if invalidations were lost. While the invalidation channel is down the cache is cleared
+ * and bypassed.</p>
+ */
+@Component
+public class TokenNearCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenNearCache.class);
+
+    /**
+     * KEYS: the key. Returns its value, or an empty string if it does not exist, and its TTL in ms.
+     */
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> GET_WITH_TTL = RedisScript.of("""
+            return {redis.call('GET', KEYS[1]) or '', redis.call('PTTL', KEYS[1])}
+            """, List.class);
+
+    private static final String[] PREFIXES = {ReactiveTokenService.TOKEN_PREFIX, ReactiveTokenService.BLACKLIST_PREFIX};
+    // Token status values are never empty, so an empty value caches a missing key
+    private static final String ABSENT = "";
+    // A read in flight is dropped with its placeholder if its key is invalidated meanwhile
+    private static final long LOADING_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ReactiveRedisConnectionFactory connectionFactory;
+    private final SecurityProperties securityProperties;
+    private final Cache<String, Entry> cache;
+    // Keys written by this instance, to time how long their invalidation takes to come back
+    private final Cache<String, Long> pendingWrites;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Timer invalidationLag;
+
+    // Invalidations are being received, so cached entries can be trusted
+    private volatile boolean coherent;
+    private volatile StatefulRedisConnection<String, String> trackingConnection;
+    private Disposable keyspaceSubscription;
+
+    public TokenNearCache(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            ReactiveRedisConnectionFactory connectionFactory,
+            SecurityProperties securityProperties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.securityProperties = securityProperties;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(securityProperties.getTokenCacheSize())
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.pendingWrites = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+
+        this.hits = Counter.builder("auth.token.cache.requests")
+                .tag("result", "hit")
+                .description("Token status reads answered by the near cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("auth.token.cache.requests")
+                .tag("result", "miss")
+                .description("Token status reads that went to Redis")
+                .register(meterRegistry);
+        Gauge.builder("auth.token.cache.hit.ratio", this, TokenNearCache::hitRatio)
+                .description("Share of token status reads answered by the near cache")
+                .register(meterRegistry);
+        Gauge.builder("auth.token.cache.size", cache, Cache::estimatedSize)
+                .description("Token status keys held in the near cache")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("auth.token.cache.invalidations")
+                .description("Invalidations pushed by Redis")
+                .register(meterRegistry);
+        this.invalidationLag = Timer.builder("auth.token.cache.invalidation.lag")
+                .description("Time from a write by this instance until Redis pushed its invalidation")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!securityProperties.isTokenCacheEnabled()) {
+            return;
+        }
+        if (connectionFactory instanceof LettuceConnectionFactory lettuce
+                && lettuce.getNativeClient() instanceof RedisClient client) {
+            try {
+                startTracking(client);
+                return;
+            } catch (Exception e) {
+                logger.warn("Client tracking unavailable, falling back to keyspace notifications: {}", e.getMessage());
+            }
+        }
+        startKeyspaceNotifications();
+    }
+
+    @PreDestroy
+    public void stop() {
+        coherent = false;
+        if (trackingConnection != null) {
+            trackingConnection.close();
+        }
+        if (keyspaceSubscription != null) {
+            keyspaceSubscription.dispose();
+        }
+    }
+
+    /**
+     * Read a token status key, from the cache while it is coherent and from Redis otherwise.
+     */
+    public Mono<String> get(String key) {
+        if (!coherent) {
+            return redisTemplate.opsForValue().get(key);
+        }
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && !entry.isLoading()) {
+            hits.increment();
+            return entry.value.equals(ABSENT) ? Mono.empty() : Mono.just(entry.value);
+        }
+        misses.increment();
+
+        Entry loading = Entry.loading();
+        cache.put(key, loading);
+        return redisTemplate.execute(GET_WITH_TTL, List.of(key))
+                .next()
+                .flatMap(reply -> {
+                    String value = (String) reply.get(0);
+                    long ttlMs = (Long) reply.get(1);
+                    // Only if no invalidation removed the placeholder since the read started
+                    cache.asMap().replace(key, loading, Entry.of(value, ttlNanos(ttlMs)));
+                    return value.equals(ABSENT) ? Mono.empty() : Mono.just(value);
+                });
+    }
+
+    /**
+     * Wrap a write of a token status key by this instance. The key is dropped locally as soon as the
+     * write is done, so this instance's next read sees it without waiting for the invalidation.
+     */
+    public <T> Mono<T> write(String key, Mono<T> write) {
+        return Mono.defer(() -> {
+                    if (coherent) {
+                        pendingWrites.put(key, System.nanoTime());
+                    }
+                    return write;
+                })
+                .doOnSuccess(result -> cache.invalidate(key))
+                .doOnError(e -> cache.invalidate(key));
+    }
+
+    private void startTracking(RedisClient client) {
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                if (connection == trackingConnection) {
+                    setIncoherent("tracking connection lost");
+                }
+            }
+
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+                // Tracking is per connection and not restored by Lettuce's reconnect
+                if (connection == trackingConnection) {
+                    trackingConnection.async().clientTracking(trackingArgs()).whenComplete((ok, e) -> {
+                        if (e != null) {
+                            logger.error("Failed to re-enable client tracking: {}", e.getMessage());
+                        } else {
+                            setCoherent("client tracking re-enabled");
+                        }
+                    });
+                }
+            }
+        });
+
+        StatefulRedisConnection<String, String> connection = client.connect(StringCodec.UTF8);
+        connection.addListener((PushListener) message -> {
+            if (!"invalidate".equals(message.getType())) {
+                return;
+            }
+            List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+            // No keys means the database was flushed
+            if (content.size() > 1 && content.get(1) instanceof List<?> keys) {
+                keys.forEach(key -> onInvalidated((String) key));
+            } else {
+                cache.invalidateAll();
+            }
+        });
+        try {
+            // Requires RESP3, which Lettuce negotiates with Redis 6 and later
+            connection.sync().clientTracking(trackingArgs());
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        trackingConnection = connection;
+        setCoherent("client tracking enabled");
+    }
+
+    private static TrackingArgs trackingArgs() {
+        return TrackingArgs.Builder.enabled().bcast().prefixes(PREFIXES);
+    }
+
+    private void startKeyspaceNotifications() {
+        keyspaceSubscription = redisTemplate.execute(connection -> connection.serverCommands()
+                        .getConfig("notify-keyspace-events"))
+                .next()
+                .map(config -> config.getProperty("notify-keyspace-events", ""))
+                .flatMapMany(events -> {
+                    // K: keyspace channel; g, $, x, e: DEL/EXPIRE, SET, expiry, eviction (A covers all)
+                    boolean published = events.contains("K")
+                            && (events.contains("A") || "g$xe".chars().allMatch(c -> events.indexOf(c) >= 0));
+                    if (!published) {
+                        logger.warn("Redis does not publish keyspace notifications (notify-keyspace-events='{}'), "
+                                + "token near cache stays off", events);
+                        return Flux.empty();
+                    }
+                    return subscribeKeyspace();
+                })
+                .subscribe(this::onInvalidated,
+                        e -> logger.error("Token near cache unavailable: {}", e.getMessage()));
+    }
+
+    private Flux<String> subscribeKeyspace() {
+        ReactiveRedisMessageListenerContainer container = new ReactiveRedisMessageListenerContainer(connectionFactory);
+        PatternTopic[] topics = Arrays.stream(PREFIXES)
+                .map(prefix -> PatternTopic.of("__keyspace@*__:" + prefix + "*"))
+                .toArray(PatternTopic[]::new);
+        return Flux.defer(() -> container.receiveLater(topics)
+                        .flatMapMany(messages -> {
+                            setCoherent("subscribed to keyspace notifications");
+                            return messages;
+                        }))
+                // The channel is __keyspace@<db>__:<key>
+                .map(message -> message.getChannel().substring(message.getChannel().indexOf(':') + 1))
+                .doOnError(e -> setIncoherent("keyspace subscription failed: " + e.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .doFinally(signal -> container.destroyLater().subscribe());
+    }
+
+    void onInvalidated(String key) {
+        invalidations.increment();
+        cache.invalidate(key);
+        Long writtenAt = pendingWrites.asMap().remove(key);
+        if (writtenAt != null) {
+            invalidationLag.record(System.nanoTime() - writtenAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void setCoherent(String reason) {
+        cache.invalidateAll();
+        coherent = true;
+        logger.info("Token near cache on: {}", reason);
+    }
+
+    void setIncoherent(String reason) {
+        coherent = false;
+        cache.invalidateAll();
+        logger.warn("Token near cache off: {}", reason);
+    }
+
+    private long ttlNanos(long ttlMs) {
+        long maxNanos = securityProperties.getTokenCacheMaxTtl().toNanos();
+        // -2: no such key, -1: no expiry
+        return ttlMs < 0 ? maxNanos : Math.min(TimeUnit.MILLISECONDS.toNanos(ttlMs), maxNanos);
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    /**
+     * A cached value, or the placeholder of a read in flight. Compared by identity, so a read only
+     * replaces its own placeholder.
+     */
+    private static final class Entry {
+        private final String value;
+        private final long ttlNanos;
+
+        private Entry(String value, long ttlNanos) {
+            this.value = value;
+            this.ttlNanos = ttlNanos;
+        }
+
+        static Entry of(String value, long ttlNanos) {
+            return new Entry(value, ttlNanos);
+        }
+
+        static Entry loading() {
+            return new Entry(null, LOADING_NANOS);
+        }
+
+        boolean isLoading() {
+            return value == null;
+        }
+    }
+}
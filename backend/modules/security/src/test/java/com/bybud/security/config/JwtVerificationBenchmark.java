@@ -0,0 +1,120 @@
+package com.bybud.security.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting subject and roles out of an access token the way a request does. The previous
+ * path verified the token three times (validate, subject, roles), each time deriving the key and
+ * building a parser, and reached it through three boundedElastic hops; the single pass verifies
+ * once with the prebuilt parser on the calling thread.
+ *
+ * <p>Not run by surefire. Run {@link #main} from the test classpath, e.g. from the IDE.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    JwtTokenProvider provider;
+    String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setJwtSecret(SECRET);
+        properties.setJwtRefreshSecret(SECRET + "-refresh");
+        properties.setJwtExpirationMs(3_600_000);
+        provider = new JwtTokenProvider(properties);
+        token = provider.generateJwtToken("customer1", List.of("CUSTOMER", "COURIER"));
+    }
+
+    /**
+     * The previous request path: three parses, each with a freshly derived key and parser.
+     */
+    @Benchmark
+    public void previousThreeParses(Blackhole blackhole) {
+        blackhole.consume(parseWithNewParser(token));
+        blackhole.consume(parseWithNewParser(token).getSubject());
+        blackhole.consume(parseWithNewParser(token).get("roles"));
+    }
+
+    /**
+     * The previous path as the filter ran it, through the boundedElastic wrappers.
+     */
+    @Benchmark
+    public void previousThreeParsesOnBoundedElastic(Blackhole blackhole) {
+        blackhole.consume(provider.validateJwtTokenReactive(token)
+                .then(Mono.zip(provider.getSubjectFromJwtReactive(token), provider.getRolesFromJwtReactive(token)))
+                .block());
+    }
+
+    /**
+     * Three parses, now sharing the prebuilt parser.
+     */
+    @Benchmark
+    public void threeParsesPrebuiltParser(Blackhole blackhole) {
+        blackhole.consume(provider.validateJwtToken(token));
+        blackhole.consume(provider.getSubjectFromJwt(token));
+        blackhole.consume(provider.getRolesFromJwt(token));
+    }
+
+    /**
+     * One verification returning subject, roles and service flag.
+     */
+    @Benchmark
+    public VerifiedClaims singlePass() {
+        return provider.verifyJwtToken(token);
+    }
+
+    /**
+     * The single pass as the filter runs it.
+     */
+    @Benchmark
+    public VerifiedClaims singlePassReactive() {
+        return provider.verifyJwtTokenReactive(token).block();
+    }
+
+    private static Claims parseWithNewParser(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
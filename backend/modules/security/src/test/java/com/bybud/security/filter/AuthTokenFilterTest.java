@@ -0,0 +1,113 @@
+package com.bybud.security.filter;
+
+import com.bybud.entity.repository.UserRepository;
+import com.bybud.security.config.JwtTokenProvider;
+import com.bybud.security.config.SecurityProperties;
+import com.bybud.security.config.VerifiedClaims;
+import com.bybud.security.service.ReactiveTokenService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthTokenFilterTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret";
+
+    private JwtTokenProvider jwtTokenProvider;
+    private WebFilterChain chain;
+    private AuthTokenFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        SecurityProperties properties = new SecurityProperties();
+        properties.setJwtSecret(SECRET);
+        properties.setJwtRefreshSecret(SECRET + "-refresh");
+        properties.setJwtExpirationMs(3_600_000);
+        jwtTokenProvider = spy(new JwtTokenProvider(properties));
+
+        ReactiveTokenService tokenService = mock(ReactiveTokenService.class);
+        when(tokenService.getTokenStatus(anyString())).thenReturn(Mono.just(ReactiveTokenService.TokenStatus.ACTIVE));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername(anyString())).thenReturn(Mono.empty());
+        chain = mock(WebFilterChain.class);
+        when(chain.filter(any())).thenReturn(Mono.empty());
+
+        filter = new AuthTokenFilter(jwtTokenProvider, tokenService, properties, userRepository);
+    }
+
+    private MockServerWebExchange request(String token) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/deliveries")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        return exchange;
+    }
+
+    @Test
+    void repeatRequestsWithTheSameTokenAreVerifiedOnce() {
+        String token = jwtTokenProvider.generateJwtToken("customer1", List.of("CUSTOMER"));
+
+        assertNull(request(token).getResponse().getStatusCode());
+        assertNull(request(token).getResponse().getStatusCode());
+
+        verify(jwtTokenProvider, times(1)).verifyJwtTokenReactive(token);
+        verify(chain, times(2)).filter(any());
+    }
+
+    @Test
+    void aTokenReusingACachedSignatureIsVerifiedAndRejected() {
+        String token = jwtTokenProvider.generateJwtToken("customer1", List.of("CUSTOMER"));
+        request(token);
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"admin\",\"roles\":[\"ADMIN\"]}".getBytes(StandardCharsets.UTF_8));
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        assertEquals(HttpStatus.UNAUTHORIZED, request(forged).getResponse().getStatusCode());
+
+        verify(jwtTokenProvider).verifyJwtTokenReactive(forged);
+        verify(chain, times(1)).filter(any());
+    }
+
+    @Test
+    void aTokenWithoutExpiryIsValidForOneRequestAndNeverCached() {
+        String token = Jwts.builder()
+                .subject("customer1")
+                .claim("roles", List.of("CUSTOMER"))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        VerifiedClaims claims = jwtTokenProvider.verifyJwtToken(token);
+        assertTrue(claims.isExpired(Instant.now()));
+
+        assertNull(request(token).getResponse().getStatusCode());
+        assertNull(request(token).getResponse().getStatusCode());
+
+        // once above, then once per request
+        verify(jwtTokenProvider, times(3)).verifyJwtToken(token);
+        verify(chain, times(2)).filter(any());
+    }
+}
@@ -0,0 +1,88 @@
+package com.bybud.security.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveTokenServiceTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final List<String> STATUS_KEYS = List.of("token:signature", "blacklist:signature");
+
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private RevocationFilter revocationFilter;
+    private TokenNearCache nearCache;
+    private ReactiveTokenService tokenService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveRedisTemplate.class);
+        revocationFilter = mock(RevocationFilter.class);
+        when(revocationFilter.mightBeRevoked("signature")).thenReturn(true);
+        nearCache = mock(TokenNearCache.class);
+        tokenService = new ReactiveTokenService(redisTemplate, revocationFilter, nearCache);
+    }
+
+    private void scriptReplies(Flux<Long> reply) {
+        when(redisTemplate.execute(eq(ReactiveTokenService.TOKEN_STATUS), eq(STATUS_KEYS))).thenReturn(reply);
+    }
+
+    @Test
+    void mapsTheScriptReplyToTheTokenStatus() {
+        scriptReplies(Flux.just(0L));
+        StepVerifier.create(tokenService.getTokenStatus(TOKEN))
+                .expectNext(ReactiveTokenService.TokenStatus.ACTIVE)
+                .verifyComplete();
+
+        scriptReplies(Flux.just(1L));
+        StepVerifier.create(tokenService.getTokenStatus(TOKEN))
+                .expectNext(ReactiveTokenService.TokenStatus.INACTIVE)
+                .verifyComplete();
+
+        scriptReplies(Flux.just(2L));
+        StepVerifier.create(tokenService.getTokenStatus(TOKEN))
+                .expectNext(ReactiveTokenService.TokenStatus.REVOKED)
+                .verifyComplete();
+    }
+
+    @Test
+    void noScriptReplyIsInactive() {
+        scriptReplies(Flux.empty());
+
+        StepVerifier.create(tokenService.getTokenStatus(TOKEN))
+                .expectNext(ReactiveTokenService.TokenStatus.INACTIVE)
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aTokenTheFilterRulesOutOnlyHasItsActivityChecked() {
+        when(revocationFilter.mightBeRevoked("signature")).thenReturn(false);
+        when(nearCache.get("token:signature")).thenReturn(Mono.just("ACTIVE"));
+
+        StepVerifier.create(tokenService.getTokenStatus(TOKEN))
+                .expectNext(ReactiveTokenService.TokenStatus.ACTIVE)
+                .verifyComplete();
+
+        when(nearCache.get("token:signature")).thenReturn(Mono.empty());
+        StepVerifier.create(tokenService.getTokenStatus(TOKEN))
+                .expectNext(ReactiveTokenService.TokenStatus.INACTIVE)
+                .verifyComplete();
+
+        verify(redisTemplate, never()).execute(any(), anyList());
+    }
+}
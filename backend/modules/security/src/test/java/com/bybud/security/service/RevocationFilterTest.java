@@ -0,0 +1,143 @@
+package com.bybud.security.service;
+
+import com.bybud.security.config.SecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RevocationFilterTest {
+
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private Sinks.Many<String> scan;
+    private RevocationFilter filter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveRedisTemplate.class);
+        scan = Sinks.many().unicast().onBackpressureBuffer();
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(scan.asFlux());
+
+        SecurityProperties properties = new SecurityProperties();
+        properties.setRevocationFilterCapacity(1_000);
+        // Low enough that the "certainly not revoked" checks below never hit a false positive
+        properties.setRevocationFilterFalsePositiveRate(1e-9);
+        filter = new RevocationFilter(redisTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filter.disable();
+    }
+
+    @Test
+    void bitsHaveNoFalseNegatives() {
+        RevocationFilter.Bits bits = new RevocationFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.add("revoked-signature-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bits.mightContain("revoked-signature-" + i), "false negative for " + i);
+        }
+    }
+
+    @Test
+    void bitsFalsePositiveRateIsNearTheConfiguredRate() {
+        double configured = 0.01;
+        RevocationFilter.Bits bits = new RevocationFilter.Bits(10_000, configured);
+        for (int i = 0; i < 10_000; i++) {
+            bits.add("revoked-signature-" + i);
+        }
+
+        int probes = 200_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (bits.mightContain("active-signature-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double measured = (double) falsePositives / probes;
+        assertTrue(measured > configured / 2 && measured < configured * 2,
+                "measured false positive rate " + measured + ", configured " + configured);
+    }
+
+    @Test
+    void everythingMightBeRevokedUntilEnabledAndLoaded() {
+        assertTrue(filter.mightBeRevoked("signature"));
+
+        filter.enable();
+        verify(redisTemplate, timeout(1_000)).scan(any(ScanOptions.class));
+        assertTrue(filter.mightBeRevoked("signature"));
+
+        scan.tryEmitComplete();
+        awaitTrue(() -> !filter.mightBeRevoked("signature"));
+    }
+
+    @Test
+    void revocationAddedDuringRebuildIsInTheRebuiltFilter() {
+        filter.enable();
+        verify(redisTemplate, timeout(1_000)).scan(any(ScanOptions.class));
+
+        scan.tryEmitNext("blacklist:scanned-before");
+        // Written to Redis after the scan passed its key: only the addition can bring it in
+        filter.add("added-during-scan");
+        scan.tryEmitNext("blacklist:scanned-after");
+        scan.tryEmitComplete();
+
+        awaitTrue(() -> !filter.mightBeRevoked("never-revoked"));
+        assertTrue(filter.mightBeRevoked("scanned-before"));
+        assertTrue(filter.mightBeRevoked("added-during-scan"));
+        assertTrue(filter.mightBeRevoked("scanned-after"));
+    }
+
+    @Test
+    void disableFailsOpenAndDiscardsTheRunningRebuild() {
+        filter.enable();
+        verify(redisTemplate, timeout(1_000)).scan(any(ScanOptions.class));
+        scan.tryEmitComplete();
+        awaitTrue(() -> !filter.mightBeRevoked("signature"));
+
+        filter.disable();
+
+        assertTrue(filter.mightBeRevoked("signature"));
+        filter.add("added-while-disabled");
+        assertTrue(filter.mightBeRevoked("signature"));
+    }
+
+    @Test
+    void rebuildFinishingAfterDisableIsNotInstalled() {
+        filter.enable();
+        verify(redisTemplate, timeout(1_000)).scan(any(ScanOptions.class));
+
+        filter.disable();
+        scan.tryEmitComplete();
+
+        assertTrue(filter.mightBeRevoked("signature"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.bybud.security.service;
+
+import com.bybud.security.config.SecurityProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenNearCacheTest {
+
+    private static final String KEY = "token:signature";
+
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private ReactiveValueOperations<String, String> valueOperations;
+    private TokenNearCache nearCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveRedisTemplate.class);
+        valueOperations = mock(ReactiveValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(KEY)).thenReturn(Mono.just("ACTIVE"));
+        when(redisTemplate.execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)))).thenReturn(reply("ACTIVE", 60_000L));
+
+        SecurityProperties properties = new SecurityProperties();
+        properties.setTokenCacheEnabled(true);
+        nearCache = new TokenNearCache(redisTemplate, mock(ReactiveRedisConnectionFactory.class), properties,
+                new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Flux<List> reply(Object... values) {
+        return Flux.just(List.of(values));
+    }
+
+    private void read(String expected) {
+        StepVerifier.create(nearCache.get(KEY)).expectNext(expected).verifyComplete();
+    }
+
+    @Test
+    void readsGoToRedisUntilInvalidationsAreReceived() {
+        read("ACTIVE");
+        read("ACTIVE");
+
+        verify(valueOperations, times(2)).get(KEY);
+        verify(redisTemplate, never()).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+
+    @Test
+    void servesRepeatReadsFromTheCacheWhileCoherent() {
+        nearCache.setCoherent("test");
+
+        read("ACTIVE");
+        read("ACTIVE");
+
+        verify(redisTemplate, times(1)).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+
+    @Test
+    void cachesAMissingKeyAsAbsent() {
+        when(redisTemplate.execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)))).thenReturn(reply("", -2L));
+        nearCache.setCoherent("test");
+
+        StepVerifier.create(nearCache.get(KEY)).verifyComplete();
+        StepVerifier.create(nearCache.get(KEY)).verifyComplete();
+
+        verify(redisTemplate, times(1)).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+
+    @Test
+    void anInvalidatedEntryIsReadAgain() {
+        nearCache.setCoherent("test");
+        read("ACTIVE");
+
+        nearCache.onInvalidated(KEY);
+        read("ACTIVE");
+
+        verify(redisTemplate, times(2)).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void anInvalidationDuringAMissKeepsTheReadValueOutOfTheCache() {
+        Sinks.One<List> pending = Sinks.one();
+        when(redisTemplate.execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY))))
+                .thenReturn(pending.asMono().flux())
+                .thenReturn(reply("", -2L));
+        nearCache.setCoherent("test");
+
+        StepVerifier.create(nearCache.get(KEY))
+                .then(() -> {
+                    // the key is deleted while the value read before is on its way back
+                    nearCache.onInvalidated(KEY);
+                    pending.tryEmitValue(List.of("ACTIVE", 60_000L));
+                })
+                .expectNext("ACTIVE")
+                .verifyComplete();
+
+        // the stale value was not cached
+        StepVerifier.create(nearCache.get(KEY)).verifyComplete();
+        verify(redisTemplate, times(2)).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+
+    @Test
+    void losingInvalidationsClearsAndBypassesTheCache() {
+        nearCache.setCoherent("test");
+        read("ACTIVE");
+
+        nearCache.setIncoherent("test");
+        read("ACTIVE");
+        verify(valueOperations, times(1)).get(KEY);
+
+        // back on, nothing cached before the outage is served
+        nearCache.setCoherent("test");
+        read("ACTIVE");
+        verify(redisTemplate, times(2)).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+
+    @Test
+    void aWriteByThisInstanceDropsTheKeyRightAway() {
+        nearCache.setCoherent("test");
+        read("ACTIVE");
+
+        StepVerifier.create(nearCache.write(KEY, Mono.just(true))).expectNext(true).verifyComplete();
+        read("ACTIVE");
+
+        verify(redisTemplate, times(2)).execute(eq(TokenNearCache.GET_WITH_TTL), eq(List.of(KEY)));
+    }
+}
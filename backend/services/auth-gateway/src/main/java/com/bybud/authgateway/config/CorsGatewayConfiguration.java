@@ -35,7 +35,7 @@ public class CorsGatewayConfiguration {
             "https://production-frontend.com"
     );
 
-    private static final String ALLOWED_HEADERS = "x-requested-with, authorization, content-type, credential, X-AUTH-TOKEN, X-CSRF-TOKEN, X-USER-ID, X-USER-NAME, X-USER-FULL-NAME, X-USER-ROLES";
+    private static final String ALLOWED_HEADERS = "x-requested-with, authorization, content-type, credential, X-AUTH-TOKEN, X-CSRF-TOKEN, X-USER-ID, X-USER-NAME, X-USER-FULL-NAME, X-USER-ROLES, Idempotency-Key";
     private static final String ALLOWED_METHODS = "GET, PUT, POST, DELETE, OPTIONS";
     private static final String MAX_AGE = "3600";
 
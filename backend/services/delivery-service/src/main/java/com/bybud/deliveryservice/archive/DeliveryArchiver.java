@@ -0,0 +1,102 @@
+package com.bybud.deliveryservice.archive;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryRepository;
+import com.bybud.entity.repository.DeliveryRepositoryCustom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Moves completed and cancelled deliveries that have not changed for the configured age from the
+ * live collection to {@link DeliveryRepositoryCustom#ARCHIVE_COLLECTION}, keeping the live working
+ * set and its indexes small.
+ *
+ * <p>Each run archives batch after batch until no eligible delivery is left. Progress lives in the
+ * collections themselves: a run that stops part way, or one racing another instance, leaves nothing
+ * to clean up and the next run simply carries on.</p>
+ */
+@Component
+public class DeliveryArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryArchiver.class);
+
+    static final Set<DeliveryStatus> TERMINAL_STATUSES = EnumSet.of(DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+
+    private final DeliveryRepository deliveryRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DeliveryProperties.Archive config;
+
+    public DeliveryArchiver(
+            DeliveryRepository deliveryRepository,
+            ReactiveMongoTemplate mongoTemplate,
+            DeliveryProperties deliveryProperties) {
+        this.deliveryRepository = deliveryRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.config = deliveryProperties.getArchive();
+    }
+
+    /**
+     * Gives the archive the same indexes as the live collection, so history reads use the same plans.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureArchiveIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        Flux.fromIterable(resolver.resolveIndexFor(Delivery.class))
+                .concatMap(index -> mongoTemplate.indexOps(DeliveryRepositoryCustom.ARCHIVE_COLLECTION).ensureIndex(index))
+                .then()
+                .subscribe(
+                        v -> {},
+                        error -> logger.error("Failed to create delivery archive indexes: {}", error.getMessage()));
+    }
+
+    // Blocks the scheduler thread, so with a fixed delay two runs never overlap in one instance
+    @Scheduled(initialDelayString = "#{@deliveryProperties.archive.interval.toMillis()}",
+            fixedDelayString = "#{@deliveryProperties.archive.interval.toMillis()}")
+    public void run() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            Long archived = archiveBefore(LocalDateTime.now().minus(config.getMinAge())).block();
+            if (archived != null && archived > 0) {
+                logger.info("Archived {} completed or cancelled deliveries", archived);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Delivery archive run failed, resuming on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archives every terminal delivery last modified before {@code cutoff}, one batch at a time.
+     *
+     * @return the number of deliveries moved
+     */
+    Mono<Long> archiveBefore(LocalDateTime cutoff) {
+        int batchSize = config.getBatchSize();
+        return Mono.defer(() -> deliveryRepository.findArchivable(TERMINAL_STATUSES, cutoff, batchSize)
+                        .collectList()
+                        .flatMap(batch -> deliveryRepository.archive(batch, TERMINAL_STATUSES, cutoff)
+                                .map(moved -> new Batch(batch.size(), moved))))
+                .repeat()
+                .takeUntil(batch -> batch.read() < batchSize || batch.moved() == 0)
+                .reduce(0L, (total, batch) -> total + batch.moved());
+    }
+
+    private record Batch(int read, long moved) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.bybud.deliveryservice.cache;
+
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryRepository;
+import com.bybud.kafka.consumer.DeliveryEventConsumer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of deliveries that are still open for couriers (status CREATED).
+ * Seeded from Mongo once the application is ready and kept current from the delivery Kafka
+ * topics, so the courier board is served without a database query.
+ *
+ * <p>Created and status-updated events travel on different topics and can be applied out of
+ * order. Each change carries the delivery's updated date, and deliveries that left the board are
+ * remembered for a while so a late, older snapshot cannot bring them back.</p>
+ */
+@Component
+public class OpenDeliveryBoard {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenDeliveryBoard.class);
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(10);
+
+    private static final Comparator<Delivery> NEWEST_FIRST = Comparator
+            .comparing(Delivery::getCreatedDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Delivery::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final DeliveryRepository deliveryRepository;
+    private final Map<String, Delivery> openDeliveries = new ConcurrentHashMap<>();
+    // deliveryId -> updated date of the change that closed it
+    private final Cache<String, LocalDateTime> closed = Caffeine.newBuilder()
+            .expireAfterWrite(TOMBSTONE_TTL)
+            .build();
+
+    public OpenDeliveryBoard(DeliveryRepository deliveryRepository, MeterRegistry meterRegistry) {
+        this.deliveryRepository = deliveryRepository;
+        Gauge.builder("delivery.open.board.size", openDeliveries, Map::size)
+                .description("Deliveries currently held on the in-memory open delivery board")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        deliveryRepository.findByStatus(DeliveryStatus.CREATED)
+                .doOnNext(this::apply)
+                .count()
+                .subscribe(
+                        count -> logger.info("Open delivery board seeded with {} deliveries", count),
+                        error -> logger.error("Failed to seed open delivery board: {}", error.getMessage()));
+    }
+
+    @EventListener
+    public void onDeliveryChanged(DeliveryEventConsumer.DeliveryChangedEvent event) {
+        if (event.delivery() != null) {
+            apply(event.delivery());
+        }
+    }
+
+    /**
+     * Applies the latest known state of a delivery: adds it while CREATED, removes it otherwise.
+     * Snapshots older than what the board already knows about are ignored.
+     */
+    public void apply(Delivery delivery) {
+        String id = delivery.getId();
+        if (id == null) {
+            return;
+        }
+        LocalDateTime version = delivery.getUpdatedDate();
+
+        if (delivery.getStatus() == DeliveryStatus.CREATED) {
+            LocalDateTime closedAt = closed.getIfPresent(id);
+            if (isOlder(version, closedAt)) {
+                return;
+            }
+            openDeliveries.compute(id, (key, current) ->
+                    current != null && isOlder(version, current.getUpdatedDate()) ? current : delivery);
+        } else {
+            openDeliveries.remove(id);
+            closed.asMap().merge(id, version != null ? version : LocalDateTime.now(),
+                    (previous, next) -> next.isAfter(previous) ? next : previous);
+        }
+    }
+
+    /**
+     * Open deliveries, newest first. An O(open deliveries) scan of memory.
+     */
+    public List<Delivery> getOpenDeliveries() {
+        return openDeliveries.values().stream()
+                .sorted(NEWEST_FIRST)
+                .toList();
+    }
+
+    /**
+     * The open delivery with this ID, or null once it was taken or cancelled.
+     */
+    public Delivery get(String id) {
+        return openDeliveries.get(id);
+    }
+
+    public int size() {
+        return openDeliveries.size();
+    }
+
+    private static boolean isOlder(LocalDateTime candidate, LocalDateTime known) {
+        return candidate != null && known != null && candidate.isBefore(known);
+    }
+}
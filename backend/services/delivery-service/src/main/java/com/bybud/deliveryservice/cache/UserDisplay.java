@@ -0,0 +1,18 @@
+package com.bybud.deliveryservice.cache;
+
+import com.bybud.entity.model.User;
+
+/**
+ * The slice of a {@link User} that delivery responses display.
+ * A user that could not be found is cached with null names so repeated lookups stay in memory.
+ */
+public record UserDisplay(String id, String username, String fullName) {
+
+    public static UserDisplay from(User user) {
+        return new UserDisplay(user.getId(), user.getUsername(), user.getFullName());
+    }
+
+    public static UserDisplay unknown(String id) {
+        return new UserDisplay(id, null, null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.bybud.deliveryservice.cache;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.User;
+import com.bybud.kafka.consumer.UserEventConsumer;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded, TTL-evicting near-cache of user display names used to enrich delivery responses.
+ * Concurrent misses for the same id share one pending load, and entries are invalidated by
+ * user-profile-updates events so renamed users show up without waiting for the TTL.
+ */
+@Component
+public class UserDisplayCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDisplayCache.class);
+    static final String CACHE_NAME = "deliveryUserDisplay";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final AsyncCache<String, UserDisplay> cache;
+
+    public UserDisplayCache(
+            ReactiveMongoTemplate mongoTemplate,
+            DeliveryProperties deliveryProperties,
+            MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+
+        DeliveryProperties.UserCache config = deliveryProperties.getUserCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+
+        // Exposes cache.gets{result=hit|miss}, cache.evictions and cache.size for sizing
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+        logger.info("User display cache initialized with maxSize={}, ttl={}", config.getMaxSize(), config.getTtl());
+    }
+
+    /**
+     * Resolves the display data for the given user ids, loading all misses with one query.
+     * Every requested id is present in the result; unknown users map to {@link UserDisplay#unknown}.
+     */
+    public Mono<Map<String, UserDisplay>> getAll(Set<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        // Cancellation is suppressed so one cancelled caller cannot abort a load shared with others
+        return Mono.fromFuture(() -> cache.getAll(userIds, (missing, executor) -> load(missing).toFuture()), true);
+    }
+
+    public void invalidate(String userId) {
+        cache.synchronous().invalidate(userId);
+    }
+
+    @EventListener
+    public void onUserProfileChanged(UserEventConsumer.UserProfileChangedEvent event) {
+        if (event.userId() != null) {
+            logger.debug("Invalidating cached display data for user {}", event.userId());
+            invalidate(event.userId());
+        }
+    }
+
+    private Mono<Map<String, UserDisplay>> load(Set<? extends String> userIds) {
+        Query query = Query.query(Criteria.where("_id").in(userIds));
+        query.fields().include("username", "fullName");
+
+        return mongoTemplate.find(query, User.class)
+                .map(UserDisplay::from)
+                .collectMap(UserDisplay::id)
+                .map(found -> {
+                    Map<String, UserDisplay> result = new HashMap<>(found);
+                    userIds.forEach(id -> result.putIfAbsent(id, UserDisplay.unknown(id)));
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,164 @@
+package com.bybud.deliveryservice.config;
+
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Ensures the {@link Delivery} index plan exists and runs {@code explain()} for the query shape of
+ * every {@code DeliveryRepository} finder at startup. A winning plan containing a COLLSCAN is logged
+ * or, in FAIL mode, aborts startup, so a missing index is caught before it reaches production traffic.
+ */
+@Component
+public class DeliveryIndexVerifier implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryIndexVerifier.class);
+
+    private static final Document NEWEST_FIRST = new Document("created_date", -1).append("_id", -1);
+    private static final Document LATEST_UPDATE = new Document("updated_date", -1);
+
+    /**
+     * Query shape of one repository finder, with placeholder values.
+     */
+    record QueryProbe(String finder, Document filter, Document sort) {
+        QueryProbe(String finder, Document filter) {
+            this(finder, filter, null);
+        }
+    }
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DeliveryProperties.IndexVerification config;
+
+    public DeliveryIndexVerifier(ReactiveMongoTemplate mongoTemplate, DeliveryProperties deliveryProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.config = deliveryProperties.getIndexVerification();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (config.getMode() == DeliveryProperties.IndexVerification.Mode.OFF) {
+            return;
+        }
+
+        boolean failFast = config.getMode() == DeliveryProperties.IndexVerification.Mode.FAIL;
+        List<String> collectionScans;
+        try {
+            collectionScans = ensureIndexes()
+                    .thenMany(Flux.fromIterable(probes()).concatMap(this::explain))
+                    .collectList()
+                    .block(config.getTimeout());
+        } catch (RuntimeException e) {
+            if (failFast) {
+                throw e;
+            }
+            logger.warn("Could not verify delivery query plans: {}", e.getMessage());
+            return;
+        }
+
+        if (collectionScans == null || collectionScans.isEmpty()) {
+            logger.info("All delivery finders are served by an index");
+            return;
+        }
+
+        String message = "Delivery finders planned as COLLSCAN: " + String.join(", ", collectionScans);
+        if (failFast) {
+            throw new IllegalStateException(message);
+        }
+        logger.warn(message);
+    }
+
+    static List<QueryProbe> probes() {
+        String probeId = "index-probe";
+        String status = DeliveryStatus.CREATED.name();
+        ObjectId id = new ObjectId();
+        return List.of(
+                new QueryProbe("findByCustomerId", new Document("customerId", probeId)),
+                new QueryProbe("findByCourierId", new Document("courierId", probeId)),
+                new QueryProbe("findByStatus", new Document("status", status)),
+                new QueryProbe("findByDeliveryAddress", new Document("deliveryAddress", probeId)),
+                new QueryProbe("findByPickupAddress", new Document("pickupAddress", probeId)),
+                new QueryProbe("findByIdAndStatus", new Document("_id", id).append("status", status)),
+                new QueryProbe("findByCustomerIdAndStatus", new Document("customerId", probeId).append("status", status)),
+                new QueryProbe("findByCourierIdAndStatus", new Document("courierId", probeId).append("status", status)),
+                new QueryProbe("existsByIdAndCourierId", new Document("_id", id).append("courierId", probeId)),
+                new QueryProbe("findPage", new Document(), NEWEST_FIRST),
+                new QueryProbe("findPage(customerId)", new Document("customerId", probeId), NEWEST_FIRST),
+                new QueryProbe("findPage(courierId)", new Document("courierId", probeId), NEWEST_FIRST),
+                new QueryProbe("findArchivable", new Document("status", new Document("$in", List.of("COMPLETED", "CANCELLED")))
+                        .append("$or", List.of(
+                                new Document("updated_date", new Document("$lt", new Date())),
+                                new Document("updated_date", null).append("created_date", new Document("$lt", new Date())))))),
+                new QueryProbe("findVersion(customerId)", new Document("customerId", probeId), LATEST_UPDATE),
+                new QueryProbe("findVersion(courierId)", new Document("courierId", probeId), LATEST_UPDATE),
+                new QueryProbe("searchText", new Document("$text", new Document("$search", probeId)), NEWEST_FIRST),
+                new QueryProbe("searchAddressPrefix", new Document("$or", List.of(
+                        new Document("deliveryAddress", new Document("$regex", "^" + probeId)),
+                        new Document("pickupAddress", new Document("$regex", "^" + probeId)))), NEWEST_FIRST),
+                new QueryProbe("findOpenNear", new Document("status", status)
+                        .append("pickupLocation", new Document("$nearSphere", new Document("$geometry",
+                                new Document("type", "Point").append("coordinates", List.of(10.75, 59.91)))
+                                .append("$maxDistance", 1000)))));
+    }
+
+    /**
+     * Creates the annotated indexes up front; auto index creation runs asynchronously and
+     * would otherwise race the explain calls on a fresh database.
+     */
+    private Mono<Void> ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        return Flux.fromIterable(resolver.resolveIndexFor(Delivery.class))
+                .concatMap(index -> mongoTemplate.indexOps(Delivery.class).ensureIndex(index))
+                .then();
+    }
+
+    private Mono<String> explain(QueryProbe probe) {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Delivery.class))
+                .flatMap(collection -> {
+                    var find = collection.find(probe.filter()).limit(1);
+                    if (probe.sort() != null) {
+                        find = find.sort(probe.sort());
+                    }
+                    return Mono.from(find.explain(Document.class));
+                })
+                .filter(DeliveryIndexVerifier::hasCollectionScan)
+                .map(plan -> probe.finder());
+    }
+
+    /**
+     * True when the winning plan of an explain result contains a COLLSCAN stage at any depth.
+     */
+    static boolean hasCollectionScan(Document explain) {
+        Object queryPlanner = explain.get("queryPlanner");
+        if (!(queryPlanner instanceof Document planner)) {
+            return false;
+        }
+        return containsStage(planner.get("winningPlan"), "COLLSCAN");
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,426 @@
+package com.bybud.deliveryservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+/**
+ * Tunables for the delivery service, bound from {@code bybud.delivery.*}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bybud.delivery")
+public class DeliveryProperties {
+
+    private Enrichment enrichment = new Enrichment();
+    private UserCache userCache = new UserCache();
+    private Pagination pagination = new Pagination();
+    private IndexVerification indexVerification = new IndexVerification();
+    private Bulk bulk = new Bulk();
+    private Summary summary = new Summary();
+    private Archive archive = new Archive();
+    private Search search = new Search();
+    private Idempotency idempotency = new Idempotency();
+    private Timers timers = new Timers();
+    private Matching matching = new Matching();
+    private Location location = new Location();
+    private Events events = new Events();
+    private Dispatch dispatch = new Dispatch();
+
+    public Enrichment getEnrichment() { return enrichment; }
+    public void setEnrichment(Enrichment enrichment) { this.enrichment = enrichment; }
+
+    public UserCache getUserCache() { return userCache; }
+    public void setUserCache(UserCache userCache) { this.userCache = userCache; }
+
+    public Pagination getPagination() { return pagination; }
+    public void setPagination(Pagination pagination) { this.pagination = pagination; }
+
+    public IndexVerification getIndexVerification() { return indexVerification; }
+    public void setIndexVerification(IndexVerification indexVerification) { this.indexVerification = indexVerification; }
+
+    public Bulk getBulk() { return bulk; }
+    public void setBulk(Bulk bulk) { this.bulk = bulk; }
+
+    public Summary getSummary() { return summary; }
+    public void setSummary(Summary summary) { this.summary = summary; }
+
+    public Archive getArchive() { return archive; }
+    public void setArchive(Archive archive) { this.archive = archive; }
+
+    public Search getSearch() { return search; }
+    public void setSearch(Search search) { this.search = search; }
+
+    public Idempotency getIdempotency() { return idempotency; }
+    public void setIdempotency(Idempotency idempotency) { this.idempotency = idempotency; }
+
+    public Timers getTimers() { return timers; }
+    public void setTimers(Timers timers) { this.timers = timers; }
+
+    public Matching getMatching() { return matching; }
+    public void setMatching(Matching matching) { this.matching = matching; }
+
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
+
+    public Events getEvents() { return events; }
+    public void setEvents(Events events) { this.events = events; }
+
+    public Dispatch getDispatch() { return dispatch; }
+    public void setDispatch(Dispatch dispatch) { this.dispatch = dispatch; }
+
+    /**
+     * Controls how listings resolve customer and courier names.
+     */
+    public static class Enrichment {
+        // Number of deliveries whose user ids are resolved with a single lookup
+        private int batchSize = 100;
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    }
+
+    /**
+     * Sizing of the in-process cache of user display names.
+     */
+    public static class UserCache {
+        private long maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+    }
+
+    /**
+     * Page size bounds for the keyset-paginated listing endpoints.
+     */
+    public static class Pagination {
+        private int defaultPageSize = 50;
+        private int maxPageSize = 200;
+
+        public int getDefaultPageSize() { return defaultPageSize; }
+        public void setDefaultPageSize(int defaultPageSize) { this.defaultPageSize = defaultPageSize; }
+
+        public int getMaxPageSize() { return maxPageSize; }
+        public void setMaxPageSize(int maxPageSize) { this.maxPageSize = maxPageSize; }
+    }
+
+    /**
+     * What the startup index verifier does when a finder's query plan is a collection scan.
+     */
+    public static class IndexVerification {
+        public enum Mode { OFF, WARN, FAIL }
+
+        private Mode mode = Mode.WARN;
+        private Duration timeout = Duration.ofSeconds(30);
+
+        public Mode getMode() { return mode; }
+        public void setMode(Mode mode) { this.mode = mode; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+    }
+
+    /**
+     * Limits for the bulk delivery endpoints.
+     */
+    public static class Bulk {
+        private int maxItems = 500;
+
+        public int getMaxItems() { return maxItems; }
+        public void setMaxItems(int maxItems) { this.maxItems = maxItems; }
+    }
+
+    /**
+     * Lifetime of the per-owner status count hashes in Redis.
+     */
+    public static class Summary {
+        // Summaries are rebuilt from Mongo after this long, bounding drift from a missed event
+        private Duration ttl = Duration.ofHours(1);
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+    }
+
+    /**
+     * Moving completed and cancelled deliveries from the live collection to the archive.
+     */
+    public static class Archive {
+        private boolean enabled = true;
+        // Terminal deliveries untouched for this long are archived
+        private Duration minAge = Duration.ofDays(30);
+        // Deliveries moved per bulk write; each run repeats batches until none are left
+        private int batchSize = 500;
+        // Delay between the end of one archive run and the start of the next
+        private Duration interval = Duration.ofHours(1);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getMinAge() { return minAge; }
+        public void setMinAge(Duration minAge) { this.minAge = minAge; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+    }
+
+    /**
+     * Limits on delivery search.
+     */
+    public static class Search {
+        // Server-side maxTimeMS of a search query; slower searches fail instead of piling up
+        private Duration maxTime = Duration.ofMillis(500);
+        // Shorter address prefixes would scan most of the address indexes
+        private int minPrefixLength = 3;
+
+        public Duration getMaxTime() { return maxTime; }
+        public void setMaxTime(Duration maxTime) { this.maxTime = maxTime; }
+
+        public int getMinPrefixLength() { return minPrefixLength; }
+        public void setMinPrefixLength(int minPrefixLength) { this.minPrefixLength = minPrefixLength; }
+    }
+
+    /**
+     * Lifetimes for {@code Idempotency-Key} handling on delivery creation.
+     */
+    public static class Idempotency {
+        // How long a completed request is replayed to retries with the same key
+        private Duration ttl = Duration.ofHours(24);
+        // How long a claimed key stays blocked if its instance dies before finishing
+        private Duration inFlightTtl = Duration.ofSeconds(30);
+        // How long a duplicate waits for the first attempt before answering 409
+        private Duration waitTimeout = Duration.ofSeconds(10);
+        private Duration pollInterval = Duration.ofMillis(100);
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+        public Duration getInFlightTtl() { return inFlightTtl; }
+        public void setInFlightTtl(Duration inFlightTtl) { this.inFlightTtl = inFlightTtl; }
+
+        public Duration getWaitTimeout() { return waitTimeout; }
+        public void setWaitTimeout(Duration waitTimeout) { this.waitTimeout = waitTimeout; }
+
+        public Duration getPollInterval() { return pollInterval; }
+        public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+    }
+
+    /**
+     * Controls the timers that activate scheduled deliveries and expire unaccepted ones.
+     */
+    public static class Timers {
+        private boolean enabled = true;
+        // Resolution of the in-memory timing wheel, and its number of buckets per level
+        private Duration tick = Duration.ofSeconds(1);
+        private int wheelSize = 60;
+        // Only timers due within the horizon are loaded from Redis into memory
+        private Duration horizon = Duration.ofMinutes(10);
+        private Duration loadInterval = Duration.ofMinutes(1);
+        private int loadBatchSize = 10000;
+        // How long a delivery may wait in CREATED for a courier before it is cancelled
+        private Duration unacceptedTimeout = Duration.ofHours(24);
+        // Zone in which a delivery date starts, activating PENDING deliveries
+        private ZoneId zone = ZoneId.of("Europe/Oslo");
+        // Delay before a timer whose transition failed fires again
+        private Duration retryDelay = Duration.ofSeconds(30);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getTick() { return tick; }
+        public void setTick(Duration tick) { this.tick = tick; }
+
+        public int getWheelSize() { return wheelSize; }
+        public void setWheelSize(int wheelSize) { this.wheelSize = wheelSize; }
+
+        public Duration getHorizon() { return horizon; }
+        public void setHorizon(Duration horizon) { this.horizon = horizon; }
+
+        public Duration getLoadInterval() { return loadInterval; }
+        public void setLoadInterval(Duration loadInterval) { this.loadInterval = loadInterval; }
+
+        public int getLoadBatchSize() { return loadBatchSize; }
+        public void setLoadBatchSize(int loadBatchSize) { this.loadBatchSize = loadBatchSize; }
+
+        public Duration getUnacceptedTimeout() { return unacceptedTimeout; }
+        public void setUnacceptedTimeout(Duration unacceptedTimeout) { this.unacceptedTimeout = unacceptedTimeout; }
+
+        public ZoneId getZone() { return zone; }
+        public void setZone(ZoneId zone) { this.zone = zone; }
+
+        public Duration getRetryDelay() { return retryDelay; }
+        public void setRetryDelay(Duration retryDelay) { this.retryDelay = retryDelay; }
+    }
+
+    /**
+     * Controls matching of open deliveries to nearby online couriers.
+     */
+    public static class Matching {
+        private boolean enabled = true;
+        // Delay between matching rounds
+        private Duration interval = Duration.ofSeconds(2);
+        // Side of a courier grid cell in degrees; 0.01 is about 1.1 km north-south
+        private double cellSizeDegrees = 0.01;
+        // Couriers further than this from a pickup are never candidates
+        private double maxDistanceMeters = 5000;
+        private int candidatesPerDelivery = 3;
+        // Caps how many deliveries one courier is a candidate for per round
+        private int maxMatchesPerCourier = 5;
+        // A courier that has not reported a position for this long is taken offline
+        private Duration positionTtl = Duration.ofMinutes(2);
+        private int nearbyLimit = 20;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public Duration getInterval() { return interval; }
+        public void setInterval(Duration interval) { this.interval = interval; }
+
+        public double getCellSizeDegrees() { return cellSizeDegrees; }
+        public void setCellSizeDegrees(double cellSizeDegrees) { this.cellSizeDegrees = cellSizeDegrees; }
+
+        public double getMaxDistanceMeters() { return maxDistanceMeters; }
+        public void setMaxDistanceMeters(double maxDistanceMeters) { this.maxDistanceMeters = maxDistanceMeters; }
+
+        public int getCandidatesPerDelivery() { return candidatesPerDelivery; }
+        public void setCandidatesPerDelivery(int candidatesPerDelivery) { this.candidatesPerDelivery = candidatesPerDelivery; }
+
+        public int getMaxMatchesPerCourier() { return maxMatchesPerCourier; }
+        public void setMaxMatchesPerCourier(int maxMatchesPerCourier) { this.maxMatchesPerCourier = maxMatchesPerCourier; }
+
+        public Duration getPositionTtl() { return positionTtl; }
+        public void setPositionTtl(Duration positionTtl) { this.positionTtl = positionTtl; }
+
+        public int getNearbyLimit() { return nearbyLimit; }
+        public void setNearbyLimit(int nearbyLimit) { this.nearbyLimit = nearbyLimit; }
+    }
+
+    /**
+     * Controls ingestion of courier location pings and what of them is kept.
+     */
+    public static class Location {
+        private boolean enabled = true;
+        // Pings accepted in one report; devices batch the fixes taken since their last report
+        private int maxPingsPerReport = 50;
+        // Fixes stamped further ahead than this are taken to be recorded when they arrived
+        private Duration maxClockSkew = Duration.ofMinutes(1);
+        // Sampled positions buffered per courier until written to the history
+        private int bufferSize = 256;
+        // A position is sampled for the history at most this often, and only after moving the minimum distance
+        private Duration sampleInterval = Duration.ofSeconds(15);
+        private double sampleMinDistanceMeters = 25;
+        // A courier standing still is still sampled this often
+        private Duration maxSampleInterval = Duration.ofMinutes(2);
+        // Delay between writes of the latest positions to Redis
+        private Duration latestFlushInterval = Duration.ofSeconds(1);
+        // Delay between writes of sampled positions to Mongo
+        private Duration historyFlushInterval = Duration.ofSeconds(5);
+        private int historyBatchSize = 1000;
+        // Sampled positions older than this are removed by a TTL index
+        private Duration historyRetention = Duration.ofDays(30);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxPingsPerReport() { return maxPingsPerReport; }
+        public void setMaxPingsPerReport(int maxPingsPerReport) { this.maxPingsPerReport = maxPingsPerReport; }
+
+        public Duration getMaxClockSkew() { return maxClockSkew; }
+        public void setMaxClockSkew(Duration maxClockSkew) { this.maxClockSkew = maxClockSkew; }
+
+        public int getBufferSize() { return bufferSize; }
+        public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+
+        public Duration getSampleInterval() { return sampleInterval; }
+        public void setSampleInterval(Duration sampleInterval) { this.sampleInterval = sampleInterval; }
+
+        public double getSampleMinDistanceMeters() { return sampleMinDistanceMeters; }
+        public void setSampleMinDistanceMeters(double sampleMinDistanceMeters) { this.sampleMinDistanceMeters = sampleMinDistanceMeters; }
+
+        public Duration getMaxSampleInterval() { return maxSampleInterval; }
+        public void setMaxSampleInterval(Duration maxSampleInterval) { this.maxSampleInterval = maxSampleInterval; }
+
+        public Duration getLatestFlushInterval() { return latestFlushInterval; }
+        public void setLatestFlushInterval(Duration latestFlushInterval) { this.latestFlushInterval = latestFlushInterval; }
+
+        public Duration getHistoryFlushInterval() { return historyFlushInterval; }
+        public void setHistoryFlushInterval(Duration historyFlushInterval) { this.historyFlushInterval = historyFlushInterval; }
+
+        public int getHistoryBatchSize() { return historyBatchSize; }
+        public void setHistoryBatchSize(int historyBatchSize) { this.historyBatchSize = historyBatchSize; }
+
+        public Duration getHistoryRetention() { return historyRetention; }
+        public void setHistoryRetention(Duration historyRetention) { this.historyRetention = historyRetention; }
+    }
+
+    /**
+     * Controls the Server-Sent Event streams of delivery status changes.
+     */
+    public static class Events {
+        // Events buffered per connection for a slow client; the oldest are dropped beyond this
+        private int bufferSize = 16;
+        // Connections quiet for this long get a heartbeat comment
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        // Further streams are refused with 503 so clients reconnect elsewhere
+        private int maxConnections = 50_000;
+
+        public int getBufferSize() { return bufferSize; }
+        public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+
+        public Duration getHeartbeatInterval() { return heartbeatInterval; }
+        public void setHeartbeatInterval(Duration heartbeatInterval) { this.heartbeatInterval = heartbeatInterval; }
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+    }
+
+    /**
+     * Controls offering open deliveries to the nearest couriers in waves of short leases.
+     */
+    public static class Dispatch {
+        private boolean enabled = true;
+        private int couriersPerWave = 3;
+        // How long a wave's couriers hold their offer before the next wave goes out
+        private Duration leaseTtl = Duration.ofSeconds(20);
+        // Delay before offering again once every courier nearby was offered the delivery
+        private Duration retryDelay = Duration.ofSeconds(30);
+        // How often each instance claims the deliveries whose next wave is due
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private int batchSize = 100;
+        private int concurrency = 16;
+        // An instance that dies while sending a wave, or a winner that never writes the assignment,
+        // holds the delivery up for this long
+        private Duration claimTtl = Duration.ofSeconds(10);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getCouriersPerWave() { return couriersPerWave; }
+        public void setCouriersPerWave(int couriersPerWave) { this.couriersPerWave = couriersPerWave; }
+
+        public Duration getLeaseTtl() { return leaseTtl; }
+        public void setLeaseTtl(Duration leaseTtl) { this.leaseTtl = leaseTtl; }
+
+        public Duration getRetryDelay() { return retryDelay; }
+        public void setRetryDelay(Duration retryDelay) { this.retryDelay = retryDelay; }
+
+        public Duration getPollInterval() { return pollInterval; }
+        public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public int getConcurrency() { return concurrency; }
+        public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+
+        public Duration getClaimTtl() { return claimTtl; }
+        public void setClaimTtl(Duration claimTtl) { this.claimTtl = claimTtl; }
+    }
+}
@@ -1,21 +1,37 @@
 package com.bybud.deliveryservice.controller;
 
+import com.bybud.deliveryservice.events.DeliveryStatusBroadcaster;
+import com.bybud.deliveryservice.events.DeliveryStatusEvent;
+import com.bybud.deliveryservice.idempotency.IdempotencyStore;
 import com.bybud.deliveryservice.service.DeliveryService;
 import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.model.GeoLocation;
+import com.bybud.entity.repository.DeliveryFieldSet;
+import com.bybud.entity.request.BulkStatusUpdateRequest;
+import com.bybud.entity.request.CourierLocationPing;
 import com.bybud.entity.request.CreateDeliveryRequest;
 import com.bybud.entity.response.BaseResponse;
+import com.bybud.entity.response.BulkDeliveryResponse;
+import com.bybud.entity.response.BulkStatusUpdateResponse;
+import com.bybud.entity.response.DeliveryPageResponse;
 import com.bybud.entity.response.DeliveryResponse;
+import com.bybud.entity.response.DeliverySummaryResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -25,20 +41,29 @@ import java.util.List;
 public class DeliveryController {
 
     private static final Logger logger = LoggerFactory.getLogger(DeliveryController.class);
+    // Lists are per user and must be revalidated with the ETag before a cached copy is reused
+    private static final CacheControl LIST_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
     private final DeliveryService deliveryService;
+    private final IdempotencyStore idempotencyStore;
+    private final DeliveryStatusBroadcaster statusBroadcaster;
 
-    public DeliveryController(DeliveryService deliveryService) {
+    public DeliveryController(DeliveryService deliveryService, IdempotencyStore idempotencyStore,
+                              DeliveryStatusBroadcaster statusBroadcaster) {
         this.deliveryService = deliveryService;
+        this.idempotencyStore = idempotencyStore;
+        this.statusBroadcaster = statusBroadcaster;
     }
 
     /**
      * Creates a new delivery.
-     * Accessible to customers and admins.
+     * Accessible to customers and admins. With an {@code Idempotency-Key} header, retries of the same
+     * request return the first result instead of creating another delivery.
      */
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
     @PostMapping
     public Mono<ResponseEntity<BaseResponse<DeliveryResponse>>> createDelivery(
-            @Valid @RequestBody CreateDeliveryRequest request) {
+            @Valid @RequestBody CreateDeliveryRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
@@ -55,7 +80,11 @@ public class DeliveryController {
                                     return Mono.error(new ResponseStatusException(
                                             HttpStatus.FORBIDDEN, "Cannot create deliveries for other customers"));
                                 }
-                                return deliveryService.createDelivery(request);
+                                if (idempotencyKey == null) {
+                                    return deliveryService.createDelivery(request);
+                                }
+                                return idempotencyStore.execute(userId, idempotencyKey, request, DeliveryResponse.class,
+                                        () -> deliveryService.createDelivery(request));
                             });
                 })
                 .map(response -> ResponseEntity.ok(
@@ -64,14 +93,61 @@ public class DeliveryController {
     }
 
     /**
-     * Gets all deliveries for a specific customer.
+     * Creates up to a configured number of deliveries in one request.
+     * Items without a customer ID are created for the authenticated user; customers can only create
+     * their own deliveries. Invalid items are reported per item and do not fail the rest of the batch.
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<BaseResponse<BulkDeliveryResponse>>> createDeliveries(
+            @RequestBody List<CreateDeliveryRequest> requests) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .flatMap(authentication -> {
+                    String userId = authentication.getName();
+                    boolean isAdmin = authentication.getAuthorities().stream()
+                            .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+                    requests.stream()
+                            .filter(request -> request != null && request.getCustomerId() == null)
+                            .forEach(request -> request.setCustomerId(userId));
+                    return deliveryService.createDeliveries(requests,
+                            request -> isAdmin || userId.equals(request.getCustomerId()));
+                })
+                .map(response -> ResponseEntity.ok(
+                        BaseResponse.success("Bulk delivery request processed.", response)))
+                .doOnError(error -> logger.error("Error creating deliveries in bulk: {}", error.getMessage()));
+    }
+
+    /**
+     * Moves many deliveries to one status in a single update. Deliveries that are not in an allowed
+     * source state for the target status are skipped and reported. Only accessible to admins.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/bulk/status")
+    public Mono<ResponseEntity<BaseResponse<BulkStatusUpdateResponse>>> updateDeliveryStatuses(
+            @Valid @RequestBody BulkStatusUpdateRequest request) {
+
+        return deliveryService.updateDeliveryStatuses(request)
+                .map(response -> ResponseEntity.ok(
+                        BaseResponse.success("Bulk status update processed.", response)))
+                .doOnError(error -> logger.error("Error updating delivery statuses in bulk: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets all deliveries for a specific customer, including archived ones with {@code history=true}.
+     * The response carries an ETag; a matching If-None-Match is answered with 304 before any delivery is loaded.
      * Customers can only see their own deliveries, admins can see any customer's deliveries.
      */
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
     @GetMapping("/customer/{customerId}")
     public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getDeliveriesForCustomer(
-            @PathVariable("customerId") String customerId) {
+            @PathVariable("customerId") String customerId,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "history", defaultValue = "false") boolean history,
+            ServerWebExchange exchange) {
 
+        DeliveryFieldSet fieldSet = parseFields(fields);
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .map(Authentication::getName)
@@ -81,26 +157,85 @@ public class DeliveryController {
                         return Mono.error(new ResponseStatusException(
                                 HttpStatus.FORBIDDEN, "Cannot view deliveries for other customers"));
                     }
-                    return deliveryService.getDeliveriesForCustomer(customerId)
-                            .collectList()
-                            .map(list -> ResponseEntity.ok(
-                                    BaseResponse.success("Customer deliveries fetched successfully.", list)));
+                    return deliveryService.getDeliveriesETagForCustomer(customerId, fieldSet, history)
+                            .flatMap(eTag -> {
+                                if (exchange.checkNotModified(eTag)) {
+                                    return Mono.just(notModified(eTag));
+                                }
+                                return deliveryService.getDeliveriesForCustomer(customerId, fieldSet, history)
+                                        .collectList()
+                                        .map(list -> ResponseEntity.ok()
+                                                .eTag(eTag)
+                                                .cacheControl(LIST_CACHE_CONTROL)
+                                                .body(BaseResponse.success("Customer deliveries fetched successfully.", list)));
+                            });
                 })
                 .doOnError(error -> logger.error("Error fetching customer deliveries: {}", error.getMessage()));
     }
 
+    /**
+     * Gets a customer's delivery counts per status for dashboards.
+     * Customers can only see their own summary, admins can see any customer's summary.
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @GetMapping("/customer/{customerId}/summary")
+    public Mono<ResponseEntity<BaseResponse<DeliverySummaryResponse>>> getCustomerSummary(
+            @PathVariable("customerId") String customerId) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCustomer(userId, customerId))
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view summaries for other customers"));
+                    }
+                    return deliveryService.getCustomerSummary(customerId)
+                            .map(summary -> ResponseEntity.ok(
+                                    BaseResponse.success("Customer delivery summary fetched successfully.", summary)));
+                })
+                .doOnError(error -> logger.error("Error fetching customer delivery summary: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets a courier's delivery counts per status for dashboards.
+     * Couriers can only see their own summary, admins can see any courier's summary.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping("/courier/{courierId}/summary")
+    public Mono<ResponseEntity<BaseResponse<DeliverySummaryResponse>>> getCourierSummary(
+            @PathVariable("courierId") String courierId) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCourier(userId, courierId))
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view summaries for other couriers"));
+                    }
+                    return deliveryService.getCourierSummary(courierId)
+                            .map(summary -> ResponseEntity.ok(
+                                    BaseResponse.success("Courier delivery summary fetched successfully.", summary)));
+                })
+                .doOnError(error -> logger.error("Error fetching courier delivery summary: {}", error.getMessage()));
+    }
+
     /**
      * Gets all deliveries in the system.
      * Only accessible to admins and couriers.
      */
     @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
     @GetMapping
-    public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getAllDeliveries() {
+    public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getAllDeliveries(
+            @RequestParam(value = "fields", required = false) String fields) {
 
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .map(Authentication::getName)
-                .flatMap(userId -> deliveryService.getAllDeliveries(userId)
+                .flatMap(userId -> deliveryService.getAllDeliveries(userId, parseFields(fields))
                         .collectList()
                         .map(list -> ResponseEntity.ok(
                                 BaseResponse.success("All deliveries fetched successfully.", list))))
@@ -108,14 +243,150 @@ public class DeliveryController {
     }
 
     /**
-     * Gets all deliveries for a specific courier.
+     * Gets the deliveries that are still open for couriers to accept, newest first.
+     * Served from the in-memory open delivery board rather than the database.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping("/open")
+    public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getOpenDeliveries(
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return deliveryService.getOpenDeliveries(parseFields(fields))
+                .collectList()
+                .map(list -> ResponseEntity.ok(
+                        BaseResponse.success("Open deliveries fetched successfully.", list)))
+                .doOnError(error -> logger.error("Error fetching open deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets open deliveries with a pickup near the given position, nearest first.
+     * Served by the pickup location geo index; the radius is capped by configuration.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping("/open/nearby")
+    public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getOpenDeliveriesNearby(
+            @RequestParam("latitude") double latitude,
+            @RequestParam("longitude") double longitude,
+            @RequestParam(value = "radius", required = false) Double radius,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return deliveryService.getOpenDeliveriesNear(new GeoLocation(latitude, longitude), radius, limit, parseFields(fields))
+                .collectList()
+                .map(list -> ResponseEntity.ok(
+                        BaseResponse.success("Nearby open deliveries fetched successfully.", list)))
+                .doOnError(error -> logger.error("Error fetching nearby open deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets the open deliveries the courier was matched to in the latest matching round.
+     * Couriers can only see their own matches, admins can see any courier's matches.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping("/courier/{courierId}/matches")
+    public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getMatchedDeliveries(
+            @PathVariable("courierId") String courierId,
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        DeliveryFieldSet fieldSet = parseFields(fields);
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCourier(userId, courierId))
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view matches for other couriers"));
+                    }
+                    return deliveryService.getMatchedDeliveries(courierId, fieldSet)
+                            .collectList()
+                            .map(list -> ResponseEntity.ok(
+                                    BaseResponse.success("Matched deliveries fetched successfully.", list)));
+                })
+                .doOnError(error -> logger.error("Error fetching matched deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Reports the calling courier's current position, making them a candidate for nearby deliveries.
+     */
+    @PreAuthorize("hasRole('COURIER')")
+    @PutMapping("/courier/location")
+    public Mono<ResponseEntity<BaseResponse<Void>>> updateCourierLocation(@Valid @RequestBody GeoLocation location) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(courierId -> deliveryService.updateCourierLocation(courierId, location))
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(
+                        BaseResponse.<Void>success("Courier location updated.", null))))
+                .doOnError(error -> logger.error("Error updating courier location: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets the open deliveries currently offered to the calling courier. Offers go out to a few
+     * nearby couriers at a time and lapse after a short lease.
+     */
+    @PreAuthorize("hasRole('COURIER')")
+    @GetMapping("/courier/offers")
+    public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getOfferedDeliveries(
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        DeliveryFieldSet fieldSet = parseFields(fields);
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(courierId -> deliveryService.getOfferedDeliveries(courierId, fieldSet).collectList())
+                .map(list -> ResponseEntity.ok(BaseResponse.success("Offered deliveries fetched successfully.", list)))
+                .doOnError(error -> logger.error("Error fetching offered deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Reports a batch of GPS fixes from the calling courier's device for live tracking. The fixes
+     * are queued for the location pipeline and applied shortly after the 202 response.
+     */
+    @PreAuthorize("hasRole('COURIER')")
+    @PostMapping("/courier/location/pings")
+    public Mono<ResponseEntity<BaseResponse<Void>>> reportCourierLocations(@RequestBody List<CourierLocationPing> pings) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(courierId -> deliveryService.reportCourierLocations(courierId, pings))
+                .then(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.ACCEPTED).body(
+                        BaseResponse.<Void>success("Courier locations accepted.", null))))
+                .doOnError(error -> logger.error("Error reporting courier locations: {}", error.getMessage()));
+    }
+
+    /**
+     * Takes the calling courier offline; they are no longer matched to deliveries.
+     */
+    @PreAuthorize("hasRole('COURIER')")
+    @DeleteMapping("/courier/location")
+    public Mono<ResponseEntity<BaseResponse<Void>>> takeCourierOffline() {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(deliveryService::takeCourierOffline)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(
+                        BaseResponse.<Void>success("Courier is offline.", null))))
+                .doOnError(error -> logger.error("Error taking courier offline: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets all deliveries for a specific courier, including archived ones with {@code history=true}.
+     * The response carries an ETag; a matching If-None-Match is answered with 304 before any delivery is loaded.
      * Couriers can only see their own deliveries, admins can see any courier's deliveries.
      */
     @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
     @GetMapping("/courier/{courierId}")
     public Mono<ResponseEntity<BaseResponse<List<DeliveryResponse>>>> getDeliveriesForCourier(
-            @PathVariable("courierId") String courierId) {
+            @PathVariable("courierId") String courierId,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "history", defaultValue = "false") boolean history,
+            ServerWebExchange exchange) {
 
+        DeliveryFieldSet fieldSet = parseFields(fields);
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .map(Authentication::getName)
@@ -125,14 +396,227 @@ public class DeliveryController {
                         return Mono.error(new ResponseStatusException(
                                 HttpStatus.FORBIDDEN, "Cannot view deliveries for other couriers"));
                     }
-                    return deliveryService.getDeliveriesForCourier(courierId)
-                            .collectList()
-                            .map(list -> ResponseEntity.ok(
-                                    BaseResponse.success("Courier deliveries fetched successfully.", list)));
+                    return deliveryService.getDeliveriesETagForCourier(courierId, fieldSet, history)
+                            .flatMap(eTag -> {
+                                if (exchange.checkNotModified(eTag)) {
+                                    return Mono.just(notModified(eTag));
+                                }
+                                return deliveryService.getDeliveriesForCourier(courierId, fieldSet, history)
+                                        .collectList()
+                                        .map(list -> ResponseEntity.ok()
+                                                .eTag(eTag)
+                                                .cacheControl(LIST_CACHE_CONTROL)
+                                                .body(BaseResponse.success("Courier deliveries fetched successfully.", list)));
+                            });
                 })
                 .doOnError(error -> logger.error("Error fetching courier deliveries: {}", error.getMessage()));
     }
 
+    /**
+     * Gets one page of all deliveries, newest first.
+     * Pass the returned nextCursor to fetch the following page. Only accessible to admins and couriers.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping("/page")
+    public Mono<ResponseEntity<BaseResponse<DeliveryPageResponse>>> getAllDeliveriesPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return deliveryService.getAllDeliveriesPage(cursor, limit, parseFields(fields))
+                .map(page -> ResponseEntity.ok(
+                        BaseResponse.success("Delivery page fetched successfully.", page)))
+                .doOnError(error -> logger.error("Error fetching delivery page: {}", error.getMessage()));
+    }
+
+    /**
+     * Searches deliveries by address or details for support staff, newest first and paged by cursor.
+     * With {@code prefix=true} the query matches the start of the delivery or pickup address instead
+     * of whole words. Only accessible to admins.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/search")
+    public Mono<ResponseEntity<BaseResponse<DeliveryPageResponse>>> searchDeliveries(
+            @RequestParam("q") String query,
+            @RequestParam(value = "prefix", defaultValue = "false") boolean prefix,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return deliveryService.searchDeliveries(query, prefix, cursor, limit, parseFields(fields))
+                .map(page -> ResponseEntity.ok(
+                        BaseResponse.success("Delivery search completed successfully.", page)))
+                .doOnError(error -> logger.error("Error searching deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets one page of a customer's deliveries, newest first, including archived ones with {@code history=true}.
+     * Customers can only see their own deliveries, admins can see any customer's deliveries.
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @GetMapping("/customer/{customerId}/page")
+    public Mono<ResponseEntity<BaseResponse<DeliveryPageResponse>>> getDeliveriesPageForCustomer(
+            @PathVariable("customerId") String customerId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "history", defaultValue = "false") boolean history) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCustomer(userId, customerId))
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view deliveries for other customers"));
+                    }
+                    return deliveryService.getDeliveriesPageForCustomer(customerId, cursor, limit, parseFields(fields), history)
+                            .map(page -> ResponseEntity.ok(
+                                    BaseResponse.success("Customer delivery page fetched successfully.", page)));
+                })
+                .doOnError(error -> logger.error("Error fetching customer delivery page: {}", error.getMessage()));
+    }
+
+    /**
+     * Gets one page of a courier's deliveries, newest first, including archived ones with {@code history=true}.
+     * Couriers can only see their own deliveries, admins can see any courier's deliveries.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping("/courier/{courierId}/page")
+    public Mono<ResponseEntity<BaseResponse<DeliveryPageResponse>>> getDeliveriesPageForCourier(
+            @PathVariable("courierId") String courierId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "history", defaultValue = "false") boolean history) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCourier(userId, courierId))
+                .flatMap(hasPermission -> {
+                    if (!hasPermission) {
+                        return Mono.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view deliveries for other couriers"));
+                    }
+                    return deliveryService.getDeliveriesPageForCourier(courierId, cursor, limit, parseFields(fields), history)
+                            .map(page -> ResponseEntity.ok(
+                                    BaseResponse.success("Courier delivery page fetched successfully.", page)));
+                })
+                .doOnError(error -> logger.error("Error fetching courier delivery page: {}", error.getMessage()));
+    }
+
+    /**
+     * Streams all deliveries as NDJSON or Server-Sent Events straight from the database cursor,
+     * without buffering the result set. Only accessible to admins and couriers.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping(value = "/stream", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<DeliveryResponse> streamAllDeliveries(
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMapMany(userId -> deliveryService.getAllDeliveries(userId, parseFields(fields)))
+                .doOnError(error -> logger.error("Error streaming all deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Streams a customer's deliveries as NDJSON or Server-Sent Events.
+     * Customers can only see their own deliveries, admins can see any customer's deliveries.
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @GetMapping(value = "/customer/{customerId}/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<DeliveryResponse> streamDeliveriesForCustomer(
+            @PathVariable("customerId") String customerId,
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCustomer(userId, customerId))
+                .flatMapMany(hasPermission -> {
+                    if (!hasPermission) {
+                        return Flux.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view deliveries for other customers"));
+                    }
+                    return deliveryService.getDeliveriesForCustomer(customerId, parseFields(fields));
+                })
+                .doOnError(error -> logger.error("Error streaming customer deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Streams a courier's deliveries as NDJSON or Server-Sent Events.
+     * Couriers can only see their own deliveries, admins can see any courier's deliveries.
+     */
+    @PreAuthorize("hasAnyRole('COURIER', 'ADMIN')")
+    @GetMapping(value = "/courier/{courierId}/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<DeliveryResponse> streamDeliveriesForCourier(
+            @PathVariable("courierId") String courierId,
+            @RequestParam(value = "fields", required = false) String fields) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCourier(userId, courierId))
+                .flatMapMany(hasPermission -> {
+                    if (!hasPermission) {
+                        return Flux.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot view deliveries for other couriers"));
+                    }
+                    return deliveryService.getDeliveriesForCourier(courierId, parseFields(fields));
+                })
+                .doOnError(error -> logger.error("Error streaming courier deliveries: {}", error.getMessage()));
+    }
+
+    /**
+     * Follows one delivery's status as Server-Sent Events: its current status first, then every
+     * change until it is completed or cancelled. Quiet streams get a heartbeat comment.
+     * Open to the delivery's customer and courier, admins can follow any delivery.
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'COURIER', 'ADMIN')")
+    @GetMapping(value = "/{deliveryId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<DeliveryStatusEvent>> followDeliveryStatus(
+            @PathVariable("deliveryId") String deliveryId) {
+
+        Mono<DeliveryStatusEvent> current = ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> deliveryService.getDeliveryStatus(deliveryId)
+                        .filterWhen(status -> hasPermissionForDelivery(userId, status))
+                        .switchIfEmpty(Mono.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot follow deliveries of other users"))));
+        return statusBroadcaster.followDelivery(deliveryId, current)
+                .doOnError(error -> logger.error("Error streaming delivery status: {}", error.getMessage()));
+    }
+
+    /**
+     * Follows the status of all of a customer's deliveries as Server-Sent Events.
+     * Customers can only follow their own deliveries, admins can follow any customer's deliveries.
+     */
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
+    @GetMapping(value = "/customer/{customerId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<DeliveryStatusEvent>> followCustomerDeliveryStatus(
+            @PathVariable("customerId") String customerId) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(userId -> hasPermissionForCustomer(userId, customerId))
+                .flatMapMany(hasPermission -> {
+                    if (!hasPermission) {
+                        return Flux.error(new ResponseStatusException(
+                                HttpStatus.FORBIDDEN, "Cannot follow deliveries for other customers"));
+                    }
+                    return statusBroadcaster.followCustomer(customerId);
+                })
+                .doOnError(error -> logger.error("Error streaming customer delivery status: {}", error.getMessage()));
+    }
+
     /**
      * Allows a courier to accept a delivery.
      * Couriers can only accept deliveries that are unassigned.
@@ -151,6 +635,41 @@ public class DeliveryController {
                 .doOnError(error -> logger.error("Error accepting delivery: {}", error.getMessage()));
     }
 
+    /**
+     * Accepts a delivery offered to the calling courier.
+     * Fails with 409 once the offer expired or another courier accepted first.
+     */
+    @PreAuthorize("hasRole('COURIER')")
+    @PutMapping("/{deliveryId}/offer/accept")
+    public Mono<ResponseEntity<BaseResponse<DeliveryResponse>>> acceptOffer(
+            @PathVariable("deliveryId") String deliveryId) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(courierId -> deliveryService.acceptOffer(deliveryId, courierId))
+                .map(response -> ResponseEntity.ok(
+                        BaseResponse.success("Delivery offer accepted successfully.", response)))
+                .doOnError(error -> logger.error("Error accepting delivery offer: {}", error.getMessage()));
+    }
+
+    /**
+     * Declines a delivery offered to the calling courier.
+     */
+    @PreAuthorize("hasRole('COURIER')")
+    @PutMapping("/{deliveryId}/offer/decline")
+    public Mono<ResponseEntity<BaseResponse<Void>>> declineOffer(
+            @PathVariable("deliveryId") String deliveryId) {
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .flatMap(courierId -> deliveryService.declineOffer(deliveryId, courierId))
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(
+                        BaseResponse.<Void>success("Delivery offer declined.", null))))
+                .doOnError(error -> logger.error("Error declining delivery offer: {}", error.getMessage()));
+    }
+
     /**
      * Updates the status of a delivery.
      * Couriers can update their assigned deliveries, customers can only request cancellations,
@@ -205,6 +724,27 @@ public class DeliveryController {
                 .defaultIfEmpty(false);
     }
 
+    /**
+     * Answers a conditional listing request whose entity tag still matches.
+     */
+    private static ResponseEntity<BaseResponse<List<DeliveryResponse>>> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(LIST_CACHE_CONTROL)
+                .build();
+    }
+
+    /**
+     * Parses the optional {@code fields} sparse-fieldset parameter of the listing endpoints.
+     */
+    private DeliveryFieldSet parseFields(String fields) {
+        try {
+            return DeliveryFieldSet.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     /**
      * Helper method to determine if a user has permission to access a customer's deliveries.
      */
@@ -218,4 +758,14 @@ public class DeliveryController {
     private Mono<Boolean> hasPermissionForCourier(String userId, String courierId) {
         return hasPermission(userId, courierId);
     }
+
+    /**
+     * Helper method to determine if a user may follow a delivery: its customer, its courier or an admin.
+     */
+    private Mono<Boolean> hasPermissionForDelivery(String userId, DeliveryStatusEvent delivery) {
+        if (userId.equals(delivery.courierId())) {
+            return Mono.just(true);
+        }
+        return hasPermission(userId, delivery.customerId());
+    }
 }
@@ -0,0 +1,447 @@
+package com.bybud.deliveryservice.dispatch;
+
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.location.CourierLocationTracker;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryRepository;
+import com.bybud.kafka.handler.DeliveryEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Offers open deliveries to couriers in waves instead of letting every courier race to accept them.
+ *
+ * <p>A delivery that becomes CREATED is offered to the nearest couriers on the Redis GEO set of latest
+ * positions, a few at a time, each with a short lease. Only a courier holding a live lease can accept,
+ * and the first to do so wins in Redis before the assignment is written, so losing couriers are turned
+ * away without touching Mongo. When the leases of a wave run out, the next nearest couriers that were
+ * not offered the delivery yet get the next wave; once nobody nearby is left the round starts over
+ * after a delay.</p>
+ *
+ * <p>All offer state lives in Redis and is shared by every instance. Waves are driven by one sorted
+ * set of deliveries scored by when their next wave is due; each instance claims due deliveries with a
+ * short lease so a delivery is escalated by one instance at a time, and another retries if it dies.</p>
+ */
+@Component
+public class DeliveryDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryDispatcher.class);
+
+    static final String DUE_KEY = "delivery:offers:due";
+
+    // KEYS[1] is the due set; ARGV[1] now, ARGV[2] the claim expiry, ARGV[3] the batch size. Returns
+    // the deliveries whose next wave is due, pushing their score to the claim expiry
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> CLAIM = RedisScript.of("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[3]))
+            for _, member in ipairs(due) do
+                redis.call('ZADD', KEYS[1], ARGV[2], member)
+            end
+            return due
+            """, List.class);
+
+    // KEYS[1] is the due set; ARGV[1] now, ARGV[2..] deliveries. Adds the ones not there yet as due now,
+    // so a delivery reported open again keeps the wave it is in
+    static final RedisScript<Long> SCHEDULE = RedisScript.of("""
+            local added = 0
+            for i = 2, #ARGV do
+                added = added + redis.call('ZADD', KEYS[1], 'NX', ARGV[1], ARGV[i])
+            end
+            return added
+            """, Long.class);
+
+    // KEYS[1] the delivery's leases (courier -> lease expiry), KEYS[2] its accepted marker, KEYS[3] the
+    // couriers offered it so far, KEYS[4] the due set, KEYS[5..] the offer sets of the wave's couriers;
+    // ARGV[1] the delivery, ARGV[2] the lease expiry, ARGV[3] the TTL of the offer keys, ARGV[4..] the
+    // wave's couriers in KEYS order. Does nothing once the delivery was accepted. The leases of earlier
+    // waves have lapsed by now and are dropped, so DECLINE sees only this wave's
+    static final RedisScript<Long> OFFER = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            for i = 5, #KEYS do
+                local courier = ARGV[i - 1]
+                redis.call('HSET', KEYS[1], courier, ARGV[2])
+                redis.call('SADD', KEYS[3], courier)
+                redis.call('ZADD', KEYS[i], ARGV[2], ARGV[1])
+                redis.call('PEXPIRE', KEYS[i], ARGV[3])
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            redis.call('PEXPIRE', KEYS[3], ARGV[3])
+            redis.call('ZADD', KEYS[4], ARGV[2], ARGV[1])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] the delivery's leases, KEYS[2] its accepted marker, KEYS[3] the due set; ARGV[1] the
+    // courier, ARGV[2] now, ARGV[3] the delivery, ARGV[4] the marker TTL, ARGV[5] when the marker
+    // lapses. A winner that never writes the assignment stops blocking waves then, and the next wave
+    // goes out. Returns every courier that held a lease, the winner included, or nothing when the
+    // courier holds no live lease or lost
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> ACCEPT = RedisScript.of("""
+            local expiry = redis.call('HGET', KEYS[1], ARGV[1])
+            if not expiry or tonumber(expiry) <= tonumber(ARGV[2]) then
+                return {}
+            end
+            if not redis.call('SET', KEYS[2], ARGV[1], 'NX', 'PX', ARGV[4]) then
+                return {}
+            end
+            local couriers = redis.call('HKEYS', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            redis.call('ZADD', KEYS[3], 'XX', ARGV[5], ARGV[3])
+            return couriers
+            """, List.class);
+
+    // KEYS[1] the delivery's leases, KEYS[2] the courier's offer set, KEYS[3] the due set; ARGV[1] the
+    // courier, ARGV[2] the delivery, ARGV[3] now. Brings the next wave forward once every lease is gone
+    static final RedisScript<Long> DECLINE = RedisScript.of("""
+            if redis.call('HDEL', KEYS[1], ARGV[1]) == 0 then
+                return 0
+            end
+            redis.call('ZREM', KEYS[2], ARGV[2])
+            if redis.call('HLEN', KEYS[1]) == 0 then
+                redis.call('ZADD', KEYS[3], 'XX', ARGV[3], ARGV[2])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS[1] the delivery's leases, KEYS[2] the couriers offered it so far, KEYS[3] the due set;
+    // ARGV[1] the delivery. Returns the couriers whose offer sets still list it
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> WITHDRAW = RedisScript.of("""
+            local couriers = redis.call('HKEYS', KEYS[1])
+            redis.call('DEL', KEYS[1], KEYS[2])
+            redis.call('ZREM', KEYS[3], ARGV[1])
+            return couriers
+            """, List.class);
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final OpenDeliveryBoard openDeliveryBoard;
+    private final DeliveryRepository deliveryRepository;
+    private final DeliveryProperties.Dispatch config;
+    private final double maxDistanceMeters;
+    private final long offerKeyTtlMs;
+    private final Scheduler dispatchThread = Schedulers.newSingle("delivery-dispatch");
+    private final Disposable.Composite running = Disposables.composite();
+
+    private final Counter couriersOffered;
+    private final Counter wavesEmpty;
+    private final Counter acceptsWon;
+    private final Counter acceptsRefused;
+
+    public DeliveryDispatcher(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            OpenDeliveryBoard openDeliveryBoard,
+            DeliveryRepository deliveryRepository,
+            DeliveryProperties deliveryProperties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.openDeliveryBoard = openDeliveryBoard;
+        this.deliveryRepository = deliveryRepository;
+        this.config = deliveryProperties.getDispatch();
+        this.maxDistanceMeters = deliveryProperties.getMatching().getMaxDistanceMeters();
+        // Deliveries nobody accepted are cancelled after this, so no offer key has to outlive it
+        this.offerKeyTtlMs = deliveryProperties.getTimers().getUnacceptedTimeout().toMillis();
+        this.couriersOffered = Counter.builder("delivery.dispatch.offers")
+                .description("Courier offers handed out, one per courier and wave")
+                .register(meterRegistry);
+        this.wavesEmpty = Counter.builder("delivery.dispatch.waves.empty")
+                .description("Waves that found no courier left to offer the delivery to")
+                .register(meterRegistry);
+        this.acceptsWon = Counter.builder("delivery.dispatch.accepts")
+                .tag("outcome", "won")
+                .description("Offer accepts by outcome")
+                .register(meterRegistry);
+        this.acceptsRefused = Counter.builder("delivery.dispatch.accepts")
+                .tag("outcome", "refused")
+                .description("Offer accepts by outcome")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running.add(Flux.interval(config.getPollInterval(), config.getPollInterval(), dispatchThread)
+                .onBackpressureDrop()
+                .concatMap(tick -> dispatchDue().onErrorResume(error -> {
+                    logger.warn("Failed to claim due delivery offers: {}", error.getMessage());
+                    return Mono.empty();
+                }), 1)
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running.dispose();
+        dispatchThread.dispose();
+    }
+
+    @EventListener
+    public void onDeliveryCreated(DeliveryEventHandler.DeliveryCreatedEvent event) {
+        onCreated(List.of(event));
+    }
+
+    @EventListener
+    public void onDeliveriesCreated(DeliveryEventHandler.DeliveriesCreatedEvent event) {
+        onCreated(event.deliveries());
+    }
+
+    @EventListener
+    public void onDeliveryStatusUpdated(DeliveryEventHandler.DeliveryStatusUpdatedEvent event) {
+        onStatusesUpdated(List.of(event));
+    }
+
+    @EventListener
+    public void onDeliveryStatusesUpdated(DeliveryEventHandler.DeliveryStatusesUpdatedEvent event) {
+        onStatusesUpdated(event.updates());
+    }
+
+    private void onCreated(List<DeliveryEventHandler.DeliveryCreatedEvent> created) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        // A creation without a status is CREATED
+        schedule(created.stream()
+                .filter(event -> event.status() == null || DeliveryStatus.CREATED.name().equals(event.status()))
+                .map(DeliveryEventHandler.DeliveryCreatedEvent::deliveryId)
+                .toList());
+    }
+
+    /**
+     * Starts offering deliveries that became CREATED and withdraws the offers of those that left it.
+     */
+    private void onStatusesUpdated(List<DeliveryEventHandler.DeliveryStatusUpdatedEvent> updates) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        List<String> opened = new ArrayList<>();
+        for (DeliveryEventHandler.DeliveryStatusUpdatedEvent update : updates) {
+            if (DeliveryStatus.CREATED.name().equals(update.newStatus())) {
+                opened.add(update.deliveryId());
+            } else if (update.previousStatus() == null || DeliveryStatus.CREATED.name().equals(update.previousStatus())) {
+                withdraw(update.deliveryId()).subscribe(
+                        v -> {},
+                        error -> logger.warn("Failed to withdraw offers of delivery {}: {}",
+                                update.deliveryId(), error.getMessage()));
+            }
+        }
+        schedule(opened);
+    }
+
+    private void schedule(List<String> deliveryIds) {
+        if (deliveryIds.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(Long.toString(System.currentTimeMillis()));
+        args.addAll(deliveryIds);
+        redisTemplate.execute(SCHEDULE, List.of(DUE_KEY), args).subscribe(
+                added -> {},
+                error -> logger.warn("Failed to schedule offers of {} deliveries: {}", deliveryIds.size(), error.getMessage()));
+    }
+
+    /**
+     * IDs of the deliveries the courier currently holds a live offer for.
+     */
+    public Flux<String> offersFor(String courierId) {
+        return redisTemplate.opsForZSet().rangeByScore(courierKey(courierId),
+                Range.rightUnbounded(Range.Bound.exclusive((double) System.currentTimeMillis())));
+    }
+
+    /**
+     * Takes the courier's offer of the delivery if its lease is still live and no other courier took
+     * the delivery first. Emits false when the courier lost, without any database access. A winner
+     * must follow up with the assignment, or {@link #release} the delivery when that fails.
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<Boolean> accept(String deliveryId, String courierId) {
+        long now = System.currentTimeMillis();
+        long markerTtlMs = config.getClaimTtl().toMillis();
+        return redisTemplate.execute(ACCEPT, List.of(leasesKey(deliveryId), acceptedKey(deliveryId), DUE_KEY),
+                        List.of(courierId, Long.toString(now), deliveryId, Long.toString(markerTtlMs),
+                                Long.toString(now + markerTtlMs)))
+                .next()
+                .map(holders -> (List<String>) holders)
+                .defaultIfEmpty(List.of())
+                .flatMap(holders -> {
+                    if (holders.isEmpty()) {
+                        acceptsRefused.increment();
+                        return Mono.just(false);
+                    }
+                    acceptsWon.increment();
+                    return removeFromOffers(deliveryId, holders).thenReturn(true);
+                });
+    }
+
+    /**
+     * Reopens a delivery whose accepted offer could not be turned into an assignment; the next wave
+     * goes out right away, or the offers are withdrawn if the delivery is no longer open.
+     */
+    public Mono<Void> release(String deliveryId) {
+        return redisTemplate.delete(acceptedKey(deliveryId))
+                .then(redisTemplate.opsForZSet().add(DUE_KEY, deliveryId, System.currentTimeMillis()))
+                .then();
+    }
+
+    /**
+     * Gives up the courier's offer of the delivery. Emits false when the courier held none; once every
+     * courier of the wave declined, the next wave goes out without waiting for the leases to expire.
+     */
+    public Mono<Boolean> decline(String deliveryId, String courierId) {
+        return redisTemplate.execute(DECLINE, List.of(leasesKey(deliveryId), courierKey(courierId), DUE_KEY),
+                        List.of(courierId, deliveryId, Long.toString(System.currentTimeMillis())))
+                .next()
+                .map(declined -> declined == 1L)
+                .defaultIfEmpty(false);
+    }
+
+    /**
+     * Drops every offer of the delivery; later accepts of it are refused.
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<Void> withdraw(String deliveryId) {
+        return redisTemplate.execute(WITHDRAW, List.of(leasesKey(deliveryId), offeredKey(deliveryId), DUE_KEY),
+                        List.of(deliveryId))
+                .next()
+                .flatMap(holders -> removeFromOffers(deliveryId, (List<String>) holders));
+    }
+
+    /**
+     * Claims the deliveries whose next wave is due and sends it out. A delivery whose wave fails is
+     * retried once its claim expired.
+     */
+    @SuppressWarnings("unchecked")
+    Mono<Void> dispatchDue() {
+        long now = System.currentTimeMillis();
+        long claimUntil = now + config.getClaimTtl().toMillis();
+        return redisTemplate.execute(CLAIM, List.of(DUE_KEY),
+                        List.of(Long.toString(now), Long.toString(claimUntil), Integer.toString(config.getBatchSize())))
+                .next()
+                .flatMapMany(due -> Flux.fromIterable((List<String>) due))
+                .flatMap(deliveryId -> dispatch(deliveryId, now).onErrorResume(error -> {
+                    logger.warn("Failed to offer delivery {}, retrying after the claim: {}", deliveryId, error.getMessage());
+                    return Mono.empty();
+                }), config.getConcurrency())
+                .then();
+    }
+
+    /**
+     * Sends out the next wave of an open delivery, or withdraws its offers once it is no longer open.
+     * A delivery created on another instance may not have reached this instance's board yet.
+     */
+    private Mono<Void> dispatch(String deliveryId, long now) {
+        return Mono.justOrEmpty(openDeliveryBoard.get(deliveryId))
+                .switchIfEmpty(Mono.defer(() -> deliveryRepository.findById(deliveryId)))
+                .filter(delivery -> delivery.getStatus() == DeliveryStatus.CREATED && delivery.getPickupLocation() != null)
+                .flatMap(delivery -> offerNextWave(delivery, now).thenReturn(delivery))
+                .switchIfEmpty(Mono.defer(() -> withdraw(deliveryId).then(Mono.<Delivery>empty())))
+                .then();
+    }
+
+    private Mono<Void> offerNextWave(Delivery delivery, long now) {
+        String deliveryId = delivery.getId();
+        GeoJsonPoint pickup = delivery.getPickupLocation();
+        return redisTemplate.opsForSet().members(offeredKey(deliveryId))
+                .collect(Collectors.toSet())
+                .flatMap(offered -> nearestCouriers(pickup, config.getCouriersPerWave() + offered.size())
+                        .filter(courierId -> !offered.contains(courierId))
+                        .take(config.getCouriersPerWave())
+                        .collectList())
+                .flatMap(couriers -> couriers.isEmpty()
+                        ? startOver(deliveryId, now)
+                        : offer(deliveryId, couriers, now + config.getLeaseTtl().toMillis()));
+    }
+
+    private Flux<String> nearestCouriers(GeoJsonPoint pickup, int count) {
+        return redisTemplate.opsForGeo()
+                .search(CourierLocationTracker.GEO_KEY,
+                        GeoReference.fromCoordinate(new Point(pickup.getX(), pickup.getY())),
+                        new Distance(maxDistanceMeters, Metrics.METERS),
+                        RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs().sortAscending().limit(count))
+                .map(result -> result.getContent().getName());
+    }
+
+    private Mono<Void> offer(String deliveryId, List<String> couriers, long leaseUntil) {
+        List<String> keys = new ArrayList<>(List.of(
+                leasesKey(deliveryId), acceptedKey(deliveryId), offeredKey(deliveryId), DUE_KEY));
+        List<String> args = new ArrayList<>(List.of(
+                deliveryId, Long.toString(leaseUntil), Long.toString(offerKeyTtlMs)));
+        for (String courierId : couriers) {
+            keys.add(courierKey(courierId));
+            args.add(courierId);
+        }
+        return redisTemplate.execute(OFFER, keys, args)
+                .next()
+                .doOnNext(offered -> {
+                    if (offered == 1L) {
+                        couriersOffered.increment(couriers.size());
+                        logger.debug("Offered delivery {} to {}", deliveryId, couriers);
+                    }
+                })
+                .then();
+    }
+
+    /**
+     * Nobody nearby is left who was not offered the delivery: forget who was, so the next round
+     * after the retry delay starts again from the nearest couriers.
+     */
+    private Mono<Void> startOver(String deliveryId, long now) {
+        wavesEmpty.increment();
+        return redisTemplate.delete(offeredKey(deliveryId))
+                .then(redisTemplate.opsForZSet().add(DUE_KEY, deliveryId, now + config.getRetryDelay().toMillis()))
+                .then();
+    }
+
+    private Mono<Void> removeFromOffers(String deliveryId, List<String> couriers) {
+        return Flux.fromIterable(new HashSet<>(couriers))
+                .flatMap(courierId -> redisTemplate.opsForZSet().remove(courierKey(courierId), deliveryId))
+                .then();
+    }
+
+    static String leasesKey(String deliveryId) {
+        return "delivery:offer:" + deliveryId;
+    }
+
+    static String acceptedKey(String deliveryId) {
+        return "delivery:offer:" + deliveryId + ":accepted";
+    }
+
+    static String offeredKey(String deliveryId) {
+        return "delivery:offer:" + deliveryId + ":offered";
+    }
+
+    static String courierKey(String courierId) {
+        return "courier:offers:" + courierId;
+    }
+}
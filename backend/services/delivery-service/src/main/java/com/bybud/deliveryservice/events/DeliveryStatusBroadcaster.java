@@ -0,0 +1,265 @@
+package com.bybud.deliveryservice.events;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.Delivery;
+import com.bybud.kafka.consumer.DeliveryEventConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes delivery status changes to the clients following them over Server-Sent Events.
+ *
+ * <p>Changes arrive through the instance's one delivery event consumer as local
+ * {@link DeliveryEventConsumer.DeliveryChangedEvent}s, so every instance sees every change and fans
+ * it out to its own connections, found by delivery and by customer. Each event is rendered once
+ * and handed to every connection without blocking: a connection buffers at most the configured
+ * number of events and drops the oldest ones when its client does not keep up, so a slow browser
+ * only ever loses its own stale updates and never holds up the consumer.</p>
+ *
+ * <p>Connections hold no timer of their own. One thread periodically sends a heartbeat comment to
+ * the connections that have been quiet for the heartbeat interval, which keeps proxies from closing
+ * them at a cost proportional to the number of open connections.</p>
+ */
+@Component
+public class DeliveryStatusBroadcaster {
+
+    static final String STATUS_EVENT = "status";
+    // Comment lines are ignored by EventSource clients; one instance is shared by every connection
+    private static final ServerSentEvent<DeliveryStatusEvent> HEARTBEAT =
+            ServerSentEvent.<DeliveryStatusEvent>builder().comment("heartbeat").build();
+
+    private final DeliveryProperties.Events config;
+    private final Map<String, Set<Connection>> byDelivery = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> byCustomer = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final Scheduler heartbeatThread = Schedulers.newSingle("delivery-event-heartbeats");
+    private final Disposable.Composite running = Disposables.composite();
+
+    private final Counter eventsDropped;
+    private final Counter connectionsRejected;
+
+    public DeliveryStatusBroadcaster(DeliveryProperties deliveryProperties, MeterRegistry meterRegistry) {
+        this.config = deliveryProperties.getEvents();
+        Gauge.builder("delivery.events.connections", open, AtomicInteger::get)
+                .description("Open delivery status event streams")
+                .register(meterRegistry);
+        this.eventsDropped = Counter.builder("delivery.events.dropped")
+                .description("Status events dropped because a client did not keep up")
+                .register(meterRegistry);
+        this.connectionsRejected = Counter.builder("delivery.events.rejected")
+                .description("Event streams refused because the connection limit was reached")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running.add(Flux.interval(config.getHeartbeatInterval(), config.getHeartbeatInterval(), heartbeatThread)
+                .subscribe(tick -> sendHeartbeats(System.currentTimeMillis())));
+    }
+
+    /**
+     * Ends every open stream so clients reconnect to another instance.
+     */
+    @PreDestroy
+    public void stop() {
+        running.dispose();
+        heartbeatThread.dispose();
+        byDelivery.values().forEach(connections -> connections.forEach(Connection::complete));
+        byCustomer.values().forEach(connections -> connections.forEach(Connection::complete));
+    }
+
+    @EventListener
+    public void onDeliveryChanged(DeliveryEventConsumer.DeliveryChangedEvent event) {
+        Delivery delivery = event.delivery();
+        if (delivery != null && delivery.getId() != null && delivery.getStatus() != null) {
+            publish(DeliveryStatusEvent.of(delivery));
+        }
+    }
+
+    /**
+     * Sends a status change to the connections following its delivery or its customer. Streams of
+     * a single delivery end after it reached a final status.
+     */
+    public void publish(DeliveryStatusEvent event) {
+        ServerSentEvent<DeliveryStatusEvent> rendered = render(event);
+        Set<Connection> deliveryConnections = byDelivery.get(event.deliveryId());
+        if (deliveryConnections != null) {
+            deliveryConnections.forEach(connection -> connection.send(rendered, event.isFinal()));
+        }
+        Set<Connection> customerConnections = event.customerId() != null ? byCustomer.get(event.customerId()) : null;
+        if (customerConnections != null) {
+            customerConnections.forEach(connection -> connection.send(rendered, false));
+        }
+    }
+
+    /**
+     * Follows one delivery: its current status first, then every change until it is completed or
+     * cancelled. {@code current} is resolved only once the stream is registered, so no change made
+     * in between is missed; such changes are held back until it resolves and replace it. It may
+     * fail, e.g. when the caller may not see the delivery, which drops the held changes and ends the
+     * stream with that error, so nothing reaches a caller before the permission check passed.
+     */
+    public Flux<ServerSentEvent<DeliveryStatusEvent>> followDelivery(String deliveryId, Mono<DeliveryStatusEvent> current) {
+        return connect(byDelivery, deliveryId, current);
+    }
+
+    /**
+     * Follows the status of every delivery of one customer.
+     */
+    public Flux<ServerSentEvent<DeliveryStatusEvent>> followCustomer(String customerId) {
+        return connect(byCustomer, customerId, null);
+    }
+
+    public int openConnections() {
+        return open.get();
+    }
+
+    private Flux<ServerSentEvent<DeliveryStatusEvent>> connect(
+            Map<String, Set<Connection>> registry, String key, @Nullable Mono<DeliveryStatusEvent> current) {
+
+        return Flux.<ServerSentEvent<DeliveryStatusEvent>>create(sink -> {
+                    if (open.incrementAndGet() > config.getMaxConnections()) {
+                        open.decrementAndGet();
+                        connectionsRejected.increment();
+                        sink.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Too many open event streams, retry later."));
+                        return;
+                    }
+                    Connection connection = new Connection(sink, current == null);
+                    registry.compute(key, (k, connections) -> {
+                        Set<Connection> set = connections != null ? connections : ConcurrentHashMap.newKeySet();
+                        set.add(connection);
+                        return set;
+                    });
+                    Disposable.Composite cleanup = Disposables.composite(() -> {
+                        registry.computeIfPresent(key, (k, connections) -> {
+                            connections.remove(connection);
+                            return connections.isEmpty() ? null : connections;
+                        });
+                        open.decrementAndGet();
+                    });
+                    sink.onDispose(cleanup);
+                    if (current != null) {
+                        cleanup.add(current
+                                .contextWrite(sink.contextView())
+                                .subscribe(event -> connection.open(render(event), event.isFinal()),
+                                        connection::fail,
+                                        () -> connection.open(null, false)));
+                    }
+                })
+                .onBackpressureBuffer(config.getBufferSize(), dropped -> eventsDropped.increment(),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    void sendHeartbeats(long now) {
+        long intervalMs = config.getHeartbeatInterval().toMillis();
+        byDelivery.values().forEach(connections -> connections.forEach(connection -> connection.heartbeat(now, intervalMs)));
+        byCustomer.values().forEach(connections -> connections.forEach(connection -> connection.heartbeat(now, intervalMs)));
+    }
+
+    private static ServerSentEvent<DeliveryStatusEvent> render(DeliveryStatusEvent event) {
+        return ServerSentEvent.<DeliveryStatusEvent>builder()
+                .event(STATUS_EVENT)
+                .id(event.deliveryId())
+                .data(event)
+                .build();
+    }
+
+    /**
+     * One open stream. Its sink is thread safe and never blocks; the bounded buffer behind it
+     * absorbs what the client has not read yet.
+     */
+    private static final class Connection {
+        private final FluxSink<ServerSentEvent<DeliveryStatusEvent>> sink;
+        private volatile long lastSentAt = System.currentTimeMillis();
+        // Guarded by this: changes held back until the current status resolved, null once it has
+        private List<ServerSentEvent<DeliveryStatusEvent>> held;
+        private boolean heldLast;
+        private boolean failed;
+
+        Connection(FluxSink<ServerSentEvent<DeliveryStatusEvent>> sink, boolean open) {
+            this.sink = sink;
+            this.held = open ? null : new ArrayList<>();
+        }
+
+        synchronized void send(ServerSentEvent<DeliveryStatusEvent> event, boolean last) {
+            if (held != null) {
+                held.add(event);
+                heldLast |= last;
+            } else if (!failed) {
+                emit(event, last);
+            }
+        }
+
+        /**
+         * Starts sending: the changes held back if there were any, as the snapshot read before
+         * them is outdated, otherwise the snapshot. Only the first call has an effect.
+         */
+        synchronized void open(@Nullable ServerSentEvent<DeliveryStatusEvent> snapshot, boolean last) {
+            List<ServerSentEvent<DeliveryStatusEvent>> changes = held;
+            if (changes == null) {
+                return;
+            }
+            held = null;
+            if (changes.isEmpty()) {
+                if (snapshot != null) {
+                    emit(snapshot, last);
+                }
+                return;
+            }
+            for (int i = 0; i < changes.size(); i++) {
+                emit(changes.get(i), heldLast && i == changes.size() - 1);
+            }
+        }
+
+        synchronized void fail(Throwable error) {
+            failed = true;
+            held = null;
+            sink.error(error);
+        }
+
+        // A heartbeat may push the oldest buffered event out of a full buffer, never the newest status
+        void heartbeat(long now, long intervalMs) {
+            if (now - lastSentAt >= intervalMs) {
+                lastSentAt = now;
+                sink.next(HEARTBEAT);
+            }
+        }
+
+        void complete() {
+            sink.complete();
+        }
+
+        private void emit(ServerSentEvent<DeliveryStatusEvent> event, boolean last) {
+            lastSentAt = System.currentTimeMillis();
+            sink.next(event);
+            if (last) {
+                sink.complete();
+            }
+        }
+    }
+}
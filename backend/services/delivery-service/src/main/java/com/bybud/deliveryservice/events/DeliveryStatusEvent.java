@@ -0,0 +1,29 @@
+package com.bybud.deliveryservice.events;
+
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The status of a delivery as pushed to clients following it.
+ */
+public record DeliveryStatusEvent(
+        String deliveryId,
+        String customerId,
+        String courierId,
+        DeliveryStatus status,
+        LocalDateTime updatedAt) {
+
+    public static DeliveryStatusEvent of(Delivery delivery) {
+        return new DeliveryStatusEvent(delivery.getId(), delivery.getCustomerId(), delivery.getCourierId(),
+                delivery.getStatus(), delivery.getUpdatedDate());
+    }
+
+    /**
+     * Whether the delivery can no longer change status.
+     */
+    public boolean isFinal() {
+        return status == DeliveryStatus.COMPLETED || status == DeliveryStatus.CANCELLED;
+    }
+}
@@ -0,0 +1,188 @@
+package com.bybud.deliveryservice.idempotency;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}. The outcome is kept in Redis for the
+ * configured TTL and replayed to retries; a retry arriving while the first attempt is still running
+ * waits for its outcome instead of running again.
+ *
+ * <p>The first attempt claims the key with SET NX and a short in-flight TTL, so a crashed instance
+ * cannot block the key for long. Duplicates reaching the same instance share the first attempt
+ * directly; duplicates on other instances poll Redis until the outcome appears. A failed attempt
+ * releases the key so the client can retry. Reusing a key with a different request body is rejected
+ * with 422.</p>
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String KEY_PREFIX = "delivery:idempotency:";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * What Redis holds for a key: the request fingerprint and, once the first attempt succeeded, its result as JSON.
+     */
+    record StoredOutcome(String fingerprint, String result) {
+    }
+
+    private record InFlight(String fingerprint, Mono<Object> outcome) {
+    }
+
+    // Signals that another attempt holds the key; the only error that is retried
+    private static final class StillInFlightException extends RuntimeException {
+        StillInFlightException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final DeliveryProperties.Idempotency config;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            ObjectMapper objectMapper,
+            DeliveryProperties deliveryProperties) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.config = deliveryProperties.getIdempotency();
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same key already ran for {@code scope}, in which case
+     * its result is returned.
+     *
+     * @param scope whose key space the key belongs to, e.g. the authenticated user
+     * @param key the client's idempotency key
+     * @param request the request body, fingerprinted to detect a key reused for a different request
+     * @param type result type, for replaying a stored result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String scope, String key, Object request, Class<T> type, Supplier<Mono<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters"));
+        }
+        String redisKey = KEY_PREFIX + scope + ":" + key;
+        String fingerprint;
+        try {
+            fingerprint = fingerprint(request);
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+
+        return Mono.defer(() -> {
+            InFlight shared = inFlight.computeIfAbsent(redisKey, k -> new InFlight(fingerprint,
+                    resolve(k, fingerprint, type, action)
+                            .map(Object.class::cast)
+                            .doFinally(signal -> inFlight.remove(k))
+                            // keeps running for the waiting duplicates even if the first caller goes away
+                            .cache()));
+            if (!shared.fingerprint().equals(fingerprint)) {
+                return Mono.error(keyReused());
+            }
+            return shared.outcome().map(result -> (T) result);
+        });
+    }
+
+    private <T> Mono<T> resolve(String redisKey, String fingerprint, Class<T> type, Supplier<Mono<T>> action) {
+        String pending = write(new StoredOutcome(fingerprint, null));
+        return Mono.defer(() -> redisTemplate.opsForValue()
+                        .setIfAbsent(redisKey, pending, config.getInFlightTtl())
+                        .onErrorResume(error -> {
+                            logger.warn("Idempotency store unavailable, running {} unguarded: {}", redisKey, error.getMessage());
+                            return Mono.just(Boolean.TRUE);
+                        })
+                        .flatMap(claimed -> claimed
+                                ? run(redisKey, fingerprint, action)
+                                : replay(redisKey, fingerprint, type)))
+                .retryWhen(Retry.fixedDelay(waitAttempts(), config.getPollInterval())
+                        .filter(StillInFlightException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> new ResponseStatusException(HttpStatus.CONFLICT,
+                                "A request with this Idempotency-Key is still being processed")));
+    }
+
+    private <T> Mono<T> run(String redisKey, String fingerprint, Supplier<Mono<T>> action) {
+        return action.get()
+                .flatMap(result -> redisTemplate.opsForValue()
+                        .set(redisKey, write(new StoredOutcome(fingerprint, write(result))), config.getTtl())
+                        .onErrorResume(error -> {
+                            logger.warn("Failed to store idempotent result for {}: {}", redisKey, error.getMessage());
+                            return Mono.just(false);
+                        })
+                        .thenReturn(result))
+                .onErrorResume(error -> redisTemplate.delete(redisKey)
+                        .onErrorResume(deleteError -> Mono.just(0L))
+                        .then(Mono.error(error)));
+    }
+
+    private <T> Mono<T> replay(String redisKey, String fingerprint, Class<T> type) {
+        return redisTemplate.opsForValue().get(redisKey)
+                // released by a failed first attempt in the meantime: claim it on the next round
+                .switchIfEmpty(Mono.error(new StillInFlightException()))
+                .flatMap(json -> {
+                    StoredOutcome stored = read(json, StoredOutcome.class);
+                    if (!stored.fingerprint().equals(fingerprint)) {
+                        return Mono.error(keyReused());
+                    }
+                    if (stored.result() == null) {
+                        return Mono.error(new StillInFlightException());
+                    }
+                    return Mono.just(read(stored.result(), type));
+                });
+    }
+
+    private long waitAttempts() {
+        return Math.max(1, config.getWaitTimeout().toMillis() / Math.max(1, config.getPollInterval().toMillis()));
+    }
+
+    private static ResponseStatusException keyReused() {
+        return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Idempotency-Key was already used for a different request");
+    }
+
+    private String fingerprint(Object request) throws JsonProcessingException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent outcome", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read idempotent outcome", e);
+        }
+    }
+}
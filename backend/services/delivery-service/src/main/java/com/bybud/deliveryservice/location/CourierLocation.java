@@ -0,0 +1,7 @@
+package com.bybud.deliveryservice.location;
+
+/**
+ * A courier's position at the epoch milliseconds it was recorded.
+ */
+public record CourierLocation(String courierId, double latitude, double longitude, long recordedAt) {
+}
@@ -0,0 +1,328 @@
+package com.bybud.deliveryservice.location;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.kafka.consumer.CourierLocationConsumer;
+import com.bybud.kafka.handler.CourierLocationEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingestion pipeline for courier GPS pings, which arrive far too often to write through to Mongo.
+ *
+ * <p>Reported pings are published to the courier location topic keyed by courier, so each courier's
+ * pings are consumed in order by the one instance owning its partition. There every ping updates
+ * the courier's {@link CourierTrack} in memory; the matching grid is fed by every instance from the
+ * same topic, see {@link com.bybud.deliveryservice.matching.DeliveryMatcher}. Periodic
+ * flushes then write only what changed: the latest position of each courier that moved goes to
+ * one Redis GEO set with a single GEOADD, and downsampled positions go to the history collection
+ * with one bulk insert per batch. History is best effort; samples of a failed insert are dropped.</p>
+ *
+ * <p>Couriers that go offline, published on the same topic after their last pings, or that stop
+ * reporting for the matching position TTL are dropped from memory and from the GEO set.</p>
+ */
+@Component
+public class CourierLocationTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourierLocationTracker.class);
+
+    public static final String GEO_KEY = "courier:locations";
+    static final String HISTORY_COLLECTION = "courier_location_history";
+
+    private final CourierLocationEventHandler locationEventHandler;
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DeliveryProperties.Location config;
+    private final long positionTtlMs;
+    private final Map<String, CourierTrack> tracks = new ConcurrentHashMap<>();
+    // Couriers whose latest position has not been written to Redis yet
+    private final Set<String> moved = ConcurrentHashMap.newKeySet();
+    private final Scheduler flushThread = Schedulers.newSingle("courier-locations");
+    private final Disposable.Composite running = Disposables.composite();
+
+    private final Counter pingsAccepted;
+    private final Counter pingsStale;
+    private final Counter samplesKept;
+    private final Counter samplesDropped;
+    private final Timer latestFlushTimer;
+    private final Timer historyFlushTimer;
+
+    public CourierLocationTracker(
+            CourierLocationEventHandler locationEventHandler,
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            ReactiveMongoTemplate mongoTemplate,
+            DeliveryProperties deliveryProperties,
+            MeterRegistry meterRegistry) {
+        this.locationEventHandler = locationEventHandler;
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.config = deliveryProperties.getLocation();
+        this.positionTtlMs = deliveryProperties.getMatching().getPositionTtl().toMillis();
+
+        this.pingsAccepted = Counter.builder("delivery.location.pings")
+                .description("Courier location pings consumed, by outcome")
+                .tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.pingsStale = Counter.builder("delivery.location.pings")
+                .description("Courier location pings consumed, by outcome")
+                .tag("outcome", "stale")
+                .register(meterRegistry);
+        this.samplesKept = Counter.builder("delivery.location.samples.kept")
+                .description("Courier positions sampled for the location history")
+                .register(meterRegistry);
+        this.samplesDropped = Counter.builder("delivery.location.samples.dropped")
+                .description("Sampled courier positions lost to a full buffer or a failed history write")
+                .register(meterRegistry);
+        this.latestFlushTimer = Timer.builder("delivery.location.flush")
+                .description("Time to write courier positions")
+                .tag("target", "latest")
+                .register(meterRegistry);
+        this.historyFlushTimer = Timer.builder("delivery.location.flush")
+                .description("Time to write courier positions")
+                .tag("target", "history")
+                .register(meterRegistry);
+        Gauge.builder("delivery.location.couriers.tracked", tracks, Map::size)
+                .description("Couriers with a location track on this instance")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        ensureHistoryIndexes();
+        running.add(Flux.interval(config.getLatestFlushInterval(), config.getLatestFlushInterval(), flushThread)
+                .onBackpressureDrop()
+                .concatMap(tick -> flushLatest(), 1)
+                .subscribe());
+        running.add(Flux.interval(config.getHistoryFlushInterval(), config.getHistoryFlushInterval(), flushThread)
+                .onBackpressureDrop()
+                .concatMap(tick -> flushHistory()
+                        .then(Mono.defer(() -> evictSilent(System.currentTimeMillis() - positionTtlMs))), 1)
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running.dispose();
+        flushThread.dispose();
+    }
+
+    /**
+     * Publishes a courier's pings to the location topic; they are applied once consumed.
+     */
+    public Mono<Void> publish(String courierId, List<CourierLocation> pings) {
+        List<CourierLocationEventHandler.LocationPing> events = new ArrayList<>(pings.size());
+        for (CourierLocation ping : pings) {
+            events.add(new CourierLocationEventHandler.LocationPing(
+                    courierId, ping.latitude(), ping.longitude(), ping.recordedAt()));
+        }
+        return locationEventHandler.publishLocationPings(courierId, events);
+    }
+
+    @EventListener
+    public void onLocationsReceived(CourierLocationConsumer.CourierLocationsReceivedEvent event) {
+        for (CourierLocationEventHandler.LocationPing ping : event.pings()) {
+            record(ping.courierId(), ping.latitude(), ping.longitude(), ping.recordedAt());
+        }
+        if (!event.offline().isEmpty()) {
+            forget(event.offline()).subscribe();
+        }
+    }
+
+    /**
+     * Applies one ping to the courier's track; one older than the latest position is only counted.
+     */
+    public void record(String courierId, double latitude, double longitude, long recordedAt) {
+        CourierTrack track = tracks.computeIfAbsent(courierId, id -> new CourierTrack(id,
+                config.getBufferSize(), config.getSampleInterval().toMillis(),
+                config.getMaxSampleInterval().toMillis(), config.getSampleMinDistanceMeters()));
+        CourierTrack.Offer offer = track.offer(latitude, longitude, recordedAt);
+        if (offer == CourierTrack.Offer.STALE) {
+            pingsStale.increment();
+            return;
+        }
+        pingsAccepted.increment();
+        if (offer == CourierTrack.Offer.SAMPLED) {
+            samplesKept.increment();
+        }
+        moved.add(courierId);
+    }
+
+    /**
+     * Publishes that the courier went offline. Once consumed, the owning instance forgets its track
+     * and every instance takes it off its matching grid.
+     */
+    public Mono<Void> goOffline(String courierId) {
+        return locationEventHandler.publishCourierOffline(courierId);
+    }
+
+    /**
+     * Forgets the couriers' tracks and removes them from the GEO set; unwritten samples are dropped.
+     */
+    Mono<Void> forget(Set<String> courierIds) {
+        for (String courierId : courierIds) {
+            CourierTrack track = tracks.remove(courierId);
+            moved.remove(courierId);
+            if (track != null) {
+                samplesDropped.increment(track.pendingSamples());
+            }
+        }
+        return redisTemplate.opsForGeo().remove(GEO_KEY, courierIds.toArray(String[]::new))
+                .onErrorResume(error -> {
+                    logger.warn("Failed to remove {} offline couriers from the location set: {}",
+                            courierIds.size(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Writes the latest position of every courier that moved since the previous flush with one GEOADD.
+     */
+    Mono<Void> flushLatest() {
+        Map<String, Point> positions = new HashMap<>();
+        for (Iterator<String> it = moved.iterator(); it.hasNext(); ) {
+            String courierId = it.next();
+            it.remove();
+            CourierTrack track = tracks.get(courierId);
+            CourierLocation latest = track != null ? track.takeLatestIfChanged() : null;
+            if (latest != null) {
+                positions.put(courierId, new Point(latest.longitude(), latest.latitude()));
+            }
+        }
+        if (positions.isEmpty()) {
+            return Mono.empty();
+        }
+        Timer.Sample timing = Timer.start();
+        return redisTemplate.opsForGeo().add(GEO_KEY, positions)
+                .doFinally(signal -> timing.stop(latestFlushTimer))
+                .onErrorResume(error -> {
+                    // positions are superseded by the next pings; retrying them is not worth it
+                    logger.warn("Failed to write {} courier positions to Redis: {}", positions.size(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Writes every sampled position to the history collection, one bulk insert per batch.
+     *
+     * @return the number of samples written
+     */
+    Mono<Long> flushHistory() {
+        int batchSize = config.getHistoryBatchSize();
+        return Mono.defer(() -> {
+                    Timer.Sample timing = Timer.start();
+                    return Mono.defer(() -> writeBatch(batchSize))
+                            .repeat()
+                            .takeUntil(batch -> batch.read() < batchSize || batch.written() < batch.read())
+                            .reduce(0L, (total, batch) -> total + batch.written())
+                            .doFinally(signal -> timing.stop(historyFlushTimer));
+                });
+    }
+
+    private Mono<Batch> writeBatch(int batchSize) {
+        List<CourierLocation> samples = drainBatch(batchSize);
+        if (samples.isEmpty()) {
+            return Mono.just(new Batch(0, 0));
+        }
+        List<Document> documents = new ArrayList<>(samples.size());
+        samples.forEach(sample -> documents.add(toDocument(sample)));
+        return mongoTemplate.insert(documents, HISTORY_COLLECTION)
+                .count()
+                .onErrorResume(error -> {
+                    logger.warn("Failed to write {} courier location samples: {}", samples.size(), error.getMessage());
+                    samplesDropped.increment(samples.size());
+                    return Mono.just(0L);
+                })
+                .map(written -> new Batch(samples.size(), written));
+    }
+
+    /**
+     * Drops tracks of couriers silent since {@code reportedBefore}, after their samples were flushed.
+     */
+    Mono<Void> evictSilent(long reportedBefore) {
+        List<String> silent = new ArrayList<>();
+        tracks.forEach((courierId, track) -> {
+            if (track.latestAt() < reportedBefore && track.pendingSamples() == 0
+                    && tracks.remove(courierId, track)) {
+                silent.add(courierId);
+            }
+        });
+        tracks.values().forEach(track -> samplesDropped.increment(track.takeOverwritten()));
+        if (silent.isEmpty()) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForGeo().remove(GEO_KEY, silent.toArray(String[]::new))
+                .onErrorResume(error -> {
+                    logger.warn("Failed to remove {} silent couriers from the location set: {}",
+                            silent.size(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private List<CourierLocation> drainBatch(int batchSize) {
+        List<CourierLocation> batch = new ArrayList<>(batchSize);
+        for (CourierTrack track : tracks.values()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            track.drainSamples(batch, batchSize - batch.size());
+        }
+        return batch;
+    }
+
+    private static Document toDocument(CourierLocation sample) {
+        return new Document("courierId", sample.courierId())
+                .append("location", new Document("type", "Point")
+                        .append("coordinates", List.of(sample.longitude(), sample.latitude())))
+                .append("recordedAt", new Date(sample.recordedAt()));
+    }
+
+    private void ensureHistoryIndexes() {
+        Flux.just(
+                        new Index().on("courierId", Sort.Direction.ASC).on("recordedAt", Sort.Direction.DESC)
+                                .named("courier_recorded_at"),
+                        new Index().on("recordedAt", Sort.Direction.ASC).named("recorded_at_ttl")
+                                .expire(config.getHistoryRetention()))
+                .concatMap(index -> mongoTemplate.indexOps(HISTORY_COLLECTION).ensureIndex(index))
+                .then()
+                .subscribe(
+                        v -> {},
+                        error -> logger.error("Failed to create courier location history indexes: {}", error.getMessage()));
+    }
+
+    private record Batch(int read, long written) {
+    }
+}
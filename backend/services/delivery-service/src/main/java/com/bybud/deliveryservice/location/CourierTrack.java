@@ -0,0 +1,139 @@
+package com.bybud.deliveryservice.location;
+
+import com.bybud.deliveryservice.matching.CourierSpatialGrid;
+
+import java.util.List;
+
+/**
+ * Recent positions of one courier: the latest reported position, and a fixed-size ring of
+ * downsampled positions waiting to be written to the location history.
+ *
+ * <p>A position is sampled into the ring only after the sample interval has passed since the
+ * last sample, and only if the courier moved at least the minimum distance since then; a courier
+ * standing still is still sampled once per maximum sample interval. When history writes fall
+ * behind and the ring is full, the oldest unwritten sample is overwritten.</p>
+ *
+ * <p>All methods are synchronized; a track is only contended by the ingesting thread and the
+ * periodic flushes.</p>
+ */
+final class CourierTrack {
+
+    /**
+     * Outcome of offering a position to the track.
+     */
+    enum Offer {
+        // Older than or as old as the latest position; nothing changed
+        STALE,
+        // Became the latest position without being sampled
+        LATEST,
+        // Became the latest position and was sampled into the history ring
+        SAMPLED
+    }
+
+    private final String courierId;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] recordedAts;
+    private final long sampleIntervalMs;
+    private final long maxSampleIntervalMs;
+    private final double minDistanceMeters;
+
+    // Samples ever written to the ring, and samples handed to history; both only grow
+    private long written;
+    private long drained;
+    private long overwritten;
+
+    private double latestLatitude;
+    private double latestLongitude;
+    private long latestAt = Long.MIN_VALUE;
+    private boolean latestDirty;
+
+    CourierTrack(String courierId, int capacity, long sampleIntervalMs, long maxSampleIntervalMs, double minDistanceMeters) {
+        this.courierId = courierId;
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+        this.recordedAts = new long[capacity];
+        this.sampleIntervalMs = sampleIntervalMs;
+        this.maxSampleIntervalMs = maxSampleIntervalMs;
+        this.minDistanceMeters = minDistanceMeters;
+    }
+
+    String courierId() {
+        return courierId;
+    }
+
+    synchronized Offer offer(double latitude, double longitude, long recordedAt) {
+        if (recordedAt <= latestAt) {
+            return Offer.STALE;
+        }
+        latestLatitude = latitude;
+        latestLongitude = longitude;
+        latestAt = recordedAt;
+        latestDirty = true;
+
+        if (written > 0) {
+            int last = slot(written - 1);
+            long elapsed = recordedAt - recordedAts[last];
+            if (elapsed < sampleIntervalMs || (elapsed < maxSampleIntervalMs
+                    && CourierSpatialGrid.distanceMeters(latitudes[last], longitudes[last], latitude, longitude) < minDistanceMeters)) {
+                return Offer.LATEST;
+            }
+        }
+        if (written - drained == recordedAts.length) {
+            drained++;
+            overwritten++;
+        }
+        int slot = slot(written);
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        recordedAts[slot] = recordedAt;
+        written++;
+        return Offer.SAMPLED;
+    }
+
+    /**
+     * Returns the latest position if it changed since the last call, otherwise null.
+     */
+    synchronized CourierLocation takeLatestIfChanged() {
+        if (!latestDirty) {
+            return null;
+        }
+        latestDirty = false;
+        return new CourierLocation(courierId, latestLatitude, latestLongitude, latestAt);
+    }
+
+    synchronized long latestAt() {
+        return latestAt;
+    }
+
+    /**
+     * Moves up to {@code max} unwritten samples, oldest first, into {@code into}.
+     *
+     * @return the number of samples moved
+     */
+    synchronized int drainSamples(List<CourierLocation> into, int max) {
+        int count = (int) Math.min(max, written - drained);
+        for (int i = 0; i < count; i++) {
+            int slot = slot(drained++);
+            into.add(new CourierLocation(courierId, latitudes[slot], longitudes[slot], recordedAts[slot]));
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of unwritten samples overwritten since the last call, and resets it.
+     */
+    synchronized long takeOverwritten() {
+        long count = overwritten;
+        overwritten = 0;
+        return count;
+    }
+
+    synchronized int pendingSamples() {
+        return (int) (written - drained);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % recordedAts.length);
+    }
+}
@@ -0,0 +1,233 @@
+package com.bybud.deliveryservice.matching;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory positions of online couriers, bucketed into a uniform latitude/longitude grid. A nearest
+ * lookup visits rings of cells around the query point and stops as soon as no farther ring can hold
+ * a closer courier, so its cost depends on local courier density rather than on how many couriers
+ * are online.
+ *
+ * <p>Updates and lookups may run concurrently. A courier moving between cells is briefly present in
+ * both; lookups only count it in the cell of its current position.</p>
+ */
+@Component
+public class CourierSpatialGrid {
+
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    // Keeps the longitudinal cell width usable close to the poles
+    private static final double MIN_COS_LATITUDE = 0.01;
+
+    /**
+     * Last reported position of a courier.
+     */
+    public record CourierPosition(String courierId, double latitude, double longitude, long reportedAt) {
+    }
+
+    /**
+     * A courier near a point, with its great-circle distance to that point.
+     */
+    public record Candidate(String courierId, double distanceMeters) {
+    }
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final Map<String, CourierPosition> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+    public CourierSpatialGrid(DeliveryProperties deliveryProperties, MeterRegistry meterRegistry) {
+        this.cellSize = deliveryProperties.getMatching().getCellSizeDegrees();
+        this.columns = (int) Math.ceil(360 / cellSize);
+        this.rows = (int) Math.ceil(180 / cellSize);
+        Gauge.builder("delivery.matching.couriers.online", positions, Map::size)
+                .description("Couriers with a current position in the matching grid")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a courier's position. Reports older than the one already held are ignored.
+     */
+    public void update(String courierId, double latitude, double longitude, long reportedAt) {
+        CourierPosition next = new CourierPosition(courierId, latitude, longitude, reportedAt);
+        positions.compute(courierId, (id, current) -> {
+            if (current != null && current.reportedAt() > reportedAt) {
+                return current;
+            }
+            long from = current != null ? cellOf(current.latitude(), current.longitude()) : -1;
+            long to = cellOf(latitude, longitude);
+            if (from != to) {
+                cells.compute(to, (key, members) -> {
+                    Set<String> set = members != null ? members : ConcurrentHashMap.newKeySet();
+                    set.add(id);
+                    return set;
+                });
+                if (current != null) {
+                    leave(from, id);
+                }
+            }
+            return next;
+        });
+    }
+
+    /**
+     * Takes a courier off the grid, e.g. when they go offline.
+     */
+    public void remove(String courierId) {
+        positions.computeIfPresent(courierId, (id, current) -> {
+            leave(cellOf(current.latitude(), current.longitude()), id);
+            return null;
+        });
+    }
+
+    /**
+     * Takes couriers that have not reported since {@code reportedBefore} off the grid.
+     *
+     * @return the number of couriers removed
+     */
+    public int evictStale(long reportedBefore) {
+        int evicted = 0;
+        for (String courierId : positions.keySet()) {
+            boolean[] removed = new boolean[1];
+            positions.computeIfPresent(courierId, (id, current) -> {
+                if (current.reportedAt() >= reportedBefore) {
+                    return current;
+                }
+                leave(cellOf(current.latitude(), current.longitude()), id);
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public CourierPosition get(String courierId) {
+        return positions.get(courierId);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Returns up to {@code limit} eligible couriers within {@code maxDistanceMeters} of the point, nearest first.
+     */
+    public List<Candidate> nearest(double latitude, double longitude, int limit, double maxDistanceMeters,
+                                   Predicate<String> eligible) {
+        if (limit <= 0 || positions.isEmpty()) {
+            return List.of();
+        }
+        // Smallest cell side around the point; ring r is at least (r - 1) sides away
+        double cosLatitude = Math.max(MIN_COS_LATITUDE, Math.cos(Math.toRadians(latitude)));
+        double minSideMeters = cellSize * METERS_PER_DEGREE * cosLatitude;
+        int maxRing = (int) Math.ceil(maxDistanceMeters / minSideMeters) + 1;
+        int rowRings = (int) Math.ceil(maxDistanceMeters / (cellSize * METERS_PER_DEGREE)) + 1;
+
+        // max-heap of the best candidates so far, farthest on top
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(Candidate::distanceMeters).reversed());
+        int row = row(latitude);
+        int column = column(longitude);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double ringDistance = Math.max(0, ring - 1) * minSideMeters;
+            if (ringDistance > maxDistanceMeters
+                    || (best.size() == limit && ringDistance > best.peek().distanceMeters())) {
+                break;
+            }
+            int rowSpan = Math.min(ring, rowRings);
+            for (int dr = -rowSpan; dr <= rowSpan; dr++) {
+                int r = row + dr;
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean edgeRow = Math.abs(dr) == ring;
+                // interior rows of the ring only contribute their two end cells
+                for (int dc = -ring; dc <= ring; dc += edgeRow || ring == 0 ? 1 : 2 * ring) {
+                    scan(key(r, Math.floorMod(column + dc, columns)), latitude, longitude, limit,
+                            maxDistanceMeters, eligible, best);
+                }
+            }
+            if (2 * ring + 1 >= columns) {
+                break;
+            }
+        }
+        List<Candidate> nearest = new ArrayList<>(best);
+        nearest.sort(Comparator.comparingDouble(Candidate::distanceMeters));
+        return nearest;
+    }
+
+    private void scan(long cell, double latitude, double longitude, int limit, double maxDistanceMeters,
+                      Predicate<String> eligible, PriorityQueue<Candidate> best) {
+        Set<String> members = cells.get(cell);
+        if (members == null) {
+            return;
+        }
+        for (String courierId : members) {
+            CourierPosition position = positions.get(courierId);
+            if (position == null || cellOf(position.latitude(), position.longitude()) != cell
+                    || !eligible.test(courierId)) {
+                continue;
+            }
+            double distance = distanceMeters(latitude, longitude, position.latitude(), position.longitude());
+            if (distance > maxDistanceMeters) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Candidate(courierId, distance));
+            } else if (distance < best.peek().distanceMeters()) {
+                best.poll();
+                best.add(new Candidate(courierId, distance));
+            }
+        }
+    }
+
+    private void leave(long cell, String courierId) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(courierId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return key(row(latitude), column(longitude));
+    }
+
+    private long key(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellSize)));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellSize), columns);
+    }
+
+    /**
+     * Great-circle distance by the haversine formula.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,142 @@
+package com.bybud.deliveryservice.matching;
+
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.Delivery;
+import com.bybud.kafka.consumer.CourierLocationConsumer;
+import com.bybud.kafka.handler.CourierLocationEventHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches open deliveries to the nearest online couriers in periodic rounds. Each round walks the
+ * in-memory open delivery board once, longest-waiting delivery first, and looks up candidates in the
+ * {@link CourierSpatialGrid}; no round touches the database. A courier is a candidate for a bounded
+ * number of deliveries per round so one well-placed courier does not collect every nearby delivery.
+ *
+ * <p>Every instance reads every location ping and offline notice from the courier location topic
+ * in a consumer group of its own, so each grid holds all online couriers and any instance can
+ * answer for any courier.</p>
+ *
+ * <p>Couriers read their matches from the latest round instead of polling the full open list.</p>
+ */
+@Component
+public class DeliveryMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryMatcher.class);
+
+    /**
+     * Outcome of one matching round: candidates per delivery, nearest first, and the deliveries each
+     * courier is a candidate for, in match order.
+     */
+    public record MatchingRound(
+            Map<String, List<CourierSpatialGrid.Candidate>> candidatesByDelivery,
+            Map<String, List<String>> deliveriesByCourier) {
+
+        static final MatchingRound EMPTY = new MatchingRound(Map.of(), Map.of());
+    }
+
+    private final OpenDeliveryBoard openDeliveryBoard;
+    private final CourierSpatialGrid courierGrid;
+    private final DeliveryProperties.Matching config;
+    private final Timer roundTimer;
+    private volatile MatchingRound latest = MatchingRound.EMPTY;
+
+    public DeliveryMatcher(
+            OpenDeliveryBoard openDeliveryBoard,
+            CourierSpatialGrid courierGrid,
+            DeliveryProperties deliveryProperties,
+            MeterRegistry meterRegistry) {
+        this.openDeliveryBoard = openDeliveryBoard;
+        this.courierGrid = courierGrid;
+        this.config = deliveryProperties.getMatching();
+        this.roundTimer = Timer.builder("delivery.matching.round")
+                .description("Time to match all open deliveries to nearby couriers")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "#{@deliveryProperties.matching.interval.toMillis()}")
+    public void run() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        int evicted = courierGrid.evictStale(System.currentTimeMillis() - config.getPositionTtl().toMillis());
+        if (evicted > 0) {
+            logger.debug("Took {} silent couriers offline", evicted);
+        }
+        latest = roundTimer.record(() -> match(openDeliveryBoard.getOpenDeliveries()));
+    }
+
+    /**
+     * Matches the given open deliveries, newest first as served by the board.
+     */
+    MatchingRound match(List<Delivery> openNewestFirst) {
+        Map<String, List<CourierSpatialGrid.Candidate>> byDelivery = new LinkedHashMap<>();
+        Map<String, List<String>> byCourier = new HashMap<>();
+        for (int i = openNewestFirst.size() - 1; i >= 0; i--) {
+            Delivery delivery = openNewestFirst.get(i);
+            GeoJsonPoint pickup = delivery.getPickupLocation();
+            if (pickup == null || delivery.getId() == null) {
+                continue;
+            }
+            List<CourierSpatialGrid.Candidate> candidates = courierGrid.nearest(
+                    pickup.getY(), pickup.getX(), config.getCandidatesPerDelivery(), config.getMaxDistanceMeters(),
+                    courierId -> byCourier.getOrDefault(courierId, List.of()).size() < config.getMaxMatchesPerCourier());
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            byDelivery.put(delivery.getId(), candidates);
+            candidates.forEach(candidate ->
+                    byCourier.computeIfAbsent(candidate.courierId(), id -> new ArrayList<>()).add(delivery.getId()));
+        }
+        return new MatchingRound(byDelivery, byCourier);
+    }
+
+    @EventListener
+    public void onPositionsReceived(CourierLocationConsumer.CourierPositionsReceivedEvent event) {
+        for (CourierLocationEventHandler.LocationPing ping : event.pings()) {
+            reportPosition(ping.courierId(), ping.latitude(), ping.longitude(), ping.recordedAt());
+        }
+        event.offline().forEach(this::goOffline);
+    }
+
+    /**
+     * Puts the courier on the grid at its reported position, or moves it there.
+     */
+    public void reportPosition(String courierId, double latitude, double longitude, long reportedAt) {
+        courierGrid.update(courierId, latitude, longitude, reportedAt);
+    }
+
+    /**
+     * Takes the courier off the grid; it is no longer matched from the next round on.
+     */
+    public void goOffline(String courierId) {
+        courierGrid.remove(courierId);
+    }
+
+    /**
+     * IDs of the deliveries the courier was matched to in the latest round.
+     */
+    public List<String> matchesFor(String courierId) {
+        return latest.deliveriesByCourier().getOrDefault(courierId, List.of());
+    }
+
+    /**
+     * Candidate couriers for the delivery in the latest round, nearest first.
+     */
+    public List<CourierSpatialGrid.Candidate> candidatesFor(String deliveryId) {
+        return latest.candidatesByDelivery().getOrDefault(deliveryId, List.of());
+    }
+}
@@ -0,0 +1,322 @@
+package com.bybud.deliveryservice.scheduling;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.service.DeliveryService;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.kafka.handler.DeliveryEventHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fires time-based status transitions: a PENDING delivery becomes CREATED at the start of its
+ * delivery date, and a CREATED delivery no courier accepted is cancelled after the configured timeout.
+ *
+ * <p>Every timer lives in one Redis sorted set scored by its due time, so timers survive restarts
+ * and are shared by all instances without ever scanning the deliveries collection. Each instance
+ * periodically pulls the timers due within the horizon into an in-memory {@link TimingWheel}, so
+ * memory holds only the near future however many timers are pending. A due timer is claimed with
+ * a lease in Redis, making sure only one instance fires it, and removed once its transition ran.
+ * An instance dying mid-transition lets the lease lapse and another instance retries. Transitions
+ * are conditional on the source status, so a timer that lost a race with a courier is a no-op.</p>
+ */
+@Component
+public class DeliveryTimers {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryTimers.class);
+
+    static final String KEY = "delivery:timers";
+
+    // ARGV[1] is now, ARGV[2] the lease expiry, the rest are members; claims the ones that are due and
+    // not leased by another instance, pushing their score to the lease expiry
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM = RedisScript.of("""
+            local claimed = {}
+            for i = 3, #ARGV do
+                local score = redis.call('ZSCORE', KEYS[1], ARGV[i])
+                if score and tonumber(score) <= tonumber(ARGV[1]) then
+                    redis.call('ZADD', KEYS[1], ARGV[2], ARGV[i])
+                    claimed[#claimed + 1] = ARGV[i]
+                end
+            end
+            return claimed
+            """, List.class);
+
+    /**
+     * A timed transition, applied only while the delivery is still in the source status.
+     */
+    enum Action {
+        ACTIVATE(DeliveryStatus.PENDING, DeliveryStatus.CREATED),
+        EXPIRE(DeliveryStatus.CREATED, DeliveryStatus.CANCELLED);
+
+        private final DeliveryStatus from;
+        private final DeliveryStatus to;
+
+        Action(DeliveryStatus from, DeliveryStatus to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        String member(String deliveryId) {
+            return name() + ":" + deliveryId;
+        }
+    }
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final DeliveryService deliveryService;
+    private final DeliveryProperties.Timers config;
+    // Owns the wheel: every read and change of it, and of the members it holds, runs on this thread
+    private final Scheduler timerThread = Schedulers.newSingle("delivery-timers");
+    private final Set<String> inWheel = new HashSet<>();
+    private final Disposable.Composite running = Disposables.composite();
+    private TimingWheel<String> wheel;
+
+    public DeliveryTimers(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            @Lazy DeliveryService deliveryService,
+            DeliveryProperties deliveryProperties,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.deliveryService = deliveryService;
+        this.config = deliveryProperties.getTimers();
+        Gauge.builder("delivery.timers.loaded", inWheel, Set::size)
+                .description("Delivery timers due within the horizon, held in the in-memory timing wheel")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        timerThread.schedule(() -> {
+            long tickMs = config.getTick().toMillis();
+            wheel = new TimingWheel<>(tickMs, config.getWheelSize(), System.currentTimeMillis() - tickMs);
+            running.add(Flux.interval(config.getTick(), config.getTick(), timerThread)
+                    .subscribe(tick -> advance()));
+            running.add(Flux.interval(Duration.ZERO, config.getLoadInterval(), timerThread)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> load().onErrorResume(error -> {
+                        logger.warn("Failed to load delivery timers from Redis: {}", error.getMessage());
+                        return Mono.empty();
+                    }), 1)
+                    .subscribe());
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        running.dispose();
+        timerThread.dispose();
+    }
+
+    /**
+     * Schedules the first timer of newly created deliveries: activation on the delivery date for
+     * PENDING ones, expiry for CREATED ones. Failures are logged and never fail the creation.
+     */
+    public Mono<Void> scheduleCreated(List<Delivery> deliveries) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> timers = new LinkedHashMap<>();
+        for (Delivery delivery : deliveries) {
+            if (delivery.getId() == null) {
+                continue;
+            }
+            if (delivery.getStatus() == DeliveryStatus.PENDING && delivery.getDeliveryDate() != null) {
+                timers.put(Action.ACTIVATE.member(delivery.getId()), activationTime(delivery.getDeliveryDate()));
+            } else if (delivery.getStatus() == DeliveryStatus.CREATED) {
+                timers.put(Action.EXPIRE.member(delivery.getId()), now + config.getUnacceptedTimeout().toMillis());
+            }
+        }
+        return schedule(timers);
+    }
+
+    @EventListener
+    public void onDeliveryStatusUpdated(DeliveryEventHandler.DeliveryStatusUpdatedEvent event) {
+        onStatusesUpdated(List.of(event));
+    }
+
+    @EventListener
+    public void onDeliveryStatusesUpdated(DeliveryEventHandler.DeliveryStatusesUpdatedEvent event) {
+        onStatusesUpdated(event.updates());
+    }
+
+    /**
+     * Drops timers whose source status was left, so the set only holds live timers, and starts the
+     * expiry clock of deliveries that became CREATED.
+     */
+    private void onStatusesUpdated(List<DeliveryEventHandler.DeliveryStatusUpdatedEvent> updates) {
+        List<String> stale = new ArrayList<>();
+        Map<String, Long> expiries = new LinkedHashMap<>();
+        long expiresAt = System.currentTimeMillis() + config.getUnacceptedTimeout().toMillis();
+        for (DeliveryEventHandler.DeliveryStatusUpdatedEvent update : updates) {
+            for (Action action : Action.values()) {
+                if (action.from.name().equals(update.previousStatus()) && !action.from.name().equals(update.newStatus())) {
+                    stale.add(action.member(update.deliveryId()));
+                }
+            }
+            if (DeliveryStatus.CREATED.name().equals(update.newStatus())
+                    && !DeliveryStatus.CREATED.name().equals(update.previousStatus())) {
+                expiries.put(Action.EXPIRE.member(update.deliveryId()), expiresAt);
+            }
+        }
+        Mono<Long> removal = stale.isEmpty()
+                ? Mono.just(0L)
+                : redisTemplate.opsForZSet().remove(KEY, stale.toArray());
+        removal.onErrorResume(error -> {
+                    logger.warn("Failed to drop stale delivery timers: {}", error.getMessage());
+                    return Mono.just(0L);
+                })
+                .then(schedule(expiries))
+                .subscribe();
+    }
+
+    private Mono<Void> schedule(Map<String, Long> timers) {
+        if (timers.isEmpty()) {
+            return Mono.empty();
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        timers.forEach((member, dueAt) -> tuples.add(new DefaultTypedTuple<>(member, (double) dueAt)));
+        return redisTemplate.opsForZSet().addAll(KEY, tuples)
+                .doOnSuccess(added -> {
+                    long horizon = System.currentTimeMillis() + config.getHorizon().toMillis();
+                    timers.forEach((member, dueAt) -> {
+                        if (dueAt <= horizon) {
+                            timerThread.schedule(() -> track(member, dueAt));
+                        }
+                    });
+                })
+                .onErrorResume(error -> {
+                    logger.error("Failed to schedule {} delivery timers: {}", timers.size(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    long activationTime(LocalDate deliveryDate) {
+        return deliveryDate.atStartOfDay(config.getZone()).toInstant().toEpochMilli();
+    }
+
+    // Pulls the timers due within the horizon; timers beyond the first batch follow once earlier ones fired
+    private Mono<Void> load() {
+        long horizon = System.currentTimeMillis() + config.getHorizon().toMillis();
+        return redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(KEY, Range.closed(0d, (double) horizon),
+                        Limit.limit().count(config.getLoadBatchSize()))
+                .collectList()
+                .publishOn(timerThread)
+                .doOnNext(loaded -> loaded.forEach(tuple -> {
+                    if (tuple.getValue() != null && tuple.getScore() != null) {
+                        track(tuple.getValue(), tuple.getScore().longValue());
+                    }
+                }))
+                .then();
+    }
+
+    // Runs on the timer thread
+    private void track(String member, long dueAt) {
+        if (wheel == null || !inWheel.add(member)) {
+            return;
+        }
+        if (!wheel.add(member, dueAt)) {
+            inWheel.remove(member);
+            fire(List.of(member));
+        }
+    }
+
+    // Runs on the timer thread
+    private void advance() {
+        List<String> due = new ArrayList<>();
+        // the wheel fires a whole tick at once; running it a tick behind keeps timers from firing early
+        wheel.advance(System.currentTimeMillis() - config.getTick().toMillis(), due::add);
+        if (!due.isEmpty()) {
+            due.forEach(inWheel::remove);
+            fire(due);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fire(List<String> due) {
+        long now = System.currentTimeMillis();
+        long leaseUntil = now + config.getRetryDelay().toMillis();
+        List<String> args = new ArrayList<>(due.size() + 2);
+        args.add(Long.toString(now));
+        args.add(Long.toString(leaseUntil));
+        args.addAll(due);
+        redisTemplate.execute(CLAIM, List.of(KEY), args)
+                .next()
+                .map(claimed -> (List<String>) claimed)
+                .flatMapMany(claimed -> Flux.fromIterable(byAction(claimed).entrySet()))
+                .flatMap(entry -> apply(entry.getKey(), entry.getValue(), leaseUntil))
+                .subscribe(
+                        v -> {},
+                        error -> logger.warn("Failed to claim {} delivery timers, retrying after the lease: {}",
+                                due.size(), error.getMessage()));
+    }
+
+    private Mono<Void> apply(Action action, List<String> deliveryIds, long leaseUntil) {
+        List<String> members = deliveryIds.stream().map(action::member).toList();
+        return deliveryService.applyTimedTransition(deliveryIds, action.from, action.to)
+                .doOnNext(moved -> {
+                    if (!moved.isEmpty()) {
+                        logger.info("Timer moved {} of {} deliveries from {} to {}",
+                                moved.size(), deliveryIds.size(), action.from, action.to);
+                    }
+                })
+                .then(redisTemplate.opsForZSet().remove(KEY, members.toArray()))
+                .then()
+                .onErrorResume(error -> {
+                    // the lease keeps them claimed until it lapses, then they fire again
+                    logger.warn("Timed {} of {} deliveries failed, retrying: {}",
+                            action, deliveryIds.size(), error.getMessage());
+                    timerThread.schedule(() -> members.forEach(member -> track(member, leaseUntil)));
+                    return Mono.empty();
+                });
+    }
+
+    private static Map<Action, List<String>> byAction(Collection<String> members) {
+        Map<Action, List<String>> grouped = new EnumMap<>(Action.class);
+        for (String member : members) {
+            int separator = member.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            try {
+                Action action = Action.valueOf(member.substring(0, separator));
+                grouped.computeIfAbsent(action, a -> new ArrayList<>()).add(member.substring(separator + 1));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring unknown delivery timer {}", member);
+            }
+        }
+        return grouped;
+    }
+}
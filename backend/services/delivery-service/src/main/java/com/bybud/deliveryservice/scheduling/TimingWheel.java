@@ -0,0 +1,100 @@
+package com.bybud.deliveryservice.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: O(1) insertion and expiry of timers regardless of how many are pending.
+ * Each level is a ring of {@code wheelSize} buckets of {@code tickMs}; timers beyond a level's span
+ * go to an overflow level with {@code wheelSize} times the tick, created on demand, and cascade
+ * down as the clock reaches them.
+ *
+ * <p>Not thread-safe; the owner serializes {@link #add} and {@link #advance}.</p>
+ */
+final class TimingWheel<T> {
+
+    private record Timer<T>(T item, long dueMs) {
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long spanMs;
+    private final List<List<Timer<T>>> buckets;
+    private long currentTimeMs;
+    private TimingWheel<T> overflow;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.spanMs = tickMs * wheelSize;
+        this.currentTimeMs = startMs - (startMs % tickMs);
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Adds a timer. Returns false without adding it when it is already due at the current tick.
+     */
+    boolean add(T item, long dueMs) {
+        return add(new Timer<>(item, dueMs));
+    }
+
+    private boolean add(Timer<T> timer) {
+        if (timer.dueMs() < currentTimeMs + tickMs) {
+            return false;
+        }
+        if (timer.dueMs() < currentTimeMs + spanMs) {
+            buckets.get((int) ((timer.dueMs() / tickMs) % wheelSize)).add(timer);
+        } else {
+            if (overflow == null) {
+                overflow = new TimingWheel<>(spanMs, wheelSize, currentTimeMs);
+            }
+            overflow.add(timer);
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the clock to {@code nowMs} and hands every timer in a tick the clock reached to
+     * {@code expired}, so a timer fires up to one tick before it is due.
+     */
+    void advance(long nowMs, Consumer<T> expired) {
+        List<Timer<T>> drained = new ArrayList<>();
+        advanceTo(nowMs, drained);
+        for (Timer<T> timer : drained) {
+            // timers from higher levels land in a finer bucket, or expire if their tick has passed
+            if (!add(timer)) {
+                expired.accept(timer.item());
+            }
+        }
+    }
+
+    private void advanceTo(long nowMs, List<Timer<T>> drained) {
+        while (currentTimeMs + tickMs <= nowMs) {
+            currentTimeMs += tickMs;
+            List<Timer<T>> bucket = buckets.get((int) ((currentTimeMs / tickMs) % wheelSize));
+            if (!bucket.isEmpty()) {
+                drained.addAll(bucket);
+                size -= bucket.size();
+                bucket.clear();
+            }
+        }
+        if (overflow != null) {
+            int before = drained.size();
+            overflow.advanceTo(nowMs, drained);
+            size -= drained.size() - before;
+        }
+    }
+
+    /**
+     * Number of pending timers across all levels.
+     */
+    int size() {
+        return size;
+    }
+}
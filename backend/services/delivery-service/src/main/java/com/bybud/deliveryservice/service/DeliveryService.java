@@ -1,89 +1,489 @@
 package com.bybud.deliveryservice.service;
 
 import com.bybud.common.exception.DeliveryNotFoundException;
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.cache.UserDisplay;
+import com.bybud.deliveryservice.cache.UserDisplayCache;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.dispatch.DeliveryDispatcher;
+import com.bybud.deliveryservice.events.DeliveryStatusEvent;
+import com.bybud.deliveryservice.location.CourierLocation;
+import com.bybud.deliveryservice.location.CourierLocationTracker;
+import com.bybud.deliveryservice.matching.DeliveryMatcher;
+import com.bybud.deliveryservice.scheduling.DeliveryTimers;
+import com.bybud.deliveryservice.summary.DeliverySummaryStore;
 import com.bybud.entity.mapper.DeliveryMapper;
 import com.bybud.entity.model.Delivery;
 import com.bybud.entity.model.DeliveryStatus;
-import com.bybud.entity.model.User;
+import com.bybud.entity.model.GeoLocation;
+import com.bybud.entity.repository.DeliveryCursor;
+import com.bybud.entity.repository.DeliveryFieldSet;
 import com.bybud.entity.repository.DeliveryRepository;
-import com.bybud.entity.repository.UserRepository;
+import com.bybud.entity.repository.DeliveryVersion;
+import com.bybud.entity.request.BulkStatusUpdateRequest;
+import com.bybud.entity.request.CourierLocationPing;
 import com.bybud.entity.request.CreateDeliveryRequest;
+import com.bybud.entity.response.BulkDeliveryItemResult;
+import com.bybud.entity.response.BulkDeliveryResponse;
+import com.bybud.entity.response.BulkStatusUpdateResponse;
+import com.bybud.entity.response.DeliveryPageResponse;
 import com.bybud.entity.response.DeliveryResponse;
+import com.bybud.entity.response.DeliverySummaryResponse;
 import com.bybud.kafka.handler.DeliveryEventHandler;
+import com.mongodb.MongoExecutionTimeoutException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
 @Service
 public class DeliveryService {
 
     private static final Logger logger = LoggerFactory.getLogger(DeliveryService.class);
 
+    // Listing order: created date desc, id desc, as served by the (created_date, _id) indexes
+    private static final Comparator<Delivery> PAGE_ORDER = Comparator
+            .comparing(Delivery::getCreatedDate, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Delivery::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    // Snapshot read before a bulk transition: enough to address and describe each status change
+    private static final DeliveryFieldSet TRANSITION_FIELDS = DeliveryFieldSet.parse("id,status,customerId,courierId");
+
     private final DeliveryRepository deliveryRepository;
     private final DeliveryMapper deliveryMapper;
     private final DeliveryEventHandler eventHandler;
-    private final UserRepository userRepository; // Injected to look up user details
+    private final UserDisplayCache userDisplayCache; // Injected to look up user details
+    private final DeliveryProperties deliveryProperties;
+    private final OpenDeliveryBoard openDeliveryBoard;
+    private final Validator validator;
+    private final DeliverySummaryStore summaryStore;
+    private final DeliveryTimers deliveryTimers;
+    private final DeliveryMatcher deliveryMatcher;
+    private final CourierLocationTracker courierLocationTracker;
+    private final DeliveryDispatcher deliveryDispatcher;
 
     public DeliveryService(
             DeliveryRepository deliveryRepository,
             DeliveryMapper deliveryMapper,
             @Lazy DeliveryEventHandler eventHandler,
-            UserRepository userRepository) {
+            UserDisplayCache userDisplayCache,
+            DeliveryProperties deliveryProperties,
+            OpenDeliveryBoard openDeliveryBoard,
+            Validator validator,
+            DeliverySummaryStore summaryStore,
+            DeliveryTimers deliveryTimers,
+            DeliveryMatcher deliveryMatcher,
+            CourierLocationTracker courierLocationTracker,
+            DeliveryDispatcher deliveryDispatcher) {
         this.deliveryRepository = deliveryRepository;
         this.deliveryMapper = deliveryMapper;
         this.eventHandler = eventHandler;
-        this.userRepository = userRepository;
+        this.userDisplayCache = userDisplayCache;
+        this.deliveryProperties = deliveryProperties;
+        this.openDeliveryBoard = openDeliveryBoard;
+        this.validator = validator;
+        this.summaryStore = summaryStore;
+        this.deliveryTimers = deliveryTimers;
+        this.deliveryMatcher = deliveryMatcher;
+        this.courierLocationTracker = courierLocationTracker;
+        this.deliveryDispatcher = deliveryDispatcher;
     }
 
     public Flux<DeliveryResponse> getAllDeliveries(String userId) {
-        return deliveryRepository.findAll()
-                .flatMap(this::enrichDeliveryResponse);
+        return getAllDeliveries(userId, DeliveryFieldSet.ALL);
+    }
+
+    public Flux<DeliveryResponse> getAllDeliveries(String userId, DeliveryFieldSet fields) {
+        return enrichDeliveryResponses(fields.isAll()
+                ? deliveryRepository.findAll()
+                : deliveryRepository.findProjected(null, fields), fields);
+    }
+
+    /**
+     * Deliveries still waiting for a courier, newest first, served from the in-memory board.
+     */
+    public Flux<DeliveryResponse> getOpenDeliveries() {
+        return getOpenDeliveries(DeliveryFieldSet.ALL);
+    }
+
+    public Flux<DeliveryResponse> getOpenDeliveries(DeliveryFieldSet fields) {
+        return enrichDeliveryResponses(Flux.fromIterable(openDeliveryBoard.getOpenDeliveries()), fields);
+    }
+
+    /**
+     * Open deliveries the courier was matched to in the latest matching round, nearest pickups
+     * first for each delivery. Deliveries taken since the round are left out.
+     */
+    public Flux<DeliveryResponse> getMatchedDeliveries(String courierId, DeliveryFieldSet fields) {
+        return enrichDeliveryResponses(Flux.fromIterable(deliveryMatcher.matchesFor(courierId))
+                .mapNotNull(openDeliveryBoard::get), fields);
+    }
+
+    /**
+     * Open deliveries the courier currently holds an offer for. An offer of a delivery that has not
+     * reached this instance's board yet shows up once it has.
+     */
+    public Flux<DeliveryResponse> getOfferedDeliveries(String courierId, DeliveryFieldSet fields) {
+        return enrichDeliveryResponses(deliveryDispatcher.offersFor(courierId)
+                .mapNotNull(openDeliveryBoard::get), fields);
+    }
+
+    /**
+     * Open deliveries with a pickup within {@code radiusMeters} of the location, nearest first.
+     */
+    public Flux<DeliveryResponse> getOpenDeliveriesNear(
+            GeoLocation location, Double radiusMeters, Integer limit, DeliveryFieldSet fields) {
+        DeliveryProperties.Matching matching = deliveryProperties.getMatching();
+        List<String> errors = validator.validate(location).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+        if (!errors.isEmpty()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(" ", errors)));
+        }
+        double radius = radiusMeters == null || radiusMeters <= 0
+                ? matching.getMaxDistanceMeters()
+                : Math.min(radiusMeters, matching.getMaxDistanceMeters());
+        int size = limit == null || limit <= 0 ? matching.getNearbyLimit() : Math.min(limit, matching.getNearbyLimit());
+        return enrichDeliveryResponses(
+                deliveryRepository.findOpenNear(location.toPoint(), radius, size, fields), fields);
+    }
+
+    /**
+     * Records a courier's current position, making it a candidate in the next matching rounds once
+     * consumed from the courier location topic.
+     */
+    public Mono<Void> updateCourierLocation(String courierId, GeoLocation location) {
+        return courierLocationTracker.publish(courierId, List.of(new CourierLocation(
+                courierId, location.getLatitude(), location.getLongitude(), System.currentTimeMillis())));
+    }
+
+    /**
+     * Accepts a batch of GPS fixes from a courier's device for the location pipeline. Nothing is
+     * written here; the fixes are published to the courier location topic and applied once consumed.
+     */
+    public Mono<Void> reportCourierLocations(String courierId, List<CourierLocationPing> pings) {
+        DeliveryProperties.Location config = deliveryProperties.getLocation();
+        if (pings == null || pings.isEmpty()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one location is required."));
+        }
+        if (pings.size() > config.getMaxPingsPerReport()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + config.getMaxPingsPerReport() + " locations can be reported at once."));
+        }
+        long now = System.currentTimeMillis();
+        long latestAllowed = now + config.getMaxClockSkew().toMillis();
+        List<CourierLocation> locations = new ArrayList<>(pings.size());
+        for (CourierLocationPing ping : pings) {
+            List<String> errors = ping == null ? List.of("Location is required.") : validator.validate(ping).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .toList();
+            if (!errors.isEmpty()) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(" ", errors)));
+            }
+            long recordedAt = ping.getRecordedAt() == null || ping.getRecordedAt() > latestAllowed
+                    ? now
+                    : ping.getRecordedAt();
+            locations.add(new CourierLocation(courierId, ping.getLatitude(), ping.getLongitude(), recordedAt));
+        }
+        return courierLocationTracker.publish(courierId, locations);
+    }
+
+    /**
+     * Takes a courier out of matching on every instance, once consumed from the courier location topic.
+     */
+    public Mono<Void> takeCourierOffline(String courierId) {
+        return courierLocationTracker.goOffline(courierId);
     }
 
     public Mono<DeliveryResponse> createDelivery(CreateDeliveryRequest request) {
-        return Mono.fromCallable(() -> deliveryMapper.toEntity(request))
+        return Mono.fromCallable(() -> toNewDelivery(request))
                 .flatMap(deliveryRepository::save)
                 .doOnNext(saved -> {
                     logger.info("Delivery created with ID: {}", saved.getId());
                     // Publish an event for delivery creation
-                    eventHandler.publishDeliveryCreated(
-                            new DeliveryEventHandler.DeliveryCreatedEvent(saved.getId(), saved.getCustomerId())
+                    eventHandler.publishDeliveryCreated(new DeliveryEventHandler.DeliveryCreatedEvent(
+                            saved.getId(), saved.getCustomerId(), nameOf(saved.getStatus()))
                     );
                 })
+                .flatMap(saved -> deliveryTimers.scheduleCreated(List.of(saved)).thenReturn(saved))
                 .flatMap(this::enrichDeliveryResponse);
     }
 
     public Flux<DeliveryResponse> getDeliveriesForCustomer(String customerId) {
-        return deliveryRepository.findByCustomerId(customerId)
-                .flatMap(this::enrichDeliveryResponse);
+        return getDeliveriesForCustomer(customerId, DeliveryFieldSet.ALL);
+    }
+
+    public Flux<DeliveryResponse> getDeliveriesForCustomer(String customerId, DeliveryFieldSet fields) {
+        return getDeliveriesForCustomer(customerId, fields, false);
+    }
+
+    /**
+     * A customer's deliveries; with {@code includeHistory} archived deliveries follow the live ones.
+     */
+    public Flux<DeliveryResponse> getDeliveriesForCustomer(String customerId, DeliveryFieldSet fields, boolean includeHistory) {
+        Criteria filter = Criteria.where("customerId").is(customerId);
+        Flux<Delivery> live = fields.isAll()
+                ? deliveryRepository.findByCustomerId(customerId)
+                : deliveryRepository.findProjected(filter, fields);
+        return enrichDeliveryResponses(withHistory(live, filter, fields, includeHistory), fields);
     }
 
     public Flux<DeliveryResponse> getDeliveriesForCourier(String courierId) {
-        return deliveryRepository.findByCourierId(courierId)
-                .flatMap(this::enrichDeliveryResponse);
+        return getDeliveriesForCourier(courierId, DeliveryFieldSet.ALL);
     }
 
-    public Mono<DeliveryResponse> acceptDelivery(String deliveryId, String courierId) {
+    public Flux<DeliveryResponse> getDeliveriesForCourier(String courierId, DeliveryFieldSet fields) {
+        return getDeliveriesForCourier(courierId, fields, false);
+    }
+
+    /**
+     * A courier's deliveries; with {@code includeHistory} archived deliveries follow the live ones.
+     */
+    public Flux<DeliveryResponse> getDeliveriesForCourier(String courierId, DeliveryFieldSet fields, boolean includeHistory) {
+        Criteria filter = Criteria.where("courierId").is(courierId);
+        Flux<Delivery> live = fields.isAll()
+                ? deliveryRepository.findByCourierId(courierId)
+                : deliveryRepository.findProjected(filter, fields);
+        return enrichDeliveryResponses(withHistory(live, filter, fields, includeHistory), fields);
+    }
+
+    /**
+     * The current status of one delivery, the first event of its status stream.
+     */
+    public Mono<DeliveryStatusEvent> getDeliveryStatus(String deliveryId) {
         return deliveryRepository.findById(deliveryId)
                 .switchIfEmpty(Mono.error(new DeliveryNotFoundException("Delivery not found with ID: " + deliveryId)))
-                .flatMap(delivery -> {
-                    if (delivery.getStatus() != DeliveryStatus.CREATED) {
-                        return Mono.error(new ResponseStatusException(
-                                HttpStatus.BAD_REQUEST, "Delivery cannot be accepted. Current status: " + delivery.getStatus()));
+                .map(DeliveryStatusEvent::of);
+    }
+
+    /**
+     * Entity tag for a customer's delivery list, derived from the version stamp alone so a cached
+     * copy can be revalidated without loading or enriching any delivery.
+     */
+    public Mono<String> getDeliveriesETagForCustomer(String customerId, DeliveryFieldSet fields, boolean includeHistory) {
+        return listETag(Criteria.where("customerId").is(customerId), fields, includeHistory);
+    }
+
+    /**
+     * Entity tag for a courier's delivery list, see {@link #getDeliveriesETagForCustomer}.
+     */
+    public Mono<String> getDeliveriesETagForCourier(String courierId, DeliveryFieldSet fields, boolean includeHistory) {
+        return listETag(Criteria.where("courierId").is(courierId), fields, includeHistory);
+    }
+
+    public Mono<DeliveryPageResponse> getAllDeliveriesPage(String cursor, Integer limit) {
+        return getAllDeliveriesPage(cursor, limit, DeliveryFieldSet.ALL);
+    }
+
+    public Mono<DeliveryPageResponse> getAllDeliveriesPage(String cursor, Integer limit, DeliveryFieldSet fields) {
+        return getDeliveriesPage(null, cursor, limit, fields, false);
+    }
+
+    public Mono<DeliveryPageResponse> getDeliveriesPageForCustomer(String customerId, String cursor, Integer limit) {
+        return getDeliveriesPageForCustomer(customerId, cursor, limit, DeliveryFieldSet.ALL);
+    }
+
+    public Mono<DeliveryPageResponse> getDeliveriesPageForCustomer(
+            String customerId, String cursor, Integer limit, DeliveryFieldSet fields) {
+        return getDeliveriesPageForCustomer(customerId, cursor, limit, fields, false);
+    }
+
+    public Mono<DeliveryPageResponse> getDeliveriesPageForCustomer(
+            String customerId, String cursor, Integer limit, DeliveryFieldSet fields, boolean includeHistory) {
+        return getDeliveriesPage(Criteria.where("customerId").is(customerId), cursor, limit, fields, includeHistory);
+    }
+
+    public Mono<DeliveryPageResponse> getDeliveriesPageForCourier(String courierId, String cursor, Integer limit) {
+        return getDeliveriesPageForCourier(courierId, cursor, limit, DeliveryFieldSet.ALL);
+    }
+
+    public Mono<DeliveryPageResponse> getDeliveriesPageForCourier(
+            String courierId, String cursor, Integer limit, DeliveryFieldSet fields) {
+        return getDeliveriesPageForCourier(courierId, cursor, limit, fields, false);
+    }
+
+    public Mono<DeliveryPageResponse> getDeliveriesPageForCourier(
+            String courierId, String cursor, Integer limit, DeliveryFieldSet fields, boolean includeHistory) {
+        return getDeliveriesPage(Criteria.where("courierId").is(courierId), cursor, limit, fields, includeHistory);
+    }
+
+    /**
+     * Searches deliveries for support staff, newest first and paged like the other listings.
+     * Text mode matches whole words in the addresses and details through the text index; prefix mode
+     * matches the start of the delivery or pickup address. Each query runs under the configured time
+     * budget and fails with 503 rather than holding the database once it is exceeded.
+     */
+    public Mono<DeliveryPageResponse> searchDeliveries(
+            String query, boolean prefix, String cursor, Integer limit, DeliveryFieldSet fields) {
+        DeliveryProperties.Search search = deliveryProperties.getSearch();
+        String terms = query == null ? "" : query.trim();
+        if (terms.isEmpty() || (prefix && terms.length() < search.getMinPrefixLength())) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, prefix
+                    ? "Prefix search needs at least " + search.getMinPrefixLength() + " characters"
+                    : "Search query must not be blank"));
+        }
+
+        return loadPage(cursor, limit, fields, (after, size) -> prefix
+                        ? deliveryRepository.searchAddressPrefix(terms, after, size, fields, search.getMaxTime())
+                        : deliveryRepository.searchText(terms, after, size, fields, search.getMaxTime()))
+                .onErrorMap(DeliveryService::isQueryTimeout, error -> new ResponseStatusException(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Search exceeded its time budget, narrow the query"));
+    }
+
+    /**
+     * Counts of a customer's deliveries per status, read from the materialized summary.
+     */
+    public Mono<DeliverySummaryResponse> getCustomerSummary(String customerId) {
+        return summaryStore.getSummary(DeliverySummaryStore.Owner.CUSTOMER, customerId)
+                .map(counts -> new DeliverySummaryResponse(customerId, counts));
+    }
+
+    /**
+     * Counts of a courier's deliveries per status, read from the materialized summary.
+     */
+    public Mono<DeliverySummaryResponse> getCourierSummary(String courierId) {
+        return summaryStore.getSummary(DeliverySummaryStore.Owner.COURIER, courierId)
+                .map(counts -> new DeliverySummaryResponse(courierId, counts));
+    }
+
+    /**
+     * Creates a batch of deliveries. Each request is validated on its own; invalid or forbidden
+     * items are reported back without failing the batch, and the valid ones are persisted with one
+     * insert, announced with one batched Kafka send and enriched with one user lookup.
+     *
+     * @param permitted decides whether the caller may create the given delivery
+     * @return one result per request, in request order
+     */
+    public Mono<BulkDeliveryResponse> createDeliveries(
+            List<CreateDeliveryRequest> requests, Predicate<CreateDeliveryRequest> permitted) {
+        int maxItems = deliveryProperties.getBulk().getMaxItems();
+        if (requests == null || requests.isEmpty()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one delivery is required."));
+        }
+        if (requests.size() > maxItems) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "A bulk request can contain at most " + maxItems + " deliveries."));
+        }
+
+        BulkDeliveryItemResult[] results = new BulkDeliveryItemResult[requests.size()];
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Delivery> toInsert = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateDeliveryRequest request = requests.get(i);
+            List<String> errors = validate(request);
+            if (errors.isEmpty() && !permitted.test(request)) {
+                errors = List.of("Cannot create deliveries for other customers");
+            }
+            if (errors.isEmpty()) {
+                acceptedIndexes.add(i);
+                toInsert.add(toNewDelivery(request));
+            } else {
+                results[i] = BulkDeliveryItemResult.rejected(i, errors);
+            }
+        }
+
+        if (toInsert.isEmpty()) {
+            return Mono.just(new BulkDeliveryResponse(List.of(results)));
+        }
+
+        return deliveryRepository.insert(toInsert)
+                .collectList()
+                .doOnNext(saved -> {
+                    logger.info("Bulk created {} deliveries, rejected {}", saved.size(), requests.size() - saved.size());
+                    eventHandler.publishDeliveriesCreated(new DeliveryEventHandler.DeliveriesCreatedEvent(
+                            saved.stream()
+                                    .map(d -> new DeliveryEventHandler.DeliveryCreatedEvent(
+                                            d.getId(), d.getCustomerId(), nameOf(d.getStatus())))
+                                    .toList()));
+                })
+                .flatMap(saved -> deliveryTimers.scheduleCreated(saved).thenReturn(saved))
+                .flatMap(saved -> enrichDeliveryResponses(Flux.fromIterable(saved)).collectList())
+                .map(responses -> {
+                    // insert preserves order, so responses line up with the accepted request positions
+                    for (int i = 0; i < responses.size(); i++) {
+                        int index = acceptedIndexes.get(i);
+                        results[index] = BulkDeliveryItemResult.created(index, responses.get(i));
                     }
-                    delivery.setCourierId(courierId);
-                    delivery.setStatus(DeliveryStatus.ASSIGNED);
-                    return deliveryRepository.save(delivery);
+                    return new BulkDeliveryResponse(List.of(results));
+                });
+    }
+
+    /**
+     * Accepts a delivery in one conditional update. A miss is followed by a lookup only to tell
+     * a missing delivery apart from one another courier already took.
+     */
+    public Mono<DeliveryResponse> acceptDelivery(String deliveryId, String courierId) {
+        return deliveryRepository.assignCourierIfCreated(deliveryId, courierId)
+                .switchIfEmpty(Mono.defer(() -> deliveryRepository.findById(deliveryId)
+                        .switchIfEmpty(Mono.error(new DeliveryNotFoundException("Delivery not found with ID: " + deliveryId)))
+                        .flatMap(current -> Mono.error(new ResponseStatusException(
+                                HttpStatus.CONFLICT, "Delivery cannot be accepted. Current status: " + current.getStatus())))))
+                .doOnNext(this::accept)
+                .flatMap(this::enrichDeliveryResponse);
+    }
+
+    /**
+     * Accepts a delivery the courier holds an offer for. Couriers without a live offer, or beaten to
+     * it by another courier of the wave, are turned away by Redis alone; only the winner writes the
+     * assignment. When that write fails the delivery goes back to the dispatcher.
+     */
+    public Mono<DeliveryResponse> acceptOffer(String deliveryId, String courierId) {
+        return deliveryDispatcher.accept(deliveryId, courierId)
+                .flatMap(won -> {
+                    if (!won) {
+                        return Mono.<Delivery>error(new ResponseStatusException(
+                                HttpStatus.CONFLICT, "The offer expired or the delivery was taken."));
+                    }
+                    return deliveryRepository.assignCourierIfCreated(deliveryId, courierId)
+                            .switchIfEmpty(Mono.error(new ResponseStatusException(
+                                    HttpStatus.CONFLICT, "Delivery is no longer open.")))
+                            .onErrorResume(error -> deliveryDispatcher.release(deliveryId)
+                                    .onErrorResume(releaseError -> {
+                                        logger.warn("Failed to release offer of delivery {}: {}",
+                                                deliveryId, releaseError.getMessage());
+                                        return Mono.empty();
+                                    })
+                                    .then(Mono.<Delivery>error(error)));
                 })
                 .doOnNext(this::accept)
                 .flatMap(this::enrichDeliveryResponse);
     }
 
+    /**
+     * Gives up the courier's offer of a delivery so the next couriers get it sooner.
+     */
+    public Mono<Void> declineOffer(String deliveryId, String courierId) {
+        return deliveryDispatcher.decline(deliveryId, courierId)
+                .flatMap(declined -> declined
+                        ? Mono.<Void>empty()
+                        : Mono.error(new ResponseStatusException(
+                                HttpStatus.NOT_FOUND, "No offer of this delivery for the courier.")));
+    }
+
     public Mono<DeliveryResponse> updateDeliveryStatus(String deliveryId, DeliveryStatus status, String userId) {
         if (userId == null) {
             return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
@@ -92,43 +492,304 @@ public class DeliveryService {
         return deliveryRepository.findById(deliveryId)
                 .switchIfEmpty(Mono.error(new DeliveryNotFoundException("Delivery not found with ID: " + deliveryId)))
                 .flatMap(delivery -> {
+                    DeliveryStatus previousStatus = delivery.getStatus();
                     delivery.setStatus(status);
-                    return deliveryRepository.save(delivery);
-                })
-                .doOnNext(updated -> {
-                    logger.info("Delivery {} status updated to {}", updated.getId(), updated.getStatus());
-                    eventHandler.publishDeliveryStatusUpdated(
-                            new DeliveryEventHandler.DeliveryStatusUpdatedEvent(updated.getId(), updated.getStatus().name())
-                    );
+                    return deliveryRepository.save(delivery)
+                            .doOnNext(updated -> {
+                                logger.info("Delivery {} status updated to {}", updated.getId(), updated.getStatus());
+                                eventHandler.publishDeliveryStatusUpdated(new DeliveryEventHandler.DeliveryStatusUpdatedEvent(
+                                        updated.getId(), updated.getStatus().name(), nameOf(previousStatus),
+                                        updated.getCustomerId(), updated.getCourierId(), updated.getCourierId()));
+                            });
                 })
                 .flatMap(this::enrichDeliveryResponse);
     }
 
+    private List<String> validate(CreateDeliveryRequest request) {
+        if (request == null) {
+            return List.of("Delivery is required.");
+        }
+        return validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Moves the targeted deliveries to the requested status with one updateMany that only matches
+     * allowed source states, then announces the deliveries that actually moved as one keyed event batch.
+     * Targets are either the listed IDs or all deliveries matching the filter fields, capped at the bulk limit.
+     */
+    public Mono<BulkStatusUpdateResponse> updateDeliveryStatuses(BulkStatusUpdateRequest request) {
+        DeliveryStatus target = request.getStatus();
+        if (target == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Target status is required."));
+        }
+        Set<DeliveryStatus> sources = EnumSet.noneOf(DeliveryStatus.class);
+        sources.addAll(target.allowedSourceStates());
+        if (sources.isEmpty()) {
+            return Mono.error(new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "Deliveries cannot be moved to status " + target));
+        }
+
+        int maxItems = deliveryProperties.getBulk().getMaxItems();
+        List<String> requestedIds = request.getDeliveryIds() == null ? List.of() : request.getDeliveryIds().stream()
+                .filter(id -> id != null && !id.isBlank())
+                .distinct()
+                .toList();
+
+        Criteria filter;
+        if (!requestedIds.isEmpty()) {
+            if (requestedIds.size() > maxItems) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "A bulk request can contain at most " + maxItems + " deliveries."));
+            }
+            filter = Criteria.where("id").in(requestedIds);
+        } else {
+            if (request.getCustomerId() == null && request.getCourierId() == null && request.getCurrentStatus() == null) {
+                return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Either delivery IDs or a filter is required."));
+            }
+            filter = null;
+            if (request.getCustomerId() != null) {
+                filter = Criteria.where("customerId").is(request.getCustomerId());
+            }
+            if (request.getCourierId() != null) {
+                filter = filter == null
+                        ? Criteria.where("courierId").is(request.getCourierId())
+                        : filter.and("courierId").is(request.getCourierId());
+            }
+        }
+        if (request.getCurrentStatus() != null) {
+            sources.retainAll(Set.of(request.getCurrentStatus()));
+        }
+        if (sources.isEmpty()) {
+            return Mono.just(new BulkStatusUpdateResponse(target, List.of(), requestedIds));
+        }
+
+        Criteria candidatesFilter = filter == null
+                ? Criteria.where("status").in(sources)
+                : filter.and("status").in(sources);
+        return deliveryRepository.findProjected(candidatesFilter, TRANSITION_FIELDS, maxItems + 1)
+                .collectList()
+                .flatMap(snapshots -> {
+                    if (snapshots.size() > maxItems) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                "Filter matches more than " + maxItems + " deliveries; narrow it down."));
+                    }
+                    List<String> candidates = snapshots.stream().map(Delivery::getId).toList();
+                    List<String> targeted = requestedIds.isEmpty() ? candidates : requestedIds;
+                    if (candidates.isEmpty()) {
+                        return Mono.just(new BulkStatusUpdateResponse(target, List.of(), targeted));
+                    }
+                    return transition(snapshots, sources, target)
+                            .map(updatedIds -> {
+                                logger.info("Bulk moved {} of {} targeted deliveries to {}",
+                                        updatedIds.size(), targeted.size(), target);
+                                Set<String> updated = new HashSet<>(updatedIds);
+                                List<String> skipped = targeted.stream().filter(id -> !updated.contains(id)).toList();
+                                return new BulkStatusUpdateResponse(target, updatedIds, skipped);
+                            });
+                });
+    }
+
+    /**
+     * Applies a timer-driven transition to the given deliveries that are still in {@code from},
+     * announcing the ones that moved like any other status change.
+     *
+     * @return the IDs of the deliveries that moved
+     */
+    public Mono<List<String>> applyTimedTransition(Collection<String> deliveryIds, DeliveryStatus from, DeliveryStatus to) {
+        return deliveryRepository.findProjected(Criteria.where("id").in(deliveryIds).and("status").is(from),
+                        TRANSITION_FIELDS, deliveryIds.size())
+                .collectList()
+                .flatMap(snapshots -> snapshots.isEmpty()
+                        ? Mono.just(List.<String>of())
+                        : transition(snapshots, EnumSet.of(from), to));
+    }
+
+    /**
+     * Moves the snapshotted deliveries still in one of {@code sources} to {@code target} with one
+     * updateMany and publishes one event batch for those that actually moved.
+     *
+     * @return the IDs of the deliveries that moved
+     */
+    private Mono<List<String>> transition(List<Delivery> snapshots, Set<DeliveryStatus> sources, DeliveryStatus target) {
+        List<String> candidates = snapshots.stream().map(Delivery::getId).toList();
+        // Mongo keeps millisecond precision; the stamp identifies the documents this call changed
+        LocalDateTime stamp = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return deliveryRepository.transitionStatus(candidates, sources, target, stamp)
+                .thenMany(deliveryRepository.findIds(Criteria.where("id").in(candidates)
+                        .and("status").is(target).and("updatedDate").is(stamp), candidates.size()))
+                .collectList()
+                .doOnNext(updatedIds -> {
+                    Set<String> updated = new HashSet<>(updatedIds);
+                    eventHandler.publishDeliveryStatusesUpdated(
+                            new DeliveryEventHandler.DeliveryStatusesUpdatedEvent(snapshots.stream()
+                                    .filter(snapshot -> updated.contains(snapshot.getId()))
+                                    .map(snapshot -> new DeliveryEventHandler.DeliveryStatusUpdatedEvent(
+                                            snapshot.getId(), target.name(), nameOf(snapshot.getStatus()),
+                                            snapshot.getCustomerId(), snapshot.getCourierId(), snapshot.getCourierId()))
+                                    .toList()));
+                });
+    }
+
+    /**
+     * Loads one keyset page. With {@code includeHistory} the live and archive pages are merged in
+     * page order, so one cursor walks both collections.
+     */
+    private Mono<DeliveryPageResponse> getDeliveriesPage(
+            Criteria filter, String cursor, Integer limit, DeliveryFieldSet fields, boolean includeHistory) {
+        return loadPage(cursor, limit, fields, (after, size) -> includeHistory
+                // a delivery caught mid-archive can briefly be in both collections
+                ? Flux.mergeComparing(PAGE_ORDER,
+                                deliveryRepository.findPage(filter, after, size, fields),
+                                deliveryRepository.findArchivedPage(filter, after, size, fields))
+                        .distinct(Delivery::getId)
+                        .take(size)
+                : deliveryRepository.findPage(filter, after, size, fields));
+    }
+
+    /**
+     * Decodes the cursor and loads one page through {@code loader}. One extra delivery is fetched to
+     * learn whether a next page exists, so the last page never returns a cursor pointing at nothing.
+     */
+    private Mono<DeliveryPageResponse> loadPage(
+            String cursor, Integer limit, DeliveryFieldSet fields, BiFunction<DeliveryCursor, Integer, Flux<Delivery>> loader) {
+        DeliveryCursor after;
+        try {
+            after = (cursor == null || cursor.isBlank()) ? null : DeliveryCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor"));
+        }
+        int pageSize = resolvePageSize(limit);
+
+        return loader.apply(after, pageSize + 1)
+                .collectList()
+                .flatMap(deliveries -> {
+                    boolean hasMore = deliveries.size() > pageSize;
+                    List<Delivery> page = hasMore ? deliveries.subList(0, pageSize) : deliveries;
+                    String nextCursor = null;
+                    if (hasMore) {
+                        Delivery last = page.get(page.size() - 1);
+                        nextCursor = new DeliveryCursor(last.getCreatedDate(), last.getId()).encode();
+                    }
+                    String finalNextCursor = nextCursor;
+                    return enrichDeliveryResponses(Flux.fromIterable(page), fields)
+                            .collectList()
+                            .map(items -> new DeliveryPageResponse(items, finalNextCursor));
+                });
+    }
+
+    // Weak: display names resolved during enrichment are not part of the stamp
+    private Mono<String> listETag(Criteria filter, DeliveryFieldSet fields, boolean includeHistory) {
+        Mono<DeliveryVersion> version = includeHistory
+                ? deliveryRepository.findVersion(filter).zipWith(deliveryRepository.findArchivedVersion(filter), DeliveryVersion::plus)
+                : deliveryRepository.findVersion(filter);
+        String variant = Integer.toHexString(Objects.hash(fields.toString(), includeHistory));
+        return version.map(v -> "W/\"" + v.token() + "-" + variant + "\"");
+    }
+
+    private Flux<Delivery> withHistory(Flux<Delivery> live, Criteria filter, DeliveryFieldSet fields, boolean includeHistory) {
+        if (!includeHistory) {
+            return live;
+        }
+        return Flux.concat(live, deliveryRepository.findArchivedProjected(filter, fields))
+                .distinct(Delivery::getId);
+    }
+
+    private static boolean isQueryTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoExecutionTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int resolvePageSize(Integer limit) {
+        DeliveryProperties.Pagination pagination = deliveryProperties.getPagination();
+        if (limit == null || limit <= 0) {
+            return pagination.getDefaultPageSize();
+        }
+        return Math.min(limit, pagination.getMaxPageSize());
+    }
+
     private void accept(Delivery updated) {
         logger.info("Delivery {} status updated to {}", updated.getId(), updated.getStatus());
-        eventHandler.publishDeliveryStatusUpdated(
-                new DeliveryEventHandler.DeliveryStatusUpdatedEvent(updated.getId(), updated.getStatus().name())
-        );
+        // Only CREATED deliveries without a courier can be accepted
+        eventHandler.publishDeliveryStatusUpdated(new DeliveryEventHandler.DeliveryStatusUpdatedEvent(
+                updated.getId(), updated.getStatus().name(), DeliveryStatus.CREATED.name(),
+                updated.getCustomerId(), updated.getCourierId(), null));
     }
 
     /**
-     * Enriches a DeliveryResponse by looking up the customer's full name and courier's username
-     * using the userRepository.
+     * Maps a creation request to a new delivery. One dated after today in the configured zone
+     * waits as PENDING until its date; anything else is open for couriers right away.
+     */
+    private Delivery toNewDelivery(CreateDeliveryRequest request) {
+        Delivery delivery = deliveryMapper.toEntity(request);
+        LocalDate deliveryDate = delivery.getDeliveryDate();
+        if (deliveryDate != null && deliveryDate.isAfter(LocalDate.now(deliveryProperties.getTimers().getZone()))) {
+            delivery.setStatus(DeliveryStatus.PENDING);
+        }
+        return delivery;
+    }
+
+    private static String nameOf(DeliveryStatus status) {
+        return status != null ? status.name() : null;
+    }
+
+    /**
+     * Enriches a single DeliveryResponse with the customer's full name and courier's username.
      */
     private Mono<DeliveryResponse> enrichDeliveryResponse(Delivery delivery) {
-        Mono<User> customerMono = userRepository.findById(delivery.getCustomerId());
-        Mono<User> courierMono = (delivery.getCourierId() != null)
-                ? userRepository.findById(delivery.getCourierId())
-                : Mono.empty();
-
-        return Mono.zip(customerMono.defaultIfEmpty(new User()), courierMono.defaultIfEmpty(new User()))
-                .map(tuple -> {
-                    User customer = tuple.getT1();
-                    User courier = tuple.getT2();
-                    DeliveryResponse response = deliveryMapper.toResponse(delivery);
-                    response.setCustomerName(customer.getFullName());
-                    response.setCourierUsername(courier.getUsername());
-                    return response;
-                });
+        return enrichDeliveryBatch(List.of(delivery)).single();
+    }
+
+    private Flux<DeliveryResponse> enrichDeliveryResponses(Flux<Delivery> deliveries) {
+        return enrichDeliveryResponses(deliveries, DeliveryFieldSet.ALL);
+    }
+
+    /**
+     * Enriches a stream of deliveries window by window. The distinct customer and courier ids of each
+     * window are resolved together through the user display cache, so a listing costs at most one user
+     * query per window instead of two per delivery. Order of the source stream is preserved, and only
+     * one window is prefetched so streaming callers keep memory flat and backpressure reaches the cursor.
+     * Fields outside {@code fields} are cleared, and the user lookup is skipped when no name is requested.
+     */
+    private Flux<DeliveryResponse> enrichDeliveryResponses(Flux<Delivery> deliveries, DeliveryFieldSet fields) {
+        if (!fields.needsUserLookup()) {
+            return deliveries.map(delivery -> fields.mask(deliveryMapper.toResponse(delivery)));
+        }
+        return deliveries
+                .buffer(Math.max(1, deliveryProperties.getEnrichment().getBatchSize()))
+                .concatMap(this::enrichDeliveryBatch, 1)
+                .map(fields::mask);
+    }
+
+    private Flux<DeliveryResponse> enrichDeliveryBatch(List<Delivery> batch) {
+        Set<String> userIds = new HashSet<>();
+        for (Delivery delivery : batch) {
+            if (delivery.getCustomerId() != null) {
+                userIds.add(delivery.getCustomerId());
+            }
+            if (delivery.getCourierId() != null) {
+                userIds.add(delivery.getCourierId());
+            }
+        }
+
+        return userDisplayCache.getAll(userIds)
+                .flatMapMany(users -> Flux.fromIterable(batch)
+                        .map(delivery -> toEnrichedResponse(delivery, users)));
+    }
+
+    private DeliveryResponse toEnrichedResponse(Delivery delivery, Map<String, UserDisplay> users) {
+        DeliveryResponse response = deliveryMapper.toResponse(delivery);
+        UserDisplay customer = delivery.getCustomerId() != null ? users.get(delivery.getCustomerId()) : null;
+        UserDisplay courier = delivery.getCourierId() != null ? users.get(delivery.getCourierId()) : null;
+        response.setCustomerName(customer != null ? customer.fullName() : null);
+        response.setCourierUsername(courier != null ? courier.username() : null);
+        return response;
     }
 }
@@ -0,0 +1,274 @@
+package com.bybud.deliveryservice.summary;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryRepositoryCustom;
+import com.bybud.kafka.handler.DeliveryEventHandler;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Materialized delivery counts per status for each customer and courier, kept in one Redis hash
+ * per owner so a dashboard costs a single HGETALL.
+ *
+ * <p>Hashes are updated incrementally from the local {@link DeliveryEventHandler} events of the
+ * instance that made the change. Increments only apply to hashes that already exist; a missing
+ * hash is rebuilt from Mongo with one grouped count on the next read. Hashes expire after the
+ * configured TTL so drift from a lost event is bounded.</p>
+ */
+@Component
+public class DeliverySummaryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliverySummaryStore.class);
+
+    private static final Set<String> STATUS_NAMES = Arrays.stream(DeliveryStatus.values())
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    // ARGV holds field/delta pairs; nothing is written when the hash has not been materialized yet
+    private static final RedisScript<Long> INCREMENT_IF_PRESENT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            for i = 1, #ARGV, 2 do
+                redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Whose deliveries a summary counts, with the delivery property identifying the owner.
+     */
+    public enum Owner {
+        CUSTOMER("customerId", "delivery:summary:customer:"),
+        COURIER("courierId", "delivery:summary:courier:");
+
+        private final String property;
+        private final String keyPrefix;
+
+        Owner(String property, String keyPrefix) {
+            this.property = property;
+            this.keyPrefix = keyPrefix;
+        }
+
+        String key(String ownerId) {
+            return keyPrefix + ownerId;
+        }
+    }
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Duration ttl;
+
+    public DeliverySummaryStore(
+            ReactiveRedisTemplate<String, String> redisTemplate,
+            ReactiveMongoTemplate mongoTemplate,
+            DeliveryProperties deliveryProperties) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = deliveryProperties.getSummary().getTtl();
+    }
+
+    /**
+     * Returns the counts per status for one owner, every status present. Falls back to counting in
+     * Mongo when Redis is unavailable.
+     */
+    public Mono<Map<DeliveryStatus, Long>> getSummary(Owner owner, String ownerId) {
+        String key = owner.key(ownerId);
+        return redisTemplate.<String, String>opsForHash().entries(key)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(hash -> hash.isEmpty() ? rebuild(owner, ownerId) : Mono.just(fromHash(hash)))
+                .onErrorResume(error -> {
+                    logger.warn("Delivery summary unavailable in Redis for {}, counting in Mongo: {}",
+                            key, error.getMessage());
+                    return count(owner, ownerId);
+                });
+    }
+
+    @EventListener
+    public void onDeliveryCreated(DeliveryEventHandler.DeliveryCreatedEvent event) {
+        apply(createdDeltas(List.of(event)));
+    }
+
+    @EventListener
+    public void onDeliveriesCreated(DeliveryEventHandler.DeliveriesCreatedEvent event) {
+        apply(createdDeltas(event.deliveries()));
+    }
+
+    @EventListener
+    public void onDeliveryStatusUpdated(DeliveryEventHandler.DeliveryStatusUpdatedEvent event) {
+        apply(statusDeltas(List.of(event)));
+    }
+
+    @EventListener
+    public void onDeliveryStatusesUpdated(DeliveryEventHandler.DeliveryStatusesUpdatedEvent event) {
+        apply(statusDeltas(event.updates()));
+    }
+
+    /**
+     * Per-key count changes for newly created deliveries, counted under their initial status.
+     */
+    static Map<String, Map<String, Long>> createdDeltas(List<DeliveryEventHandler.DeliveryCreatedEvent> events) {
+        Map<String, Map<String, Long>> deltas = new LinkedHashMap<>();
+        for (DeliveryEventHandler.DeliveryCreatedEvent event : events) {
+            if (event.customerId() != null) {
+                String status = event.status() != null ? event.status() : DeliveryStatus.CREATED.name();
+                add(deltas, Owner.CUSTOMER.key(event.customerId()), status, 1);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Per-key count changes for status updates: the previous status is decremented on the previous
+     * owners' hashes and the new status incremented on the current owners'. Updates without a previous
+     * status cannot be applied incrementally; their owners' hashes are marked for rebuild with a null entry.
+     */
+    static Map<String, Map<String, Long>> statusDeltas(List<DeliveryEventHandler.DeliveryStatusUpdatedEvent> events) {
+        Map<String, Map<String, Long>> deltas = new LinkedHashMap<>();
+        for (DeliveryEventHandler.DeliveryStatusUpdatedEvent event : events) {
+            if (event.previousStatus() == null) {
+                if (event.customerId() != null) {
+                    deltas.put(Owner.CUSTOMER.key(event.customerId()), null);
+                }
+                if (event.courierId() != null) {
+                    deltas.put(Owner.COURIER.key(event.courierId()), null);
+                }
+                continue;
+            }
+            if (event.previousStatus().equals(event.newStatus())
+                    && (event.courierId() == null || event.courierId().equals(event.previousCourierId()))) {
+                continue;
+            }
+            if (event.customerId() != null) {
+                String key = Owner.CUSTOMER.key(event.customerId());
+                add(deltas, key, event.previousStatus(), -1);
+                add(deltas, key, event.newStatus(), 1);
+            }
+            if (event.previousCourierId() != null) {
+                add(deltas, Owner.COURIER.key(event.previousCourierId()), event.previousStatus(), -1);
+            }
+            if (event.courierId() != null) {
+                add(deltas, Owner.COURIER.key(event.courierId()), event.newStatus(), 1);
+            }
+        }
+        return deltas;
+    }
+
+    private static void add(Map<String, Map<String, Long>> deltas, String key, String status, long delta) {
+        if (deltas.containsKey(key) && deltas.get(key) == null) {
+            return; // already marked for rebuild
+        }
+        Map<String, Long> fields = deltas.computeIfAbsent(key, k -> new LinkedHashMap<>());
+        fields.merge(status, delta, Long::sum);
+    }
+
+    private void apply(Map<String, Map<String, Long>> deltas) {
+        Flux.fromIterable(deltas.entrySet())
+                .concatMap(entry -> entry.getValue() == null
+                        ? redisTemplate.delete(entry.getKey()).then()
+                        : increment(entry.getKey(), entry.getValue()))
+                .subscribe(
+                        v -> {},
+                        error -> logger.error("Failed to update delivery summaries: {}", error.getMessage()));
+    }
+
+    private Mono<Void> increment(String key, Map<String, Long> fields) {
+        List<String> args = new ArrayList<>();
+        fields.forEach((status, delta) -> {
+            if (delta != 0) {
+                args.add(status);
+                args.add(Long.toString(delta));
+            }
+        });
+        if (args.isEmpty()) {
+            return Mono.empty();
+        }
+        return redisTemplate.execute(INCREMENT_IF_PRESENT, List.of(key), args).then();
+    }
+
+    private Mono<Map<DeliveryStatus, Long>> rebuild(Owner owner, String ownerId) {
+        String key = owner.key(ownerId);
+        return count(owner, ownerId)
+                .flatMap(counts -> redisTemplate.<String, String>opsForHash().putAll(key, toHash(counts))
+                        .then(redisTemplate.expire(key, ttl))
+                        .doOnSuccess(v -> logger.debug("Rebuilt delivery summary {}", key))
+                        .thenReturn(counts));
+    }
+
+    /**
+     * Counts an owner's deliveries per status with one grouped aggregation per collection, live and
+     * archive, each served by the owner/status compound index.
+     */
+    Mono<Map<DeliveryStatus, Long>> count(Owner owner, String ownerId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(owner.property).is(ownerId)),
+                Aggregation.group("status").count().as("count"));
+
+        return Flux.concat(
+                        mongoTemplate.aggregate(aggregation, Delivery.class, Document.class),
+                        mongoTemplate.aggregate(aggregation, DeliveryRepositoryCustom.ARCHIVE_COLLECTION, Document.class))
+                .collectList()
+                .map(groups -> {
+                    Map<DeliveryStatus, Long> counts = emptyCounts();
+                    for (Document group : groups) {
+                        Object status = group.get("_id");
+                        if (status != null && isKnownStatus(status.toString())) {
+                            counts.merge(DeliveryStatus.valueOf(status.toString()),
+                                    ((Number) group.get("count")).longValue(), Long::sum);
+                        }
+                    }
+                    return counts;
+                });
+    }
+
+    private static Map<DeliveryStatus, Long> fromHash(Map<String, String> hash) {
+        Map<DeliveryStatus, Long> counts = emptyCounts();
+        hash.forEach((field, value) -> {
+            if (isKnownStatus(field)) {
+                counts.put(DeliveryStatus.valueOf(field), Math.max(0, Long.parseLong(value)));
+            }
+        });
+        return counts;
+    }
+
+    private static Map<String, String> toHash(Map<DeliveryStatus, Long> counts) {
+        Map<String, String> hash = new HashMap<>();
+        counts.forEach((status, count) -> hash.put(status.name(), Long.toString(count)));
+        return hash;
+    }
+
+    private static Map<DeliveryStatus, Long> emptyCounts() {
+        Map<DeliveryStatus, Long> counts = new EnumMap<>(DeliveryStatus.class);
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            counts.put(status, 0L);
+        }
+        return counts;
+    }
+
+    private static boolean isKnownStatus(String name) {
+        return STATUS_NAMES.contains(name);
+    }
+}
@@ -0,0 +1,82 @@
+package com.bybud.deliveryservice.archive;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.repository.DeliveryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeliveryArchiverTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private DeliveryRepository deliveryRepository;
+    private DeliveryArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        deliveryRepository = mock(DeliveryRepository.class);
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getArchive().setBatchSize(2);
+        archiver = new DeliveryArchiver(deliveryRepository, mock(ReactiveMongoTemplate.class), properties);
+    }
+
+    @Test
+    void archivesBatchesUntilAShortBatch() {
+        when(deliveryRepository.findArchivable(eq(DeliveryArchiver.TERMINAL_STATUSES), eq(CUTOFF), eq(2)))
+                .thenReturn(Flux.just(delivery("d1"), delivery("d2")))
+                .thenReturn(Flux.just(delivery("d3")));
+        when(deliveryRepository.archive(anyList(), eq(DeliveryArchiver.TERMINAL_STATUSES), eq(CUTOFF)))
+                .thenAnswer(invocation -> Mono.just((long) invocation.<List<?>>getArgument(0).size()));
+
+        StepVerifier.create(archiver.archiveBefore(CUTOFF))
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(deliveryRepository, times(2)).archive(anyList(), eq(DeliveryArchiver.TERMINAL_STATUSES), eq(CUTOFF));
+    }
+
+    @Test
+    void stopsWhenNothingIsEligible() {
+        when(deliveryRepository.findArchivable(any(), any(), eq(2))).thenReturn(Flux.empty());
+        when(deliveryRepository.archive(List.of(), DeliveryArchiver.TERMINAL_STATUSES, CUTOFF)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(archiver.archiveBefore(CUTOFF))
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void stopsWhenAFullBatchMovesNothing() {
+        when(deliveryRepository.findArchivable(any(), any(), eq(2)))
+                .thenReturn(Flux.just(delivery("d1"), delivery("d2")));
+        when(deliveryRepository.archive(anyList(), eq(DeliveryArchiver.TERMINAL_STATUSES), eq(CUTOFF))).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(archiver.archiveBefore(CUTOFF))
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(deliveryRepository, times(1)).archive(anyList(), eq(DeliveryArchiver.TERMINAL_STATUSES), eq(CUTOFF));
+    }
+
+    private static Delivery delivery(String id) {
+        Delivery delivery = new Delivery();
+        delivery.setId(id);
+        return delivery;
+    }
+}
@@ -0,0 +1,94 @@
+package com.bybud.deliveryservice.cache;
+
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryRepository;
+import com.bybud.kafka.consumer.DeliveryEventConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class OpenDeliveryBoardTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Mock
+    private DeliveryRepository deliveryRepository;
+
+    private OpenDeliveryBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        board = new OpenDeliveryBoard(deliveryRepository, new SimpleMeterRegistry());
+    }
+
+    private static Delivery delivery(String id, DeliveryStatus status, LocalDateTime created, LocalDateTime updated) {
+        Delivery delivery = new Delivery();
+        delivery.setId(id);
+        delivery.setStatus(status);
+        delivery.setCreatedDate(created);
+        delivery.setUpdatedDate(updated);
+        return delivery;
+    }
+
+    private List<String> openIds() {
+        return board.getOpenDeliveries().stream().map(Delivery::getId).toList();
+    }
+
+    // Seeding loads CREATED deliveries and the board lists them newest first
+    @Test
+    public void testSeed_OrdersNewestFirst() {
+        when(deliveryRepository.findByStatus(DeliveryStatus.CREATED)).thenReturn(Flux.just(
+                delivery("older", DeliveryStatus.CREATED, T0, T0),
+                delivery("newer", DeliveryStatus.CREATED, T0.plusMinutes(5), T0.plusMinutes(5))));
+
+        board.seed();
+
+        assertEquals(List.of("newer", "older"), openIds());
+    }
+
+    // An accepted delivery leaves the board
+    @Test
+    public void testStatusChange_RemovesDelivery() {
+        board.onDeliveryChanged(new DeliveryEventConsumer.DeliveryChangedEvent(
+                delivery("d1", DeliveryStatus.CREATED, T0, T0)));
+        board.onDeliveryChanged(new DeliveryEventConsumer.DeliveryChangedEvent(
+                delivery("d1", DeliveryStatus.ASSIGNED, T0, T0.plusSeconds(30))));
+
+        assertTrue(openIds().isEmpty());
+    }
+
+    // A late created snapshot cannot resurrect a delivery that was already accepted
+    @Test
+    public void testOutOfOrderCreated_IsIgnored() {
+        board.apply(delivery("d1", DeliveryStatus.ASSIGNED, T0, T0.plusSeconds(30)));
+        board.apply(delivery("d1", DeliveryStatus.CREATED, T0, T0));
+
+        assertEquals(0, board.size());
+    }
+
+    // A newer CREATED snapshot replaces the older one
+    @Test
+    public void testNewerSnapshot_Replaces() {
+        Delivery first = delivery("d1", DeliveryStatus.CREATED, T0, T0);
+        Delivery edited = delivery("d1", DeliveryStatus.CREATED, T0, T0.plusMinutes(1));
+        edited.setDeliveryDetails("edited");
+
+        board.apply(first);
+        board.apply(edited);
+        board.apply(first);
+
+        assertEquals("edited", board.getOpenDeliveries().get(0).getDeliveryDetails());
+    }
+}
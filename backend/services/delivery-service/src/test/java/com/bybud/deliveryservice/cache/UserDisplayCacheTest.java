@@ -0,0 +1,124 @@
+package com.bybud.deliveryservice.cache;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.User;
+import com.bybud.kafka.consumer.UserEventConsumer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UserDisplayCacheTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDisplayCache userDisplayCache;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        userDisplayCache = new UserDisplayCache(mongoTemplate, new DeliveryProperties(), meterRegistry);
+    }
+
+    private static User user(String id, String username, String fullName) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setFullName(fullName);
+        return user;
+    }
+
+    // Repeated lookups are served from memory and counted as hits
+    @Test
+    public void testGetAll_CachesLoadedUsers() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(Flux.just(user("courier1", "courier-one", "Courier One")));
+
+        StepVerifier.create(userDisplayCache.getAll(Set.of("courier1")))
+                .assertNext(users -> {
+                    assert users.get("courier1").username().equals("courier-one");
+                })
+                .verifyComplete();
+        StepVerifier.create(userDisplayCache.getAll(Set.of("courier1")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+        assert meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count() == 1.0;
+    }
+
+    // Concurrent misses for the same id wait on a single load
+    @Test
+    public void testGetAll_CollapsesConcurrentMisses() {
+        Sinks.One<User> pending = Sinks.one();
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(pending.asMono().flux());
+
+        Mono<Map<String, UserDisplay>> first = userDisplayCache.getAll(Set.of("courier1"));
+        Mono<Map<String, UserDisplay>> second = userDisplayCache.getAll(Set.of("courier1"));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> pending.tryEmitValue(user("courier1", "courier-one", "Courier One")))
+                .assertNext(tuple -> {
+                    assert tuple.getT1().get("courier1").username().equals("courier-one");
+                    assert tuple.getT2().get("courier1").username().equals("courier-one");
+                })
+                .verifyComplete();
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+    }
+
+    // Ids without a user are cached as unknown instead of being reloaded every time
+    @Test
+    public void testGetAll_UnknownUserIsCached() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(userDisplayCache.getAll(Set.of("ghost")))
+                .assertNext(users -> {
+                    assert users.get("ghost").username() == null;
+                    assert users.get("ghost").fullName() == null;
+                })
+                .verifyComplete();
+        StepVerifier.create(userDisplayCache.getAll(Set.of("ghost")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+    }
+
+    // A user profile update event evicts the entry so the next lookup reloads it
+    @Test
+    public void testOnUserProfileChanged_InvalidatesEntry() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(Flux.just(user("courier1", "courier-one", "Courier One")))
+                .thenReturn(Flux.just(user("courier1", "courier-renamed", "Courier One")));
+
+        StepVerifier.create(userDisplayCache.getAll(Set.of("courier1"))).expectNextCount(1).verifyComplete();
+
+        userDisplayCache.onUserProfileChanged(
+                new UserEventConsumer.UserProfileChangedEvent("courier1", "courier-renamed"));
+
+        StepVerifier.create(userDisplayCache.getAll(Set.of("courier1")))
+                .assertNext(users -> {
+                    assert users.get("courier1").username().equals("courier-renamed");
+                })
+                .verifyComplete();
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(User.class));
+    }
+}
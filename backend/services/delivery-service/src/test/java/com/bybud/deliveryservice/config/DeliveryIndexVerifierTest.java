@@ -0,0 +1,59 @@
+package com.bybud.deliveryservice.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class DeliveryIndexVerifierTest {
+
+    private static Document explain(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan));
+    }
+
+    // A plain collection scan is reported
+    @Test
+    public void testHasCollectionScan_TopLevel() {
+        assertTrue(DeliveryIndexVerifier.hasCollectionScan(explain(new Document("stage", "COLLSCAN"))));
+    }
+
+    // A collection scan below an in-memory sort is still reported
+    @Test
+    public void testHasCollectionScan_Nested() {
+        Document plan = new Document("stage", "SORT")
+                .append("inputStage", new Document("stage", "COLLSCAN"));
+        assertTrue(DeliveryIndexVerifier.hasCollectionScan(explain(plan)));
+
+        Document orPlan = new Document("stage", "OR").append("inputStages", List.of(
+                new Document("stage", "IXSCAN"), new Document("stage", "COLLSCAN")));
+        assertTrue(DeliveryIndexVerifier.hasCollectionScan(explain(orPlan)));
+    }
+
+    // Index scans and empty collections pass
+    @Test
+    public void testHasCollectionScan_IndexedPlans() {
+        Document plan = new Document("stage", "LIMIT").append("inputStage",
+                new Document("stage", "FETCH").append("inputStage",
+                        new Document("stage", "IXSCAN").append("indexName", "customer_created")));
+        assertFalse(DeliveryIndexVerifier.hasCollectionScan(explain(plan)));
+        assertFalse(DeliveryIndexVerifier.hasCollectionScan(explain(new Document("stage", "EOF"))));
+    }
+
+    // Verification can be switched off entirely
+    @Test
+    public void testRun_OffModeSkipsDatabase() {
+        ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getIndexVerification().setMode(DeliveryProperties.IndexVerification.Mode.OFF);
+
+        new DeliveryIndexVerifier(mongoTemplate, properties).run(null);
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
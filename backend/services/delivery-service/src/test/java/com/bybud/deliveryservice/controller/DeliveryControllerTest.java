@@ -1,8 +1,12 @@
 package com.bybud.deliveryservice.controller;
 
+import com.bybud.deliveryservice.events.DeliveryStatusBroadcaster;
+import com.bybud.deliveryservice.idempotency.IdempotencyStore;
 import com.bybud.deliveryservice.service.DeliveryService;
 import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryFieldSet;
 import com.bybud.entity.request.CreateDeliveryRequest;
+import com.bybud.entity.response.DeliveryPageResponse;
 import com.bybud.entity.response.DeliveryResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,7 +27,11 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockAuthentication;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
@@ -34,6 +42,12 @@ class DeliveryControllerTest {
     @Mock
     private DeliveryService deliveryService;
 
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private DeliveryStatusBroadcaster statusBroadcaster;
+
     @InjectMocks
     private DeliveryController deliveryController;
 
@@ -94,7 +108,9 @@ class DeliveryControllerTest {
         mockDelivery.setId("delivery123");
         mockDelivery.setStatus(DeliveryStatus.PENDING);
 
-        when(deliveryService.getDeliveriesForCustomer(eq(customerId)))
+        when(deliveryService.getDeliveriesETagForCustomer(eq(customerId), any(DeliveryFieldSet.class), eq(false)))
+                .thenReturn(Mono.just("W/\"1-abc-0\""));
+        when(deliveryService.getDeliveriesForCustomer(eq(customerId), any(DeliveryFieldSet.class), eq(false)))
                 .thenReturn(Flux.just(mockDelivery));
 
         // Act & Assert
@@ -107,11 +123,37 @@ class DeliveryControllerTest {
                 .uri("/api/delivery/customer/{customerId}", customerId)
                 .exchange()
                 .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "W/\"1-abc-0\"")
                 .expectBody()
                 .jsonPath("$.data[0].id").isEqualTo("delivery123")
                 .jsonPath("$.data[0].status").isEqualTo("PENDING");
     }
 
+    @Test
+    void getDeliveriesForCustomer_NotModified() {
+        // Arrange
+        String customerId = "customer123";
+        when(deliveryService.getDeliveriesETagForCustomer(eq(customerId), any(DeliveryFieldSet.class), eq(false)))
+                .thenReturn(Mono.just("W/\"1-abc-0\""));
+
+        // Act & Assert
+        webTestClient
+                .mutateWith(mockAuthentication(
+                        new UsernamePasswordAuthenticationToken("customer123", "password",
+                                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")))
+                ))
+                .get()
+                .uri("/api/delivery/customer/{customerId}", customerId)
+                .ifNoneMatch("W/\"1-abc-0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "W/\"1-abc-0\"")
+                .expectBody().isEmpty();
+
+        // The list itself is never loaded
+        verify(deliveryService, never()).getDeliveriesForCustomer(any(), any(), anyBoolean());
+    }
+
     @Test
     void getAllDeliveries_Success() {
         // Arrange
@@ -120,7 +162,7 @@ class DeliveryControllerTest {
         mockDelivery.setId("delivery123");
         mockDelivery.setStatus(DeliveryStatus.PENDING);
 
-        when(deliveryService.getAllDeliveries(eq(adminId)))
+        when(deliveryService.getAllDeliveries(eq(adminId), any(DeliveryFieldSet.class)))
                 .thenReturn(Flux.just(mockDelivery));
 
         // Act & Assert
@@ -138,6 +180,63 @@ class DeliveryControllerTest {
                 .jsonPath("$.data[0].status").isEqualTo("PENDING");
     }
 
+    @Test
+    void getDeliveriesPageForCustomer_Success() {
+        // Arrange
+        String customerId = "customer123";
+        DeliveryResponse mockDelivery = new DeliveryResponse();
+        mockDelivery.setId("delivery123");
+        mockDelivery.setStatus(DeliveryStatus.CREATED);
+
+        when(deliveryService.getDeliveriesPageForCustomer(eq(customerId), isNull(), eq(20), any(DeliveryFieldSet.class), eq(false)))
+                .thenReturn(Mono.just(new DeliveryPageResponse(List.of(mockDelivery), "next-token")));
+
+        // Act & Assert
+        webTestClient
+                .mutateWith(mockAuthentication(
+                        new UsernamePasswordAuthenticationToken("customer123", "password",
+                                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")))
+                ))
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/api/delivery/customer/{customerId}/page")
+                        .queryParam("limit", 20)
+                        .build(customerId))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.items[0].id").isEqualTo("delivery123")
+                .jsonPath("$.data.nextCursor").isEqualTo("next-token");
+    }
+
+    @Test
+    void streamDeliveriesForCourier_Ndjson() {
+        // Arrange
+        String courierId = "courier123";
+        DeliveryResponse first = new DeliveryResponse();
+        first.setId("delivery1");
+        DeliveryResponse second = new DeliveryResponse();
+        second.setId("delivery2");
+
+        when(deliveryService.getDeliveriesForCourier(eq(courierId), any(DeliveryFieldSet.class)))
+                .thenReturn(Flux.just(first, second));
+
+        // Act & Assert
+        webTestClient
+                .mutateWith(mockAuthentication(
+                        new UsernamePasswordAuthenticationToken("courier123", "password",
+                                List.of(new SimpleGrantedAuthority("ROLE_COURIER")))
+                ))
+                .get()
+                .uri("/api/delivery/courier/{courierId}/stream", courierId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(DeliveryResponse.class)
+                .hasSize(2);
+    }
+
     @Test
     void acceptDelivery_Success() {
         // Arrange
@@ -0,0 +1,104 @@
+package com.bybud.deliveryservice.dispatch;
+
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.repository.DeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the dispatch scripts against a real Redis, where their effect on each other can be seen.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class DeliveryDispatcherRedisTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private DeliveryDispatcher dispatcher;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+        dispatcher = new DeliveryDispatcher(redisTemplate, mock(OpenDeliveryBoard.class), mock(DeliveryRepository.class),
+                new DeliveryProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void decliningTheSecondWaveAfterTheFirstLapsedBringsTheThirdForward() {
+        long now = System.currentTimeMillis();
+        // nobody answered the first wave, whose leases have lapsed
+        offer("d1", now - 1_000, "c1", "c2");
+        offer("d1", now + 20_000, "c3", "c4");
+
+        StepVerifier.create(dispatcher.decline("d1", "c3")).expectNext(true).verifyComplete();
+        StepVerifier.create(redisTemplate.opsForZSet().score(DeliveryDispatcher.DUE_KEY, "d1"))
+                .expectNext((double) now + 20_000)
+                .verifyComplete();
+
+        StepVerifier.create(dispatcher.decline("d1", "c4")).expectNext(true).verifyComplete();
+        StepVerifier.create(redisTemplate.opsForZSet().score(DeliveryDispatcher.DUE_KEY, "d1"))
+                .assertNext(due -> assertTrue(due < now + 20_000, "next wave brought forward"))
+                .verifyComplete();
+    }
+
+    @Test
+    void aCourierOfALapsedWaveCanNoLongerDecline() {
+        long now = System.currentTimeMillis();
+        offer("d1", now - 1_000, "c1");
+        offer("d1", now + 20_000, "c2");
+
+        StepVerifier.create(dispatcher.decline("d1", "c1")).expectNext(false).verifyComplete();
+    }
+
+    private void offer(String deliveryId, long leaseUntil, String... couriers) {
+        List<String> keys = new ArrayList<>(List.of(DeliveryDispatcher.leasesKey(deliveryId),
+                DeliveryDispatcher.acceptedKey(deliveryId), DeliveryDispatcher.offeredKey(deliveryId),
+                DeliveryDispatcher.DUE_KEY));
+        List<String> args = new ArrayList<>(List.of(deliveryId, Long.toString(leaseUntil), "60000"));
+        for (String courierId : couriers) {
+            keys.add(DeliveryDispatcher.courierKey(courierId));
+            args.add(courierId);
+        }
+        StepVerifier.create(redisTemplate.execute(DeliveryDispatcher.OFFER, keys, args))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+}
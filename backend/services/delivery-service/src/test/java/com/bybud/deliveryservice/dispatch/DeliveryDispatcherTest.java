@@ -0,0 +1,157 @@
+package com.bybud.deliveryservice.dispatch;
+
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.location.CourierLocationTracker;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryRepository;
+import com.bybud.kafka.handler.DeliveryEventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.ReactiveGeoOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveSetOperations;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeliveryDispatcherTest {
+
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private ReactiveZSetOperations<String, String> zSetOperations;
+    private ReactiveSetOperations<String, String> setOperations;
+    private ReactiveGeoOperations<String, String> geoOperations;
+    private OpenDeliveryBoard openDeliveryBoard;
+    private DeliveryRepository deliveryRepository;
+    private DeliveryDispatcher dispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveRedisTemplate.class);
+        zSetOperations = mock(ReactiveZSetOperations.class);
+        setOperations = mock(ReactiveSetOperations.class);
+        geoOperations = mock(ReactiveGeoOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
+        when(zSetOperations.remove(anyString(), any(Object[].class))).thenReturn(Mono.just(1L));
+        openDeliveryBoard = mock(OpenDeliveryBoard.class);
+        deliveryRepository = mock(DeliveryRepository.class);
+
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getDispatch().setCouriersPerWave(2);
+        dispatcher = new DeliveryDispatcher(redisTemplate, openDeliveryBoard, deliveryRepository, properties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void schedulesOnlyDeliveriesOpenForCouriers() {
+        when(redisTemplate.execute(eq(DeliveryDispatcher.SCHEDULE), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        dispatcher.onDeliveriesCreated(new DeliveryEventHandler.DeliveriesCreatedEvent(List.of(
+                new DeliveryEventHandler.DeliveryCreatedEvent("d1", "customer1"),
+                new DeliveryEventHandler.DeliveryCreatedEvent("d2", "customer1", "PENDING"))));
+
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(eq(DeliveryDispatcher.SCHEDULE), eq(List.of(DeliveryDispatcher.DUE_KEY)), args.capture());
+        assertEquals(List.of("d1"), args.getValue().subList(1, args.getValue().size()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void offersTheNextWaveToTheNearestCouriersNotOfferedYet() {
+        Delivery delivery = new Delivery();
+        delivery.setId("d1");
+        delivery.setStatus(DeliveryStatus.CREATED);
+        delivery.setPickupLocation(new GeoJsonPoint(10.7528, 59.9111));
+        when(openDeliveryBoard.get("d1")).thenReturn(delivery);
+        when(redisTemplate.execute(eq(DeliveryDispatcher.CLAIM), anyList(), anyList()))
+                .thenReturn(reply("d1"));
+        when(setOperations.members(DeliveryDispatcher.offeredKey("d1"))).thenReturn(Flux.just("c1"));
+        when(geoOperations.search(eq(CourierLocationTracker.GEO_KEY), any(GeoReference.class), any(Distance.class),
+                any(RedisGeoCommands.GeoSearchCommandArgs.class)))
+                .thenReturn(Flux.just(near("c1"), near("c2"), near("c3"), near("c4")));
+        when(redisTemplate.execute(eq(DeliveryDispatcher.OFFER), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        StepVerifier.create(dispatcher.dispatchDue()).verifyComplete();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(eq(DeliveryDispatcher.OFFER), keys.capture(), args.capture());
+        assertEquals(List.of(DeliveryDispatcher.courierKey("c2"), DeliveryDispatcher.courierKey("c3")),
+                keys.getValue().subList(4, keys.getValue().size()));
+        assertEquals(List.of("c2", "c3"), args.getValue().subList(3, args.getValue().size()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void withdrawsOffersOfDeliveriesNoLongerOpen() {
+        Delivery taken = new Delivery();
+        taken.setId("d1");
+        taken.setStatus(DeliveryStatus.ASSIGNED);
+        when(deliveryRepository.findById("d1")).thenReturn(Mono.just(taken));
+        when(redisTemplate.execute(eq(DeliveryDispatcher.CLAIM), anyList(), anyList()))
+                .thenReturn(reply("d1"));
+        when(redisTemplate.execute(eq(DeliveryDispatcher.WITHDRAW), anyList(), anyList()))
+                .thenReturn(reply("c1", "c2"));
+
+        StepVerifier.create(dispatcher.dispatchDue()).verifyComplete();
+
+        verify(zSetOperations).remove(DeliveryDispatcher.courierKey("c1"), "d1");
+        verify(zSetOperations).remove(DeliveryDispatcher.courierKey("c2"), "d1");
+        verify(redisTemplate, never()).execute(eq(DeliveryDispatcher.OFFER), anyList(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void acceptingClearsTheOffersOfTheWholeWave() {
+        when(redisTemplate.execute(eq(DeliveryDispatcher.ACCEPT), anyList(), anyList()))
+                .thenReturn(reply("c1", "c2"))
+                .thenReturn(reply());
+
+        StepVerifier.create(dispatcher.accept("d1", "c1")).expectNext(true).verifyComplete();
+        StepVerifier.create(dispatcher.accept("d1", "c2")).expectNext(false).verifyComplete();
+
+        verify(zSetOperations).remove(DeliveryDispatcher.courierKey("c1"), "d1");
+        verify(zSetOperations).remove(DeliveryDispatcher.courierKey("c2"), "d1");
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Flux<List> reply(String... values) {
+        return Flux.just(List.of(values));
+    }
+
+    private static GeoResult<RedisGeoCommands.GeoLocation<String>> near(String courierId) {
+        return new GeoResult<>(new RedisGeoCommands.GeoLocation<>(courierId, new Point(10.75, 59.91)), new Distance(100));
+    }
+}
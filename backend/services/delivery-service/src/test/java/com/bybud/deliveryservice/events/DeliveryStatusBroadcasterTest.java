@@ -0,0 +1,159 @@
+package com.bybud.deliveryservice.events;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.DeliveryStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DeliveryStatusBroadcasterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeliveryStatusBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getEvents().setBufferSize(4);
+        properties.getEvents().setMaxConnections(2);
+        properties.getEvents().setHeartbeatInterval(Duration.ofSeconds(15));
+        meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new DeliveryStatusBroadcaster(properties, meterRegistry);
+    }
+
+    private static DeliveryStatusEvent event(String deliveryId, DeliveryStatus status, int minute) {
+        return new DeliveryStatusEvent(deliveryId, "customer1", "courier1", status, T0.plusMinutes(minute));
+    }
+
+    private static DeliveryStatus statusOf(ServerSentEvent<DeliveryStatusEvent> event) {
+        return event.data().status();
+    }
+
+    @Test
+    void sendsTheCurrentStatusThenChangesUntilFinal() {
+        StepVerifier.create(broadcaster.followDelivery("delivery1",
+                        Mono.just(event("delivery1", DeliveryStatus.CREATED, 0))))
+                .assertNext(event -> {
+                    assertEquals(DeliveryStatusBroadcaster.STATUS_EVENT, event.event());
+                    assertEquals(DeliveryStatus.CREATED, statusOf(event));
+                })
+                .then(() -> {
+                    broadcaster.publish(event("delivery1", DeliveryStatus.ACCEPTED, 1));
+                    // another delivery of the same customer
+                    broadcaster.publish(event("delivery2", DeliveryStatus.ACCEPTED, 1));
+                    broadcaster.publish(event("delivery1", DeliveryStatus.COMPLETED, 2));
+                })
+                .assertNext(event -> assertEquals(DeliveryStatus.ACCEPTED, statusOf(event)))
+                .assertNext(event -> assertEquals(DeliveryStatus.COMPLETED, statusOf(event)))
+                .verifyComplete();
+
+        assertEquals(0, broadcaster.openConnections());
+    }
+
+    @Test
+    void skipsASnapshotOlderThanAChangeAlreadySent() {
+        Sinks.One<DeliveryStatusEvent> snapshot = Sinks.one();
+
+        StepVerifier.create(broadcaster.followDelivery("delivery1", snapshot.asMono()))
+                .then(() -> {
+                    broadcaster.publish(event("delivery1", DeliveryStatus.ACCEPTED, 1));
+                    snapshot.tryEmitValue(event("delivery1", DeliveryStatus.CREATED, 0));
+                })
+                .assertNext(event -> assertEquals(DeliveryStatus.ACCEPTED, statusOf(event)))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void holdsChangesUntilTheCurrentStatusResolves() {
+        Sinks.One<DeliveryStatusEvent> snapshot = Sinks.one();
+
+        StepVerifier.create(broadcaster.followDelivery("delivery1", snapshot.asMono()))
+                .then(() -> broadcaster.publish(event("delivery1", DeliveryStatus.ACCEPTED, 1)))
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> snapshot.tryEmitValue(event("delivery1", DeliveryStatus.CREATED, 0)))
+                .assertNext(event -> assertEquals(DeliveryStatus.ACCEPTED, statusOf(event)))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void dropsHeldChangesWhenTheCurrentStatusFails() {
+        Sinks.One<DeliveryStatusEvent> snapshot = Sinks.one();
+
+        StepVerifier.create(broadcaster.followDelivery("delivery1", snapshot.asMono()))
+                .then(() -> {
+                    broadcaster.publish(event("delivery1", DeliveryStatus.ACCEPTED, 1));
+                    snapshot.tryEmitError(new ResponseStatusException(HttpStatus.FORBIDDEN));
+                    broadcaster.publish(event("delivery1", DeliveryStatus.IN_PROGRESS, 2));
+                })
+                .expectErrorMatches(error -> error instanceof ResponseStatusException e
+                        && e.getStatusCode() == HttpStatus.FORBIDDEN)
+                .verify();
+
+        assertEquals(0, broadcaster.openConnections());
+    }
+
+    @Test
+    void dropsTheOldestEventsOfASlowClient() {
+        StepVerifier.create(broadcaster.followCustomer("customer1"), 0)
+                .then(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        broadcaster.publish(event("delivery" + i, DeliveryStatus.ACCEPTED, i));
+                    }
+                })
+                .thenRequest(10)
+                .expectNextMatches(event -> event.data().deliveryId().equals("delivery6"))
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+
+        assertEquals(6, meterRegistry.counter("delivery.events.dropped").count());
+        assertEquals(0, broadcaster.openConnections());
+    }
+
+    @Test
+    void sendsHeartbeatsOnlyToQuietConnections() {
+        long later = System.currentTimeMillis() + Duration.ofSeconds(20).toMillis();
+
+        StepVerifier.create(broadcaster.followCustomer("customer1"))
+                .then(() -> broadcaster.sendHeartbeats(later))
+                .assertNext(event -> {
+                    assertEquals("heartbeat", event.comment());
+                    assertNull(event.data());
+                })
+                // just sent one
+                .then(() -> broadcaster.sendHeartbeats(later + 1_000))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void refusesConnectionsBeyondTheLimit() {
+        broadcaster.followCustomer("customer1").subscribe();
+        broadcaster.followCustomer("customer2").subscribe();
+
+        StepVerifier.create(broadcaster.followCustomer("customer3"))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException e
+                        && e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+
+        assertEquals(2, broadcaster.openConnections());
+        assertEquals(1, meterRegistry.counter("delivery.events.rejected").count());
+    }
+}
@@ -0,0 +1,171 @@
+package com.bybud.deliveryservice.idempotency;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.request.CreateDeliveryRequest;
+import com.bybud.entity.response.DeliveryResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyStoreTest {
+
+    private static final String REDIS_KEY = "delivery:idempotency:customer1:key-1";
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redisTemplate.delete(anyString())).thenReturn(Mono.just(1L));
+
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getIdempotency().setPollInterval(Duration.ofMillis(10));
+        properties.getIdempotency().setWaitTimeout(Duration.ofMillis(50));
+        idempotencyStore = new IdempotencyStore(redisTemplate, objectMapper, properties);
+    }
+
+    private static CreateDeliveryRequest request(String details) {
+        CreateDeliveryRequest request = new CreateDeliveryRequest();
+        request.setCustomerId("customer1");
+        request.setPickupAddress("Storgata 1");
+        request.setDeliveryAddress("Kirkeveien 2");
+        request.setDeliveryDetails(details);
+        return request;
+    }
+
+    private static DeliveryResponse response(String id) {
+        DeliveryResponse response = new DeliveryResponse();
+        response.setId(id);
+        return response;
+    }
+
+    private String fingerprintOf(CreateDeliveryRequest request) throws Exception {
+        // Learn the stored fingerprint by letting a first attempt claim the key
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        idempotencyStore.execute("customer1", "key-1", request, DeliveryResponse.class, () -> Mono.just(response("d0"))).block();
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(eq(REDIS_KEY), stored.capture(), any(Duration.class));
+        clearInvocations(valueOperations);
+        return objectMapper.readValue(stored.getValue(), IdempotencyStore.StoredOutcome.class).fingerprint();
+    }
+
+    // The first request claims the key, runs and stores its result
+    @Test
+    public void testExecute_FirstAttemptRunsAndStoresResult() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(idempotencyStore.execute("customer1", "key-1", request("Fragile"), DeliveryResponse.class,
+                        () -> Mono.just(response("delivery1"))))
+                .assertNext(result -> {
+                    assert result.getId().equals("delivery1");
+                })
+                .verifyComplete();
+
+        verify(valueOperations).set(eq(REDIS_KEY), contains("delivery1"), eq(Duration.ofHours(24)));
+    }
+
+    // A retry after completion gets the stored result and does not run again
+    @Test
+    public void testExecute_RetryReplaysStoredResult() throws Exception {
+        CreateDeliveryRequest request = request("Fragile");
+        String fingerprint = fingerprintOf(request);
+        String stored = objectMapper.writeValueAsString(new IdempotencyStore.StoredOutcome(
+                fingerprint, objectMapper.writeValueAsString(response("delivery1"))));
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(Mono.just(false));
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(stored));
+        AtomicInteger runs = new AtomicInteger();
+
+        StepVerifier.create(idempotencyStore.execute("customer1", "key-1", request, DeliveryResponse.class,
+                        () -> Mono.fromCallable(() -> response("delivery" + runs.incrementAndGet()))))
+                .assertNext(result -> {
+                    assert result.getId().equals("delivery1");
+                })
+                .verifyComplete();
+
+        assert runs.get() == 0;
+    }
+
+    // Reusing a key for a different body is rejected
+    @Test
+    public void testExecute_KeyReusedForDifferentRequest() throws Exception {
+        String fingerprint = fingerprintOf(request("Fragile"));
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(Mono.just(false));
+        when(valueOperations.get(REDIS_KEY)).thenReturn(Mono.just(objectMapper.writeValueAsString(
+                new IdempotencyStore.StoredOutcome(fingerprint, null))));
+
+        StepVerifier.create(idempotencyStore.execute("customer1", "key-1", request("Not fragile"), DeliveryResponse.class,
+                        () -> Mono.just(response("delivery2"))))
+                .expectErrorMatches(throwable ->
+                        throwable instanceof ResponseStatusException &&
+                                ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.UNPROCESSABLE_ENTITY)
+                .verify();
+    }
+
+    // Concurrent duplicates on one instance wait for the first attempt instead of running again
+    @Test
+    public void testExecute_ConcurrentDuplicatesShareFirstAttempt() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        Sinks.One<DeliveryResponse> firstAttempt = Sinks.one();
+        AtomicInteger runs = new AtomicInteger();
+        CreateDeliveryRequest request = request("Fragile");
+
+        Mono<DeliveryResponse> first = idempotencyStore.execute("customer1", "key-1", request, DeliveryResponse.class,
+                () -> { runs.incrementAndGet(); return firstAttempt.asMono(); });
+        Mono<DeliveryResponse> duplicate = idempotencyStore.execute("customer1", "key-1", request, DeliveryResponse.class,
+                () -> { runs.incrementAndGet(); return Mono.just(response("delivery2")); });
+
+        StepVerifier.create(Mono.zip(first, duplicate)
+                        .doOnSubscribe(s -> Mono.delay(Duration.ofMillis(20))
+                                .subscribe(tick -> firstAttempt.tryEmitValue(response("delivery1")))))
+                .assertNext(results -> {
+                    assert results.getT1().getId().equals("delivery1");
+                    assert results.getT2().getId().equals("delivery1");
+                })
+                .verifyComplete();
+
+        assert runs.get() == 1;
+        verify(valueOperations, times(1)).setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class));
+    }
+
+    // A failed attempt releases the key so the client can retry
+    @Test
+    public void testExecute_FailureReleasesKey() {
+        when(valueOperations.setIfAbsent(eq(REDIS_KEY), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(idempotencyStore.execute("customer1", "key-1", request("Fragile"), DeliveryResponse.class,
+                        () -> Mono.error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(redisTemplate).delete(REDIS_KEY);
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+}
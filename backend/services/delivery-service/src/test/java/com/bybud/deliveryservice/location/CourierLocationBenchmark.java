@@ -0,0 +1,135 @@
+package com.bybud.deliveryservice.location;
+
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.matching.CourierSpatialGrid;
+import com.bybud.deliveryservice.matching.DeliveryMatcher;
+import com.bybud.kafka.handler.CourierLocationEventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Throughput of applying consumed location pings on one instance, the part of the pipeline that
+ * runs once per ping; Redis and Mongo are only written by the periodic flushes. Each thread owns a
+ * slice of the couriers, as a consumer thread owns a set of partitions, and reports every courier
+ * in turn with pings one second apart, moving about 10 m per ping.
+ *
+ * <p>Not run by surefire. Run {@link #main} from the test classpath, e.g. from the IDE.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CourierLocationBenchmark {
+
+    private static final double LAT = 59.9111;
+    private static final double LON = 10.7528;
+
+    @Param({"1000", "50000"})
+    int couriers;
+
+    CourierLocationTracker tracker;
+    DeliveryMatcher matcher;
+    DeliveryProperties properties;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        properties = new DeliveryProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        matcher = new DeliveryMatcher(mock(OpenDeliveryBoard.class),
+                new CourierSpatialGrid(properties, meterRegistry), properties, meterRegistry);
+        tracker = new CourierLocationTracker(mock(CourierLocationEventHandler.class),
+                mock(ReactiveRedisTemplate.class), mock(ReactiveMongoTemplate.class), properties, meterRegistry);
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+        List<String> courierIds;
+        List<CourierTrack> tracks;
+        int next;
+        long clock;
+
+        @Setup(Level.Trial)
+        public void setUp(CourierLocationBenchmark benchmark, ThreadParams threads) {
+            DeliveryProperties.Location config = benchmark.properties.getLocation();
+            courierIds = new ArrayList<>();
+            tracks = new ArrayList<>();
+            for (int i = threads.getThreadIndex(); i < benchmark.couriers; i += threads.getThreadCount()) {
+                courierIds.add("courier" + i);
+                tracks.add(new CourierTrack("courier" + i, config.getBufferSize(), config.getSampleInterval().toMillis(),
+                        config.getMaxSampleInterval().toMillis(), config.getSampleMinDistanceMeters()));
+            }
+        }
+
+        int advance() {
+            if (next == courierIds.size()) {
+                next = 0;
+                clock += 1_000;
+            }
+            return next++;
+        }
+
+        double latitude() {
+            // about 10 m further north every second
+            return LAT + clock / 1_000 * 0.00009;
+        }
+    }
+
+    /**
+     * Offering a ping to a courier's ring buffer alone.
+     */
+    @Benchmark
+    public void trackOffer(Slice slice, Blackhole blackhole) {
+        int index = slice.advance();
+        blackhole.consume(slice.tracks.get(index).offer(slice.latitude(), LON, slice.clock));
+    }
+
+    /**
+     * Applying a consumed ping: ring buffer and dirty set on the partition owner, matching grid on
+     * every instance.
+     */
+    @Benchmark
+    public void trackerRecord(Slice slice) {
+        int index = slice.advance();
+        String courierId = slice.courierIds.get(index);
+        double latitude = slice.latitude();
+        tracker.record(courierId, latitude, LON, slice.clock);
+        matcher.reportPosition(courierId, latitude, LON, slice.clock);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CourierLocationBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.bybud.deliveryservice.location;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.kafka.consumer.CourierLocationConsumer;
+import com.bybud.kafka.handler.CourierLocationEventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.redis.core.ReactiveGeoOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CourierLocationTrackerTest {
+
+    private static final double LAT = 59.9111;
+    private static final double LON = 10.7528;
+
+    private CourierLocationEventHandler locationEventHandler;
+    private ReactiveGeoOperations<String, String> geoOperations;
+    private ReactiveMongoTemplate mongoTemplate;
+    private CourierLocationTracker tracker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        locationEventHandler = mock(CourierLocationEventHandler.class);
+        ReactiveRedisTemplate<String, String> redisTemplate = mock(ReactiveRedisTemplate.class);
+        geoOperations = mock(ReactiveGeoOperations.class);
+        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
+        when(geoOperations.add(eq(CourierLocationTracker.GEO_KEY), anyMap())).thenReturn(Mono.just(1L));
+        when(geoOperations.remove(eq(CourierLocationTracker.GEO_KEY), any(String[].class))).thenReturn(Mono.just(1L));
+        mongoTemplate = mock(ReactiveMongoTemplate.class);
+        when(mongoTemplate.insert(anyCollection(), eq(CourierLocationTracker.HISTORY_COLLECTION)))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<Collection<?>>getArgument(0)));
+
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getLocation().setSampleInterval(Duration.ofSeconds(10));
+        properties.getLocation().setHistoryBatchSize(2);
+        tracker = new CourierLocationTracker(locationEventHandler,
+                redisTemplate, mongoTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesOnlyTheLatestPositionOfCouriersThatMoved() {
+        tracker.onLocationsReceived(new CourierLocationConsumer.CourierLocationsReceivedEvent(List.of(
+                new CourierLocationEventHandler.LocationPing("courier1", LAT, LON, 1_000),
+                new CourierLocationEventHandler.LocationPing("courier1", LAT + 0.001, LON, 2_000),
+                new CourierLocationEventHandler.LocationPing("courier2", LAT, LON + 0.001, 1_000),
+                // late ping, not written
+                new CourierLocationEventHandler.LocationPing("courier1", LAT - 0.001, LON, 1_500))));
+
+        StepVerifier.create(tracker.flushLatest()).verifyComplete();
+
+        ArgumentCaptor<Map<String, Point>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(geoOperations).add(eq(CourierLocationTracker.GEO_KEY), captor.capture());
+        assertEquals(Map.of("courier1", new Point(LON, LAT + 0.001), "courier2", new Point(LON + 0.001, LAT)),
+                captor.getValue());
+
+        // nothing moved since
+        StepVerifier.create(tracker.flushLatest()).verifyComplete();
+        verify(geoOperations, times(1)).add(eq(CourierLocationTracker.GEO_KEY), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writesSampledHistoryInBatches() {
+        for (int i = 0; i < 3; i++) {
+            tracker.record("courier1", LAT + i * 0.001, LON, i * 10_000L);
+            // within the sample interval, kept only as the latest position
+            tracker.record("courier1", LAT + i * 0.001 + 0.0005, LON, i * 10_000L + 1_000);
+        }
+
+        StepVerifier.create(tracker.flushHistory())
+                .expectNext(3L)
+                .verifyComplete();
+
+        ArgumentCaptor<Collection<Document>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(mongoTemplate, times(2)).insert(captor.capture(), eq(CourierLocationTracker.HISTORY_COLLECTION));
+        Document first = captor.getAllValues().get(0).iterator().next();
+        assertEquals("courier1", first.getString("courierId"));
+        assertEquals(List.of(LON, LAT), first.get("location", Document.class).get("coordinates"));
+
+        StepVerifier.create(tracker.flushHistory())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void dropsSilentCouriers() {
+        tracker.record("silent", LAT, LON, 1_000);
+        tracker.record("active", LAT, LON, 100_000);
+        StepVerifier.create(tracker.flushHistory()).expectNext(2L).verifyComplete();
+
+        StepVerifier.create(tracker.evictSilent(50_000)).verifyComplete();
+
+        verify(geoOperations).remove(CourierLocationTracker.GEO_KEY, "silent");
+    }
+
+    @Test
+    void goingOfflineIsPublishedAndAppliedOnceConsumed() {
+        when(locationEventHandler.publishCourierOffline("courier1")).thenReturn(Mono.empty());
+        tracker.record("courier1", LAT, LON, 1_000);
+
+        StepVerifier.create(tracker.goOffline("courier1")).verifyComplete();
+        verify(locationEventHandler).publishCourierOffline("courier1");
+
+        tracker.onLocationsReceived(new CourierLocationConsumer.CourierLocationsReceivedEvent(List.of(), Set.of("courier1")));
+
+        verify(geoOperations).remove(CourierLocationTracker.GEO_KEY, "courier1");
+        // its track is gone, so nothing is left to write
+        StepVerifier.create(tracker.flushLatest()).verifyComplete();
+        verify(geoOperations, times(0)).add(eq(CourierLocationTracker.GEO_KEY), anyMap());
+    }
+}
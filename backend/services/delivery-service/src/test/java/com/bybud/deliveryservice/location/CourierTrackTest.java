@@ -0,0 +1,82 @@
+package com.bybud.deliveryservice.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CourierTrackTest {
+
+    private static final double LAT = 59.9111;
+    private static final double LON = 10.7528;
+    // About 111 m north
+    private static final double STEP = 0.001;
+
+    private final CourierTrack track = new CourierTrack("courier1", 4, 10_000, 60_000, 25);
+
+    @Test
+    void samplesAtMostOncePerIntervalAndOnlyAfterMoving() {
+        assertEquals(CourierTrack.Offer.SAMPLED, track.offer(LAT, LON, 0));
+        // too soon
+        assertEquals(CourierTrack.Offer.LATEST, track.offer(LAT + STEP, LON, 5_000));
+        // interval passed but barely moved since the last sample
+        assertEquals(CourierTrack.Offer.LATEST, track.offer(LAT + 0.0001, LON, 15_000));
+        assertEquals(CourierTrack.Offer.SAMPLED, track.offer(LAT + STEP, LON, 20_000));
+        // standing still is sampled once per maximum interval
+        assertEquals(CourierTrack.Offer.SAMPLED, track.offer(LAT + STEP, LON, 80_000));
+
+        List<CourierLocation> samples = new ArrayList<>();
+        assertEquals(3, track.drainSamples(samples, 10));
+        assertEquals(List.of(0L, 20_000L, 80_000L), samples.stream().map(CourierLocation::recordedAt).toList());
+        assertEquals(0, track.pendingSamples());
+    }
+
+    @Test
+    void ignoresOutOfOrderPings() {
+        track.offer(LAT, LON, 10_000);
+
+        assertEquals(CourierTrack.Offer.STALE, track.offer(LAT + STEP, LON, 9_000));
+        assertEquals(CourierTrack.Offer.STALE, track.offer(LAT + STEP, LON, 10_000));
+        assertEquals(LAT, track.takeLatestIfChanged().latitude());
+    }
+
+    @Test
+    void reportsTheLatestPositionOncePerChange() {
+        track.offer(LAT, LON, 0);
+        track.offer(LAT + STEP, LON, 1_000);
+
+        CourierLocation latest = track.takeLatestIfChanged();
+        assertEquals(LAT + STEP, latest.latitude());
+        assertEquals(1_000, latest.recordedAt());
+        assertNull(track.takeLatestIfChanged());
+    }
+
+    @Test
+    void overwritesTheOldestUnwrittenSampleWhenFull() {
+        for (int i = 0; i < 6; i++) {
+            track.offer(LAT + i * STEP, LON, i * 10_000L);
+        }
+
+        List<CourierLocation> samples = new ArrayList<>();
+        assertEquals(4, track.drainSamples(samples, 10));
+        assertEquals(List.of(20_000L, 30_000L, 40_000L, 50_000L), samples.stream().map(CourierLocation::recordedAt).toList());
+        assertEquals(2, track.takeOverwritten());
+        assertEquals(0, track.takeOverwritten());
+    }
+
+    @Test
+    void drainsInBoundedChunks() {
+        for (int i = 0; i < 3; i++) {
+            track.offer(LAT + i * STEP, LON, i * 10_000L);
+        }
+
+        List<CourierLocation> samples = new ArrayList<>();
+        assertEquals(2, track.drainSamples(samples, 2));
+        assertEquals(1, track.pendingSamples());
+        assertEquals(1, track.drainSamples(samples, 2));
+        assertEquals(List.of(0L, 10_000L, 20_000L), samples.stream().map(CourierLocation::recordedAt).toList());
+    }
+}
@@ -0,0 +1,92 @@
+package com.bybud.deliveryservice.matching;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CourierSpatialGridTest {
+
+    // Oslo Central Station
+    private static final double LAT = 59.9111;
+    private static final double LON = 10.7528;
+
+    private CourierSpatialGrid grid;
+
+    @BeforeEach
+    void setUp() {
+        grid = new CourierSpatialGrid(new DeliveryProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void returnsNearestCouriersInDistanceOrder() {
+        grid.update("far", LAT + 0.03, LON, 1);
+        grid.update("near", LAT + 0.001, LON, 1);
+        grid.update("middle", LAT, LON + 0.02, 1);
+        grid.update("outOfRange", LAT + 1, LON, 1);
+
+        List<CourierSpatialGrid.Candidate> nearest = grid.nearest(LAT, LON, 3, 5000, id -> true);
+
+        assertEquals(List.of("near", "middle", "far"), nearest.stream().map(CourierSpatialGrid.Candidate::courierId).toList());
+        assertTrue(nearest.get(0).distanceMeters() < 200);
+    }
+
+    @Test
+    void matchesBruteForceOnRandomCouriers() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            grid.update("c" + i, LAT + (random.nextDouble() - 0.5) * 0.2, LON + (random.nextDouble() - 0.5) * 0.4, 1);
+        }
+
+        for (int probe = 0; probe < 50; probe++) {
+            double lat = LAT + (random.nextDouble() - 0.5) * 0.2;
+            double lon = LON + (random.nextDouble() - 0.5) * 0.4;
+            List<String> expected = IntStream.range(0, 2000)
+                    .mapToObj(i -> "c" + i)
+                    .map(id -> new CourierSpatialGrid.Candidate(id, CourierSpatialGrid.distanceMeters(
+                            lat, lon, grid.get(id).latitude(), grid.get(id).longitude())))
+                    .filter(candidate -> candidate.distanceMeters() <= 3000)
+                    .sorted(Comparator.comparingDouble(CourierSpatialGrid.Candidate::distanceMeters))
+                    .limit(5)
+                    .map(CourierSpatialGrid.Candidate::courierId)
+                    .toList();
+
+            assertEquals(expected, grid.nearest(lat, lon, 5, 3000, id -> true).stream()
+                    .map(CourierSpatialGrid.Candidate::courierId).toList());
+        }
+    }
+
+    @Test
+    void movesAndRemovesCouriers() {
+        grid.update("courier1", LAT, LON, 1);
+        grid.update("courier1", LAT + 0.05, LON, 2);
+        // a late report of an older position is ignored
+        grid.update("courier1", LAT, LON, 1);
+
+        assertTrue(grid.nearest(LAT, LON, 1, 1000, id -> true).isEmpty());
+        assertEquals(1, grid.nearest(LAT + 0.05, LON, 1, 1000, id -> true).size());
+
+        grid.remove("courier1");
+        assertNull(grid.get("courier1"));
+        assertTrue(grid.nearest(LAT + 0.05, LON, 1, 1000, id -> true).isEmpty());
+    }
+
+    @Test
+    void evictsCouriersThatStoppedReporting() {
+        grid.update("silent", LAT, LON, 1_000);
+        grid.update("active", LAT, LON, 5_000);
+
+        assertEquals(1, grid.evictStale(2_000));
+        assertEquals(List.of("active"), grid.nearest(LAT, LON, 5, 1000, id -> true).stream()
+                .map(CourierSpatialGrid.Candidate::courierId).toList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.bybud.deliveryservice.matching;
+
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.entity.model.Delivery;
+import com.bybud.kafka.consumer.CourierLocationConsumer;
+import com.bybud.kafka.handler.CourierLocationEventHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class DeliveryMatcherTest {
+
+    private static final double LAT = 59.9111;
+    private static final double LON = 10.7528;
+
+    private CourierSpatialGrid grid;
+    private DeliveryMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getMatching().setCandidatesPerDelivery(2);
+        properties.getMatching().setMaxMatchesPerCourier(1);
+        grid = new CourierSpatialGrid(properties, new SimpleMeterRegistry());
+        matcher = new DeliveryMatcher(mock(OpenDeliveryBoard.class), grid, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void longestWaitingDeliveryGetsTheNearestCouriers() {
+        grid.update("courier1", LAT, LON, 1);
+        grid.update("courier2", LAT + 0.005, LON, 1);
+        grid.update("courier3", LAT + 0.01, LON, 1);
+
+        // newest first, as served by the open delivery board
+        DeliveryMatcher.MatchingRound round = matcher.match(List.of(
+                delivery("newer", LAT, LON), delivery("older", LAT, LON)));
+
+        assertEquals(List.of("courier1", "courier2"), round.candidatesByDelivery().get("older").stream()
+                .map(CourierSpatialGrid.Candidate::courierId).toList());
+        // each courier is a candidate for one delivery per round here
+        assertEquals(List.of("courier3"), round.candidatesByDelivery().get("newer").stream()
+                .map(CourierSpatialGrid.Candidate::courierId).toList());
+        assertEquals(List.of("older"), round.deliveriesByCourier().get("courier1"));
+    }
+
+    @Test
+    void skipsDeliveriesWithoutPickupLocation() {
+        grid.update("courier1", LAT, LON, 1);
+        Delivery unlocated = new Delivery();
+        unlocated.setId("unlocated");
+
+        DeliveryMatcher.MatchingRound round = matcher.match(List.of(unlocated));
+
+        assertTrue(round.candidatesByDelivery().isEmpty());
+    }
+
+    @Test
+    void everyInstanceTracksEveryCourierFromTheBroadcastPings() {
+        grid.update("offline", LAT, LON, 1);
+
+        matcher.onPositionsReceived(new CourierLocationConsumer.CourierPositionsReceivedEvent(List.of(
+                new CourierLocationEventHandler.LocationPing("courier1", LAT, LON, 1_000),
+                new CourierLocationEventHandler.LocationPing("courier1", LAT + 0.001, LON, 2_000),
+                new CourierLocationEventHandler.LocationPing("courier2", LAT, LON + 0.001, 1_000)),
+                Set.of("offline")));
+
+        assertEquals(LAT + 0.001, grid.get("courier1").latitude());
+        assertEquals(LON + 0.001, grid.get("courier2").longitude());
+        assertNull(grid.get("offline"));
+    }
+
+    private static Delivery delivery(String id, double latitude, double longitude) {
+        Delivery delivery = new Delivery();
+        delivery.setId(id);
+        delivery.setPickupLocation(new GeoJsonPoint(longitude, latitude));
+        return delivery;
+    }
+}
@@ -0,0 +1,93 @@
+package com.bybud.deliveryservice.scheduling;
+
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.service.DeliveryService;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.kafka.handler.DeliveryEventHandler.DeliveryStatusUpdatedEvent;
+import com.bybud.kafka.handler.DeliveryEventHandler.DeliveryStatusesUpdatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeliveryTimersTest {
+
+    private ReactiveZSetOperations<String, String> zSetOperations;
+    private DeliveryTimers timers;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReactiveRedisTemplate<String, String> redisTemplate = mock(ReactiveRedisTemplate.class);
+        zSetOperations = mock(ReactiveZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.addAll(eq(DeliveryTimers.KEY), anySet())).thenReturn(Mono.just(1L));
+        when(zSetOperations.remove(eq(DeliveryTimers.KEY), any(Object[].class))).thenReturn(Mono.just(1L));
+        timers = new DeliveryTimers(redisTemplate, mock(DeliveryService.class), new DeliveryProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        timers.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void schedulesActivationForPendingAndExpiryForCreated() {
+        LocalDate deliveryDate = LocalDate.now().plusDays(2);
+        Delivery pending = delivery("d1", DeliveryStatus.PENDING);
+        pending.setDeliveryDate(deliveryDate);
+        Delivery created = delivery("d2", DeliveryStatus.CREATED);
+        long before = System.currentTimeMillis();
+
+        StepVerifier.create(timers.scheduleCreated(List.of(pending, created))).verifyComplete();
+
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> tuples = ArgumentCaptor.forClass(Set.class);
+        verify(zSetOperations).addAll(eq(DeliveryTimers.KEY), tuples.capture());
+        Map<String, Double> scores = tuples.getValue().stream()
+                .collect(Collectors.toMap(ZSetOperations.TypedTuple::getValue, ZSetOperations.TypedTuple::getScore));
+        assertEquals(Set.of("ACTIVATE:d1", "EXPIRE:d2"), scores.keySet());
+        assertEquals((double) timers.activationTime(deliveryDate), scores.get("ACTIVATE:d1"));
+        assertTrue(scores.get("EXPIRE:d2") >= before + new DeliveryProperties().getTimers().getUnacceptedTimeout().toMillis());
+    }
+
+    @Test
+    void statusChangesDropStaleTimersAndStartExpiry() {
+        timers.onDeliveryStatusesUpdated(new DeliveryStatusesUpdatedEvent(List.of(
+                new DeliveryStatusUpdatedEvent("d1", "ASSIGNED", "CREATED", "customer1", "courier1", null),
+                new DeliveryStatusUpdatedEvent("d2", "CREATED", "PENDING", "customer1", null, null))));
+
+        verify(zSetOperations).remove(DeliveryTimers.KEY, "EXPIRE:d1", "ACTIVATE:d2");
+        verify(zSetOperations).addAll(eq(DeliveryTimers.KEY), anySet());
+    }
+
+    private static Delivery delivery(String id, DeliveryStatus status) {
+        Delivery delivery = new Delivery();
+        delivery.setId(id);
+        delivery.setStatus(status);
+        return delivery;
+    }
+}
@@ -0,0 +1,61 @@
+package com.bybud.deliveryservice.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    @Test
+    void firesTimersWhenTheClockReachesTheirTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 10, 0);
+        wheel.add("a", 2500);
+        wheel.add("b", 5000);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1999, fired::add);
+        assertEquals(List.of(), fired);
+
+        wheel.advance(2000, fired::add);
+        assertEquals(List.of("a"), fired);
+
+        wheel.advance(5000, fired::add);
+        assertEquals(List.of("a", "b"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cascadesTimersBeyondTheFirstLevel() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 10, 0);
+        // 10s per level-one rotation, 100s for level two, 1000s for level three
+        assertTrue(wheel.add("level2", 42_000));
+        assertTrue(wheel.add("level3", 420_000));
+        assertEquals(2, wheel.size());
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(41_999, fired::add);
+        assertEquals(List.of(), fired);
+        wheel.advance(42_000, fired::add);
+        assertEquals(List.of("level2"), fired);
+
+        wheel.advance(419_999, fired::add);
+        assertEquals(List.of("level2"), fired);
+        wheel.advance(420_000, fired::add);
+        assertEquals(List.of("level2", "level3"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rejectsTimersAlreadyDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 10, 5000);
+
+        assertFalse(wheel.add("past", 4000));
+        assertFalse(wheel.add("now", 5500));
+        assertEquals(0, wheel.size());
+    }
+}
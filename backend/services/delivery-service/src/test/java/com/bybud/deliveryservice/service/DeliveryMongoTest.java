@@ -0,0 +1,227 @@
+package com.bybud.deliveryservice.service;
+
+import com.bybud.common.config.MongoConfig;
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.cache.UserDisplayCache;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.dispatch.DeliveryDispatcher;
+import com.bybud.deliveryservice.location.CourierLocationTracker;
+import com.bybud.deliveryservice.matching.DeliveryMatcher;
+import com.bybud.deliveryservice.scheduling.DeliveryTimers;
+import com.bybud.deliveryservice.summary.DeliverySummaryStore;
+import com.bybud.entity.mapper.DeliveryMapper;
+import com.bybud.entity.model.Delivery;
+import com.bybud.entity.model.DeliveryStatus;
+import com.bybud.entity.repository.DeliveryCursor;
+import com.bybud.entity.repository.DeliveryFieldSet;
+import com.bybud.entity.repository.DeliveryRepository;
+import com.bybud.entity.repository.DeliveryRepositoryCustom;
+import com.bybud.entity.repository.DeliveryRepositoryCustomImpl;
+import com.bybud.entity.response.DeliveryResponse;
+import com.bybud.kafka.handler.DeliveryEventHandler;
+import com.mongodb.reactivestreams.client.MongoClients;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the delivery queries against a real MongoDB, with auditing configured as in the services.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class DeliveryMongoTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static AnnotationConfigApplicationContext context;
+    private static ReactiveMongoTemplate mongoTemplate;
+
+    private static final Set<DeliveryStatus> TERMINAL = EnumSet.of(DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private DeliveryRepositoryCustom repository;
+
+    @Configuration
+    @Import(MongoConfig.class)
+    static class MongoTestConfig {
+
+        @Bean
+        ReactiveMongoTemplate reactiveMongoTemplate() {
+            return new ReactiveMongoTemplate(MongoClients.create(MONGO.getConnectionString()), "bybud");
+        }
+
+        // the auditing handler resolves entities through the converter
+        @Bean
+        MappingMongoConverter mappingMongoConverter(ReactiveMongoTemplate reactiveMongoTemplate) {
+            return (MappingMongoConverter) reactiveMongoTemplate.getConverter();
+        }
+    }
+
+    @BeforeAll
+    static void connect() {
+        context = new AnnotationConfigApplicationContext(MongoTestConfig.class);
+        mongoTemplate = context.getBean(ReactiveMongoTemplate.class);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        context.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Delivery.class)
+                .then(mongoTemplate.dropCollection(DeliveryRepositoryCustom.ARCHIVE_COLLECTION))
+                .block();
+        repository = new DeliveryRepositoryCustomImpl(mongoTemplate);
+    }
+
+    private Delivery insert(String customerId) {
+        return mongoTemplate.insert(new Delivery(customerId, "details", "Storgata 1", "Lillegata 2")).block();
+    }
+
+    private void unset(Delivery delivery, String field) {
+        // a template update bypasses auditing, like data written before it was switched on
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(delivery.getId())), new Update().unset(field),
+                Delivery.class).block();
+    }
+
+    private Delivery finishedBeforeTheCutoff() {
+        Delivery delivery = insert("customer1");
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(delivery.getId())), new Update()
+                        .set("status", DeliveryStatus.COMPLETED)
+                        .set("createdDate", CUTOFF.minusDays(2))
+                        .set("updatedDate", CUTOFF.minusDays(1)),
+                Delivery.class).block();
+        return delivery;
+    }
+
+    @Test
+    void insertsAreStampedWithCreationAndModificationDates() {
+        Delivery delivery = insert("customer1");
+
+        Delivery stored = mongoTemplate.findById(delivery.getId(), Delivery.class).block();
+        assertNotNull(stored.getCreatedDate());
+        assertNotNull(stored.getUpdatedDate());
+    }
+
+    @Test
+    void pagingWalksPastUndatedDeliveriesToTheEnd() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expected.add(insert("customer1").getId());
+        }
+        List<String> undated = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Delivery delivery = insert("customer1");
+            unset(delivery, "createdDate");
+            undated.add(delivery.getId());
+        }
+        // created dates may tie, ids break the tie; undated deliveries come last
+        expected = new ArrayList<>(expected.reversed());
+        expected.addAll(undated.reversed());
+
+        List<String> walked = new ArrayList<>();
+        DeliveryCursor after = null;
+        for (int pages = 0; pages < 10; pages++) {
+            List<Delivery> page = repository.findPage(null, after, 2, DeliveryFieldSet.ALL).collectList().block();
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(delivery -> walked.add(delivery.getId()));
+            Delivery last = page.get(page.size() - 1);
+            after = DeliveryCursor.decode(new DeliveryCursor(last.getCreatedDate(), last.getId()).encode());
+        }
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void aStatusUpdateChangesTheListETag() throws InterruptedException {
+        DeliveryRepository deliveryRepository = new ReactiveMongoRepositoryFactory(mongoTemplate).getRepository(
+                DeliveryRepository.class, RepositoryFragments.just(new DeliveryRepositoryCustomImpl(mongoTemplate)));
+        DeliveryMapper deliveryMapper = mock(DeliveryMapper.class);
+        when(deliveryMapper.toResponse(any(Delivery.class))).thenAnswer(invocation -> new DeliveryResponse());
+        UserDisplayCache userDisplayCache = mock(UserDisplayCache.class);
+        when(userDisplayCache.getAll(anySet())).thenReturn(Mono.just(Map.of()));
+        DeliveryService deliveryService = new DeliveryService(
+                deliveryRepository, deliveryMapper, mock(DeliveryEventHandler.class), userDisplayCache,
+                new DeliveryProperties(), mock(OpenDeliveryBoard.class), Validation.buildDefaultValidatorFactory().getValidator(),
+                mock(DeliverySummaryStore.class), mock(DeliveryTimers.class), mock(DeliveryMatcher.class),
+                mock(CourierLocationTracker.class), mock(DeliveryDispatcher.class));
+        Delivery delivery = insert("customer1");
+
+        String before = deliveryService.getDeliveriesETagForCustomer("customer1", DeliveryFieldSet.ALL, false).block();
+        // updated_date is stored to the millisecond
+        Thread.sleep(5);
+        deliveryService.updateDeliveryStatus(delivery.getId(), DeliveryStatus.IN_PROGRESS, "courier1").block();
+        String after = deliveryService.getDeliveriesETagForCustomer("customer1", DeliveryFieldSet.ALL, false).block();
+
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void aFinishedDeliveryWithoutModificationDateIsArchivedByItsCreationDate() {
+        Delivery delivery = finishedBeforeTheCutoff();
+        unset(delivery, "updatedDate");
+
+        List<Delivery> batch = repository.findArchivable(TERMINAL, CUTOFF, 10).collectList().block();
+        assertEquals(List.of(delivery.getId()), batch.stream().map(Delivery::getId).toList());
+        assertEquals(1L, repository.archive(batch, TERMINAL, CUTOFF).block());
+
+        assertNull(mongoTemplate.findById(delivery.getId(), Delivery.class).block());
+        assertNotNull(mongoTemplate.findById(delivery.getId(), Delivery.class, DeliveryRepositoryCustom.ARCHIVE_COLLECTION).block());
+    }
+
+    @Test
+    void aDeliveryChangedAfterItWasReadStaysLiveWithoutAnArchiveCopy() {
+        Delivery delivery = finishedBeforeTheCutoff();
+        Delivery untouched = finishedBeforeTheCutoff();
+        List<Delivery> batch = repository.findArchivable(TERMINAL, CUTOFF, 10).collectList().block();
+        assertEquals(2, batch.size());
+
+        Delivery changed = mongoTemplate.findById(delivery.getId(), Delivery.class).block();
+        changed.setDeliveryDetails("ring twice");
+        mongoTemplate.save(changed).block();
+
+        assertEquals(1L, repository.archive(batch, TERMINAL, CUTOFF).block());
+
+        assertEquals("ring twice", mongoTemplate.findById(delivery.getId(), Delivery.class).block().getDeliveryDetails());
+        assertNull(mongoTemplate.findById(delivery.getId(), Delivery.class, DeliveryRepositoryCustom.ARCHIVE_COLLECTION).block());
+        assertNull(mongoTemplate.findById(untouched.getId(), Delivery.class).block());
+        assertNotNull(mongoTemplate.findById(untouched.getId(), Delivery.class, DeliveryRepositoryCustom.ARCHIVE_COLLECTION).block());
+    }
+}
@@ -1,32 +1,67 @@
 package com.bybud.deliveryservice.service;
 
 import com.bybud.common.exception.DeliveryNotFoundException;
+import com.bybud.deliveryservice.cache.OpenDeliveryBoard;
+import com.bybud.deliveryservice.cache.UserDisplay;
+import com.bybud.deliveryservice.cache.UserDisplayCache;
+import com.bybud.deliveryservice.config.DeliveryProperties;
+import com.bybud.deliveryservice.dispatch.DeliveryDispatcher;
+import com.bybud.deliveryservice.location.CourierLocation;
+import com.bybud.deliveryservice.location.CourierLocationTracker;
+import com.bybud.deliveryservice.matching.DeliveryMatcher;
+import com.bybud.deliveryservice.scheduling.DeliveryTimers;
+import com.bybud.deliveryservice.summary.DeliverySummaryStore;
 import com.bybud.entity.mapper.DeliveryMapper;
 import com.bybud.entity.model.Delivery;
 import com.bybud.entity.model.DeliveryStatus;
-import com.bybud.entity.model.User;
+import com.bybud.entity.model.GeoLocation;
+import com.bybud.entity.repository.DeliveryCursor;
+import com.bybud.entity.repository.DeliveryFieldSet;
 import com.bybud.entity.repository.DeliveryRepository;
-import com.bybud.entity.repository.UserRepository;
+import com.bybud.entity.request.BulkStatusUpdateRequest;
+import com.bybud.entity.request.CourierLocationPing;
 import com.bybud.entity.request.CreateDeliveryRequest;
 import com.bybud.entity.response.DeliveryResponse;
 import com.bybud.kafka.config.KafkaTopicsConfig;
 import com.bybud.kafka.handler.DeliveryEventHandler;
 import com.bybud.kafka.producer.KafkaProducerService;
+import com.bybud.entity.response.BulkDeliveryResponse;
+import com.mongodb.MongoExecutionTimeoutException;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.awaitility.Awaitility.await;
 
@@ -36,7 +71,25 @@ public class DeliveryServiceTest {
     private DeliveryRepository deliveryRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private UserDisplayCache userDisplayCache;
+
+    @Mock
+    private OpenDeliveryBoard openDeliveryBoard;
+
+    @Mock
+    private DeliverySummaryStore summaryStore;
+
+    @Mock
+    private DeliveryTimers deliveryTimers;
+
+    @Mock
+    private DeliveryMatcher deliveryMatcher;
+
+    @Mock
+    private CourierLocationTracker courierLocationTracker;
+
+    @Mock
+    private DeliveryDispatcher deliveryDispatcher;
 
     @Mock
     private KafkaProducerService kafkaProducerService;
@@ -50,12 +103,22 @@ public class DeliveryServiceTest {
     @Mock
     private DeliveryEventHandler eventHandler;
 
-    @InjectMocks
     private DeliveryService deliveryService;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        deliveryService = new DeliveryService(
+                deliveryRepository, deliveryMapper, eventHandler, userDisplayCache, new DeliveryProperties(),
+                openDeliveryBoard, Validation.buildDefaultValidatorFactory().getValidator(), summaryStore, deliveryTimers,
+                deliveryMatcher, courierLocationTracker, deliveryDispatcher);
+        when(deliveryTimers.scheduleCreated(anyList())).thenReturn(Mono.empty());
+    }
+
+    private void stubUsers(UserDisplay... users) {
+        Map<String, UserDisplay> byId = Arrays.stream(users)
+                .collect(Collectors.toMap(UserDisplay::id, Function.identity()));
+        when(userDisplayCache.getAll(anySet())).thenReturn(Mono.just(byId));
     }
 
     // Test getAllDeliveries: mapping a Flux of deliveries to enriched responses
@@ -75,12 +138,10 @@ public class DeliveryServiceTest {
 
         // Stub the repository to return the delivery
         when(deliveryRepository.findAll()).thenReturn(Flux.just(dummyDelivery));
-        // Stub the enrichment: customer lookup returns a User with fullName and username.
-        User dummyCustomer = new User();
-        dummyCustomer.setFullName("New User1");
-        dummyCustomer.setUsername("newuser1");
-        when(userRepository.findById("customer1")).thenReturn(Mono.just(dummyCustomer));
-        // For courierId, since it's null, our enrichment code uses default empty user.
+        // Stub the enrichment: customer lookup returns display data with fullName and username.
+        UserDisplay dummyCustomer = new UserDisplay("customer1", "newuser1", "New User1");
+        stubUsers(dummyCustomer);
+        // For courierId, since it's null, our enrichment code leaves the username empty.
         // Stub mapper to produce the base response
         when(deliveryMapper.toResponse(dummyDelivery)).thenReturn(new DeliveryResponse() {{
             setId("delivery1");
@@ -126,11 +187,9 @@ public class DeliveryServiceTest {
         when(deliveryMapper.toResponse(dummyDelivery)).thenReturn(new DeliveryResponse() {{
             setId("delivery1");
         }});
-        // Stub user repository for enrichment
-        User dummyCustomer = new User();
-        dummyCustomer.setFullName("New User1");
-        dummyCustomer.setUsername("newuser1");
-        when(userRepository.findById("customer1")).thenReturn(Mono.just(dummyCustomer));
+        // Stub user display cache for enrichment
+        UserDisplay dummyCustomer = new UserDisplay("customer1", "newuser1", "New User1");
+        stubUsers(dummyCustomer);
 
         Mono<DeliveryResponse> resultMono = deliveryService.createDelivery(request);
 
@@ -164,10 +223,8 @@ public class DeliveryServiceTest {
         when(deliveryMapper.toResponse(dummyDelivery)).thenReturn(new DeliveryResponse() {{
             setId("delivery1");
         }});
-        User dummyCustomer = new User();
-        dummyCustomer.setFullName("New User1");
-        dummyCustomer.setUsername("newuser1");
-        when(userRepository.findById(customerId)).thenReturn(Mono.just(dummyCustomer));
+        UserDisplay dummyCustomer = new UserDisplay(customerId, "newuser1", "New User1");
+        stubUsers(dummyCustomer);
 
         Flux<DeliveryResponse> flux = deliveryService.getDeliveriesForCustomer(customerId);
 
@@ -198,15 +255,10 @@ public class DeliveryServiceTest {
         when(deliveryMapper.toResponse(dummyDelivery)).thenReturn(new DeliveryResponse() {{
             setId("delivery1");
         }});
-        // Stub both user lookups
-        User dummyCustomer = new User();
-        dummyCustomer.setFullName("New User1");
-        dummyCustomer.setUsername("newuser1");
-        when(userRepository.findById("customer1")).thenReturn(Mono.just(dummyCustomer));
-        User dummyCourier = new User();
-        dummyCourier.setFullName("New User Courier");
-        dummyCourier.setUsername("newuser1");
-        when(userRepository.findById(courierId)).thenReturn(Mono.just(dummyCourier));
+        // Both users are resolved by a single batched cache lookup
+        UserDisplay dummyCustomer = new UserDisplay("customer1", "newuser1", "New User1");
+        UserDisplay dummyCourier = new UserDisplay(courierId, "newuser1", "New User Courier");
+        stubUsers(dummyCustomer, dummyCourier);
 
         Flux<DeliveryResponse> flux = deliveryService.getDeliveriesForCourier(courierId);
 
@@ -219,6 +271,522 @@ public class DeliveryServiceTest {
                 .verifyComplete();
     }
 
+    // Test list enrichment: users of a whole window are resolved with one lookup, in source order
+    @Test
+    public void testGetDeliveriesForCourier_BatchesUserLookups() {
+        String courierId = "courier1";
+        Delivery first = new Delivery();
+        first.setId("delivery1");
+        first.setCourierId(courierId);
+        first.setCustomerId("customer1");
+        Delivery second = new Delivery();
+        second.setId("delivery2");
+        second.setCourierId(courierId);
+        second.setCustomerId("customer2");
+
+        when(deliveryRepository.findByCourierId(courierId)).thenReturn(Flux.just(first, second));
+        when(deliveryMapper.toResponse(any(Delivery.class))).thenAnswer(invocation -> {
+            DeliveryResponse response = new DeliveryResponse();
+            response.setId(((Delivery) invocation.getArgument(0)).getId());
+            return response;
+        });
+        UserDisplay customer1 = new UserDisplay("customer1", null, "Customer One");
+        UserDisplay customer2 = new UserDisplay("customer2", null, "Customer Two");
+        UserDisplay courier = new UserDisplay(courierId, "courier-one", null);
+        stubUsers(customer1, customer2, courier);
+
+        StepVerifier.create(deliveryService.getDeliveriesForCourier(courierId))
+                .assertNext(response -> {
+                    assert response.getId().equals("delivery1");
+                    assert response.getCustomerName().equals("Customer One");
+                    assert response.getCourierUsername().equals("courier-one");
+                })
+                .assertNext(response -> {
+                    assert response.getId().equals("delivery2");
+                    assert response.getCustomerName().equals("Customer Two");
+                    assert response.getCourierUsername().equals("courier-one");
+                })
+                .verifyComplete();
+
+        verify(userDisplayCache, times(1)).getAll(Set.of("customer1", "customer2", courierId));
+    }
+
+    // Test getDeliveriesForCourier with a sparse fieldset: projected query, no user lookup, unrequested fields cleared
+    @Test
+    public void testGetDeliveriesForCourier_SparseFields() {
+        DeliveryFieldSet fields = DeliveryFieldSet.parse("id,status,pickupAddress");
+
+        Delivery delivery = new Delivery();
+        delivery.setId("delivery1");
+        delivery.setCourierId("courier1");
+        delivery.setStatus(DeliveryStatus.ASSIGNED);
+        delivery.setPickupAddress("Pickup");
+        delivery.setCreatedDate(LocalDateTime.now());
+
+        DeliveryResponse response = new DeliveryResponse();
+        response.setId("delivery1");
+        response.setCourierId("courier1");
+        response.setStatus(DeliveryStatus.ASSIGNED);
+        response.setPickupAddress("Pickup");
+        response.setCreatedDate(delivery.getCreatedDate());
+
+        when(deliveryRepository.findProjected(any(Criteria.class), eq(fields))).thenReturn(Flux.just(delivery));
+        when(deliveryMapper.toResponse(delivery)).thenReturn(response);
+
+        StepVerifier.create(deliveryService.getDeliveriesForCourier("courier1", fields))
+                .assertNext(result -> {
+                    assert result.getId().equals("delivery1");
+                    assert result.getStatus() == DeliveryStatus.ASSIGNED;
+                    assert result.getPickupAddress().equals("Pickup");
+                    assert result.getCourierId() == null;
+                    assert result.getCreatedDate() == null;
+                })
+                .verifyComplete();
+
+        verify(deliveryRepository, never()).findByCourierId(anyString());
+        verifyNoInteractions(userDisplayCache);
+    }
+
+    // Test getAllDeliveriesPage: a full page carries a cursor pointing at its last delivery
+    @Test
+    public void testGetAllDeliveriesPage_ReturnsNextCursor() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+        Delivery first = new Delivery();
+        first.setId("delivery3");
+        first.setCustomerId("customer1");
+        first.setCreatedDate(now);
+        Delivery second = new Delivery();
+        second.setId("delivery2");
+        second.setCustomerId("customer1");
+        second.setCreatedDate(now.minusMinutes(1));
+        Delivery third = new Delivery();
+        third.setId("delivery1");
+        third.setCustomerId("customer1");
+        third.setCreatedDate(now.minusMinutes(2));
+
+        // One extra delivery is requested to detect the next page
+        when(deliveryRepository.findPage(isNull(), isNull(), eq(3), eq(DeliveryFieldSet.ALL))).thenReturn(Flux.just(first, second, third));
+        when(deliveryMapper.toResponse(any(Delivery.class))).thenAnswer(invocation -> {
+            DeliveryResponse response = new DeliveryResponse();
+            response.setId(((Delivery) invocation.getArgument(0)).getId());
+            return response;
+        });
+        stubUsers(new UserDisplay("customer1", "newuser1", "New User1"));
+
+        StepVerifier.create(deliveryService.getAllDeliveriesPage(null, 2))
+                .assertNext(page -> {
+                    assert page.getItems().size() == 2;
+                    assert page.getItems().get(1).getId().equals("delivery2");
+                    DeliveryCursor cursor = DeliveryCursor.decode(page.getNextCursor());
+                    assert cursor.id().equals("delivery2");
+                    assert cursor.createdDate().equals(second.getCreatedDate());
+                })
+                .verifyComplete();
+    }
+
+    // Test getAllDeliveriesPage: the last page has no cursor
+    @Test
+    public void testGetAllDeliveriesPage_LastPage() {
+        Delivery only = new Delivery();
+        only.setId("delivery1");
+        only.setCustomerId("customer1");
+        only.setCreatedDate(LocalDateTime.of(2025, 1, 1, 12, 0));
+        DeliveryCursor after = new DeliveryCursor(LocalDateTime.of(2025, 1, 1, 13, 0), "delivery9");
+
+        when(deliveryRepository.findPage(isNull(), eq(after), eq(3), eq(DeliveryFieldSet.ALL))).thenReturn(Flux.just(only));
+        when(deliveryMapper.toResponse(only)).thenReturn(new DeliveryResponse() {{
+            setId("delivery1");
+        }});
+        stubUsers(new UserDisplay("customer1", "newuser1", "New User1"));
+
+        StepVerifier.create(deliveryService.getAllDeliveriesPage(after.encode(), 2))
+                .assertNext(page -> {
+                    assert page.getItems().size() == 1;
+                    assert page.getNextCursor() == null;
+                })
+                .verifyComplete();
+    }
+
+    // Test getAllDeliveriesPage: a page ending on a delivery without a created date still leads to the next one
+    @Test
+    public void testGetAllDeliveriesPage_WalksPastUndatedDeliveries() {
+        Delivery dated = new Delivery();
+        dated.setId("delivery3");
+        dated.setCustomerId("customer1");
+        dated.setCreatedDate(LocalDateTime.of(2025, 1, 1, 12, 0));
+        Delivery undated = new Delivery();
+        undated.setId("delivery2");
+        undated.setCustomerId("customer1");
+        Delivery oldest = new Delivery();
+        oldest.setId("delivery1");
+        oldest.setCustomerId("customer1");
+
+        when(deliveryRepository.findPage(isNull(), isNull(), eq(3), eq(DeliveryFieldSet.ALL)))
+                .thenReturn(Flux.just(dated, undated, oldest));
+        when(deliveryRepository.findPage(isNull(), eq(new DeliveryCursor(null, "delivery2")), eq(3), eq(DeliveryFieldSet.ALL)))
+                .thenReturn(Flux.just(oldest));
+        when(deliveryMapper.toResponse(any(Delivery.class))).thenAnswer(invocation -> {
+            DeliveryResponse response = new DeliveryResponse();
+            response.setId(((Delivery) invocation.getArgument(0)).getId());
+            return response;
+        });
+        stubUsers(new UserDisplay("customer1", "newuser1", "New User1"));
+
+        String nextCursor = deliveryService.getAllDeliveriesPage(null, 2).block().getNextCursor();
+
+        StepVerifier.create(deliveryService.getAllDeliveriesPage(nextCursor, 2))
+                .assertNext(page -> {
+                    assert page.getItems().stream().map(DeliveryResponse::getId).toList().equals(List.of("delivery1"));
+                    assert page.getNextCursor() == null;
+                })
+                .verifyComplete();
+    }
+
+    // Test getDeliveriesPageForCustomer with history: live and archived deliveries merge in page order
+    @Test
+    public void testGetDeliveriesPageForCustomer_WithHistory() {
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 12, 0);
+        Delivery live = new Delivery();
+        live.setId("delivery3");
+        live.setCustomerId("customer1");
+        live.setCreatedDate(now);
+        Delivery archived = new Delivery();
+        archived.setId("delivery2");
+        archived.setCustomerId("customer1");
+        archived.setCreatedDate(now.minusDays(40));
+        Delivery older = new Delivery();
+        older.setId("delivery1");
+        older.setCustomerId("customer1");
+        older.setCreatedDate(now.minusDays(50));
+
+        // delivery2 is mid-archive and still present in the live collection
+        when(deliveryRepository.findPage(any(Criteria.class), isNull(), eq(3), eq(DeliveryFieldSet.ALL)))
+                .thenReturn(Flux.just(live, archived));
+        when(deliveryRepository.findArchivedPage(any(Criteria.class), isNull(), eq(3), eq(DeliveryFieldSet.ALL)))
+                .thenReturn(Flux.just(archived, older));
+        when(deliveryMapper.toResponse(any(Delivery.class))).thenAnswer(invocation -> {
+            DeliveryResponse response = new DeliveryResponse();
+            response.setId(((Delivery) invocation.getArgument(0)).getId());
+            return response;
+        });
+        stubUsers(new UserDisplay("customer1", "newuser1", "New User1"));
+
+        StepVerifier.create(deliveryService.getDeliveriesPageForCustomer("customer1", null, 2, DeliveryFieldSet.ALL, true))
+                .assertNext(page -> {
+                    assert page.getItems().stream().map(DeliveryResponse::getId).toList()
+                            .equals(List.of("delivery3", "delivery2"));
+                    assert DeliveryCursor.decode(page.getNextCursor()).id().equals("delivery2");
+                })
+                .verifyComplete();
+    }
+
+    // Test searchDeliveries: a prefix too short to use the address indexes is rejected before querying
+    @Test
+    public void testSearchDeliveries_PrefixTooShort() {
+        StepVerifier.create(deliveryService.searchDeliveries(" ab ", true, null, 10, DeliveryFieldSet.ALL))
+                .expectErrorMatches(throwable ->
+                        throwable instanceof ResponseStatusException &&
+                                ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+
+        verifyNoInteractions(deliveryRepository);
+    }
+
+    // Test searchDeliveries: a query exceeding its time budget surfaces as 503
+    @Test
+    public void testSearchDeliveries_TimeBudgetExceeded() {
+        when(deliveryRepository.searchText(eq("storgata"), isNull(), eq(11), eq(DeliveryFieldSet.ALL), any(Duration.class)))
+                .thenReturn(Flux.error(new UncategorizedMongoDbException("operation exceeded time limit",
+                        new MongoExecutionTimeoutException(50, "operation exceeded time limit"))));
+
+        StepVerifier.create(deliveryService.searchDeliveries("storgata", false, null, 10, DeliveryFieldSet.ALL))
+                .expectErrorMatches(throwable ->
+                        throwable instanceof ResponseStatusException &&
+                                ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+    }
+
+    // Test getAllDeliveriesPage: a tampered cursor is rejected as a bad request
+    @Test
+    public void testGetAllDeliveriesPage_InvalidCursor() {
+        StepVerifier.create(deliveryService.getAllDeliveriesPage("not-a-cursor", 10))
+                .expectErrorMatches(throwable ->
+                        throwable instanceof ResponseStatusException &&
+                                ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+    }
+
+    // Test createDeliveries: valid items share one insert and one event batch, others are reported per item
+    @Test
+    public void testCreateDeliveries_MixedBatch() {
+        CreateDeliveryRequest valid = new CreateDeliveryRequest();
+        valid.setCustomerId("customer1");
+        valid.setDeliveryDetails("Package");
+        valid.setPickupAddress("Pickup 1");
+        valid.setDeliveryAddress("Address 1");
+
+        CreateDeliveryRequest invalid = new CreateDeliveryRequest();
+        invalid.setCustomerId("customer1");
+        invalid.setPickupAddress("Pickup 2");
+        invalid.setDeliveryAddress("Address 2");
+
+        CreateDeliveryRequest forbidden = new CreateDeliveryRequest();
+        forbidden.setCustomerId("customer2");
+        forbidden.setDeliveryDetails("Package");
+        forbidden.setPickupAddress("Pickup 3");
+        forbidden.setDeliveryAddress("Address 3");
+
+        Delivery entity = new Delivery("customer1", "Package", "Pickup 1", "Address 1");
+        Delivery saved = new Delivery("customer1", "Package", "Pickup 1", "Address 1");
+        saved.setId("delivery1");
+        DeliveryResponse response = new DeliveryResponse();
+        response.setId("delivery1");
+        response.setCustomerId("customer1");
+
+        when(deliveryMapper.toEntity(valid)).thenReturn(entity);
+        when(deliveryRepository.insert(List.of(entity))).thenReturn(Flux.just(saved));
+        when(deliveryMapper.toResponse(saved)).thenReturn(response);
+        stubUsers(new UserDisplay("customer1", "customer-one", "Customer One"));
+
+        StepVerifier.create(deliveryService.createDeliveries(
+                        List.of(valid, invalid, forbidden), request -> "customer1".equals(request.getCustomerId())))
+                .assertNext(result -> {
+                    assert result.getSucceeded() == 1 && result.getFailed() == 2;
+                    assert result.getResults().get(0).isSuccess();
+                    assert result.getResults().get(0).getDelivery().getCustomerName().equals("Customer One");
+                    assert result.getResults().get(1).getErrors().equals(List.of("Delivery details are required."));
+                    assert result.getResults().get(2).getErrors().equals(List.of("Cannot create deliveries for other customers"));
+                })
+                .verifyComplete();
+
+        verify(deliveryRepository, times(1)).insert(anyList());
+        verify(deliveryRepository, never()).save(any(Delivery.class));
+        verify(eventHandler, times(1)).publishDeliveriesCreated(
+                new DeliveryEventHandler.DeliveriesCreatedEvent(
+                        List.of(new DeliveryEventHandler.DeliveryCreatedEvent("delivery1", "customer1", "CREATED"))));
+    }
+
+    // Test createDeliveries: oversized batches are rejected outright
+    @Test
+    public void testCreateDeliveries_TooMany() {
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getBulk().setMaxItems(1);
+        DeliveryService limited = new DeliveryService(deliveryRepository, deliveryMapper, eventHandler,
+                userDisplayCache, properties, openDeliveryBoard, Validation.buildDefaultValidatorFactory().getValidator(), summaryStore,
+                deliveryTimers, deliveryMatcher, courierLocationTracker, deliveryDispatcher);
+
+        StepVerifier.create(limited.createDeliveries(
+                        List.of(new CreateDeliveryRequest(), new CreateDeliveryRequest()), request -> true))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+        verifyNoInteractions(deliveryRepository);
+    }
+
+    // Test updateDeliveryStatuses: one updateMany over allowed sources, events only for moved deliveries
+    @Test
+    public void testUpdateDeliveryStatuses_ByIds() {
+        BulkStatusUpdateRequest request = new BulkStatusUpdateRequest();
+        request.setStatus(DeliveryStatus.CANCELLED);
+        request.setDeliveryIds(List.of("d1", "d2", "d3", "d1"));
+
+        Delivery d1 = new Delivery();
+        d1.setId("d1");
+        d1.setCustomerId("customer1");
+        d1.setStatus(DeliveryStatus.CREATED);
+        Delivery d2 = new Delivery();
+        d2.setId("d2");
+        d2.setCustomerId("customer2");
+        d2.setStatus(DeliveryStatus.CREATED);
+
+        // d3 is missing or already terminal
+        when(deliveryRepository.findProjected(any(Criteria.class), any(DeliveryFieldSet.class), anyInt()))
+                .thenReturn(Flux.just(d1, d2));
+        // d2 changed concurrently before the update
+        when(deliveryRepository.findIds(any(Criteria.class), anyInt())).thenReturn(Flux.just("d1"));
+        when(deliveryRepository.transitionStatus(eq(List.of("d1", "d2")),
+                eq(DeliveryStatus.CANCELLED.allowedSourceStates()), eq(DeliveryStatus.CANCELLED), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(1L));
+
+        StepVerifier.create(deliveryService.updateDeliveryStatuses(request))
+                .assertNext(response -> {
+                    assert response.getUpdatedIds().equals(List.of("d1"));
+                    assert response.getSkippedIds().equals(List.of("d2", "d3"));
+                })
+                .verifyComplete();
+
+        verify(deliveryRepository, never()).save(any(Delivery.class));
+        verify(eventHandler, times(1)).publishDeliveryStatusesUpdated(
+                new DeliveryEventHandler.DeliveryStatusesUpdatedEvent(
+                        List.of(new DeliveryEventHandler.DeliveryStatusUpdatedEvent(
+                                "d1", "CANCELLED", "CREATED", "customer1", null, null))));
+    }
+
+    // Test updateDeliveryStatuses: a filter matching more than the bulk limit is rejected before updating
+    @Test
+    public void testUpdateDeliveryStatuses_FilterTooBroad() {
+        DeliveryProperties properties = new DeliveryProperties();
+        properties.getBulk().setMaxItems(1);
+        DeliveryService limited = new DeliveryService(deliveryRepository, deliveryMapper, eventHandler,
+                userDisplayCache, properties, openDeliveryBoard, Validation.buildDefaultValidatorFactory().getValidator(), summaryStore,
+                deliveryTimers, deliveryMatcher, courierLocationTracker, deliveryDispatcher);
+
+        BulkStatusUpdateRequest request = new BulkStatusUpdateRequest();
+        request.setStatus(DeliveryStatus.COMPLETED);
+        request.setCourierId("courier1");
+
+        when(deliveryRepository.findProjected(any(Criteria.class), any(DeliveryFieldSet.class), eq(2)))
+                .thenReturn(Flux.just(new Delivery(), new Delivery()));
+
+        StepVerifier.create(limited.updateDeliveryStatuses(request))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+        verify(deliveryRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    // Test createDelivery: a delivery dated after today waits as PENDING and gets its activation timer
+    @Test
+    public void testCreateDelivery_FutureDateIsPending() {
+        CreateDeliveryRequest request = new CreateDeliveryRequest();
+        request.setCustomerId("customer1");
+        request.setDeliveryDate(LocalDate.now().plusDays(3));
+
+        Delivery entity = new Delivery("customer1", "Package", "Pickup 1", "Address 1");
+        entity.setDeliveryDate(request.getDeliveryDate());
+        when(deliveryMapper.toEntity(request)).thenReturn(entity);
+        when(deliveryRepository.save(any(Delivery.class))).thenAnswer(invocation -> {
+            Delivery saved = invocation.getArgument(0);
+            saved.setId("delivery1");
+            return Mono.just(saved);
+        });
+        when(deliveryMapper.toResponse(any(Delivery.class))).thenReturn(new DeliveryResponse());
+        stubUsers(new UserDisplay("customer1", "customer-one", "Customer One"));
+
+        StepVerifier.create(deliveryService.createDelivery(request))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assert entity.getStatus() == DeliveryStatus.PENDING;
+        verify(eventHandler).publishDeliveryCreated(
+                new DeliveryEventHandler.DeliveryCreatedEvent("delivery1", "customer1", "PENDING"));
+        verify(deliveryTimers).scheduleCreated(List.of(entity));
+    }
+
+    // Test applyTimedTransition: only deliveries still in the source status move, and they are announced
+    @Test
+    public void testApplyTimedTransition() {
+        Delivery d1 = new Delivery();
+        d1.setId("d1");
+        d1.setCustomerId("customer1");
+        d1.setStatus(DeliveryStatus.PENDING);
+
+        when(deliveryRepository.findProjected(any(Criteria.class), any(DeliveryFieldSet.class), eq(2)))
+                .thenReturn(Flux.just(d1));
+        when(deliveryRepository.transitionStatus(eq(List.of("d1")), eq(Set.of(DeliveryStatus.PENDING)),
+                eq(DeliveryStatus.CREATED), any(LocalDateTime.class)))
+                .thenReturn(Mono.just(1L));
+        when(deliveryRepository.findIds(any(Criteria.class), eq(1))).thenReturn(Flux.just("d1"));
+
+        StepVerifier.create(deliveryService.applyTimedTransition(
+                        List.of("d1", "d2"), DeliveryStatus.PENDING, DeliveryStatus.CREATED))
+                .expectNext(List.of("d1"))
+                .verifyComplete();
+
+        verify(eventHandler, times(1)).publishDeliveryStatusesUpdated(
+                new DeliveryEventHandler.DeliveryStatusesUpdatedEvent(
+                        List.of(new DeliveryEventHandler.DeliveryStatusUpdatedEvent(
+                                "d1", "CREATED", "PENDING", "customer1", null, null))));
+    }
+
+    // Test getMatchedDeliveries: matches come from the latest round, minus deliveries taken since
+    @Test
+    public void testGetMatchedDeliveries_SkipsTakenDeliveries() {
+        Delivery open = new Delivery("customer1", "Package", "Pickup 1", "Address 1");
+        open.setId("d1");
+        DeliveryResponse response = new DeliveryResponse();
+        response.setId("d1");
+
+        when(deliveryMatcher.matchesFor("courier1")).thenReturn(List.of("d1", "d2"));
+        when(openDeliveryBoard.get("d1")).thenReturn(open);
+        when(openDeliveryBoard.get("d2")).thenReturn(null);
+        when(deliveryMapper.toResponse(open)).thenReturn(response);
+
+        StepVerifier.create(deliveryService.getMatchedDeliveries("courier1", DeliveryFieldSet.parse("id,status")))
+                .assertNext(result -> {
+                    assert result.getId().equals("d1");
+                })
+                .verifyComplete();
+        verifyNoInteractions(deliveryRepository);
+    }
+
+    // Test getOpenDeliveriesNear: the radius and limit are capped before the geo query
+    @Test
+    public void testGetOpenDeliveriesNear_CapsRadiusAndLimit() {
+        when(deliveryRepository.findOpenNear(any(), anyDouble(), anyInt(), any(DeliveryFieldSet.class)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(deliveryService.getOpenDeliveriesNear(
+                        new GeoLocation(59.91, 10.75), 50_000.0, 1000, DeliveryFieldSet.parse("id")))
+                .verifyComplete();
+
+        verify(deliveryRepository).findOpenNear(any(), eq(5000.0), eq(20), any(DeliveryFieldSet.class));
+    }
+
+    // Test getOpenDeliveriesNear: coordinates out of range are rejected
+    @Test
+    public void testGetOpenDeliveriesNear_InvalidLocation() {
+        StepVerifier.create(deliveryService.getOpenDeliveriesNear(
+                        new GeoLocation(95, 10.75), null, null, DeliveryFieldSet.ALL))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+        verifyNoInteractions(deliveryRepository);
+    }
+
+    // Test reportCourierLocations: fixes are published for the courier, missing or future timestamps become now
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReportCourierLocations_PublishesPings() {
+        when(courierLocationTracker.publish(eq("courier1"), anyList())).thenReturn(Mono.empty());
+        long before = System.currentTimeMillis();
+
+        StepVerifier.create(deliveryService.reportCourierLocations("courier1", List.of(
+                        new CourierLocationPing(59.91, 10.75, 1_000L),
+                        new CourierLocationPing(59.92, 10.76, null),
+                        new CourierLocationPing(59.93, 10.77, before + Duration.ofHours(1).toMillis()))))
+                .verifyComplete();
+
+        ArgumentCaptor<List<CourierLocation>> captor = ArgumentCaptor.forClass(List.class);
+        verify(courierLocationTracker).publish(eq("courier1"), captor.capture());
+        List<CourierLocation> published = captor.getValue();
+        assert published.size() == 3;
+        assert published.get(0).recordedAt() == 1_000L;
+        assert published.get(1).recordedAt() >= before;
+        assert published.get(2).recordedAt() < before + Duration.ofMinutes(1).toMillis();
+        assert published.stream().allMatch(location -> location.courierId().equals("courier1"));
+    }
+
+    // Test reportCourierLocations: invalid coordinates and oversized reports are rejected before publishing
+    @Test
+    public void testReportCourierLocations_RejectsInvalidReports() {
+        StepVerifier.create(deliveryService.reportCourierLocations("courier1",
+                        List.of(new CourierLocationPing(95, 10.75, null))))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+
+        List<CourierLocationPing> tooMany = IntStream.range(0, 51)
+                .mapToObj(i -> new CourierLocationPing(59.91, 10.75, (long) i))
+                .toList();
+        StepVerifier.create(deliveryService.reportCourierLocations("courier1", tooMany))
+                .expectErrorMatches(throwable -> throwable instanceof ResponseStatusException &&
+                        ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+
+        verifyNoInteractions(courierLocationTracker);
+    }
+
     // Test acceptDelivery: successful scenario when delivery is in CREATED status
     @Test
     public void testAcceptDelivery_Success() {
@@ -243,23 +811,14 @@ public class DeliveryServiceTest {
         dummyResponse.setCustomerName("New User1");
         dummyResponse.setCourierUsername("newuser1");
 
-        when(deliveryRepository.findById(deliveryId)).thenReturn(Mono.just(dummyDelivery));
-        when(deliveryRepository.save(any(Delivery.class))).thenReturn(Mono.just(updatedDelivery));
-        when(kafkaTopicsConfig.getDeliveryStatusUpdatedTopic()).thenReturn("delivery.status.updated.topic");
-        when(deliveryMapper.toJson(updatedDelivery)).thenReturn("json");
-        when(kafkaProducerService.sendMessage("delivery.status.updated.topic", "json")).thenReturn(Mono.empty());
+        when(deliveryRepository.assignCourierIfCreated(deliveryId, courierId)).thenReturn(Mono.just(updatedDelivery));
         when(deliveryMapper.toResponse(updatedDelivery)).thenReturn(new DeliveryResponse() {{
             setId(deliveryId);
         }});
         // Stub user lookups for enrichment
-        User dummyCustomer = new User();
-        dummyCustomer.setFullName("New User1");
-        dummyCustomer.setUsername("newuser1");
-        when(userRepository.findById("customer1")).thenReturn(Mono.just(dummyCustomer));
-        User dummyCourier = new User();
-        dummyCourier.setFullName("Courier Name");
-        dummyCourier.setUsername("newuser1");
-        when(userRepository.findById(courierId)).thenReturn(Mono.just(dummyCourier));
+        UserDisplay dummyCustomer = new UserDisplay("customer1", "newuser1", "New User1");
+        UserDisplay dummyCourier = new UserDisplay(courierId, "newuser1", "Courier Name");
+        stubUsers(dummyCustomer, dummyCourier);
 
         Mono<DeliveryResponse> resultMono = deliveryService.acceptDelivery(deliveryId, courierId);
 
@@ -275,9 +834,11 @@ public class DeliveryServiceTest {
         await().atMost(500, TimeUnit.MILLISECONDS)
                 .untilAsserted(() -> verify(eventHandler, times(1))
                         .publishDeliveryStatusUpdated(any(DeliveryEventHandler.DeliveryStatusUpdatedEvent.class)));
+        verify(deliveryRepository, never()).findById(anyString());
+        verify(deliveryRepository, never()).save(any(Delivery.class));
     }
 
-    // Test acceptDelivery: failure when delivery status is not CREATED
+    // Test acceptDelivery: conflict when delivery status is no longer CREATED
     @Test
     public void testAcceptDelivery_InvalidStatus() {
         String deliveryId = "delivery1";
@@ -287,6 +848,7 @@ public class DeliveryServiceTest {
         dummyDelivery.setId(deliveryId);
         dummyDelivery.setStatus(DeliveryStatus.IN_PROGRESS);
 
+        when(deliveryRepository.assignCourierIfCreated(deliveryId, courierId)).thenReturn(Mono.empty());
         when(deliveryRepository.findById(deliveryId)).thenReturn(Mono.just(dummyDelivery));
 
         Mono<DeliveryResponse> resultMono = deliveryService.acceptDelivery(deliveryId, courierId);
@@ -294,11 +856,79 @@ public class DeliveryServiceTest {
         StepVerifier.create(resultMono)
                 .expectErrorMatches(throwable ->
                         throwable instanceof ResponseStatusException &&
-                                ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.BAD_REQUEST &&
+                                ((ResponseStatusException) throwable).getStatusCode() == HttpStatus.CONFLICT &&
                                 Objects.equals(((ResponseStatusException) throwable).getReason(),
                                         "Delivery cannot be accepted. Current status: " + dummyDelivery.getStatus())
                 )
                 .verify();
+        verify(eventHandler, never()).publishDeliveryStatusUpdated(any());
+    }
+
+    // Test acceptDelivery: not found when the delivery does not exist
+    @Test
+    public void testAcceptDelivery_NotFound() {
+        when(deliveryRepository.assignCourierIfCreated("missing", "courier1")).thenReturn(Mono.empty());
+        when(deliveryRepository.findById("missing")).thenReturn(Mono.empty());
+
+        StepVerifier.create(deliveryService.acceptDelivery("missing", "courier1"))
+                .expectError(DeliveryNotFoundException.class)
+                .verify();
+    }
+
+    // Test acceptOffer: the courier holding the offer wins in Redis and writes the assignment
+    @Test
+    public void testAcceptOffer_Success() {
+        Delivery assigned = new Delivery();
+        assigned.setId("delivery1");
+        assigned.setStatus(DeliveryStatus.ASSIGNED);
+        assigned.setCourierId("courier1");
+        assigned.setCustomerId("customer1");
+
+        when(deliveryDispatcher.accept("delivery1", "courier1")).thenReturn(Mono.just(true));
+        when(deliveryRepository.assignCourierIfCreated("delivery1", "courier1")).thenReturn(Mono.just(assigned));
+        when(deliveryMapper.toResponse(assigned)).thenReturn(new DeliveryResponse() {{
+            setId("delivery1");
+        }});
+        stubUsers(new UserDisplay("customer1", "newuser1", "New User1"),
+                new UserDisplay("courier1", "courier", "Courier Name"));
+
+        StepVerifier.create(deliveryService.acceptOffer("delivery1", "courier1"))
+                .assertNext(response -> {
+                    assert response.getId().equals("delivery1");
+                })
+                .verifyComplete();
+
+        verify(eventHandler).publishDeliveryStatusUpdated(any(DeliveryEventHandler.DeliveryStatusUpdatedEvent.class));
+        verify(deliveryDispatcher, never()).release(anyString());
+    }
+
+    // Test acceptOffer: a courier without a live offer is turned away without touching the database
+    @Test
+    public void testAcceptOffer_Lost() {
+        when(deliveryDispatcher.accept("delivery1", "courier2")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(deliveryService.acceptOffer("delivery1", "courier2"))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException e
+                        && e.getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
+
+        verifyNoInteractions(deliveryRepository);
+    }
+
+    // Test acceptOffer: a winner whose assignment fails hands the delivery back to the dispatcher
+    @Test
+    public void testAcceptOffer_ReleasesWhenNoLongerOpen() {
+        when(deliveryDispatcher.accept("delivery1", "courier1")).thenReturn(Mono.just(true));
+        when(deliveryDispatcher.release("delivery1")).thenReturn(Mono.empty());
+        when(deliveryRepository.assignCourierIfCreated("delivery1", "courier1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(deliveryService.acceptOffer("delivery1", "courier1"))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException e
+                        && e.getStatusCode() == HttpStatus.CONFLICT)
+                .verify();
+
+        verify(deliveryDispatcher).release("delivery1");
+        verify(eventHandler, never()).publishDeliveryStatusUpdated(any());
     }
 
     // Test updateDeliveryStatus: successful update when userId is provided and delivery exists
@@ -333,10 +963,8 @@ public class DeliveryServiceTest {
             setId(deliveryId);
         }});
         // Stub enrichment for customer lookup
-        User dummyCustomer = new User();
-        dummyCustomer.setFullName("New User1");
-        dummyCustomer.setUsername("newuser1");
-        when(userRepository.findById("customer1")).thenReturn(Mono.just(dummyCustomer));
+        UserDisplay dummyCustomer = new UserDisplay("customer1", "newuser1", "New User1");
+        stubUsers(dummyCustomer);
 
         Mono<DeliveryResponse> resultMono = deliveryService.updateDeliveryStatus(deliveryId, newStatus, userId);
 
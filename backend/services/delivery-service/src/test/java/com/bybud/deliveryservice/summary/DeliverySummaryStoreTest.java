@@ -0,0 +1,71 @@
+package com.bybud.deliveryservice.summary;
+
+import com.bybud.kafka.handler.DeliveryEventHandler.DeliveryCreatedEvent;
+import com.bybud.kafka.handler.DeliveryEventHandler.DeliveryStatusUpdatedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeliverySummaryStoreTest {
+
+    @Test
+    void createdDeltasCountEachCustomersNewDeliveries() {
+        Map<String, Map<String, Long>> deltas = DeliverySummaryStore.createdDeltas(List.of(
+                new DeliveryCreatedEvent("d1", "customer1"),
+                new DeliveryCreatedEvent("d2", "customer1"),
+                new DeliveryCreatedEvent("d3", "customer2")));
+
+        assertEquals(Map.of("CREATED", 2L), deltas.get("delivery:summary:customer:customer1"));
+        assertEquals(Map.of("CREATED", 1L), deltas.get("delivery:summary:customer:customer2"));
+    }
+
+    @Test
+    void createdDeltasCountScheduledDeliveriesAsPending() {
+        Map<String, Map<String, Long>> deltas = DeliverySummaryStore.createdDeltas(List.of(
+                new DeliveryCreatedEvent("d1", "customer1", "PENDING"),
+                new DeliveryCreatedEvent("d2", "customer1", "CREATED")));
+
+        assertEquals(Map.of("PENDING", 1L, "CREATED", 1L), deltas.get("delivery:summary:customer:customer1"));
+    }
+
+    @Test
+    void acceptMovesCustomerCountAndCreditsCourier() {
+        Map<String, Map<String, Long>> deltas = DeliverySummaryStore.statusDeltas(List.of(
+                new DeliveryStatusUpdatedEvent("d1", "ASSIGNED", "CREATED", "customer1", "courier1", null)));
+
+        assertEquals(Map.of("CREATED", -1L, "ASSIGNED", 1L), deltas.get("delivery:summary:customer:customer1"));
+        assertEquals(Map.of("ASSIGNED", 1L), deltas.get("delivery:summary:courier:courier1"));
+    }
+
+    @Test
+    void statusChangeMovesCountsForBothOwners() {
+        Map<String, Map<String, Long>> deltas = DeliverySummaryStore.statusDeltas(List.of(
+                new DeliveryStatusUpdatedEvent("d1", "COMPLETED", "IN_PROGRESS", "customer1", "courier1", "courier1"),
+                new DeliveryStatusUpdatedEvent("d2", "COMPLETED", "IN_PROGRESS", "customer1", "courier1", "courier1")));
+
+        assertEquals(Map.of("IN_PROGRESS", -2L, "COMPLETED", 2L), deltas.get("delivery:summary:customer:customer1"));
+        assertEquals(Map.of("IN_PROGRESS", -2L, "COMPLETED", 2L), deltas.get("delivery:summary:courier:courier1"));
+    }
+
+    @Test
+    void unknownPreviousStatusMarksOwnersForRebuild() {
+        Map<String, Map<String, Long>> deltas = DeliverySummaryStore.statusDeltas(List.of(
+                new DeliveryStatusUpdatedEvent("d1", "COMPLETED", "IN_PROGRESS", "customer1", "courier1", "courier1"),
+                new DeliveryStatusUpdatedEvent("d2", "CANCELLED")));
+
+        assertEquals(Map.of("IN_PROGRESS", -1L, "COMPLETED", 1L), deltas.get("delivery:summary:customer:customer1"));
+
+        deltas = DeliverySummaryStore.statusDeltas(List.of(
+                new DeliveryStatusUpdatedEvent("d1", "CANCELLED", null, "customer1", "courier1", "courier1"),
+                new DeliveryStatusUpdatedEvent("d2", "COMPLETED", "IN_PROGRESS", "customer1", "courier1", "courier1")));
+
+        assertTrue(deltas.containsKey("delivery:summary:customer:customer1"));
+        assertNull(deltas.get("delivery:summary:customer:customer1"));
+        assertNull(deltas.get("delivery:summary:courier:courier1"));
+    }
+}